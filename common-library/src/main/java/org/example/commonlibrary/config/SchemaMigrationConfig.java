@@ -0,0 +1,42 @@
+package org.example.commonlibrary.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.output.MigrateResult;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.flyway.autoconfigure.FlywayAutoConfiguration;
+import org.springframework.boot.flyway.autoconfigure.FlywayMigrationStrategy;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * Tables are still created by Hibernate (ddl-auto: update); Flyway migrations under
+ * db/migration add what Hibernate cannot express, such as extensions and GIN indexes.
+ * Migrations therefore run once the application has started and the tables exist,
+ * instead of before the EntityManagerFactory as Spring Boot would run them.
+ *
+ * Applies to every service that has Flyway enabled; test slices leave it out.
+ */
+@AutoConfiguration(after = FlywayAutoConfiguration.class)
+@ConditionalOnClass(Flyway.class)
+@ConditionalOnBean(Flyway.class)
+@Slf4j
+public class SchemaMigrationConfig {
+
+    @Bean
+    public FlywayMigrationStrategy deferredMigrationStrategy() {
+        return flyway -> log.debug("Deferring Flyway migrations until startup has completed");
+    }
+
+    @Bean
+    public ApplicationRunner schemaMigrationRunner(Flyway flyway) {
+        return args -> {
+            MigrateResult result = flyway.migrate();
+            if (result.migrationsExecuted > 0) {
+                log.info("Applied {} schema migration(s), now at version {}", result.migrationsExecuted, result.targetSchemaVersion);
+            }
+        };
+    }
+}
@@ -0,0 +1,36 @@
+package org.example.commonlibrary.paging;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One page of a keyset-paged listing. {@code nextCursor} is passed back as
+ * {@code cursor} to get the next page; it is null on the last page. Controllers
+ * return it in the X-Next-Cursor header.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class KeysetPage<T> {
+
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    private List<T> items;
+    private String nextCursor;
+
+    /**
+     * A page from up to pageSize + 1 rows read past the cursor; the extra row only
+     * tells whether another page follows. The rows of the page are converted in one
+     * call, so the converter can batch its lookups (stats, users) or drop rows.
+     */
+    public static <R, T> KeysetPage<T> of(List<R> rows, int pageSize,
+                                          Function<R, PageCursor> cursorOf, Function<List<R>, List<T>> converter) {
+        String nextCursor = rows.size() > pageSize ? cursorOf.apply(rows.get(pageSize - 1)).encode() : null;
+        List<T> items = converter.apply(rows.subList(0, Math.min(rows.size(), pageSize)));
+        return new KeysetPage<>(items, nextCursor);
+    }
+}
@@ -0,0 +1,51 @@
+package org.example.commonlibrary.paging;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Opaque position in a keyset-paged listing: the sort key of the last row of a page
+ * (a timestamp, a name, or nothing for id-only orders) and its id as tie-breaker.
+ * Clients pass the encoded value back unchanged; it is not meant to be parsed.
+ */
+public record PageCursor(String key, long id) {
+
+    public static PageCursor of(Long id) {
+        return new PageCursor("", id);
+    }
+
+    public static PageCursor of(LocalDateTime time, Long id) {
+        return new PageCursor(time.toString(), id);
+    }
+
+    public static PageCursor of(String key, Long id) {
+        return new PageCursor(key, id);
+    }
+
+    public String encode() {
+        String raw = id + "|" + key;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws IllegalArgumentException if the value was not produced by {@link #encode()}
+     */
+    public static PageCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf('|');
+            return new PageCursor(raw.substring(separator + 1), Long.parseLong(raw.substring(0, separator)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    public LocalDateTime time() {
+        try {
+            return LocalDateTime.parse(key);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+}
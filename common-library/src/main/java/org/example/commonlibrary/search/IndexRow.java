@@ -0,0 +1,15 @@
+package org.example.commonlibrary.search;
+
+import java.time.LocalDateTime;
+
+/**
+ * A row a {@link PollingNameIndex} follows: owned by a user and stamped on every change.
+ */
+public interface IndexRow {
+
+    Long id();
+
+    Long userId();
+
+    LocalDateTime updatedAt();
+}
@@ -0,0 +1,446 @@
+package org.example.commonlibrary.search;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.StoredFields;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.FuzzyQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.PrefixQuery;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * On-disk Lucene index of names, local to each instance, for prefix, token and
+ * typo-tolerant name search without touching Postgres.
+ *
+ * The index follows a table by polling rows whose updated_at passed the last indexed
+ * one. That cursor is stored in the Lucene commit, so a restart only catches up on what
+ * changed while the instance was down. A transaction can commit long after rows with a
+ * later timestamp were indexed (a folder copy waits on other services), so the cursor
+ * never moves past the start of the oldest transaction still open on the database; each
+ * pass also re-reads a short overlap window for clock skew between the services and
+ * Postgres. Deletions are applied when the deleting transaction commits; anything missed
+ * is dropped when a search finds the row gone.
+ *
+ * Until the first pass has caught up (and while a reindex runs) {@link #isReady()} is
+ * false and callers fall back to the SQL search.
+ *
+ * Subclasses read the changed rows, add their own fields to each document and may add
+ * per-token alternatives to the query; they also schedule {@link #sync()}.
+ */
+public abstract class PollingNameIndex<R extends IndexRow> {
+
+    protected static final String ID = "id";
+    protected static final String ID_SORT = "id_sort";
+    protected static final String USER_ID = "user_id";
+    protected static final String NAME = "name";
+
+    private static final String CURSOR_TIME = "cursor.updated_at";
+    private static final LocalDateTime BEGINNING = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    protected final Logger log = LoggerFactory.getLogger(getClass());
+
+    private final String description;
+    private final String metricsTag;
+    private final SearchIndexSettings settings;
+    private final MeterRegistry meterRegistry;
+    protected final NameAnalyzer analyzer = new NameAnalyzer();
+
+    private Directory directory;
+    private IndexWriter writer;
+    private SearcherManager searcherManager;
+
+    // updated_at up to which every committed row is indexed; null when the index is empty
+    private volatile LocalDateTime cursorTime;
+    private volatile boolean ready;
+    private volatile boolean rebuildRequested;
+    private volatile LocalDateTime lastSyncAt;
+    private volatile LocalDateTime heldBackTo;
+    private LocalDateTime warnedHoldback;
+
+    // updated_at of rows indexed within the overlap window, so re-reading them is a no-op
+    private final Map<Long, LocalDateTime> recentlyIndexed = new ConcurrentHashMap<>();
+
+    private Timer syncTimer;
+    private Counter updatedCounter;
+    private Counter deletedCounter;
+    private Counter failureCounter;
+
+    /**
+     * @param description what the index holds, for log messages ("file name index")
+     * @param metricsTag  value of the {@code index} tag on the search.index.* meters
+     */
+    protected PollingNameIndex(String description, String metricsTag, SearchIndexSettings settings,
+                               MeterRegistry meterRegistry) {
+        this.description = description;
+        this.metricsTag = metricsTag;
+        this.settings = settings;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Rows whose (updated_at, id) is past the given cursor, oldest first.
+     */
+    protected abstract List<R> findChangedSince(LocalDateTime since, long afterId, int limit);
+
+    /**
+     * Start of the oldest transaction open on the database, the calling one included.
+     */
+    protected abstract LocalDateTime findOldestOpenTransactionStart();
+
+    /**
+     * Adds the searchable fields of the row; id and owner are already on the document.
+     */
+    protected abstract void addFields(Document doc, R row);
+
+    /**
+     * Adds further ways a search word can match, next to the name match.
+     */
+    protected void addTokenAlternatives(BooleanQuery.Builder alternatives, String token) {
+    }
+
+    @PostConstruct
+    public void open() {
+        if (!settings.enabled()) {
+            log.info("The {} is disabled; search uses the database", description);
+            return;
+        }
+        try {
+            Path path = Paths.get(settings.dir()).toAbsolutePath().normalize();
+            Files.createDirectories(path);
+            directory = FSDirectory.open(path);
+            IndexWriterConfig config = new IndexWriterConfig(analyzer)
+                .setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND);
+            writer = new IndexWriter(directory, config);
+            searcherManager = new SearcherManager(writer, null);
+            restoreCursor();
+            log.info("Opened {} at {} with {} documents, cursor at {}",
+                description, path, writer.getDocStats().numDocs, cursorTime);
+        } catch (IOException e) {
+            // E.g. another instance holds the write lock on a shared directory
+            log.error("Could not open {} at {}; search uses the database", description, settings.dir(), e);
+            closeQuietly();
+            writer = null;
+            return;
+        }
+
+        Tags tags = Tags.of("index", metricsTag);
+        syncTimer = Timer.builder("search.index.sync").tags(tags).register(meterRegistry);
+        updatedCounter = Counter.builder("search.index.updates").tags(tags).register(meterRegistry);
+        deletedCounter = Counter.builder("search.index.deletes").tags(tags).register(meterRegistry);
+        failureCounter = Counter.builder("search.index.sync.failures").tags(tags).register(meterRegistry);
+        Gauge.builder("search.index.documents", this, PollingNameIndex::documentCount)
+            .tags(tags).register(meterRegistry);
+        Gauge.builder("search.index.ready", this, index -> index.isReady() ? 1 : 0)
+            .tags(tags).register(meterRegistry);
+        Gauge.builder("search.index.staleness.seconds", this, PollingNameIndex::stalenessSeconds)
+            .tags(tags).register(meterRegistry);
+    }
+
+    public boolean isReady() {
+        return writer != null && ready;
+    }
+
+    /**
+     * Ids of the user's rows matching every word of the term, best matches first.
+     * A word matches a name word exactly, as a prefix, or within one or two typos.
+     */
+    public List<Long> search(Long userId, String term, long offset, int limit) {
+        List<String> tokens = analyzer.tokens(NAME, term);
+        if (tokens.isEmpty() || offset >= settings.maxResults()) {
+            return List.of();
+        }
+
+        BooleanQuery.Builder query = new BooleanQuery.Builder()
+            .add(new TermQuery(new Term(USER_ID, String.valueOf(userId))), BooleanClause.Occur.FILTER);
+        for (String token : tokens) {
+            query.add(tokenQuery(token), BooleanClause.Occur.MUST);
+        }
+
+        int wanted = (int) Math.min(offset + limit, settings.maxResults());
+        Sort sort = new Sort(SortField.FIELD_SCORE, new SortField(ID_SORT, SortField.Type.LONG, true));
+        try {
+            IndexSearcher searcher = searcherManager.acquire();
+            try {
+                TopDocs top = searcher.search(query.build(), wanted, sort);
+                StoredFields storedFields = searcher.storedFields();
+                List<Long> ids = new ArrayList<>();
+                for (int i = (int) offset; i < top.scoreDocs.length; i++) {
+                    ScoreDoc hit = top.scoreDocs[i];
+                    ids.add(Long.valueOf(storedFields.document(hit.doc).get(ID)));
+                }
+                return ids;
+            } finally {
+                searcherManager.release(searcher);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Search in the " + description + " failed", e);
+        }
+    }
+
+    private BooleanQuery tokenQuery(String token) {
+        BooleanQuery.Builder alternatives = new BooleanQuery.Builder()
+            .add(new BoostQuery(new TermQuery(new Term(NAME, token)), 4f), BooleanClause.Occur.SHOULD)
+            .add(new BoostQuery(new PrefixQuery(new Term(NAME, token)), 2f), BooleanClause.Occur.SHOULD);
+        addTokenAlternatives(alternatives, token);
+        if (token.length() >= 3) {
+            int maxEdits = token.length() >= 6 ? 2 : 1;
+            alternatives.add(new FuzzyQuery(new Term(NAME, token), maxEdits, 1), BooleanClause.Occur.SHOULD);
+        }
+        return alternatives.build();
+    }
+
+    /**
+     * Drops the documents of deleted rows once the current transaction commits
+     * (immediately if there is none).
+     */
+    public void removeAfterCommit(Collection<Long> ids) {
+        if (writer == null || ids.isEmpty()) {
+            return;
+        }
+        List<Long> copy = List.copyOf(ids);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    remove(copy);
+                }
+            });
+        } else {
+            remove(copy);
+        }
+    }
+
+    public void remove(Collection<Long> ids) {
+        if (writer == null || ids.isEmpty()) {
+            return;
+        }
+        try {
+            Term[] terms = ids.stream().map(id -> new Term(ID, String.valueOf(id))).toArray(Term[]::new);
+            writer.deleteDocuments(terms);
+            searcherManager.maybeRefresh();
+            ids.forEach(recentlyIndexed::remove);
+            deletedCounter.increment(ids.size());
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not remove {} document(s) from the {}: {}", ids.size(), description, e.getMessage());
+        }
+    }
+
+    /**
+     * Empties the index and rebuilds it from the table on the next sync pass.
+     * Searches use the database until the rebuild has caught up.
+     */
+    public void requestRebuild() {
+        if (writer == null) {
+            throw new IllegalStateException("The " + description + " is not enabled");
+        }
+        rebuildRequested = true;
+    }
+
+    /**
+     * Applies the rows changed since the last pass. Subclasses schedule this.
+     */
+    public void sync() {
+        if (writer == null) {
+            return;
+        }
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            if (rebuildRequested) {
+                rebuildRequested = false;
+                ready = false;
+                writer.deleteAll();
+                recentlyIndexed.clear();
+                cursorTime = null;
+                commit();
+                log.info("The {} was cleared for rebuild", description);
+            }
+            catchUp();
+            ready = true;
+            lastSyncAt = LocalDateTime.now();
+        } catch (Exception e) {
+            failureCounter.increment();
+            log.error("Sync of the {} failed", description, e);
+        } finally {
+            sample.stop(syncTimer);
+        }
+    }
+
+    private void catchUp() throws IOException {
+        // Read before the rows: whatever is still uncommitted then started no earlier
+        LocalDateTime holdback = holdback();
+        LocalDateTime since = cursorTime == null ? BEGINNING : cursorTime.minusSeconds(settings.overlapSeconds());
+        long afterId = 0L;
+        int indexed = 0;
+        while (true) {
+            List<R> rows = findChangedSince(since, afterId, settings.batchSize());
+            for (R row : rows) {
+                if (!row.updatedAt().equals(recentlyIndexed.get(row.id()))) {
+                    writer.updateDocument(new Term(ID, String.valueOf(row.id())), toDocument(row));
+                    recentlyIndexed.put(row.id(), row.updatedAt());
+                    indexed++;
+                }
+                since = row.updatedAt();
+                afterId = row.id();
+            }
+            if (!rows.isEmpty()) {
+                advanceCursor(since, holdback);
+            }
+            if (indexed > 0) {
+                commit();
+            }
+            if (rows.size() < settings.batchSize()) {
+                break;
+            }
+        }
+
+        if (indexed > 0) {
+            updatedCounter.increment(indexed);
+            searcherManager.maybeRefresh();
+            log.debug("Indexed {} changed row(s) into the {}", indexed, description);
+        }
+        LocalDateTime horizon = cursorTime == null ? null : cursorTime.minusSeconds(settings.overlapSeconds());
+        if (horizon != null) {
+            recentlyIndexed.values().removeIf(updatedAt -> updatedAt.isBefore(horizon));
+        }
+    }
+
+    /**
+     * How far the cursor may move this pass: the start of the oldest open transaction,
+     * unless that is older than max-holdback-seconds. A transaction open that long
+     * (usually a session left idle in transaction) would otherwise make every pass
+     * re-read everything since; rows it commits later are then left to a rebuild.
+     */
+    private LocalDateTime holdback() {
+        LocalDateTime oldestOpen = findOldestOpenTransactionStart();
+        LocalDateTime limit = LocalDateTime.now().minusSeconds(settings.maxHoldbackSeconds());
+        if (oldestOpen != null && oldestOpen.isBefore(limit)) {
+            if (!oldestOpen.equals(warnedHoldback)) {
+                warnedHoldback = oldestOpen;
+                log.warn("A transaction open since {} is older than the {} holdback of {}s; its changes may be missed",
+                    oldestOpen, description, settings.maxHoldbackSeconds());
+            }
+            oldestOpen = limit;
+        }
+        heldBackTo = oldestOpen;
+        return oldestOpen;
+    }
+
+    private void advanceCursor(LocalDateTime latest, LocalDateTime holdback) {
+        LocalDateTime next = holdback != null && holdback.isBefore(latest) ? holdback : latest;
+        if (cursorTime == null || next.isAfter(cursorTime)) {
+            cursorTime = next;
+        }
+    }
+
+    private Document toDocument(R row) {
+        Document doc = new Document();
+        doc.add(new StringField(ID, String.valueOf(row.id()), Field.Store.YES));
+        doc.add(new NumericDocValuesField(ID_SORT, row.id()));
+        doc.add(new StringField(USER_ID, String.valueOf(row.userId()), Field.Store.NO));
+        addFields(doc, row);
+        return doc;
+    }
+
+    private void commit() throws IOException {
+        Map<String, String> data = new HashMap<>();
+        if (cursorTime != null) {
+            data.put(CURSOR_TIME, cursorTime.toString());
+        }
+        writer.setLiveCommitData(data.entrySet());
+        writer.commit();
+    }
+
+    private void restoreCursor() {
+        Iterable<Map.Entry<String, String>> data = writer.getLiveCommitData();
+        if (data == null) {
+            return;
+        }
+        for (Map.Entry<String, String> entry : data) {
+            if (CURSOR_TIME.equals(entry.getKey())) {
+                cursorTime = LocalDateTime.parse(entry.getValue());
+            }
+        }
+    }
+
+    public Map<String, Object> status() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("enabled", writer != null);
+        status.put("ready", isReady());
+        status.put("rebuildRequested", rebuildRequested);
+        status.put("documents", documentCount());
+        status.put("cursor", cursorTime);
+        status.put("heldBackTo", heldBackTo);
+        status.put("lastSyncAt", lastSyncAt);
+        return status;
+    }
+
+    private double documentCount() {
+        return writer != null ? writer.getDocStats().numDocs : 0;
+    }
+
+    private double stalenessSeconds() {
+        LocalDateTime last = lastSyncAt;
+        return last != null ? Duration.between(last, LocalDateTime.now()).toSeconds() : -1;
+    }
+
+    @PreDestroy
+    public void close() {
+        if (writer == null) {
+            return;
+        }
+        try {
+            commit();
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not commit the {} on shutdown: {}", description, e.getMessage());
+        }
+        closeQuietly();
+    }
+
+    private void closeQuietly() {
+        for (AutoCloseable closeable : new AutoCloseable[] {searcherManager, writer, directory}) {
+            if (closeable == null) {
+                continue;
+            }
+            try {
+                closeable.close();
+            } catch (Exception e) {
+                log.warn("Could not close the {}: {}", description, e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package org.example.commonlibrary.search;
+
+/**
+ * Configuration of a {@link PollingNameIndex}, read from each service's
+ * {@code <service>.search.index.*} properties.
+ */
+public record SearchIndexSettings(boolean enabled, String dir, int batchSize, long overlapSeconds,
+                                  long maxHoldbackSeconds, int maxResults) {}
@@ -0,0 +1,27 @@
+package org.example.commonlibrary.search;
+
+import java.util.Locale;
+
+/**
+ * Helpers for the trigram-indexed name searches, which match {@code lower(name) LIKE pattern ESCAPE '\'}.
+ */
+public final class SearchPatterns {
+
+    private SearchPatterns() {
+    }
+
+    public static String normalize(String term) {
+        return term.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * "%term%" for a normalized term, with LIKE wildcards in the term matched literally.
+     */
+    public static String contains(String normalizedTerm) {
+        String escaped = normalizedTerm
+            .replace("\\", "\\\\")
+            .replace("%", "\\%")
+            .replace("_", "\\_");
+        return "%" + escaped + "%";
+    }
+}
@@ -0,0 +1,156 @@
+package org.example.commonlibrary.user;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * User lookups through a bounded, expiring cache in front of user-service, so listing
+ * shares does not cost one HTTP call per row. Entries are dropped by each service's
+ * user event consumer through {@link #evict} and {@link #evictEmail}; the TTL bounds
+ * staleness for anything else (names, emails). The cached usage and limit are never
+ * read (quotas are enforced from file-service's ledger), so storage updates leave
+ * entries alone. Hit/miss counts are exported as the user.cache metrics.
+ *
+ * Several users are fetched with one batch call for all the ids missing from the cache.
+ * Lookups that return no user are not cached. Client errors are passed to the caller.
+ *
+ * Subclasses make the user-service calls through their own Feign client and user type,
+ * and read the cache size and TTL from their {@code <service>.user-cache.*} properties.
+ */
+public abstract class CachedUserLookup<U> {
+
+    // Stays within user-service's user.lookup.max-batch-size
+    private static final int BATCH_SIZE = 500;
+
+    private final Cache<Long, U> usersById;
+    private final Cache<String, U> usersByEmail;
+    // Email cache key of each user, so evicting a user does not scan the email cache
+    private final Map<Long, String> emailKeysById = new ConcurrentHashMap<>();
+
+    protected CachedUserLookup(MeterRegistry meterRegistry, long maxSize, long ttlSeconds) {
+        this.usersById = Caffeine.newBuilder()
+            .maximumSize(maxSize)
+            .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+            .recordStats()
+            .build();
+        this.usersByEmail = Caffeine.newBuilder()
+            .evictionListener((String key, U user, RemovalCause cause) -> {
+                if (user != null && idOf(user) != null) {
+                    emailKeysById.remove(idOf(user), key);
+                }
+            })
+            .maximumSize(maxSize)
+            .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+            .recordStats()
+            .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, usersById, "user.cache.by-id");
+        CaffeineCacheMetrics.monitor(meterRegistry, usersByEmail, "user.cache.by-email");
+    }
+
+    /**
+     * The user, or null if user-service does not know it.
+     */
+    protected abstract U fetchUser(Long userId);
+
+    /**
+     * The user with this email, or null if user-service does not know it.
+     */
+    protected abstract U fetchUserByEmail(String email);
+
+    /**
+     * The known users among at most {@code BATCH_SIZE} ids, in one call.
+     */
+    protected abstract List<U> fetchUsers(List<Long> userIds);
+
+    protected abstract Long idOf(U user);
+
+    protected abstract String emailOf(U user);
+
+    public U getUserById(Long userId) {
+        return usersById.get(userId, id -> {
+            U user = fetchUser(id);
+            if (user != null && emailOf(user) != null) {
+                cacheByEmail(user);
+            }
+            return user;
+        });
+    }
+
+    public U getUserByEmail(String email) {
+        return usersByEmail.get(emailKey(email), key -> {
+            U user = fetchUserByEmail(email);
+            if (user != null && idOf(user) != null) {
+                usersById.put(idOf(user), user);
+                emailKeysById.put(idOf(user), key);
+            }
+            return user;
+        });
+    }
+
+    /**
+     * The users with the given ids, keyed by id; ids user-service does not know are absent.
+     */
+    public Map<Long, U> getUsersByIds(Collection<Long> userIds) {
+        Set<Long> ids = new HashSet<>(userIds);
+        ids.remove(null);
+        if (ids.isEmpty()) {
+            return Map.of();
+        }
+        return usersById.getAll(ids, this::loadUsers);
+    }
+
+    private Map<Long, U> loadUsers(Set<? extends Long> ids) {
+        List<Long> pending = new ArrayList<>(ids);
+        Map<Long, U> found = new HashMap<>();
+        for (int from = 0; from < pending.size(); from += BATCH_SIZE) {
+            List<Long> batch = new ArrayList<>(pending.subList(from, Math.min(from + BATCH_SIZE, pending.size())));
+            for (U user : fetchUsers(batch)) {
+                found.put(idOf(user), user);
+                if (emailOf(user) != null) {
+                    cacheByEmail(user);
+                }
+            }
+        }
+        return found;
+    }
+
+    private void cacheByEmail(U user) {
+        String key = emailKey(emailOf(user));
+        usersByEmail.put(key, user);
+        String previous = emailKeysById.put(idOf(user), key);
+        if (previous != null && !previous.equals(key)) {
+            // The email changed; the old address no longer finds this user
+            usersByEmail.invalidate(previous);
+        }
+    }
+
+    public void evict(Long userId) {
+        usersById.invalidate(userId);
+        String key = emailKeysById.remove(userId);
+        if (key != null) {
+            usersByEmail.invalidate(key);
+        }
+    }
+
+    public void evictEmail(String email) {
+        if (email != null) {
+            String key = emailKey(email);
+            U user = usersByEmail.getIfPresent(key);
+            if (user != null && idOf(user) != null) {
+                emailKeysById.remove(idOf(user), key);
+            }
+            usersByEmail.invalidate(key);
+        }
+    }
+
+    private static String emailKey(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,38 @@
+package org.example.commonlibrary.config;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.flyway.autoconfigure.FlywayMigrationStrategy;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class SchemaMigrationConfigTest {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+        .withConfiguration(AutoConfigurations.of(SchemaMigrationConfig.class));
+
+    @Test
+    void defersMigrationsToAnApplicationRunner() {
+        Flyway flyway = mock(Flyway.class);
+
+        contextRunner.withBean(Flyway.class, () -> flyway).run(context -> {
+            context.getBean(FlywayMigrationStrategy.class).migrate(flyway);
+            verify(flyway, never()).migrate();
+            assertThat(context).hasSingleBean(ApplicationRunner.class);
+        });
+    }
+
+    @Test
+    void backsOffWithoutFlyway() {
+        contextRunner.run(context -> {
+            assertThat(context).doesNotHaveBean(FlywayMigrationStrategy.class);
+            assertThat(context).doesNotHaveBean(ApplicationRunner.class);
+        });
+    }
+}
@@ -0,0 +1,65 @@
+package org.example.commonlibrary.paging;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class KeysetPageTest {
+
+    private static final Function<Long, PageCursor> CURSOR = PageCursor::of;
+
+    @Test
+    void pageRowsAreConvertedInOneCallWithoutTheExtraRow() {
+        List<List<Long>> calls = new ArrayList<>();
+
+        KeysetPage<String> page = KeysetPage.of(List.of(10L, 9L, 8L, 7L), 3, CURSOR, rows -> {
+            calls.add(List.copyOf(rows));
+            return rows.stream().map(String::valueOf).toList();
+        });
+
+        assertThat(calls).containsExactly(List.of(10L, 9L, 8L));
+        assertThat(page.getItems()).containsExactly("10", "9", "8");
+        assertThat(PageCursor.decode(page.getNextCursor()).id()).isEqualTo(8L);
+    }
+
+    @Test
+    void exactlyOneFullPageIsTheLastPage() {
+        KeysetPage<String> page = KeysetPage.of(List.of(10L, 9L, 8L), 3, CURSOR, KeysetPageTest::names);
+
+        assertThat(page.getItems()).hasSize(3);
+        assertThat(page.getNextCursor()).isNull();
+    }
+
+    @Test
+    void emptyPageHasNoItemsAndNoNextCursor() {
+        KeysetPage<String> page = KeysetPage.of(List.<Long>of(), 3, CURSOR, KeysetPageTest::names);
+
+        assertThat(page.getItems()).isEmpty();
+        assertThat(page.getNextCursor()).isNull();
+    }
+
+    @Test
+    void shortPageIsTheLastPage() {
+        KeysetPage<String> page = KeysetPage.of(List.of(5L), 3, CURSOR, KeysetPageTest::names);
+
+        assertThat(page.getItems()).containsExactly("5");
+        assertThat(page.getNextCursor()).isNull();
+    }
+
+    @Test
+    void rowsDroppedByTheConverterDoNotMoveTheCursor() {
+        KeysetPage<String> page = KeysetPage.of(List.of(10L, 9L, 8L, 7L), 3, CURSOR,
+            rows -> names(rows.stream().filter(row -> row != 8L).toList()));
+
+        assertThat(page.getItems()).containsExactly("10", "9");
+        assertThat(PageCursor.decode(page.getNextCursor()).id()).isEqualTo(8L);
+    }
+
+    private static List<String> names(List<Long> rows) {
+        return rows.stream().map(String::valueOf).toList();
+    }
+}
@@ -0,0 +1,63 @@
+package org.example.commonlibrary.paging;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PageCursorTest {
+
+    @Test
+    void timeCursorRoundTrips() {
+        LocalDateTime createdAt = LocalDateTime.of(2024, 3, 9, 17, 45, 12, 123_456_000);
+
+        PageCursor decoded = PageCursor.decode(PageCursor.of(createdAt, 42L).encode());
+
+        assertThat(decoded.id()).isEqualTo(42L);
+        assertThat(decoded.time()).isEqualTo(createdAt);
+    }
+
+    @Test
+    void nameCursorKeepsSeparatorsAndNonAsciiCharacters() {
+        String name = "Q1|Q2 rapport \u2013 \u00e9t\u00e9/2024";
+
+        PageCursor decoded = PageCursor.decode(PageCursor.of(name, 7L).encode());
+
+        assertThat(decoded).isEqualTo(PageCursor.of(name, 7L));
+    }
+
+    @Test
+    void idOnlyCursorHasAnEmptyKey() {
+        PageCursor decoded = PageCursor.decode(PageCursor.of(Long.MAX_VALUE).encode());
+
+        assertThat(decoded.key()).isEmpty();
+        assertThat(decoded.id()).isEqualTo(Long.MAX_VALUE);
+    }
+
+    @Test
+    void encodedCursorIsUrlSafe() {
+        String encoded = PageCursor.of("a?b&c=d/e+f", 1L).encode();
+
+        assertThat(encoded).matches("[A-Za-z0-9_-]+");
+    }
+
+    @Test
+    void rejectsValuesItDidNotProduce() {
+        assertThatThrownBy(() -> PageCursor.decode("not a cursor"))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> PageCursor.decode(base64("no separator")))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> PageCursor.decode(base64("x|2024-01-01T00:00")))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> PageCursor.of("not a time", 1L).time())
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static String base64(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
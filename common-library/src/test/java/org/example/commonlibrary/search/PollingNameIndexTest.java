@@ -0,0 +1,204 @@
+package org.example.commonlibrary.search;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.TextField;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PollingNameIndexTest {
+
+    // Recent, so the open transaction in the holdback tests stays within max-holdback-seconds
+    private final LocalDateTime t0 = LocalDateTime.now().minusMinutes(1);
+
+    @TempDir
+    Path indexDir;
+
+    private TestIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = open();
+    }
+
+    @AfterEach
+    void tearDown() {
+        index.close();
+    }
+
+    @Test
+    void catchUpIndexesRowsForPrefixTokenAndTypoSearch() {
+        index.put(1L, 7L, "AnnualReport_2024-final.pdf", t0);
+        index.put(2L, 7L, "holiday photos", t0.plusSeconds(1));
+        index.put(3L, 8L, "AnnualReport_2023.pdf", t0.plusSeconds(2));
+
+        index.sync();
+
+        assertThat(index.isReady()).isTrue();
+        assertThat(index.search(7L, "report", 0, 10)).containsExactly(1L);
+        assertThat(index.search(7L, "annu", 0, 10)).containsExactly(1L);
+        assertThat(index.search(7L, "anual", 0, 10)).containsExactly(1L);
+        assertThat(index.search(7L, "annual 2024", 0, 10)).containsExactly(1L);
+        assertThat(index.search(8L, "annual", 0, 10)).containsExactly(3L);
+    }
+
+    @Test
+    void changedRowIsReindexedUnderItsNewName() {
+        index.put(1L, 7L, "draft.txt", t0);
+        index.sync();
+
+        index.put(1L, 7L, "contract.txt", t0.plusSeconds(5));
+        index.sync();
+
+        assertThat(index.search(7L, "draft", 0, 10)).isEmpty();
+        assertThat(index.search(7L, "contract", 0, 10)).containsExactly(1L);
+        assertThat(index.status().get("documents")).isEqualTo(1.0);
+    }
+
+    @Test
+    void removedRowsLeaveTheIndex() {
+        index.put(1L, 7L, "invoice march", t0);
+        index.put(2L, 7L, "invoice april", t0.plusSeconds(1));
+        index.sync();
+
+        index.remove(List.of(1L));
+
+        assertThat(index.search(7L, "invoice", 0, 10)).containsExactly(2L);
+    }
+
+    @Test
+    void cursorStopsAtTheOldestOpenTransaction() {
+        // A transaction that started at t0 is still open while a later row commits
+        index.oldestOpen = t0;
+        index.put(1L, 7L, "early commit", t0.plusSeconds(100));
+        index.sync();
+        assertThat(index.status().get("cursor")).isEqualTo(t0);
+
+        // It commits long after the overlap window, with a timestamp behind row 1
+        index.oldestOpen = t0.plusSeconds(200);
+        index.put(2L, 7L, "late commit", t0.plusSeconds(1));
+        index.sync();
+
+        assertThat(index.search(7L, "commit", 0, 10)).containsExactlyInAnyOrder(1L, 2L);
+        assertThat(index.status().get("cursor")).isEqualTo(t0.plusSeconds(100));
+    }
+
+    @Test
+    void transactionOpenLongerThanTheHoldbackNoLongerHoldsTheCursor() {
+        index.oldestOpen = LocalDateTime.now().minusHours(2);
+        index.put(1L, 7L, "report", LocalDateTime.now().minusMinutes(1));
+        index.sync();
+
+        LocalDateTime cursor = (LocalDateTime) index.status().get("cursor");
+        assertThat(cursor).isAfter(LocalDateTime.now().minusMinutes(10));
+    }
+
+    @Test
+    void cursorAndDocumentsSurviveARestart() {
+        index.put(1L, 7L, "budget", t0);
+        index.sync();
+        index.close();
+
+        index = open();
+        assertThat(index.isReady()).isFalse();
+        assertThat(index.status().get("cursor")).isEqualTo(t0);
+
+        index.sync();
+        assertThat(index.search(7L, "budget", 0, 10)).containsExactly(1L);
+        // Only the overlap window was read again
+        assertThat(index.reads).allSatisfy(since -> assertThat(since).isAfterOrEqualTo(t0.minusSeconds(30)));
+    }
+
+    @Test
+    void rebuildStartsOverFromTheTable() {
+        index.put(1L, 7L, "budget", t0);
+        index.sync();
+        index.rows.clear();
+        index.put(2L, 7L, "budget final", t0.plusSeconds(1));
+
+        index.requestRebuild();
+        index.sync();
+
+        assertThat(index.search(7L, "budget", 0, 10)).containsExactly(2L);
+    }
+
+    @Test
+    void searchPagesThroughMatches() {
+        for (long id = 1; id <= 5; id++) {
+            index.put(id, 7L, "scan " + id, t0.plusSeconds(id));
+        }
+        index.sync();
+
+        List<Long> first = index.search(7L, "scan", 0, 3);
+        List<Long> second = index.search(7L, "scan", 3, 3);
+
+        assertThat(first).hasSize(3);
+        assertThat(second).hasSize(2);
+        assertThat(Set.copyOf(concat(first, second))).containsExactlyInAnyOrder(1L, 2L, 3L, 4L, 5L);
+    }
+
+    private TestIndex open() {
+        TestIndex opened = new TestIndex(new SearchIndexSettings(true, indexDir.toString(), 2, 30, 300, 1000));
+        opened.open();
+        return opened;
+    }
+
+    private static List<Long> concat(List<Long> a, List<Long> b) {
+        List<Long> all = new ArrayList<>(a);
+        all.addAll(b);
+        return all;
+    }
+
+    record Row(Long id, Long userId, String name, LocalDateTime updatedAt) implements IndexRow {}
+
+    /**
+     * Index over an in-memory table. The batch size of 2 makes every catch-up page.
+     */
+    static class TestIndex extends PollingNameIndex<Row> {
+
+        final List<Row> rows = new ArrayList<>();
+        final List<LocalDateTime> reads = new ArrayList<>();
+        LocalDateTime oldestOpen;
+
+        TestIndex(SearchIndexSettings settings) {
+            super("test name index", "test", settings, new SimpleMeterRegistry());
+        }
+
+        void put(Long id, Long userId, String name, LocalDateTime updatedAt) {
+            rows.removeIf(row -> row.id().equals(id));
+            rows.add(new Row(id, userId, name, updatedAt));
+        }
+
+        @Override
+        protected List<Row> findChangedSince(LocalDateTime since, long afterId, int limit) {
+            reads.add(since);
+            return rows.stream()
+                .filter(row -> row.updatedAt().isAfter(since) || (row.updatedAt().equals(since) && row.id() > afterId))
+                .sorted(Comparator.comparing(Row::updatedAt).thenComparing(Row::id))
+                .limit(limit)
+                .toList();
+        }
+
+        @Override
+        protected LocalDateTime findOldestOpenTransactionStart() {
+            return oldestOpen != null ? oldestOpen : LocalDateTime.now();
+        }
+
+        @Override
+        protected void addFields(Document doc, Row row) {
+            doc.add(new TextField(NAME, row.name(), Field.Store.NO));
+        }
+    }
+}
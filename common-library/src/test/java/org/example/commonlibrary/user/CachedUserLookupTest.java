@@ -0,0 +1,122 @@
+package org.example.commonlibrary.user;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CachedUserLookupTest {
+
+    private final FakeUserLookup lookup = new FakeUserLookup();
+
+    @Test
+    void batchLookupFetchesOnlyMissingIdsInBatchesOfFiveHundred() {
+        LongStream.rangeClosed(1, 600).forEach(id -> lookup.add(id, "user" + id + "@example.com"));
+        lookup.getUserById(1L);
+
+        Map<Long, User> users = lookup.getUsersByIds(LongStream.rangeClosed(1, 601).boxed().toList());
+
+        assertThat(users).hasSize(600).doesNotContainKey(601L);
+        assertThat(lookup.batches).hasSize(2);
+        assertThat(lookup.batches.stream().mapToInt(List::size).sum()).isEqualTo(600);
+        assertThat(lookup.batches.stream().flatMap(List::stream)).doesNotContain(1L);
+    }
+
+    @Test
+    void usersFoundByIdAreCachedByEmailIgnoringCase() {
+        lookup.add(1L, "Ann@Example.com");
+
+        lookup.getUserById(1L);
+        User byEmail = lookup.getUserByEmail(" ann@example.COM ");
+
+        assertThat(byEmail.id()).isEqualTo(1L);
+        assertThat(lookup.calls).isEqualTo(1);
+    }
+
+    @Test
+    void unknownUsersAreNotCached() {
+        assertThat(lookup.getUserById(9L)).isNull();
+        lookup.add(9L, "late@example.com");
+
+        assertThat(lookup.getUserById(9L)).isNotNull();
+    }
+
+    @Test
+    void userEvictedForAnEmailChangeIsFoundOnlyUnderTheNewAddress() {
+        lookup.add(1L, "old@example.com");
+        lookup.getUserById(1L);
+        lookup.evict(1L);
+        lookup.add(1L, "new@example.com");
+
+        lookup.getUserById(1L);
+        lookup.users.remove(1L);
+
+        assertThat(lookup.getUserByEmail("new@example.com")).isNotNull();
+        assertThat(lookup.getUserByEmail("old@example.com")).isNull();
+    }
+
+    @Test
+    void evictedUserIsFetchedAgainByIdAndEmail() {
+        lookup.add(1L, "ann@example.com");
+        lookup.getUserById(1L);
+
+        lookup.evict(1L);
+        lookup.getUserById(1L);
+        lookup.evictEmail("ANN@example.com");
+        lookup.getUserByEmail("ann@example.com");
+
+        assertThat(lookup.calls).isEqualTo(3);
+    }
+
+    private record User(Long id, String email) {}
+
+    private static class FakeUserLookup extends CachedUserLookup<User> {
+
+        final Map<Long, User> users = new HashMap<>();
+        final List<List<Long>> batches = new ArrayList<>();
+        int calls;
+
+        FakeUserLookup() {
+            super(new SimpleMeterRegistry(), 10_000, 300);
+        }
+
+        void add(long id, String email) {
+            users.put(id, new User(id, email));
+        }
+
+        @Override
+        protected User fetchUser(Long userId) {
+            calls++;
+            return users.get(userId);
+        }
+
+        @Override
+        protected User fetchUserByEmail(String email) {
+            calls++;
+            return users.values().stream().filter(user -> user.email().equals(email)).findFirst().orElse(null);
+        }
+
+        @Override
+        protected List<User> fetchUsers(List<Long> userIds) {
+            calls++;
+            batches.add(List.copyOf(userIds));
+            return userIds.stream().map(users::get).filter(user -> user != null).toList();
+        }
+
+        @Override
+        protected Long idOf(User user) {
+            return user.id();
+        }
+
+        @Override
+        protected String emailOf(User user) {
+            return user.email();
+        }
+    }
+}
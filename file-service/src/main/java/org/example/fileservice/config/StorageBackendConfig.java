@@ -0,0 +1,51 @@
+package org.example.fileservice.config;
+
+import org.example.fileservice.storage.LocalFileSystemStorageBackend;
+import org.example.fileservice.storage.ShardedFileSystemStorageBackend;
+import org.example.fileservice.storage.StorageBackend;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Paths;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Selects where file content is stored (file.storage.backend):
+ * local   - one flat directory
+ * sharded - two-level hash fan-out (default)
+ */
+@Configuration
+@Slf4j
+public class StorageBackendConfig {
+
+    private static final String BLOBS_DIR = "blobs";
+
+    @Bean
+    public StorageBackend storageBackend(FileStorageConfig fileStorageConfig,
+                                         @Value("${file.storage.backend:sharded}") String backend) {
+        log.info("Using '{}' storage backend", backend);
+        return switch (backend) {
+            case "local" -> new LocalFileSystemStorageBackend(Paths.get(fileStorageConfig.getUploadDir(), BLOBS_DIR));
+            case "sharded" -> new ShardedFileSystemStorageBackend(Paths.get(fileStorageConfig.getUploadDir(), BLOBS_DIR));
+            default -> throw new IllegalArgumentException("Unknown storage backend: " + backend);
+        };
+    }
+
+    /**
+     * Bounded pool for content I/O fanned out by bulk operations (file.bulk-copy.parallelism
+     * workers), so one large request cannot saturate the disk for everyone else.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService contentIoExecutor(@Value("${file.bulk-copy.parallelism:4}") int parallelism) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        return Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "content-io-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
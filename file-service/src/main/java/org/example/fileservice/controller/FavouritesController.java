@@ -1,5 +1,6 @@
 package org.example.fileservice.controller;
 
+import org.example.commonlibrary.paging.KeysetPage;
 import org.example.fileservice.dto.FileDTO;
 import org.example.fileservice.service.FileService;
 import org.example.fileservice.utils.ApiResponse;
@@ -19,13 +20,20 @@ public class FavouritesController {
 
     private final FileService fileService;
 
+    // Keyset paged: pass the X-Next-Cursor response header back as cursor for the next page
     @GetMapping
     @Operation(summary = "Get user's favourite files")
     public ResponseEntity<ApiResponse<List<FileDTO>>> getFavouriteFiles(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
             @RequestHeader("X-User-Id") Long userId) {
         try {
-            List<FileDTO> favourites = fileService.getFavoriteFiles(userId);
-            return ResponseEntity.ok(ApiResponse.success("Favourite files retrieved successfully", favourites));
+            KeysetPage<FileDTO> page = fileService.getFavoriteFiles(userId, cursor, size);
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+            if (page.getNextCursor() != null) {
+                response.header(KeysetPage.NEXT_CURSOR_HEADER, page.getNextCursor());
+            }
+            return response.body(ApiResponse.success("Favourite files retrieved successfully", page.getItems()));
         } catch (Exception e) {
             return ResponseEntity.badRequest()
                 .body(ApiResponse.error(e.getMessage()));
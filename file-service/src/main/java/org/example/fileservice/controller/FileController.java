@@ -1,21 +1,35 @@
 package org.example.fileservice.controller;
 
+import org.example.commonlibrary.paging.KeysetPage;
+import org.example.fileservice.dto.BulkCopyResult;
 import org.example.fileservice.dto.FileDTO;
+import org.example.fileservice.dto.FileDownload;
+import org.example.fileservice.dto.FolderCleanupJobDTO;
+import org.example.fileservice.dto.FolderCopyRequest;
+import org.example.fileservice.dto.FolderCopyResult;
+import org.example.fileservice.dto.FolderStatsDTO;
+import org.example.fileservice.dto.FolderStatsRequest;
+import org.example.fileservice.exception.FileNotFoundException;
+import org.example.fileservice.exception.StorageQuotaExceededException;
+import org.example.fileservice.search.FileNameIndex;
 import org.example.fileservice.service.FileService;
+import org.example.fileservice.service.FolderCleanupService;
 import org.example.fileservice.utils.ApiResponse;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.core.io.Resource;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.InputStream;
+import java.time.ZoneId;
 import java.util.List;
 import java.util.Map;
 
@@ -27,6 +41,8 @@ import java.util.Map;
 public class FileController {
 
     private final FileService fileService;
+    private final FolderCleanupService folderCleanupService;
+    private final FileNameIndex fileNameIndex;
 
     @PostMapping("/upload")
     @Operation(summary = "Upload a file")
@@ -44,29 +60,48 @@ public class FileController {
         }
     }
 
+    @PostMapping("/upload/stream")
+    @Operation(summary = "Upload a file as a raw request body",
+            description = "Streams the body straight to storage without multipart buffering. "
+                    + "Send the file bytes as the body (not multipart/form-data) with its Content-Type.")
+    public ResponseEntity<ApiResponse<FileDTO>> uploadFileStream(
+            @RequestParam("fileName") String fileName,
+            @RequestParam(value = "folderId", required = false) Long folderId,
+            @RequestHeader("X-User-Id") Long userId,
+            HttpServletRequest request) {
+        try (InputStream body = request.getInputStream()) {
+            FileDTO uploadedFile = fileService.uploadFileStream(
+                body, request.getContentLengthLong(), fileName, request.getContentType(), userId, folderId);
+            return ResponseEntity.ok(ApiResponse.success("File uploaded successfully", uploadedFile));
+        } catch (Exception e) {
+            log.error("Error streaming file upload", e);
+            return ResponseEntity.badRequest()
+                .body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    // Without search the listing is keyset paged: pass the X-Next-Cursor response header
+    // back as cursor for the next page. page applies to search results only.
     @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
     @Operation(summary = "Get user files")
-    public ResponseEntity<ApiResponse<?>> getUserFiles(
+    public ResponseEntity<ApiResponse<List<FileDTO>>> getUserFiles(
             @RequestParam(required = false) Integer page,
             @RequestParam(required = false) Integer size,
             @RequestParam(required = false) String search,
+            @RequestParam(required = false) String cursor,
             @RequestHeader("X-User-Id") Long userId) {
 
         log.info("Received GET /api/files with page={}, size={}, search={}", page, size, search);
 
         try {
-            List<FileDTO> files;
-
             if (search != null && !search.isBlank()) {
-                files = fileService.searchFiles(userId, search.trim());
-            } else {
-                int pageNumber = page != null ? page : 0;
-                int pageSize = size != null ? size : 20;
-                Pageable pageable = PageRequest.of(pageNumber, pageSize);
-                files = fileService.getUserFiles(userId, pageable).getContent();
+                List<FileDTO> files = fileService.searchFiles(userId, search, page, size);
+                return ResponseEntity.ok(ApiResponse.success("Files retrieved", files));
             }
-
-            return ResponseEntity.ok(ApiResponse.success("Files retrieved", files));
+            return pageResponse("Files retrieved", fileService.getUserFiles(userId, cursor, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error(e.getMessage()));
         } catch (Exception e) {
             log.error("Error in GET /api/files", e);
             return ResponseEntity.internalServerError()
@@ -74,6 +109,22 @@ public class FileController {
         }
     }
 
+    @GetMapping("/content-search")
+    @Operation(summary = "Search inside the content of owned and shared documents")
+    public ResponseEntity<ApiResponse<List<FileDTO>>> searchContent(
+            @RequestParam String query,
+            @RequestParam(required = false) Integer page,
+            @RequestParam(required = false) Integer size,
+            @RequestHeader("X-User-Id") Long userId) {
+        try {
+            List<FileDTO> files = fileService.searchContent(userId, query, page, size);
+            return ResponseEntity.ok(ApiResponse.success("Content search completed", files));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                .body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
     @GetMapping("/{id}")
     @Operation(summary = "Get file details")
     public ResponseEntity<ApiResponse<FileDTO>> getFileDetails(
@@ -88,20 +139,30 @@ public class FileController {
         }
     }
 
+    /**
+     * Byte ranges (single and multipart/byteranges) and If-None-Match / If-Modified-Since
+     * are answered by Spring MVC from the Resource body and the ETag / Last-Modified headers
+     * set here. File content is immutable per fileUuid, so the ETag is strong.
+     */
     @GetMapping("/{id}/download")
-    @Operation(summary = "Download a file")
+    @Operation(summary = "Download a file (supports Range and conditional requests)")
     public ResponseEntity<Resource> downloadFile(
             @PathVariable Long id,
             @RequestHeader("X-User-Id") Long userId) {
         try {
-            Resource resource = fileService.downloadFile(id, userId);
-            FileDTO fileMetadata = fileService.getFileDetails(id, userId);
-            
-            return ResponseEntity.ok()
+            FileDownload download = fileService.downloadFile(id, userId);
+            FileDTO fileMetadata = download.file();
+
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok()
                 .contentType(MediaType.parseMediaType(fileMetadata.getContentType()))
+                .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                .eTag(fileMetadata.getFileUuid())
                 .header(HttpHeaders.CONTENT_DISPOSITION, 
-                    "attachment; filename=\"" + fileMetadata.getOriginalFileName() + "\"")
-                .body(resource);
+                    "attachment; filename=\"" + fileMetadata.getOriginalFileName() + "\"");
+            if (fileMetadata.getUpdatedAt() != null) {
+                response.lastModified(fileMetadata.getUpdatedAt().atZone(ZoneId.systemDefault()));
+            }
+            return response.body(download.resource());
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
         }
@@ -143,6 +204,22 @@ public class FileController {
         }
     }
 
+    // Called by folder-service when copying folder contents
+    @PostMapping("/{id}/copy")
+    @Operation(summary = "Copy a file into a folder without duplicating its content")
+    public ResponseEntity<FileDTO> copyFile(
+            @PathVariable Long id,
+            @RequestParam(required = false) Long destinationFolderId,
+            @RequestHeader("X-User-Id") Long userId) {
+        try {
+            return ResponseEntity.ok(fileService.copyFile(id, destinationFolderId, userId));
+        } catch (FileNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @GetMapping("/statistics")
     @Operation(summary = "Get detailed file statistics")
     public ResponseEntity<ApiResponse<Map<String, Object>>> getFileStatistics(
@@ -160,10 +237,85 @@ public class FileController {
     @Operation(summary = "Get files in a specific folder")
     public ResponseEntity<ApiResponse<List<FileDTO>>> getFilesByFolder(
             @PathVariable Long folderId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            @RequestHeader("X-User-Id") Long userId) {
+        try {
+            return pageResponse("Files retrieved successfully", fileService.getFilesByFolder(folderId, userId, cursor, size));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                .body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    // Called by folder-service to fill in statistics for a whole list of folders at once
+    @PostMapping("/internal/folder-stats")
+    @Operation(summary = "Get file count and total size for a batch of folders")
+    public ResponseEntity<List<FolderStatsDTO>> getFolderStats(
+            @RequestBody FolderStatsRequest request,
+            @RequestHeader("X-User-Id") Long userId) {
+        if (request.getFolderIds() == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(fileService.getFolderStats(request.getFolderIds(), userId, request.isIncludeFiles()));
+    }
+
+    // Called by folder-service when copying a folder subtree
+    @PostMapping("/internal/copy-folders")
+    @Operation(summary = "Copy the files of many folders into their mapped destination folders")
+    public ResponseEntity<FolderCopyResult> copyFolderFiles(
+            @RequestBody FolderCopyRequest request,
             @RequestHeader("X-User-Id") Long userId) {
+        if (request.getFolderMapping() == null) {
+            return ResponseEntity.badRequest().build();
+        }
         try {
-            List<FileDTO> files = fileService.getFilesByFolder(folderId, userId);
-            return ResponseEntity.ok(ApiResponse.success("Files retrieved successfully", files));
+            return ResponseEntity.ok(fileService.copyFolderFiles(request.getFolderMapping(), userId));
+        } catch (StorageQuotaExceededException e) {
+            return ResponseEntity.status(HttpStatus.INSUFFICIENT_STORAGE).build();
+        } catch (Exception e) {
+            log.error("Error copying folder files", e);
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    // Operations: each instance keeps its own name index, so these act on the instance reached
+    @GetMapping("/internal/search-index")
+    @Operation(summary = "Get the state of the file name search index")
+    public ResponseEntity<Map<String, Object>> getSearchIndexStatus() {
+        return ResponseEntity.ok(fileNameIndex.status());
+    }
+
+    @PostMapping("/internal/search-index/reindex")
+    @Operation(summary = "Rebuild the file name search index from the database")
+    public ResponseEntity<Map<String, Object>> reindexSearch() {
+        try {
+            fileNameIndex.requestRebuild();
+            return ResponseEntity.accepted().body(fileNameIndex.status());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+    }
+
+    @GetMapping("/cleanup-jobs")
+    @Operation(summary = "Get the progress of background file removal for deleted folders")
+    public ResponseEntity<ApiResponse<List<FolderCleanupJobDTO>>> getCleanupJobs(
+            @RequestHeader("X-User-Id") Long userId) {
+        try {
+            return ResponseEntity.ok(ApiResponse.success("Cleanup jobs retrieved", folderCleanupService.getJobs(userId)));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                .body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    @GetMapping("/cleanup-jobs/{jobId}")
+    @Operation(summary = "Get the progress of one background file removal job")
+    public ResponseEntity<ApiResponse<FolderCleanupJobDTO>> getCleanupJob(
+            @PathVariable Long jobId,
+            @RequestHeader("X-User-Id") Long userId) {
+        try {
+            return ResponseEntity.ok(ApiResponse.success("Cleanup job retrieved", folderCleanupService.getJob(jobId, userId)));
         } catch (Exception e) {
             return ResponseEntity.badRequest()
                 .body(ApiResponse.error(e.getMessage()));
@@ -202,7 +354,7 @@ public class FileController {
 
     @PostMapping("/bulk/copy")
     @Operation(summary = "Copy multiple files to a folder")
-    public ResponseEntity<ApiResponse<String>> bulkCopyFiles(
+    public ResponseEntity<ApiResponse<BulkCopyResult>> bulkCopyFiles(
             @RequestBody Map<String, Object> request,
             @RequestHeader("X-User-Id") Long userId) {
         try {
@@ -221,12 +373,22 @@ public class FileController {
             
             Long destinationId = destinationFolderId != null ? destinationFolderId.longValue() : null;
             
-            fileService.bulkCopyFiles(longFileIds, destinationId, userId);
-            return ResponseEntity.ok(ApiResponse.success(
-                fileIds.size() + " files copied successfully", null));
+            BulkCopyResult result = fileService.bulkCopyFiles(longFileIds, destinationId, userId);
+            String message = result.getFailed() == 0
+                ? result.getCopied() + " files copied successfully"
+                : result.getCopied() + " files copied, " + result.getFailed() + " failed";
+            return ResponseEntity.ok(ApiResponse.success(message, result));
         } catch (Exception e) {
             return ResponseEntity.badRequest()
                 .body(ApiResponse.error(e.getMessage()));
         }
     }
+
+    private static <T> ResponseEntity<ApiResponse<List<T>>> pageResponse(String message, KeysetPage<T> page) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header(KeysetPage.NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(ApiResponse.success(message, page.getItems()));
+    }
 }
@@ -1,5 +1,6 @@
 package org.example.fileservice.controller;
 
+import org.example.commonlibrary.paging.KeysetPage;
 import org.example.fileservice.dto.FileDTO;
 import org.example.fileservice.dto.ShareNotificationDTO;
 import org.example.fileservice.exception.FileNotFoundException;
@@ -40,12 +41,15 @@ public class FileShareController {
         }
     }
 
+    // Listings are paged: pass the X-Next-Cursor response header back as cursor for the next page
     @GetMapping("/share/requests")
     public ResponseEntity<List<ShareNotificationDTO>> shareRequests(
-            @RequestParam Long userId) {
+            @RequestParam Long userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
         try {
-            List<ShareNotificationDTO> shareNotificationDTOList = fileShareService.getShareRequests(userId);
-            return ResponseEntity.ok(shareNotificationDTOList);
+            KeysetPage<ShareNotificationDTO> page = fileShareService.getShareRequests(userId, cursor, limit);
+            return pageResponse(page);
         } catch (Exception e) {
             log.error("Error getting share requests", e);
             throw new RuntimeException(e);
@@ -70,13 +74,19 @@ public class FileShareController {
     }
 
     @GetMapping("/shared")
-    public ResponseEntity<List<FileDTO>> getSharedFilesWithMe(@RequestParam Long userId) {
-        return ResponseEntity.ok(fileShareService.getSharedFilesWithMe(userId));
+    public ResponseEntity<List<FileDTO>> getSharedFilesWithMe(
+            @RequestParam Long userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        return pageResponse(fileShareService.getSharedFilesWithMe(userId, cursor, limit));
     }
 
     @GetMapping("/shared/by-me")
-    public ResponseEntity<List<FileDTO>> sharedFilesByMe(@RequestParam Long userId) {
-        return ResponseEntity.ok(fileShareService.getSharedFilesByMe(userId));
+    public ResponseEntity<List<FileDTO>> sharedFilesByMe(
+            @RequestParam Long userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        return pageResponse(fileShareService.getSharedFilesByMe(userId, cursor, limit));
     }
 
     @DeleteMapping("/{fileId}/share")
@@ -92,4 +102,12 @@ public class FileShareController {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body("File not found");
         }
     }
+
+    private static <T> ResponseEntity<List<T>> pageResponse(KeysetPage<T> page) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header(KeysetPage.NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(page.getItems());
+    }
 }
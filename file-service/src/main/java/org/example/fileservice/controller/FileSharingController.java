@@ -0,0 +1,87 @@
+package org.example.fileservice.controller;
+
+import org.example.fileservice.dto.FileShareDTO;
+import org.example.fileservice.service.FileSharingService;
+import org.example.fileservice.utils.ApiResponse;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/sharing")
+@RequiredArgsConstructor
+@Tag(name = "Share links", description = "Public file share link APIs")
+public class FileSharingController {
+
+    private final FileSharingService fileSharingService;
+
+    @PostMapping("/files/{fileId}")
+    @Operation(summary = "Create a share link for a file")
+    public ResponseEntity<ApiResponse<FileShareDTO>> createShareLink(
+            @PathVariable Long fileId,
+            @RequestHeader("X-User-Id") Long userId,
+            @RequestParam(required = false) String shareType,
+            @RequestParam(required = false) Integer expirationDays,
+            @RequestParam(required = false) String password,
+            @RequestParam(required = false) Boolean allowDownload) {
+        try {
+            FileShareDTO share = fileSharingService.createFileShare(
+                fileId, userId, shareType, expirationDays, password, allowDownload);
+            return ResponseEntity.ok(ApiResponse.success("Share link created successfully", share));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                .body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    @GetMapping("/files/{fileId}")
+    @Operation(summary = "Get the active share links of a file")
+    public ResponseEntity<ApiResponse<List<FileShareDTO>>> getShareLinks(
+            @PathVariable Long fileId,
+            @RequestHeader("X-User-Id") Long userId) {
+        try {
+            List<FileShareDTO> shares = fileSharingService.getFileShares(fileId, userId);
+            return ResponseEntity.ok(ApiResponse.success("Share links retrieved successfully", shares));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                .body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    @DeleteMapping("/{shareId}")
+    @Operation(summary = "Revoke a share link")
+    public ResponseEntity<ApiResponse<Void>> revokeShareLink(
+            @PathVariable Long shareId,
+            @RequestHeader("X-User-Id") Long userId) {
+        try {
+            fileSharingService.revokeShare(shareId, userId);
+            return ResponseEntity.ok(ApiResponse.success("Share link revoked successfully"));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                .body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    @GetMapping("/shared/{shareToken}")
+    @Operation(summary = "Open a public share link",
+               description = "Password-protected links need the password once, in the X-Share-Password header " +
+                             "(never in the URL, where proxies and access logs would keep it); the returned grant " +
+                             "can be sent in the X-Share-Grant header instead on later requests")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getSharedFile(
+            @PathVariable String shareToken,
+            @RequestHeader(value = "X-Share-Password", required = false) String password,
+            @RequestHeader(value = "X-Share-Grant", required = false) String grant) {
+        try {
+            Map<String, Object> sharedFile = fileSharingService.getSharedFile(shareToken, password, grant);
+            return ResponseEntity.ok(ApiResponse.success("Shared file retrieved successfully", sharedFile));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                .body(ApiResponse.error(e.getMessage()));
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package org.example.fileservice.controller;
+
+import org.example.fileservice.dto.UploadSessionDTO;
+import org.example.fileservice.dto.UploadSessionRequest;
+import org.example.fileservice.service.UploadSessionService;
+import org.example.fileservice.utils.ApiResponse;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.InputStream;
+
+@RestController
+@RequestMapping("/api/files/uploads")
+@RequiredArgsConstructor
+@Slf4j
+@Tag(name = "Resumable Uploads", description = "Chunked, resumable upload session APIs")
+public class UploadSessionController {
+
+    private final UploadSessionService uploadSessionService;
+
+    @PostMapping
+    @Operation(summary = "Start a resumable upload session")
+    public ResponseEntity<ApiResponse<UploadSessionDTO>> createSession(
+            @RequestBody UploadSessionRequest request,
+            @RequestHeader("X-User-Id") Long userId) {
+        try {
+            UploadSessionDTO session = uploadSessionService.createSession(request, userId);
+            return ResponseEntity.ok(ApiResponse.success("Upload session created", session));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                .body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    @PutMapping("/{sessionId}/chunks/{index}")
+    @Operation(summary = "Upload one chunk of a session as the raw request body")
+    public ResponseEntity<ApiResponse<UploadSessionDTO>> uploadChunk(
+            @PathVariable String sessionId,
+            @PathVariable int index,
+            @RequestHeader("X-User-Id") Long userId,
+            HttpServletRequest request) {
+        try (InputStream body = request.getInputStream()) {
+            UploadSessionDTO session = uploadSessionService.uploadChunk(sessionId, index, body, userId);
+            return ResponseEntity.ok(ApiResponse.success("Chunk received", session));
+        } catch (Exception e) {
+            log.error("Error receiving chunk {} of upload session {}", index, sessionId, e);
+            return ResponseEntity.badRequest()
+                .body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    @GetMapping("/{sessionId}")
+    @Operation(summary = "Get upload session status and received chunks")
+    public ResponseEntity<ApiResponse<UploadSessionDTO>> getSession(
+            @PathVariable String sessionId,
+            @RequestHeader("X-User-Id") Long userId) {
+        try {
+            UploadSessionDTO session = uploadSessionService.getSession(sessionId, userId);
+            return ResponseEntity.ok(ApiResponse.success("Upload session retrieved", session));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                .body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    @PostMapping("/{sessionId}/commit")
+    @Operation(summary = "Assemble the received chunks into a file")
+    public ResponseEntity<ApiResponse<UploadSessionDTO>> commitSession(
+            @PathVariable String sessionId,
+            @RequestHeader("X-User-Id") Long userId) {
+        try {
+            UploadSessionDTO session = uploadSessionService.commitSession(sessionId, userId);
+            return ResponseEntity.ok(ApiResponse.success("File uploaded successfully", session));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                .body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    @DeleteMapping("/{sessionId}")
+    @Operation(summary = "Abort an upload session and discard its chunks")
+    public ResponseEntity<ApiResponse<Void>> abortSession(
+            @PathVariable String sessionId,
+            @RequestHeader("X-User-Id") Long userId) {
+        try {
+            uploadSessionService.abortSession(sessionId, userId);
+            return ResponseEntity.ok(ApiResponse.success("Upload session aborted", null));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                .body(ApiResponse.error(e.getMessage()));
+        }
+    }
+}
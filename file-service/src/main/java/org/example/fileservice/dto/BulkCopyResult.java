@@ -0,0 +1,29 @@
+package org.example.fileservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk copy, with one entry per requested file.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkCopyResult {
+    private Integer copied;
+    private Integer failed;
+    private Long copiedBytes;
+    private List<Item> results;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Item {
+        private Long fileId;
+        private boolean success;
+        private String error;
+    }
+}
@@ -0,0 +1,9 @@
+package org.example.fileservice.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * The columns of a file row that the content index needs to find and read its content.
+ */
+public record FileContentRow(Long id, Long userId, String originalFileName, String contentType, Long fileSize,
+                             String blobHash, String filePath, LocalDateTime createdAt) {}
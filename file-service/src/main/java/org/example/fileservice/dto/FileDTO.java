@@ -17,6 +17,7 @@ public class FileDTO {
     private String name;
     private String contentType;
     private Long fileSize;
+    private String checksum;
     private String fileUuid;
     private Boolean isFavorite;
     private LocalDateTime createdAt;
@@ -0,0 +1,10 @@
+package org.example.fileservice.dto;
+
+import org.springframework.core.io.Resource;
+
+/**
+ * Everything needed to serve a download: the file metadata and its content,
+ * loaded with a single lookup.
+ */
+public record FileDownload(FileDTO file, Resource resource) {
+}
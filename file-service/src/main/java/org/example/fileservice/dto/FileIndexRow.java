@@ -0,0 +1,10 @@
+package org.example.fileservice.dto;
+
+import org.example.commonlibrary.search.IndexRow;
+
+import java.time.LocalDateTime;
+
+/**
+ * The columns of a file row that the name search index is built from.
+ */
+public record FileIndexRow(Long id, Long userId, String originalFileName, LocalDateTime updatedAt) implements IndexRow {}
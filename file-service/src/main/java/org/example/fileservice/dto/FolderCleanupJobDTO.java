@@ -0,0 +1,28 @@
+package org.example.fileservice.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class FolderCleanupJobDTO {
+    private Long id;
+    private List<Long> folderIds;
+    private String status;
+    private Long totalFiles;
+    private Long deletedFiles;
+    private Long deletedBytes;
+    private Integer progressPercent;
+    private String errorMessage;
+    private Integer attempts;
+    private LocalDateTime nextAttemptAt;
+    private LocalDateTime createdAt;
+    private LocalDateTime completedAt;
+}
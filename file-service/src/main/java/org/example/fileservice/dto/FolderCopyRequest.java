@@ -0,0 +1,17 @@
+package org.example.fileservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * Source folder id -> destination folder id, for copying the files of a whole folder subtree.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FolderCopyRequest {
+    private Map<Long, Long> folderMapping;
+}
@@ -0,0 +1,28 @@
+package org.example.fileservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * File count and total size of one folder (direct children only).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FolderStatsDTO {
+
+    private Long folderId;
+    private Long fileCount;
+    private Long totalSize;
+    private List<FileDTO> files;
+
+    // Used by the grouped JPQL query in FileRepository
+    public FolderStatsDTO(Long folderId, Long fileCount, Long totalSize) {
+        this.folderId = folderId;
+        this.fileCount = fileCount;
+        this.totalSize = totalSize;
+    }
+}
@@ -0,0 +1,18 @@
+package org.example.fileservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FolderStatsRequest {
+
+    private List<Long> folderIds;
+
+    // Also return the files of each folder
+    private boolean includeFiles;
+}
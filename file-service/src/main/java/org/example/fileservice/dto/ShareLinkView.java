@@ -0,0 +1,20 @@
+package org.example.fileservice.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * What resolving a public share token needs, read in one query without loading entities.
+ * {@code accessCount} is the stored count at the time the link was resolved.
+ */
+public record ShareLinkView(
+    Long shareId,
+    Long fileId,
+    String fileName,
+    Long fileSize,
+    String contentType,
+    Boolean allowDownload,
+    String shareType,
+    String passwordHash,
+    LocalDateTime expiresAt,
+    Integer accessCount
+) {}
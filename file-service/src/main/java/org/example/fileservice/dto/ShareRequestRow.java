@@ -0,0 +1,6 @@
+package org.example.fileservice.dto;
+
+/**
+ * A pending share as read by the share inbox query.
+ */
+public record ShareRequestRow(Long shareId, Long fileId, String fileName, Long ownerId, Long targetUserId) {}
@@ -0,0 +1,22 @@
+package org.example.fileservice.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * File columns read by the share listing queries, without loading File entities.
+ * {@code sortKey} is the id the listing is ordered and paged by.
+ */
+public record SharedFileRow(
+    Long sortKey,
+    Long id,
+    String fileName,
+    String originalFileName,
+    String contentType,
+    Long fileSize,
+    String checksum,
+    String fileUuid,
+    Boolean isFavorite,
+    LocalDateTime createdAt,
+    LocalDateTime updatedAt,
+    Long folderId
+) {}
@@ -0,0 +1,37 @@
+package org.example.fileservice.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class UploadSessionDTO {
+    private String sessionId;
+    private String fileName;
+    private Long folderId;
+    private Long totalSize;
+    private Long chunkSize;
+    private Integer chunkCount;
+    private String status;
+    private LocalDateTime expiresAt;
+    private Long receivedBytes;
+    private List<ReceivedChunk> receivedChunks;
+    private List<Integer> missingChunks;
+    private FileDTO file;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ReceivedChunk {
+        private Integer index;
+        private Long offset;
+        private Long size;
+    }
+}
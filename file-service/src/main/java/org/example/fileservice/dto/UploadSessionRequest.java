@@ -0,0 +1,16 @@
+package org.example.fileservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UploadSessionRequest {
+    private String fileName;
+    private String contentType;
+    private Long totalSize;
+    private Long chunkSize;
+    private Long folderId;
+}
@@ -11,7 +11,8 @@ import java.util.List;
 
 @Entity
 @Table(name = "file",
-        uniqueConstraints = @UniqueConstraint(columnNames = {"id", "original_file_id"}))
+        uniqueConstraints = @UniqueConstraint(columnNames = {"id", "original_file_id"}),
+        indexes = @Index(name = "idx_file_user_id_id", columnList = "user_id, id"))
 @Setter
 @Getter
 @NoArgsConstructor
@@ -39,7 +40,15 @@ public class File {
     
     @Column(nullable = false)
     private Long fileSize;
-    
+
+    // Hex-encoded SHA-256 of the file content, computed while the upload is written
+    @Column(length = 64)
+    private String checksum;
+
+    // Content hash in the blob store; null for files still stored with the legacy one-file-per-row layout
+    @Column(name = "blob_hash", length = 64)
+    private String blobHash;
+
     @Column(nullable = false)
     private String fileUuid;
     
@@ -77,8 +86,12 @@ public class File {
     private Long folderId;
 
     public String getFileExtension() {
-        if (originalFileName != null && originalFileName.contains(".")) {
-            return originalFileName.substring(originalFileName.lastIndexOf("."));
+        return extensionOf(originalFileName);
+    }
+
+    public static String extensionOf(String fileName) {
+        if (fileName != null && fileName.contains(".")) {
+            return fileName.substring(fileName.lastIndexOf("."));
         }
         return "";
     }
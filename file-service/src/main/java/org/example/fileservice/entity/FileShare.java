@@ -17,7 +17,8 @@ import java.time.LocalDateTime;
 @Data
 @Table(
         name = "file_share",
-        uniqueConstraints = @UniqueConstraint(columnNames = {"file_id", "target_user_id"})
+        uniqueConstraints = @UniqueConstraint(columnNames = {"file_id", "target_user_id"}),
+        indexes = @Index(name = "idx_file_share_target_response_id", columnList = "target_user_id, response, id")
 )
 public class FileShare {
 
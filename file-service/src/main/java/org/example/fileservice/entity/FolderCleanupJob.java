@@ -0,0 +1,78 @@
+package org.example.fileservice.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Background removal of the files of deleted folders, created from a folders-deleted event.
+ * Files are removed in batches; deletedFiles/deletedBytes record the progress so far.
+ * A failed job is retried at nextAttemptAt until it has failed maxAttempts times.
+ */
+@Entity
+@Table(name = "folder_cleanup_job")
+@Setter
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class FolderCleanupJob {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @ElementCollection(fetch = FetchType.EAGER)
+    @CollectionTable(name = "folder_cleanup_job_folder", joinColumns = @JoinColumn(name = "job_id"))
+    @Column(name = "folder_id", nullable = false)
+    @Builder.Default
+    private List<Long> folderIds = new ArrayList<>();
+
+    @Column(nullable = false)
+    @Builder.Default
+    private String status = "pending"; // "pending", "running", "completed", "failed"
+
+    // Files found when the job started
+    @Column(name = "total_files")
+    private Long totalFiles;
+
+    @Column(name = "deleted_files", nullable = false)
+    @Builder.Default
+    private Long deletedFiles = 0L;
+
+    @Column(name = "deleted_bytes", nullable = false)
+    @Builder.Default
+    private Long deletedBytes = 0L;
+
+    @Column(name = "error_message")
+    private String errorMessage;
+
+    // Failed runs so far
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    @Builder.Default
+    private Integer attempts = 0;
+
+    // When a failed job is retried; null once it has given up
+    @Column(name = "next_attempt_at")
+    private LocalDateTime nextAttemptAt;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    // Refreshed after every batch; a running job that stops heartbeating is picked up again
+    @Column(name = "heartbeat_at")
+    private LocalDateTime heartbeatAt;
+
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+}
@@ -0,0 +1,35 @@
+package org.example.fileservice.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * A usage change taken from user_quota.pending_delta and not yet handed to the
+ * storage-deltas binding. The row is written in the statement that zeroes the pending
+ * delta and deleted once the batch carrying it was sent, so a crash in between neither
+ * loses the change nor re-keys it: it is resent with the same idempotency key.
+ */
+@Entity
+@Table(name = "storage_delta_outbox")
+@Setter
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StorageDeltaOutbox {
+
+    @Id
+    @Column(name = "idempotency_key", length = 36)
+    private String idempotencyKey;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(nullable = false)
+    private Long delta;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,67 @@
+package org.example.fileservice.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * A resumable upload: the client sends the file as numbered chunks of chunkSize bytes
+ * (the last one may be shorter) and commits once every chunk has been received.
+ */
+@Entity
+@Table(name = "upload_session")
+@Setter
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UploadSession {
+
+    @Id
+    private String id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "folder_id")
+    private Long folderId;
+
+    @Column(nullable = false)
+    private String originalFileName;
+
+    @Column(nullable = false)
+    private String contentType;
+
+    @Column(nullable = false)
+    private Long totalSize;
+
+    @Column(nullable = false)
+    private Long chunkSize;
+
+    @Column(nullable = false)
+    private Integer chunkCount;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private String status = "open"; // "open", "committing", "committed", "aborted"
+
+    // Set once the session has been committed into a File
+    @Column(name = "file_id")
+    private Long fileId;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    public long expectedChunkSize(int index) {
+        if (index < chunkCount - 1) {
+            return chunkSize;
+        }
+        return totalSize - chunkSize * (chunkCount - 1);
+    }
+}
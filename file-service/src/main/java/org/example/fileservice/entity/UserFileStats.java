@@ -0,0 +1,51 @@
+package org.example.fileservice.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Per-user rollup of the file statistics (count, size, favorites, size buckets), kept up to
+ * date on every write so the statistics endpoint does not scan the user's files. Created from
+ * a grouped query on first read; the per-extension counts are in {@link UserFileTypeStats}.
+ * Written with native SQL only (see UserFileStatsRepository).
+ */
+@Entity
+@Table(name = "user_file_stats")
+@Setter
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UserFileStats {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "file_count", nullable = false)
+    private Long fileCount;
+
+    @Column(name = "total_size", nullable = false)
+    private Long totalSize;
+
+    @Column(name = "favorite_count", nullable = false)
+    private Long favoriteCount;
+
+    // Size distribution: < 1MB, 1-10MB, 10-100MB, > 100MB
+    @Column(name = "size_under_1mb", nullable = false)
+    private Long sizeUnder1Mb;
+
+    @Column(name = "size_1_to_10mb", nullable = false)
+    private Long size1To10Mb;
+
+    @Column(name = "size_10_to_100mb", nullable = false)
+    private Long size10To100Mb;
+
+    @Column(name = "size_over_100mb", nullable = false)
+    private Long sizeOver100Mb;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,40 @@
+package org.example.fileservice.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+
+/**
+ * Number of a user's files per lower-cased extension (with the dot, empty for names without
+ * one). Maintained together with {@link UserFileStats}; rows can drop to zero and are kept.
+ */
+@Entity
+@Table(name = "user_file_type_stats")
+@IdClass(UserFileTypeStats.Key.class)
+@Setter
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UserFileTypeStats {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Id
+    @Column(name = "extension", nullable = false)
+    private String extension;
+
+    @Column(name = "file_count", nullable = false)
+    private Long fileCount;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long userId;
+        private String extension;
+    }
+}
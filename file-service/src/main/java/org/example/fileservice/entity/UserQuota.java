@@ -0,0 +1,42 @@
+package org.example.fileservice.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * file-service's own view of a user's storage quota. Uploads and copies reserve space here
+ * atomically before writing and turn the reservation into usage once the rows are saved;
+ * pendingDelta is the usage change not yet reported to user-service.
+ * Written with native SQL only (see UserQuotaRepository).
+ */
+@Entity
+@Table(name = "user_quota")
+@Setter
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UserQuota {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    // Null when user-service has no limit for the user
+    @Column(name = "storage_limit")
+    private Long storageLimit;
+
+    @Column(name = "used_bytes", nullable = false)
+    private Long usedBytes;
+
+    @Column(name = "reserved_bytes", nullable = false)
+    private Long reservedBytes;
+
+    @Column(name = "pending_delta", nullable = false)
+    private Long pendingDelta;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
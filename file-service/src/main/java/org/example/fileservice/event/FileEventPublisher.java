@@ -0,0 +1,80 @@
+package org.example.fileservice.event;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.stream.function.StreamBridge;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Publishes folder content changes for folder-service's file count and size aggregates.
+ * Files in the root (no folder) are not tracked, so no event is sent for them. Inside a
+ * transaction the events are sent once it commits, so a rollback does not leave
+ * folder-service counting files that were never stored.
+ * Also carries the storage usage batches reported to user-service.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class FileEventPublisher {
+
+    private final StreamBridge streamBridge;
+
+    public void publishFilesAdded(Long userId, Long folderId, long fileCount, long totalSize) {
+        if (folderId == null || fileCount == 0) {
+            return;
+        }
+        sendAfterCommit("file-added-out-0", new FolderContentEvent(userId, folderId, null, fileCount, totalSize));
+    }
+
+    public void publishFilesRemoved(Long userId, Long folderId, long fileCount, long totalSize) {
+        if (folderId == null || fileCount == 0) {
+            return;
+        }
+        sendAfterCommit("file-removed-out-0", new FolderContentEvent(userId, folderId, null, fileCount, totalSize));
+    }
+
+    public void publishFilesMoved(Long userId, Long sourceFolderId, Long folderId, long fileCount, long totalSize) {
+        if (fileCount == 0 || (sourceFolderId == null && folderId == null)
+                || (sourceFolderId != null && sourceFolderId.equals(folderId))) {
+            return;
+        }
+        sendAfterCommit("file-moved-out-0", new FolderContentEvent(userId, folderId, sourceFolderId, fileCount, totalSize));
+    }
+
+    /**
+     * Returns false if the batch could not be handed to the binder.
+     */
+    public boolean publishStorageDeltas(StorageDeltaBatch batch) {
+        boolean sent = streamBridge.send("storage-deltas-out-0", batch);
+        if (sent) {
+            log.debug("Sent storage-deltas batch of {} changes", batch.getDeltas().size());
+        } else {
+            log.error("Failed to send storage-deltas batch of {} changes", batch.getDeltas().size());
+        }
+        return sent;
+    }
+
+    private void sendAfterCommit(String binding, FolderContentEvent event) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    send(binding, event);
+                }
+            });
+        } else {
+            send(binding, event);
+        }
+    }
+
+    private void send(String binding, FolderContentEvent event) {
+        boolean sent = streamBridge.send(binding, event);
+        if (sent) {
+            log.debug("Sent {} event: {}", binding, event);
+        } else {
+            log.error("Failed to send {} event: {}", binding, event);
+        }
+    }
+}
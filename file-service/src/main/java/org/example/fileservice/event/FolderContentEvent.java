@@ -0,0 +1,23 @@
+package org.example.fileservice.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Change in the files directly inside one folder, consumed by folder-service to keep
+ * its per-folder count and size aggregates. Operations on many files are aggregated
+ * into one event per folder.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FolderContentEvent {
+    private Long userId;
+    // Folder the files were added to or removed from (the destination for moves; null = root)
+    private Long folderId;
+    // Moves only: folder the files came from (null = root)
+    private Long sourceFolderId;
+    private Long fileCount;
+    private Long totalSize;
+}
@@ -0,0 +1,38 @@
+package org.example.fileservice.event;
+
+import org.example.fileservice.entity.FolderCleanupJob;
+import org.example.fileservice.service.FolderCleanupService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.function.Consumer;
+
+/**
+ * Event consumers for folder events from folder-service.
+ */
+@Configuration
+@RequiredArgsConstructor
+@Slf4j
+public class FolderEventConsumer {
+
+    private final FolderCleanupService folderCleanupService;
+
+    /**
+     * Consumer for folders-deleted events.
+     * Only records a cleanup job; the files are removed by FolderCleanupService in the background.
+     */
+    @Bean
+    public Consumer<FoldersDeletedEvent> foldersDeletedConsumer() {
+        return event -> {
+            log.info("Received folders-deleted event for userId: {}, {} folder(s)",
+                event.getUserId(), event.getFolderIds() != null ? event.getFolderIds().size() : 0);
+            if (event.getFolderIds() == null || event.getFolderIds().isEmpty()) {
+                return;
+            }
+            FolderCleanupJob job = folderCleanupService.enqueue(event);
+            log.info("Queued folder cleanup job {} for userId: {}", job.getId(), event.getUserId());
+        };
+    }
+}
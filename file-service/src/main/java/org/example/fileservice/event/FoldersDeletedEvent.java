@@ -0,0 +1,19 @@
+package org.example.fileservice.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Sent by folder-service after a folder subtree has been deleted; lists every folder
+ * of the subtree so their files can be removed here in the background.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FoldersDeletedEvent {
+    private Long userId;
+    private List<Long> folderIds;
+}
@@ -0,0 +1,18 @@
+package org.example.fileservice.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One storage usage change reported to user-service. The idempotency key lets
+ * user-service ignore the change if the batch carrying it is delivered again.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StorageDelta {
+    private Long userId;
+    private Long delta;
+    private String idempotencyKey;
+}
@@ -0,0 +1,14 @@
+package org.example.fileservice.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StorageDeltaBatch {
+    private List<StorageDelta> deltas;
+}
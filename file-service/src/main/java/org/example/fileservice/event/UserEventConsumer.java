@@ -2,14 +2,16 @@ package org.example.fileservice.event;
 
 import org.example.fileservice.repository.FileRepository;
 import org.example.fileservice.repository.FileShareRepository;
+import org.example.fileservice.service.FileService;
+import org.example.fileservice.service.FileStatsRollup;
+import org.example.fileservice.service.QuotaLedger;
+import org.example.fileservice.service.UserLookupService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Consumer;
 
 /**
@@ -23,9 +25,12 @@ public class UserEventConsumer {
 
     private final FileRepository fileRepository;
     private final FileShareRepository fileShareRepository;
+    private final FileService fileService;
     
-    // Cache for user storage limits (userId -> storageLimit)
-    private final Map<Long, Long> userStorageLimits = new ConcurrentHashMap<>();
+    // Holds each user's storage limit for local quota enforcement
+    private final QuotaLedger quotaLedger;
+    private final FileStatsRollup fileStatsRollup;
+    private final UserLookupService userLookupService;
 
     /**
      * Consumer for user-created events.
@@ -36,11 +41,12 @@ public class UserEventConsumer {
         return user -> {
             log.info("Received user-created event for userId: {}, email: {}", user.getId(), user.getEmail());
             try {
-                // Cache the user's storage limit for quick access
-                if (user.getStorageLimit() != null) {
-                    userStorageLimits.put(user.getId(), user.getStorageLimit());
-                    log.debug("Cached storage limit for userId {}: {} bytes", user.getId(), user.getStorageLimit());
-                }
+                userLookupService.evict(user.getId());
+                userLookupService.evictEmail(user.getEmail());
+
+                // Seed the user's quota row with the storage limit
+                quotaLedger.updateLimit(user.getId(), user.getStorageLimit());
+                log.debug("Stored storage limit for userId {}: {} bytes", user.getId(), user.getStorageLimit());
                 
                 // Additional initialization can be done here
                 // e.g., create default folders, initialize quotas, etc.
@@ -62,12 +68,13 @@ public class UserEventConsumer {
         return userId -> {
             log.info("Received user-deleted event for userId: {}", userId);
             try {
+                userLookupService.evict(userId);
+
                 // Delete all file shares where user is target
                 int deletedShares = fileShareRepository.deleteByTargetUserId(userId);
                 log.info("Deleted {} file shares for target userId: {}", deletedShares, userId);
                 
-                // Delete all files owned by the user
-                // Note: This will also trigger physical file deletion via FileService
+                // Delete all files owned by the user and release their content
                 var userFiles = fileRepository.findByUserId(userId);
                 if (!userFiles.isEmpty()) {
                     log.info("Found {} files to delete for userId: {}", userFiles.size(), userId);
@@ -77,16 +84,14 @@ public class UserEventConsumer {
                         fileShareRepository.deleteByFileId(file.getId());
                     });
                     
-                    // Delete the files
-                    fileRepository.deleteAll(userFiles);
+                    // Delete the files; blobs are released once per hash
+                    fileService.removeFileRecords(userFiles);
                     log.info("Deleted {} files for userId: {}", userFiles.size(), userId);
-                    
-                    // TODO: Also delete physical files from storage
-                    // This should be handled by a separate cleanup service
                 }
                 
-                // Remove from cache
-                userStorageLimits.remove(userId);
+                // Drop the user's quota row
+                quotaLedger.remove(userId);
+                fileStatsRollup.remove(userId);
                 
                 log.info("Successfully processed user-deleted event for userId: {}", userId);
             } catch (Exception e) {
@@ -104,10 +109,10 @@ public class UserEventConsumer {
         return event -> {
             log.info("Received storage-updated event for userId: {}", event.getUserId());
             try {
-                // Update cached storage limit
+                // Update the storage limit enforced by the quota ledger
                 if (event.getStorageLimit() != null) {
-                    userStorageLimits.put(event.getUserId(), event.getStorageLimit());
-                    log.debug("Updated cached storage limit for userId {}: {} bytes", 
+                    quotaLedger.updateLimit(event.getUserId(), event.getStorageLimit());
+                    log.debug("Updated storage limit for userId {}: {} bytes", 
                              event.getUserId(), event.getStorageLimit());
                 }
                 
@@ -119,10 +124,10 @@ public class UserEventConsumer {
     }
     
     /**
-     * Get cached storage limit for a user.
-     * Returns null if not cached (caller should fetch from user-service).
+     * Get the storage limit known locally for a user.
+     * Returns null if the user has no quota row yet (caller should fetch from user-service).
      */
     public Long getCachedStorageLimit(Long userId) {
-        return userStorageLimits.get(userId);
+        return quotaLedger.getStorageLimit(userId);
     }
 }
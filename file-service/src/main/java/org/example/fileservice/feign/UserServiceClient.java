@@ -1,9 +1,12 @@
 package org.example.fileservice.feign;
 
+import org.example.fileservice.dto.UserBatchRequest;
 import org.example.fileservice.dto.UserDTO;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 @FeignClient(name = "user-service", path = "/api/users")
 public interface UserServiceClient {
     
@@ -13,6 +16,9 @@ public interface UserServiceClient {
     @GetMapping("/public/email/{email}")
     UserDTO getUserByEmail(@PathVariable("email") String email);
     
+    @PostMapping("/internal/batch")
+    List<UserDTO> getUsers(@RequestBody UserBatchRequest request);
+    
     @PutMapping("/internal/{userId}/storage")
     void updateStorageUsed(@PathVariable("userId") Long userId, @RequestParam("sizeChange") Long sizeChange);
     
@@ -0,0 +1,41 @@
+package org.example.fileservice.repository;
+
+import org.example.fileservice.entity.File;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Plain JDBC batch writes for File rows. The entity uses IDENTITY ids, which keeps
+ * Hibernate from batching its inserts; this path sends one batched statement instead.
+ * Generated ids are not read back.
+ */
+@Repository
+@RequiredArgsConstructor
+public class FileBatchRepository {
+
+    private static final String INSERT_SQL =
+        "INSERT INTO file (file_name, original_file_name, file_path, content_type, is_shared, file_size, " +
+        "checksum, blob_hash, file_uuid, is_favorite, created_at, updated_at, user_id, folder_id) " +
+        "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Transactional
+    public void insertAll(List<File> files) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = files.stream()
+            .map(f -> new Object[] {
+                f.getFileName(), f.getOriginalFileName(), f.getFilePath(), f.getContentType(), f.isShared(),
+                f.getFileSize(), f.getChecksum(), f.getBlobHash(), f.getFileUuid(), Boolean.TRUE.equals(f.getIsFavorite()),
+                now, now, f.getUserId(), f.getFolderId()
+            })
+            .toList();
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+    }
+}
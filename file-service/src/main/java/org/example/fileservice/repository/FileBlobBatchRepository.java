@@ -0,0 +1,51 @@
+package org.example.fileservice.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Plain JDBC reference updates for many blobs at once, as one statement per chunk
+ * instead of one transaction per blob.
+ */
+@Repository
+@RequiredArgsConstructor
+public class FileBlobBatchRepository {
+
+    private static final int CHUNK_SIZE = 1000;
+
+    // The rows are locked in hash order, so concurrent copies of overlapping blobs cannot deadlock
+    private static final String INCREMENT_SQL =
+        "UPDATE file_blob b SET ref_count = b.ref_count + v.count " +
+        "FROM (SELECT f.hash, r.count FROM file_blob f JOIN (VALUES %s) AS r(hash, count) ON r.hash = f.hash " +
+        "      ORDER BY f.hash FOR UPDATE OF f) v " +
+        "WHERE b.hash = v.hash";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Adds {@code count} references to each blob, in the caller's transaction. Returns the
+     * number of blobs updated; blobs that do not exist are skipped.
+     */
+    public int incrementReferences(Map<String, Long> countsByHash) {
+        List<Map.Entry<String, Long>> entries = new ArrayList<>(new TreeMap<>(countsByHash).entrySet());
+        int updated = 0;
+        for (int from = 0; from < entries.size(); from += CHUNK_SIZE) {
+            List<Map.Entry<String, Long>> chunk = entries.subList(from, Math.min(from + CHUNK_SIZE, entries.size()));
+            String values = String.join(", ", Collections.nCopies(chunk.size(), "(?, CAST(? AS bigint))"));
+            Object[] args = new Object[chunk.size() * 2];
+            for (int i = 0; i < chunk.size(); i++) {
+                args[2 * i] = chunk.get(i).getKey();
+                args[2 * i + 1] = chunk.get(i).getValue();
+            }
+            updated += jdbcTemplate.update(String.format(INCREMENT_SQL, values), args);
+        }
+        return updated;
+    }
+}
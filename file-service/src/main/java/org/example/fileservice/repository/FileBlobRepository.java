@@ -0,0 +1,34 @@
+package org.example.fileservice.repository;
+
+import org.example.fileservice.entity.FileBlob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface FileBlobRepository extends JpaRepository<FileBlob, String> {
+
+    // Serializes acquire/release of one blob until the surrounding transaction ends
+    @Query(value = "SELECT 1 FROM pg_advisory_xact_lock(hashtext(:hash))", nativeQuery = true)
+    Integer lockHash(@Param("hash") String hash);
+
+    @Modifying
+    @Query(value = "INSERT INTO file_blob (hash, size, ref_count, created_at) VALUES (:hash, :size, :count, now()) " +
+                   "ON CONFLICT (hash) DO UPDATE SET ref_count = file_blob.ref_count + EXCLUDED.ref_count",
+           nativeQuery = true)
+    void addReferences(@Param("hash") String hash, @Param("size") Long size, @Param("count") long count);
+
+    @Modifying
+    @Query("UPDATE FileBlob b SET b.refCount = b.refCount + :count WHERE b.hash = :hash")
+    int incrementReferences(@Param("hash") String hash, @Param("count") long count);
+
+    @Modifying
+    @Query("UPDATE FileBlob b SET b.refCount = b.refCount - :count WHERE b.hash = :hash")
+    int removeReferences(@Param("hash") String hash, @Param("count") long count);
+
+    @Modifying
+    @Query("DELETE FROM FileBlob b WHERE b.hash = :hash AND b.refCount <= 0")
+    int deleteIfUnreferenced(@Param("hash") String hash);
+}
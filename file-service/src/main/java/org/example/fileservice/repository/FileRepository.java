@@ -1,25 +1,54 @@
 package org.example.fileservice.repository;
 
+import org.example.fileservice.dto.FileContentRow;
+import org.example.fileservice.dto.FileIndexRow;
+import org.example.fileservice.dto.FolderStatsDTO;
 import org.example.fileservice.entity.File;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.io.FileNotFoundException;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface FileRepository extends JpaRepository<File, Long> {
     
-    List<File> findByUserIdOrderByCreatedAtDesc(Long userId);
-    
-    Page<File> findByUserIdOrderByCreatedAtDesc(Long userId, Pageable pageable);
-    
-    List<File> findByUserIdAndIsFavoriteTrueOrderByCreatedAtDesc(Long userId);
+    // Statistics: recent uploads via (user_id, created_at, id) from V4, largest files via V5__file_statistics_indexes.sql
+    long countByUserIdAndCreatedAtAfter(Long userId, LocalDateTime since);
+
+    List<File> findTop5ByUserIdOrderByFileSizeDescIdDesc(Long userId);
+
+    // Listing pages, newest first, continuing below the (created_at, id) cursor. The row
+    // comparison lets each page start with an index seek (V4__file_listing_indexes.sql).
+    @Query(value = "SELECT * FROM file f WHERE f.user_id = :userId " +
+                   "AND (f.created_at, f.id) < (:createdAt, :id) " +
+                   "ORDER BY f.created_at DESC, f.id DESC LIMIT :limit",
+           nativeQuery = true)
+    List<File> findUserFilesPage(@Param("userId") Long userId, @Param("createdAt") LocalDateTime createdAt,
+                                 @Param("id") long id, @Param("limit") int limit);
+
+    @Query(value = "SELECT * FROM file f WHERE f.user_id = :userId AND f.is_favorite = true " +
+                   "AND (f.created_at, f.id) < (:createdAt, :id) " +
+                   "ORDER BY f.created_at DESC, f.id DESC LIMIT :limit",
+           nativeQuery = true)
+    List<File> findFavoriteFilesPage(@Param("userId") Long userId, @Param("createdAt") LocalDateTime createdAt,
+                                     @Param("id") long id, @Param("limit") int limit);
+
+    @Query(value = "SELECT * FROM file f WHERE f.user_id = :userId AND f.folder_id = :folderId " +
+                   "AND (f.created_at, f.id) < (:createdAt, :id) " +
+                   "ORDER BY f.created_at DESC, f.id DESC LIMIT :limit",
+           nativeQuery = true)
+    List<File> findFolderFilesPage(@Param("userId") Long userId, @Param("folderId") Long folderId,
+                                   @Param("createdAt") LocalDateTime createdAt,
+                                   @Param("id") long id, @Param("limit") int limit);
     
     Optional<File> findByIdAndUserId(Long id, Long userId);
     
@@ -30,26 +59,88 @@ public interface FileRepository extends JpaRepository<File, Long> {
     
     boolean existsByFileNameAndUserId(String fileName, Long userId);
     
-    @Query("SELECT f FROM File f WHERE f.userId = :userId AND " +
-           "(LOWER(f.fileName) LIKE LOWER(CONCAT('%', :searchTerm, '%')) OR " +
-           "LOWER(f.originalFileName) LIKE LOWER(CONCAT('%', :searchTerm, '%')))")
-    List<File> searchFilesByUserIdAndName(@Param("userId") Long userId,
-                                          @Param("searchTerm") String searchTerm);
+    // Served by the (user_id, lower(original_file_name)) trigram index from V1__file_name_trigram_index.sql.
+    // :pattern is the lower-cased, LIKE-escaped term wrapped in %; best matches first.
+    @Query(value = "SELECT * FROM file f WHERE f.user_id = :userId " +
+                   "AND lower(f.original_file_name) LIKE :pattern ESCAPE '\\' " +
+                   "ORDER BY similarity(lower(f.original_file_name), :term) DESC, f.id DESC " +
+                   "LIMIT :limit OFFSET :offset",
+           nativeQuery = true)
+    List<File> searchByName(@Param("userId") Long userId, @Param("pattern") String pattern,
+                            @Param("term") String term, @Param("limit") int limit, @Param("offset") long offset);
     
+    // Rows changed after the (updatedAt, id) cursor, oldest first; feeds the name search index.
+    // Served by (updated_at, id) from V2__file_updated_at_index.sql.
+    @Query("SELECT new org.example.fileservice.dto.FileIndexRow(f.id, f.userId, f.originalFileName, f.updatedAt) " +
+           "FROM File f WHERE f.updatedAt > :since OR (f.updatedAt = :since AND f.id > :afterId) " +
+           "ORDER BY f.updatedAt, f.id")
+    List<FileIndexRow> findChangedSince(@Param("since") LocalDateTime since, @Param("afterId") Long afterId, Pageable pageable);
+
+    // Start of the oldest transaction open on this database, the calling one included;
+    // the name index cursor never moves past it. xact_start is only visible for sessions
+    // of the same role, which is how every instance connects.
+    @Query(value = "SELECT min(xact_start)::timestamp FROM pg_stat_activity WHERE datname = current_database()",
+           nativeQuery = true)
+    LocalDateTime findOldestOpenTransactionStart();
+
+    // Rows created after the (createdAt, id) cursor, oldest first; feeds the content index.
+    // Served by (created_at, id) from V3__file_created_at_index.sql.
+    @Query("SELECT new org.example.fileservice.dto.FileContentRow(f.id, f.userId, f.originalFileName, f.contentType, " +
+           "f.fileSize, f.blobHash, f.filePath, f.createdAt) " +
+           "FROM File f WHERE f.createdAt > :since OR (f.createdAt = :since AND f.id > :afterId) " +
+           "ORDER BY f.createdAt, f.id")
+    List<FileContentRow> findCreatedSince(@Param("since") LocalDateTime since, @Param("afterId") Long afterId, Pageable pageable);
+
     @Query("SELECT COUNT(f) FROM File f WHERE f.userId = :userId")
     Long countByUserId(@Param("userId") Long userId);
     
     @Query("SELECT COALESCE(SUM(f.fileSize), 0) FROM File f WHERE f.userId = :userId")
     Long sumFileSizeByUserId(@Param("userId") Long userId);
 
-    @Query("SELECT f FROM File f WHERE f.userId = :userId AND LOWER(f.originalFileName) LIKE LOWER(CONCAT('%', :name, '%'))")
-    List<File> findByUserIdAndOriginalFileNameContainingIgnoreCase(@Param("userId") Long userId, @Param("name") String name);
-    
-    List<File> findByFolderIdAndUserId(Long folderId, Long userId);
+    @Query("SELECT new org.example.fileservice.dto.FolderStatsDTO(f.folderId, COUNT(f), COALESCE(SUM(f.fileSize), 0L)) " +
+           "FROM File f WHERE f.userId = :userId AND f.folderId IN :folderIds GROUP BY f.folderId")
+    List<FolderStatsDTO> getFolderStats(@Param("userId") Long userId, @Param("folderIds") Collection<Long> folderIds);
+
+    List<File> findByUserIdAndFolderIdInOrderByCreatedAtDesc(Long userId, Collection<Long> folderIds);
+
+    // The same totals, grouped by the folder each of the given files is in
+    @Query("SELECT new org.example.fileservice.dto.FolderStatsDTO(f.folderId, COUNT(f), COALESCE(SUM(f.fileSize), 0L)) " +
+           "FROM File f WHERE f.userId = :userId AND f.id IN :ids GROUP BY f.folderId")
+    List<FolderStatsDTO> getFolderStatsForFiles(@Param("userId") Long userId, @Param("ids") Collection<Long> ids);
+
+    // Moves the files not already in the folder. Returns one (source folder id, file count,
+    // total size) row per folder the files actually left, read from the locked rows.
+    // Not @Modifying: the statement returns rows; callers run it in their transaction.
+    @Query(value = "WITH moved AS (" +
+                   "  UPDATE file f SET folder_id = CAST(:folderId AS bigint), updated_at = LOCALTIMESTAMP " +
+                   "  FROM (SELECT id, folder_id FROM file WHERE id IN (:ids) AND user_id = :userId " +
+                   "        AND folder_id IS DISTINCT FROM CAST(:folderId AS bigint) FOR UPDATE) old " +
+                   "  WHERE f.id = old.id RETURNING old.folder_id AS source_folder_id, f.file_size) " +
+                   "SELECT source_folder_id, count(*), COALESCE(sum(file_size), 0)::bigint " +
+                   "FROM moved GROUP BY source_folder_id",
+           nativeQuery = true)
+    List<Object[]> moveToFolder(@Param("ids") Collection<Long> ids, @Param("userId") Long userId,
+                                @Param("folderId") Long folderId);
+
+    // Batches for the background cleanup of deleted folders
+    List<File> findByUserIdAndFolderIdIn(Long userId, Collection<Long> folderIds, Pageable pageable);
+
+    long countByUserIdAndFolderIdIn(Long userId, Collection<Long> folderIds);
 
     @Query("SELECT f FROM File f WHERE f.userId = :userId AND f.originalFile.id = :originalFileId")
     Optional<File> findByUserIdAndOriginalFileId(@Param("userId") Long userId, @Param("originalFileId") Long originalFileId);
     
     // Method for event-driven cleanup
     List<File> findByUserId(Long userId);
+
+    List<File> findByOriginalFileIdIn(Collection<Long> originalFileIds);
+
+    // Legacy rows share one physical file between an original and its accepted-share copies
+    long countByFilePathAndBlobHashIsNull(String filePath);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE File f SET f.blobHash = :hash, f.checksum = :hash, f.filePath = :blobPath " +
+           "WHERE f.filePath = :legacyPath AND f.blobHash IS NULL")
+    int attachBlob(@Param("legacyPath") String legacyPath, @Param("hash") String hash, @Param("blobPath") String blobPath);
 }
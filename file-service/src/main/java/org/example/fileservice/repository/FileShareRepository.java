@@ -1,12 +1,17 @@
 package org.example.fileservice.repository;
 
+import org.example.fileservice.dto.ShareLinkView;
+import org.example.fileservice.dto.SharedFileRow;
+import org.example.fileservice.dto.ShareRequestRow;
 import org.example.fileservice.entity.File;
 import org.example.fileservice.entity.FileShare;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -18,14 +23,24 @@ public interface FileShareRepository extends JpaRepository<FileShare, Long> {
     @Query("SELECT fs.targetUserId FROM FileShare fs WHERE fs.file.id = :fileId")
     List<Long> getSharedUserIdsByFileId(@Param("fileId") Long fileId);
 
-    @Query("SELECT fs.file FROM FileShare fs WHERE fs.targetUserId = :targetId AND fs.response = true")
-    List<File> findByTargetId(@Param("targetId") Long targetId);
+    // Share listings: one query per page, newest first, continuing below the :before cursor
 
-    @Query("SELECT fs FROM FileShare fs WHERE fs.targetUserId = :targetUserId AND fs.response = false")
-    List<FileShare> findFileSharesByTargetUserId(@Param("targetUserId") Long targetUserId);
+    @Query("SELECT new org.example.fileservice.dto.SharedFileRow(fs.id, f.id, f.fileName, f.originalFileName, f.contentType, " +
+           "f.fileSize, f.checksum, f.fileUuid, f.isFavorite, f.createdAt, f.updatedAt, f.folderId) " +
+           "FROM FileShare fs JOIN fs.file f " +
+           "WHERE fs.targetUserId = :targetId AND fs.response = true AND fs.id < :before ORDER BY fs.id DESC")
+    List<SharedFileRow> findSharedWithPage(@Param("targetId") Long targetId, @Param("before") Long before, Pageable pageable);
 
-    @Query("SELECT DISTINCT fs.file FROM FileShare fs WHERE fs.file.userId = :userId")
-    List<File> findSharedFilesByMe(@Param("userId") Long userId);
+    @Query("SELECT new org.example.fileservice.dto.ShareRequestRow(fs.id, f.id, f.originalFileName, f.userId, fs.targetUserId) " +
+           "FROM FileShare fs JOIN fs.file f " +
+           "WHERE fs.targetUserId = :targetUserId AND fs.response = false AND fs.id < :before ORDER BY fs.id DESC")
+    List<ShareRequestRow> findShareRequestPage(@Param("targetUserId") Long targetUserId, @Param("before") Long before, Pageable pageable);
+
+    @Query("SELECT new org.example.fileservice.dto.SharedFileRow(f.id, f.id, f.fileName, f.originalFileName, f.contentType, " +
+           "f.fileSize, f.checksum, f.fileUuid, f.isFavorite, f.createdAt, f.updatedAt, f.folderId) " +
+           "FROM File f WHERE f.userId = :userId AND f.id < :before " +
+           "AND EXISTS (SELECT 1 FROM FileShare fs WHERE fs.file = f) ORDER BY f.id DESC")
+    List<SharedFileRow> findSharedByMePage(@Param("userId") Long userId, @Param("before") Long before, Pageable pageable);
 
     @Query("SELECT fs FROM FileShare fs WHERE fs.file.id = :fileId AND fs.targetUserId = :targetUserId")
     Optional<FileShare> findByFileIdAndTargetUserId(@Param("fileId") Long fileId, @Param("targetUserId") Long targetUserId);
@@ -48,9 +63,16 @@ public interface FileShareRepository extends JpaRepository<FileShare, Long> {
     @Query("SELECT fs FROM FileShare fs WHERE fs.shareToken = :shareToken AND fs.isActive = true AND (fs.expiresAt IS NULL OR fs.expiresAt > :currentTime)")
     Optional<FileShare> findActiveShareByToken(@Param("shareToken") String shareToken, @Param("currentTime") LocalDateTime currentTime);
 
+    @Query("SELECT new org.example.fileservice.dto.ShareLinkView(fs.id, f.id, f.originalFileName, f.fileSize, f.contentType, " +
+           "fs.allowDownload, fs.shareType, fs.passwordHash, fs.expiresAt, fs.accessCount) " +
+           "FROM FileShare fs JOIN fs.file f " +
+           "WHERE fs.shareToken = :shareToken AND fs.isActive = true AND (fs.expiresAt IS NULL OR fs.expiresAt > :currentTime)")
+    Optional<ShareLinkView> findActiveShareLink(@Param("shareToken") String shareToken, @Param("currentTime") LocalDateTime currentTime);
+
     @Modifying
-    @Query("UPDATE FileShare fs SET fs.accessCount = fs.accessCount + 1 WHERE fs.id = :shareId")
-    void incrementAccessCount(@Param("shareId") Long shareId);
+    @Transactional
+    @Query("UPDATE FileShare fs SET fs.accessCount = fs.accessCount + :hits WHERE fs.id = :shareId")
+    int addAccessCount(@Param("shareId") Long shareId, @Param("hits") int hits);
 
     @Query("SELECT fs FROM FileShare fs WHERE fs.file.userId = :userId ORDER BY fs.createdAt DESC")
     List<FileShare> findByUserIdOrderByCreatedAtDesc(@Param("userId") Long userId);
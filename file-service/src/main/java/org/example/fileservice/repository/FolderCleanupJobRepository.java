@@ -0,0 +1,42 @@
+package org.example.fileservice.repository;
+
+import org.example.fileservice.entity.FolderCleanupJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface FolderCleanupJobRepository extends JpaRepository<FolderCleanupJob, Long> {
+
+    List<FolderCleanupJob> findByUserIdOrderByCreatedAtDesc(Long userId);
+
+    Optional<FolderCleanupJob> findByIdAndUserId(Long id, Long userId);
+
+    // Pending jobs, running jobs whose worker stopped (crash or restart), and failed jobs due for a retry
+    @Query("SELECT j.id FROM FolderCleanupJob j WHERE j.status = 'pending' " +
+           "OR (j.status = 'running' AND j.heartbeatAt < :staleBefore) " +
+           "OR (j.status = 'failed' AND j.nextAttemptAt <= :now) ORDER BY j.createdAt")
+    List<Long> findRunnableJobIds(@Param("now") LocalDateTime now, @Param("staleBefore") LocalDateTime staleBefore);
+
+    // Takes a job for this instance; returns 0 if another instance got there first
+    @Modifying
+    @Transactional
+    @Query("UPDATE FolderCleanupJob j SET j.status = 'running', j.heartbeatAt = :now WHERE j.id = :id " +
+           "AND (j.status = 'pending' OR (j.status = 'running' AND j.heartbeatAt < :staleBefore) " +
+           "OR (j.status = 'failed' AND j.nextAttemptAt <= :now))")
+    int claim(@Param("id") Long id, @Param("now") LocalDateTime now, @Param("staleBefore") LocalDateTime staleBefore);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE FolderCleanupJob j SET j.deletedFiles = j.deletedFiles + :files, " +
+           "j.deletedBytes = j.deletedBytes + :bytes, j.heartbeatAt = :now WHERE j.id = :id")
+    int addProgress(@Param("id") Long id, @Param("files") long files, @Param("bytes") long bytes,
+                    @Param("now") LocalDateTime now);
+}
@@ -0,0 +1,14 @@
+package org.example.fileservice.repository;
+
+import org.example.fileservice.entity.StorageDeltaOutbox;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface StorageDeltaOutboxRepository extends JpaRepository<StorageDeltaOutbox, String> {
+
+    List<StorageDeltaOutbox> findByOrderByCreatedAtAsc(Pageable pageable);
+}
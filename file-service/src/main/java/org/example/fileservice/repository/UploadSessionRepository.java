@@ -0,0 +1,32 @@
+package org.example.fileservice.repository;
+
+import org.example.fileservice.entity.UploadSession;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface UploadSessionRepository extends JpaRepository<UploadSession, String> {
+
+    Optional<UploadSession> findByIdAndUserId(String id, Long userId);
+
+    // Open sessions past their expiry, and sessions stuck in "committing" (the instance died
+    // mid-commit) that expired before committingExpiredBefore
+    @Query("SELECT s FROM UploadSession s WHERE (s.status = 'open' AND s.expiresAt < :now) " +
+           "OR (s.status = 'committing' AND s.expiresAt < :committingExpiredBefore)")
+    List<UploadSession> findExpiredSessions(@Param("now") LocalDateTime now,
+                                            @Param("committingExpiredBefore") LocalDateTime committingExpiredBefore);
+
+    // Moves a session from "open" to "committing"; returns 0 if another request got there first
+    @Modifying
+    @Transactional
+    @Query("UPDATE UploadSession s SET s.status = 'committing' WHERE s.id = :id AND s.status = 'open'")
+    int markCommitting(@Param("id") String id);
+}
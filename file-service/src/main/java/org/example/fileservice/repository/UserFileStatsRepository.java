@@ -0,0 +1,67 @@
+package org.example.fileservice.repository;
+
+import org.example.fileservice.entity.UserFileStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Repository
+public interface UserFileStatsRepository extends JpaRepository<UserFileStats, Long> {
+
+    // The user's figures computed from the file table; size buckets as in FileStatsRollup
+    String STATS_FROM_FILES =
+        "SELECT count(*) AS file_count, COALESCE(sum(f.file_size), 0) AS total_size, " +
+        "count(*) FILTER (WHERE f.is_favorite) AS favorite_count, " +
+        "count(*) FILTER (WHERE f.file_size < 1048576) AS size_under_1mb, " +
+        "count(*) FILTER (WHERE f.file_size >= 1048576 AND f.file_size < 10485760) AS size_1_to_10mb, " +
+        "count(*) FILTER (WHERE f.file_size >= 10485760 AND f.file_size < 104857600) AS size_10_to_100mb, " +
+        "count(*) FILTER (WHERE f.file_size >= 104857600) AS size_over_100mb " +
+        "FROM file f WHERE f.user_id = :userId";
+
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO user_file_stats (user_id, file_count, total_size, favorite_count, size_under_1mb, " +
+                   "size_1_to_10mb, size_10_to_100mb, size_over_100mb, updated_at) " +
+                   "SELECT :userId, c.*, now() FROM (" + STATS_FROM_FILES + ") c " +
+                   "ON CONFLICT (user_id) DO NOTHING",
+           nativeQuery = true)
+    int insertFromFiles(@Param("userId") Long userId);
+
+    // No-op for users whose rollup has not been created yet
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE user_file_stats SET file_count = file_count + :count, total_size = total_size + :size, " +
+                   "favorite_count = favorite_count + :favorites, " +
+                   "size_under_1mb = size_under_1mb + :under1Mb, size_1_to_10mb = size_1_to_10mb + :from1To10Mb, " +
+                   "size_10_to_100mb = size_10_to_100mb + :from10To100Mb, size_over_100mb = size_over_100mb + :over100Mb, " +
+                   "updated_at = now() WHERE user_id = :userId",
+           nativeQuery = true)
+    int add(@Param("userId") Long userId, @Param("count") long count, @Param("size") long size,
+            @Param("favorites") long favorites, @Param("under1Mb") long under1Mb, @Param("from1To10Mb") long from1To10Mb,
+            @Param("from10To100Mb") long from10To100Mb, @Param("over100Mb") long over100Mb);
+
+    // Returns 1 if the rollup had drifted from the file table
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE user_file_stats s SET file_count = c.file_count, total_size = c.total_size, " +
+                   "favorite_count = c.favorite_count, size_under_1mb = c.size_under_1mb, " +
+                   "size_1_to_10mb = c.size_1_to_10mb, size_10_to_100mb = c.size_10_to_100mb, " +
+                   "size_over_100mb = c.size_over_100mb, updated_at = now() " +
+                   "FROM (" + STATS_FROM_FILES + ") c " +
+                   "WHERE s.user_id = :userId " +
+                   "AND (s.file_count, s.total_size, s.favorite_count, s.size_under_1mb, s.size_1_to_10mb, " +
+                   "     s.size_10_to_100mb, s.size_over_100mb) IS DISTINCT FROM " +
+                   "    (c.file_count, c.total_size, c.favorite_count, c.size_under_1mb, c.size_1_to_10mb, " +
+                   "     c.size_10_to_100mb, c.size_over_100mb)",
+           nativeQuery = true)
+    int recomputeFromFiles(@Param("userId") Long userId);
+
+    @Query(value = "SELECT user_id FROM user_file_stats WHERE user_id > :afterId ORDER BY user_id LIMIT :limit",
+           nativeQuery = true)
+    List<Long> findUserIdsAfter(@Param("afterId") Long afterId, @Param("limit") int limit);
+}
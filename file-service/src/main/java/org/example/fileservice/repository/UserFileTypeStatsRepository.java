@@ -0,0 +1,44 @@
+package org.example.fileservice.repository;
+
+import org.example.fileservice.entity.UserFileTypeStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Repository
+public interface UserFileTypeStatsRepository extends JpaRepository<UserFileTypeStats, UserFileTypeStats.Key> {
+
+    List<UserFileTypeStats> findByUserIdAndFileCountGreaterThan(Long userId, Long fileCount);
+
+    // Same rule as File.extensionOf, lower-cased: from the last dot, empty without one.
+    // A row a concurrent add created in the meantime is overwritten with the computed count.
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO user_file_type_stats (user_id, extension, file_count) " +
+                   "SELECT :userId, t.extension, count(*) FROM " +
+                   "(SELECT lower(COALESCE(substring(f.original_file_name from '\\.[^.]*$'), '')) AS extension " +
+                   " FROM file f WHERE f.user_id = :userId) t " +
+                   "GROUP BY t.extension " +
+                   "ON CONFLICT (user_id, extension) DO UPDATE SET file_count = EXCLUDED.file_count",
+           nativeQuery = true)
+    int insertFromFiles(@Param("userId") Long userId);
+
+    // Only once the user's rollup exists (see UserFileStatsRepository.add)
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO user_file_type_stats (user_id, extension, file_count) " +
+                   "SELECT :userId, :extension, :count WHERE EXISTS (SELECT 1 FROM user_file_stats WHERE user_id = :userId) " +
+                   "ON CONFLICT (user_id, extension) DO UPDATE SET file_count = user_file_type_stats.file_count + EXCLUDED.file_count",
+           nativeQuery = true)
+    int add(@Param("userId") Long userId, @Param("extension") String extension, @Param("count") long count);
+
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM user_file_type_stats WHERE user_id = :userId", nativeQuery = true)
+    int deleteByUser(@Param("userId") Long userId);
+}
@@ -0,0 +1,68 @@
+package org.example.fileservice.repository;
+
+import org.example.fileservice.entity.UserQuota;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface UserQuotaRepository extends JpaRepository<UserQuota, Long> {
+
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO user_quota (user_id, storage_limit, used_bytes, reserved_bytes, pending_delta, updated_at) " +
+                   "VALUES (:userId, :limit, :used, 0, 0, now()) ON CONFLICT (user_id) DO NOTHING",
+           nativeQuery = true)
+    int insertIfAbsent(@Param("userId") Long userId, @Param("limit") Long limit, @Param("used") long used);
+
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE user_quota SET storage_limit = :limit, updated_at = now() WHERE user_id = :userId",
+           nativeQuery = true)
+    int updateLimit(@Param("userId") Long userId, @Param("limit") Long limit);
+
+    // Check and reservation in one statement: concurrent uploads cannot both pass the check
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE user_quota SET reserved_bytes = reserved_bytes + :bytes, updated_at = now() " +
+                   "WHERE user_id = :userId " +
+                   "AND (storage_limit IS NULL OR used_bytes + reserved_bytes + :bytes <= storage_limit)",
+           nativeQuery = true)
+    int reserve(@Param("userId") Long userId, @Param("bytes") long bytes);
+
+    // Releases :reserved and records :used bytes of usage (negative for deletions)
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE user_quota SET reserved_bytes = GREATEST(reserved_bytes - :reserved, 0), " +
+                   "used_bytes = used_bytes + :used, pending_delta = pending_delta + :used, updated_at = now() " +
+                   "WHERE user_id = :userId",
+           nativeQuery = true)
+    int settle(@Param("userId") Long userId, @Param("reserved") long reserved, @Param("used") long used);
+
+    // Zeroes the pending delta of up to :limit users and records each as an outbox row with a
+    // fresh idempotency key, in one statement, so a change is always in exactly one of the two
+    @Modifying
+    @Transactional
+    @Query(value = "WITH taken AS (" +
+                   "  UPDATE user_quota q SET pending_delta = 0 " +
+                   "  FROM (SELECT user_id, pending_delta FROM user_quota WHERE pending_delta <> 0 " +
+                   "        ORDER BY user_id LIMIT :limit FOR UPDATE SKIP LOCKED) old " +
+                   "  WHERE q.user_id = old.user_id RETURNING old.user_id, old.pending_delta) " +
+                   "INSERT INTO storage_delta_outbox (idempotency_key, user_id, delta, created_at) " +
+                   "SELECT gen_random_uuid()::text, user_id, pending_delta, now() FROM taken",
+           nativeQuery = true)
+    int movePendingDeltasToOutbox(@Param("limit") int limit);
+
+    // Reservations are held for the length of one upload; any left on an idle row were leaked by a crash
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE user_quota SET reserved_bytes = 0 WHERE reserved_bytes <> 0 AND updated_at < :staleBefore",
+           nativeQuery = true)
+    int clearStaleReservations(@Param("staleBefore") LocalDateTime staleBefore);
+}
@@ -0,0 +1,115 @@
+package org.example.fileservice.search;
+
+import org.apache.tika.exception.TikaException;
+import org.apache.tika.exception.WriteLimitReachedException;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.metadata.TikaCoreProperties;
+import org.apache.tika.parser.AutoDetectParser;
+import org.apache.tika.parser.ParseContext;
+import org.apache.tika.parser.Parser;
+import org.apache.tika.sax.BodyContentHandler;
+import org.example.fileservice.entity.File;
+import org.springframework.stereotype.Component;
+import org.xml.sax.SAXException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Extracts searchable text from file content. Plain text, CSV and JSON are read as
+ * UTF-8; HTML, XML, PDF and Office/OpenDocument formats go through Tika's pure-Java
+ * parsers. Other formats are not indexed.
+ */
+@Component
+public class ContentExtractor {
+
+    private static final Set<String> PLAIN_TEXT_EXTENSIONS = Set.of("txt", "text", "csv", "tsv", "json", "md", "log");
+    private static final Set<String> PARSED_EXTENSIONS = Set.of(
+        "html", "htm", "xml", "pdf", "rtf",
+        "doc", "docx", "xls", "xlsx", "ppt", "pptx",
+        "odt", "ods", "odp");
+
+    private static final Set<String> PLAIN_TEXT_TYPES = Set.of(
+        "text/plain", "text/csv", "text/tab-separated-values", "text/markdown", "application/json");
+    private static final Set<String> PARSED_TYPE_PREFIXES = Set.of(
+        "text/html", "text/xml", "application/xml", "application/xhtml+xml", "application/pdf", "application/rtf",
+        "application/msword", "application/vnd.ms-", "application/vnd.openxmlformats-officedocument.",
+        "application/vnd.oasis.opendocument.");
+
+    private final Parser parser = new AutoDetectParser();
+
+    public boolean supports(String fileName, String contentType) {
+        return isPlainText(fileName, contentType) || isParsed(fileName, contentType);
+    }
+
+    /**
+     * The text of the content, cut off after {@code maxChars} characters.
+     */
+    public String extract(InputStream in, String fileName, String contentType, int maxChars) throws IOException {
+        if (isPlainText(fileName, contentType)) {
+            return readText(in, maxChars);
+        }
+
+        BodyContentHandler handler = new BodyContentHandler(maxChars);
+        Metadata metadata = new Metadata();
+        if (fileName != null) {
+            metadata.set(TikaCoreProperties.RESOURCE_NAME_KEY, fileName);
+        }
+        if (contentType != null) {
+            metadata.set(Metadata.CONTENT_TYPE, contentType);
+        }
+        try {
+            parser.parse(in, handler, metadata, new ParseContext());
+        } catch (SAXException e) {
+            // The handler stops the parse once maxChars is reached; keep what was read
+            if (!WriteLimitReachedException.isWriteLimitReached(e)) {
+                throw new IOException("Could not extract text from " + fileName, e);
+            }
+        } catch (TikaException e) {
+            throw new IOException("Could not extract text from " + fileName, e);
+        }
+        return handler.toString();
+    }
+
+    private static String readText(InputStream in, int maxChars) throws IOException {
+        Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8);
+        StringBuilder text = new StringBuilder();
+        char[] buffer = new char[8192];
+        int read;
+        while (text.length() < maxChars
+                && (read = reader.read(buffer, 0, Math.min(buffer.length, maxChars - text.length()))) != -1) {
+            text.append(buffer, 0, read);
+        }
+        return text.toString();
+    }
+
+    private static boolean isPlainText(String fileName, String contentType) {
+        return PLAIN_TEXT_EXTENSIONS.contains(extension(fileName)) || PLAIN_TEXT_TYPES.contains(baseType(contentType));
+    }
+
+    private static boolean isParsed(String fileName, String contentType) {
+        if (PARSED_EXTENSIONS.contains(extension(fileName))) {
+            return true;
+        }
+        String type = baseType(contentType);
+        return PARSED_TYPE_PREFIXES.stream().anyMatch(type::startsWith);
+    }
+
+    private static String extension(String fileName) {
+        String extension = File.extensionOf(fileName);
+        return extension.isEmpty() ? "" : extension.substring(1).toLowerCase(Locale.ROOT);
+    }
+
+    private static String baseType(String contentType) {
+        if (contentType == null) {
+            return "";
+        }
+        int parameters = contentType.indexOf(';');
+        return (parameters >= 0 ? contentType.substring(0, parameters) : contentType).trim().toLowerCase(Locale.ROOT);
+    }
+}
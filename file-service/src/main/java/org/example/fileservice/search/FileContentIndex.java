@@ -0,0 +1,526 @@
+package org.example.fileservice.search;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.StoredFields;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.PrefixQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.example.fileservice.dto.FileContentRow;
+import org.example.fileservice.repository.FileRepository;
+import org.example.fileservice.storage.BlobStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * On-disk Lucene index of the text inside uploaded documents, local to each instance.
+ *
+ * A single scanner walks new file rows in (created_at, id) order and hands the ones with
+ * extractable content to a fixed pool of extraction workers through a bounded queue.
+ * When the queue is full the scan stops and resumes from the same row on the next pass,
+ * so a burst of uploads builds a backlog instead of unbounded memory. Uploads only wake
+ * the scanner; extraction never runs on the request thread.
+ *
+ * The cursor stored in the Lucene commit is the oldest row still being extracted, so a
+ * restart re-reads at most what was in flight. Parsing runs on its own thread with a time
+ * limit: a document that takes longer is abandoned (its stream closed and its thread
+ * interrupted) and counted as timed out, so no single upload holds a worker or the cursor. Like the name index, each pass re-reads a
+ * short overlap window for transactions that commit late. Deleted files are dropped once
+ * the deleting transaction commits, or when a search finds them gone.
+ */
+@Component
+@Slf4j
+public class FileContentIndex {
+
+    private static final String ID = "id";
+    private static final String ID_SORT = "id_sort";
+    private static final String USER_ID = "user_id";
+    private static final String CONTENT = "content";
+
+    private static final String CURSOR_TIME = "cursor.created_at";
+    private static final LocalDateTime BEGINNING = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private final FileRepository fileRepository;
+    private final BlobStore blobStore;
+    private final ContentExtractor contentExtractor;
+    private final MeterRegistry meterRegistry;
+    private final Analyzer analyzer = new StandardAnalyzer();
+
+    @Value("${file.content-index.enabled:true}")
+    private boolean enabled;
+
+    @Value("${file.content-index.dir:./search-index/content}")
+    private String indexDir;
+
+    @Value("${file.content-index.workers:2}")
+    private int workers;
+
+    @Value("${file.content-index.queue-capacity:100}")
+    private int queueCapacity;
+
+    @Value("${file.content-index.max-file-size:20971520}")
+    private long maxFileSize;
+
+    @Value("${file.content-index.max-chars:1000000}")
+    private int maxChars;
+
+    @Value("${file.content-index.extraction-timeout-ms:60000}")
+    private long extractionTimeoutMs;
+
+    @Value("${file.content-index.scan-batch-size:200}")
+    private int batchSize;
+
+    @Value("${file.content-index.overlap-seconds:30}")
+    private long overlapSeconds;
+
+    @Value("${file.content-index.max-results:1000}")
+    private int maxResults;
+
+    private Directory directory;
+    private IndexWriter writer;
+    private SearcherManager searcherManager;
+    private ThreadPoolExecutor extractionPool;
+    // Runs the parses the workers wait on; a parse that ignores the interrupt keeps its thread, not a worker
+    private ExecutorService parseExecutor;
+    private ExecutorService scanExecutor;
+
+    // created_at of the oldest row not yet known to be indexed; null when the index is empty
+    private volatile LocalDateTime cursorTime;
+    private volatile LocalDateTime scannedUpTo;
+    private final AtomicBoolean scanRequested = new AtomicBoolean();
+    private final AtomicBoolean dirty = new AtomicBoolean();
+
+    // Rows handed to the workers and not finished yet, by id
+    private final Map<Long, LocalDateTime> inFlight = new ConcurrentHashMap<>();
+    // created_at of rows already handled within the overlap window, so re-reading them is a no-op
+    private final Map<Long, LocalDateTime> recentlyHandled = new ConcurrentHashMap<>();
+
+    private Timer extractionTimer;
+    private DistributionSummary extractedChars;
+    private Counter indexedCounter;
+    private Counter skippedCounter;
+    private Counter failedCounter;
+    private Counter timedOutCounter;
+    private Counter bytesCounter;
+    private Counter deletedCounter;
+
+    public FileContentIndex(FileRepository fileRepository, BlobStore blobStore,
+                            ContentExtractor contentExtractor, MeterRegistry meterRegistry) {
+        this.fileRepository = fileRepository;
+        this.blobStore = blobStore;
+        this.contentExtractor = contentExtractor;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void open() {
+        if (!enabled) {
+            log.info("File content index is disabled");
+            return;
+        }
+        try {
+            Path path = Paths.get(indexDir).toAbsolutePath().normalize();
+            Files.createDirectories(path);
+            directory = FSDirectory.open(path);
+            writer = new IndexWriter(directory, new IndexWriterConfig(analyzer)
+                .setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND));
+            searcherManager = new SearcherManager(writer, null);
+            restoreCursor();
+            log.info("Opened file content index at {} with {} documents, cursor at {}",
+                path, writer.getDocStats().numDocs, cursorTime);
+        } catch (IOException e) {
+            log.error("Could not open file content index at {}; content search is unavailable", indexDir, e);
+            closeQuietly();
+            writer = null;
+            return;
+        }
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        extractionPool = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                Thread thread = new Thread(runnable, "content-index-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        AtomicInteger parseThreadNumber = new AtomicInteger();
+        parseExecutor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "content-parse-" + parseThreadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        scanExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "content-index-scan");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        Tags tags = Tags.of("index", "content");
+        extractionTimer = Timer.builder("content.index.extraction").tags(tags).register(meterRegistry);
+        extractedChars = DistributionSummary.builder("content.index.extracted.chars").tags(tags).register(meterRegistry);
+        indexedCounter = Counter.builder("content.index.files").tags(tags).tag("result", "indexed").register(meterRegistry);
+        skippedCounter = Counter.builder("content.index.files").tags(tags).tag("result", "skipped").register(meterRegistry);
+        failedCounter = Counter.builder("content.index.files").tags(tags).tag("result", "failed").register(meterRegistry);
+        timedOutCounter = Counter.builder("content.index.files").tags(tags).tag("result", "timeout").register(meterRegistry);
+        bytesCounter = Counter.builder("content.index.bytes").tags(tags).register(meterRegistry);
+        deletedCounter = Counter.builder("content.index.deletes").tags(tags).register(meterRegistry);
+        Gauge.builder("content.index.queue.size", extractionPool, pool -> pool.getQueue().size())
+            .tags(tags).register(meterRegistry);
+        Gauge.builder("content.index.in.flight", inFlight, Map::size).tags(tags).register(meterRegistry);
+        Gauge.builder("content.index.documents", this, FileContentIndex::documentCount)
+            .tags(tags).register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return writer != null;
+    }
+
+    /**
+     * Wakes the scanner, e.g. after an upload; returns immediately.
+     */
+    public void requestScan() {
+        if (writer != null && scanRequested.compareAndSet(false, true)) {
+            try {
+                scanExecutor.execute(this::scan);
+            } catch (RejectedExecutionException e) {
+                scanRequested.set(false);
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${file.content-index.scan-interval-ms:10000}")
+    public void scheduledScan() {
+        requestScan();
+    }
+
+    private void scan() {
+        scanRequested.set(false);
+        try {
+            LocalDateTime since = cursorTime == null ? BEGINNING : cursorTime.minusSeconds(overlapSeconds);
+            long afterId = 0L;
+            while (true) {
+                List<FileContentRow> rows = fileRepository.findCreatedSince(since, afterId, PageRequest.of(0, batchSize));
+                for (FileContentRow row : rows) {
+                    if (!row.createdAt().equals(recentlyHandled.get(row.id())) && !inFlight.containsKey(row.id())
+                            && !submit(row)) {
+                        // Queue full: stop here and pick this row up again on the next pass
+                        return;
+                    }
+                    since = row.createdAt();
+                    afterId = row.id();
+                    scannedUpTo = since;
+                }
+                if (rows.size() < batchSize) {
+                    return;
+                }
+            }
+        } catch (Exception e) {
+            log.error("File content index scan failed", e);
+        }
+    }
+
+    private boolean submit(FileContentRow row) {
+        if (row.fileSize() == null || row.fileSize() > maxFileSize
+                || !contentExtractor.supports(row.originalFileName(), row.contentType())) {
+            skippedCounter.increment();
+            recentlyHandled.put(row.id(), row.createdAt());
+            return true;
+        }
+        inFlight.put(row.id(), row.createdAt());
+        try {
+            extractionPool.execute(() -> index(row));
+            return true;
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(row.id());
+            return false;
+        }
+    }
+
+    private void index(FileContentRow row) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            Resource resource = row.blobHash() != null
+                ? blobStore.open(row.blobHash()).orElse(null)
+                : new FileSystemResource(Paths.get(row.filePath()));
+            if (resource == null || !resource.exists()) {
+                skippedCounter.increment();
+                return;
+            }
+            String text;
+            try (InputStream in = resource.getInputStream()) {
+                text = extractWithTimeout(in, row);
+            }
+            if (text == null) {
+                return;
+            }
+
+            Document doc = new Document();
+            doc.add(new StringField(ID, String.valueOf(row.id()), Field.Store.YES));
+            doc.add(new NumericDocValuesField(ID_SORT, row.id()));
+            doc.add(new StringField(USER_ID, String.valueOf(row.userId()), Field.Store.NO));
+            doc.add(new TextField(CONTENT, text, Field.Store.NO));
+            writer.updateDocument(new Term(ID, String.valueOf(row.id())), doc);
+            dirty.set(true);
+
+            indexedCounter.increment();
+            bytesCounter.increment(row.fileSize());
+            extractedChars.record(text.length());
+        } catch (Exception e) {
+            // Not retried: a document that failed to parse will fail again
+            failedCounter.increment();
+            log.warn("Could not index the content of file {}: {}", row.id(), e.getMessage());
+        } finally {
+            sample.stop(extractionTimer);
+            recentlyHandled.put(row.id(), row.createdAt());
+            inFlight.remove(row.id());
+        }
+    }
+
+    /**
+     * The extracted text, or null if the parse did not finish within the extraction timeout.
+     * On timeout the stream is closed and the parse thread interrupted; parsers that ignore
+     * both keep running on that thread, but the worker moves on.
+     */
+    private String extractWithTimeout(InputStream in, FileContentRow row) throws Exception {
+        Future<String> parse = parseExecutor.submit(
+            () -> contentExtractor.extract(in, row.originalFileName(), row.contentType(), maxChars));
+        try {
+            return parse.get(extractionTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            parse.cancel(true);
+            in.close();
+            timedOutCounter.increment();
+            log.warn("Gave up extracting the content of file {} after {} ms", row.id(), extractionTimeoutMs);
+            return null;
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception cause ? cause : e;
+        } catch (InterruptedException e) {
+            parse.cancel(true);
+            Thread.currentThread().interrupt();
+            throw e;
+        }
+    }
+
+    /**
+     * Commits and publishes what the workers indexed since the last call, and moves the
+     * stored cursor up to the oldest row still in flight.
+     */
+    @Scheduled(fixedDelayString = "${file.content-index.commit-interval-ms:5000}")
+    public void commit() {
+        if (writer == null) {
+            return;
+        }
+        LocalDateTime oldestInFlight = inFlight.values().stream().min(Comparator.naturalOrder()).orElse(null);
+        LocalDateTime cursor = oldestInFlight != null ? oldestInFlight : scannedUpTo;
+        boolean moved = cursor != null && !cursor.equals(cursorTime);
+        if (!dirty.getAndSet(false) && !moved) {
+            return;
+        }
+        try {
+            if (cursor != null) {
+                cursorTime = cursor;
+                writer.setLiveCommitData(Map.of(CURSOR_TIME, cursor.toString()).entrySet());
+            }
+            writer.commit();
+            searcherManager.maybeRefresh();
+        } catch (IOException | RuntimeException e) {
+            dirty.set(true);
+            log.error("Could not commit the file content index", e);
+        }
+        if (cursorTime != null) {
+            LocalDateTime horizon = cursorTime.minusSeconds(overlapSeconds);
+            recentlyHandled.values().removeIf(createdAt -> createdAt.isBefore(horizon));
+        }
+    }
+
+    /**
+     * Ids of documents containing every word of the query (the last one also as a prefix)
+     * among the files the user owns, best matches first.
+     */
+    public List<Long> search(Long userId, String queryText, long offset, int limit) {
+        List<String> tokens = tokens(queryText);
+        if (writer == null || tokens.isEmpty() || offset >= maxResults) {
+            return List.of();
+        }
+
+        BooleanQuery.Builder query = new BooleanQuery.Builder()
+            .add(new TermQuery(new Term(USER_ID, String.valueOf(userId))), BooleanClause.Occur.FILTER);
+        for (int i = 0; i < tokens.size(); i++) {
+            query.add(tokenQuery(tokens.get(i), i == tokens.size() - 1), BooleanClause.Occur.MUST);
+        }
+
+        int wanted = (int) Math.min(offset + limit, maxResults);
+        Sort sort = new Sort(SortField.FIELD_SCORE, new SortField(ID_SORT, SortField.Type.LONG, true));
+        try {
+            IndexSearcher searcher = searcherManager.acquire();
+            try {
+                TopDocs top = searcher.search(query.build(), wanted, sort);
+                StoredFields storedFields = searcher.storedFields();
+                List<Long> result = new ArrayList<>();
+                for (int i = (int) offset; i < top.scoreDocs.length; i++) {
+                    ScoreDoc hit = top.scoreDocs[i];
+                    result.add(Long.valueOf(storedFields.document(hit.doc).get(ID)));
+                }
+                return result;
+            } finally {
+                searcherManager.release(searcher);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Content search failed", e);
+        }
+    }
+
+    private Query tokenQuery(String token, boolean last) {
+        Query exact = new TermQuery(new Term(CONTENT, token));
+        if (!last || token.length() < 2) {
+            return exact;
+        }
+        return new BooleanQuery.Builder()
+            .add(new BoostQuery(exact, 2f), BooleanClause.Occur.SHOULD)
+            .add(new PrefixQuery(new Term(CONTENT, token)), BooleanClause.Occur.SHOULD)
+            .build();
+    }
+
+    private List<String> tokens(String text) {
+        List<String> tokens = new ArrayList<>();
+        try (TokenStream stream = analyzer.tokenStream(CONTENT, text)) {
+            CharTermAttribute term = stream.addAttribute(CharTermAttribute.class);
+            stream.reset();
+            while (stream.incrementToken()) {
+                tokens.add(term.toString());
+            }
+            stream.end();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return tokens;
+    }
+
+    /**
+     * Drops the documents of deleted files once the current transaction commits
+     * (immediately if there is none).
+     */
+    public void removeAfterCommit(Collection<Long> fileIds) {
+        if (writer == null || fileIds.isEmpty()) {
+            return;
+        }
+        List<Long> ids = List.copyOf(fileIds);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    remove(ids);
+                }
+            });
+        } else {
+            remove(ids);
+        }
+    }
+
+    public void remove(Collection<Long> fileIds) {
+        if (writer == null || fileIds.isEmpty()) {
+            return;
+        }
+        try {
+            writer.deleteDocuments(fileIds.stream().map(id -> new Term(ID, String.valueOf(id))).toArray(Term[]::new));
+            dirty.set(true);
+            deletedCounter.increment(fileIds.size());
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not remove {} file(s) from the content index: {}", fileIds.size(), e.getMessage());
+        }
+    }
+
+    private void restoreCursor() {
+        Iterable<Map.Entry<String, String>> data = writer.getLiveCommitData();
+        if (data == null) {
+            return;
+        }
+        for (Map.Entry<String, String> entry : data) {
+            if (CURSOR_TIME.equals(entry.getKey())) {
+                cursorTime = LocalDateTime.parse(entry.getValue());
+            }
+        }
+    }
+
+    private double documentCount() {
+        return writer != null ? writer.getDocStats().numDocs : 0;
+    }
+
+    @PreDestroy
+    public void close() {
+        if (writer == null) {
+            return;
+        }
+        scanExecutor.shutdownNow();
+        extractionPool.shutdownNow();
+        parseExecutor.shutdownNow();
+        try {
+            extractionPool.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Rows still in flight keep the cursor where it is and are extracted again on startup
+        commit();
+        closeQuietly();
+    }
+
+    private void closeQuietly() {
+        for (AutoCloseable closeable : new AutoCloseable[] {searcherManager, writer, directory}) {
+            if (closeable == null) {
+                continue;
+            }
+            try {
+                closeable.close();
+            } catch (Exception e) {
+                log.warn("Could not close file content index: {}", e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package org.example.fileservice.search;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.TermQuery;
+import org.example.commonlibrary.search.PollingNameIndex;
+import org.example.commonlibrary.search.SearchIndexSettings;
+import org.example.fileservice.dto.FileIndexRow;
+import org.example.fileservice.entity.File;
+import org.example.fileservice.repository.FileRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Name index over the file table. A search word also matches the file's extension
+ * exactly, so "pdf" finds every PDF.
+ */
+@Component
+public class FileNameIndex extends PollingNameIndex<FileIndexRow> {
+
+    private static final String EXTENSION = "ext";
+
+    private final FileRepository fileRepository;
+
+    public FileNameIndex(FileRepository fileRepository, MeterRegistry meterRegistry,
+                         @Value("${file.search.index.enabled:true}") boolean enabled,
+                         @Value("${file.search.index.dir:./search-index/files}") String indexDir,
+                         @Value("${file.search.index.sync-batch-size:1000}") int batchSize,
+                         @Value("${file.search.index.overlap-seconds:30}") long overlapSeconds,
+                         @Value("${file.search.index.max-holdback-seconds:300}") long maxHoldbackSeconds,
+                         @Value("${file.search.index.max-results:1000}") int maxResults) {
+        super("file name index", "files",
+            new SearchIndexSettings(enabled, indexDir, batchSize, overlapSeconds, maxHoldbackSeconds, maxResults),
+            meterRegistry);
+        this.fileRepository = fileRepository;
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${file.search.index.sync-interval-ms:2000}")
+    public void sync() {
+        super.sync();
+    }
+
+    @Override
+    protected List<FileIndexRow> findChangedSince(LocalDateTime since, long afterId, int limit) {
+        return fileRepository.findChangedSince(since, afterId, PageRequest.of(0, limit));
+    }
+
+    @Override
+    protected LocalDateTime findOldestOpenTransactionStart() {
+        return fileRepository.findOldestOpenTransactionStart();
+    }
+
+    @Override
+    protected void addFields(Document doc, FileIndexRow row) {
+        doc.add(new TextField(NAME, row.originalFileName(), Field.Store.NO));
+        String extension = File.extensionOf(row.originalFileName());
+        if (extension.length() > 1) {
+            doc.add(new StringField(EXTENSION, extension.substring(1).toLowerCase(Locale.ROOT), Field.Store.NO));
+        }
+    }
+
+    @Override
+    protected void addTokenAlternatives(BooleanQuery.Builder alternatives, String token) {
+        alternatives.add(new TermQuery(new Term(EXTENSION, token)), BooleanClause.Occur.SHOULD);
+    }
+}
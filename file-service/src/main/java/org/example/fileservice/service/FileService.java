@@ -1,31 +1,52 @@
 package org.example.fileservice.service;
 
+import org.example.commonlibrary.paging.KeysetPage;
+import org.example.commonlibrary.paging.PageCursor;
+import org.example.commonlibrary.search.SearchPatterns;
 import org.example.fileservice.config.FileStorageConfig;
+import org.example.fileservice.dto.BulkCopyResult;
 import org.example.fileservice.dto.FileDTO;
+import org.example.fileservice.dto.FileDownload;
+import org.example.fileservice.dto.FolderCopyResult;
+import org.example.fileservice.dto.FolderStatsDTO;
 import org.example.fileservice.dto.UserDTO;
 import org.example.fileservice.entity.File;
+import org.example.fileservice.entity.UserFileStats;
+import org.example.fileservice.event.FileEventPublisher;
 import org.example.fileservice.exception.FileNotFoundException;
 import org.example.fileservice.exception.ForbiddenException;
-import org.example.fileservice.exception.StorageQuotaExceededException;
-import org.example.fileservice.feign.UserServiceClient;
+import org.example.fileservice.repository.FileBatchRepository;
 import org.example.fileservice.repository.FileRepository;
+import org.example.fileservice.search.FileContentIndex;
+import org.example.fileservice.search.FileNameIndex;
+import org.example.fileservice.storage.BlobStore;
+import org.example.fileservice.storage.LegacyContentMigrator;
+import org.example.fileservice.utils.ChecksumReadableByteChannel;
+import org.example.fileservice.utils.FileChannelWriter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
 import org.springframework.core.io.Resource;
-import org.springframework.core.io.UrlResource;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
-import java.net.MalformedURLException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
 import java.util.stream.Collectors;
 
 @Service
@@ -33,93 +54,211 @@ import java.util.stream.Collectors;
 @Slf4j
 public class FileService {
 
+    // Sorts after every created_at, so the first page starts at the newest file
+    private static final LocalDateTime LISTING_START = LocalDateTime.of(9999, 12, 31, 0, 0);
+
     private final FileRepository fileRepository;
-    private final UserServiceClient userServiceClient;
+    private final QuotaLedger quotaLedger;
+    private final FileStatsRollup fileStatsRollup;
     private final FileStorageConfig fileStorageConfig;
+    private final BlobStore blobStore;
+    private final FileEventPublisher fileEventPublisher;
+    private final FileBatchRepository fileBatchRepository;
+    private final LegacyContentMigrator legacyContentMigrator;
+    private final ExecutorService contentIoExecutor;
+    private final FileNameIndex fileNameIndex;
+    private final FileContentIndex fileContentIndex;
 
     @Value("${file.max-size}")
     private Long maxFileSize;
 
+    @Value("${file.listing.default-page-size:100}")
+    private int listingDefaultPageSize;
+
+    @Value("${file.listing.max-page-size:500}")
+    private int listingMaxPageSize;
+
+    @Value("${file.search.default-limit:50}")
+    private int searchDefaultLimit;
+
+    @Value("${file.search.max-limit:200}")
+    private int searchMaxLimit;
+
     public FileDTO uploadFile(MultipartFile file, Long userId, Long folderId) {
         // Validate file
         if (file.isEmpty()) {
             throw new RuntimeException("File is empty");
         }
 
-        if (file.getSize() > maxFileSize) {
+        try (InputStream in = file.getInputStream()) {
+            return storeFile(in, file.getSize(), maxFileSize, file.getOriginalFilename(), file.getContentType(), userId, folderId);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to store file", e);
+        }
+    }
+
+    /**
+     * Streaming upload: the request body is written straight to the staging area
+     * with FileChannel.transferFrom, without going through the multipart resolver.
+     * declaredSize may be -1 when the client does not send a Content-Length.
+     */
+    public FileDTO uploadFileStream(InputStream in, long declaredSize, String originalFileName,
+                                    String contentType, Long userId, Long folderId) {
+        if (declaredSize == 0) {
+            throw new RuntimeException("File is empty");
+        }
+
+        try {
+            return storeFile(in, declaredSize, maxFileSize, originalFileName, contentType, userId, folderId);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to store file", e);
+        }
+    }
+
+    /**
+     * Stores a file whose content has already been received in full elsewhere
+     * (e.g. the chunks of a resumable upload session). The per-request size limit
+     * does not apply; the stream must contain exactly totalSize bytes.
+     */
+    public FileDTO storeAssembledFile(InputStream in, long totalSize, String originalFileName,
+                                      String contentType, Long userId, Long folderId) throws IOException {
+        FileDTO stored = storeFile(in, totalSize, totalSize, originalFileName, contentType, userId, folderId);
+        if (stored.getFileSize() != totalSize) {
+            deleteFile(stored.getId(), userId);
+            throw new RuntimeException("Assembled file size does not match the declared size");
+        }
+        return stored;
+    }
+
+    private FileDTO storeFile(InputStream in, long declaredSize, long sizeLimit, String originalFileName,
+                              String contentType, Long userId, Long folderId) throws IOException {
+        if (declaredSize > sizeLimit) {
             throw new RuntimeException("File size exceeds maximum allowed size");
         }
 
-        // Check storage quota via User Service
-        Boolean hasSpace = userServiceClient.hasStorageSpace(userId, file.getSize());
-        if (hasSpace == null || !hasSpace) {
-            throw new StorageQuotaExceededException("Storage quota exceeded");
+        // Generate unique filename
+        String fileUuid = UUID.randomUUID().toString();
+        String fileExtension = "";
+        if (originalFileName != null && originalFileName.contains(".")) {
+            fileExtension = originalFileName.substring(originalFileName.lastIndexOf("."));
         }
+        String fileName = fileUuid + fileExtension;
 
+        // Quota is reserved locally: up front when the size is known, otherwise once the
+        // content is staged. It is released again if anything below fails.
+        long reserved = 0;
+        long fileSize;
+        File savedFile;
         try {
-            // Create user directory if it doesn't exist
-            Path userDir = Paths.get(fileStorageConfig.getUploadDir(), userId.toString());
-            if (!Files.exists(userDir)) {
-                Files.createDirectories(userDir);
+            if (declaredSize > 0) {
+                quotaLedger.reserve(userId, declaredSize);
+                reserved = declaredSize;
             }
 
-            // Generate unique filename
-            String fileUuid = UUID.randomUUID().toString();
-            String originalFileName = file.getOriginalFilename();
-            String fileExtension = "";
-            if (originalFileName != null && originalFileName.contains(".")) {
-                fileExtension = originalFileName.substring(originalFileName.lastIndexOf("."));
+            // Stage the upload, computing size and checksum in the same pass
+            Path stagedPath = blobStore.newStagingFile();
+            String checksum;
+            try {
+                ChecksumReadableByteChannel source = new ChecksumReadableByteChannel(Channels.newChannel(in));
+                fileSize = FileChannelWriter.write(source, stagedPath, sizeLimit);
+                checksum = source.getChecksum();
+
+                if (fileSize == 0) {
+                    throw new RuntimeException("File is empty");
+                }
+                if (fileSize > reserved) {
+                    quotaLedger.reserve(userId, fileSize - reserved);
+                    reserved = fileSize;
+                }
+            } catch (IOException | RuntimeException e) {
+                Files.deleteIfExists(stagedPath);
+                throw e;
             }
-            String fileName = fileUuid + fileExtension;
 
-            // Save file to disk
-            Path filePath = userDir.resolve(fileName);
-            Files.copy(file.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
+            // Identical content is kept once; the staged copy is dropped if the blob already exists
+            String blobLocation = blobStore.store(stagedPath, checksum, fileSize);
 
             // Save metadata to database
             File fileMetadata = new File();
             fileMetadata.setFileName(fileName);
             fileMetadata.setOriginalFileName(originalFileName);
-            fileMetadata.setFilePath(filePath.toString());
-            fileMetadata.setContentType(file.getContentType());
-            fileMetadata.setFileSize(file.getSize());
+            fileMetadata.setFilePath(blobLocation);
+            fileMetadata.setContentType(contentType != null ? contentType : "application/octet-stream");
+            fileMetadata.setFileSize(fileSize);
+            fileMetadata.setChecksum(checksum);
+            fileMetadata.setBlobHash(checksum);
             fileMetadata.setFileUuid(fileUuid);
             fileMetadata.setUserId(userId);
             fileMetadata.setFolderId(folderId);
 
-            File savedFile = fileRepository.save(fileMetadata);
-
-            // Update user storage via User Service
-            userServiceClient.updateStorageUsed(userId, file.getSize());
+            try {
+                savedFile = fileRepository.save(fileMetadata);
+            } catch (RuntimeException e) {
+                blobStore.release(checksum, 1);
+                throw e;
+            }
+        } catch (IOException | RuntimeException e) {
+            quotaLedger.release(userId, reserved);
+            throw e;
+        }
 
-            return convertToDTO(savedFile);
+        // Usage reaches user-service in the background
+        quotaLedger.commit(userId, reserved, fileSize);
+        fileStatsRollup.filesAdded(List.of(savedFile));
+        fileEventPublisher.publishFilesAdded(userId, folderId, 1, fileSize);
+        // Text extraction happens on the content index workers, after the response
+        fileContentIndex.requestScan();
 
-        } catch (IOException e) {
-            throw new RuntimeException("Failed to store file", e);
-        }
+        return convertToDTO(savedFile);
     }
 
     public FileDTO uploadFile(MultipartFile file, Long userId) {
         return uploadFile(file, userId, null);
     }
 
-    public List<FileDTO> getUserFiles(Long userId) {
-        List<File> files = fileRepository.findByUserIdOrderByCreatedAtDesc(userId);
-        return files.stream()
-            .map(this::convertToDTO)
-            .collect(Collectors.toList());
+    public List<FileDTO> getFilesByOriginalFileName(Long userId, String name) {
+        return searchFiles(userId, name, 0, searchMaxLimit);
     }
 
-    public List<FileDTO> getFilesByOriginalFileName(Long userId, String name) {
-        List<File> files = fileRepository.findByUserIdAndOriginalFileNameContainingIgnoreCase(userId, name);
-        return files.stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+    /*
+     * File listings are keyset paged, newest first: each page is one index seek past the
+     * (created_at, id) of the previous page's last row, however deep the page. One row
+     * more than the page size is read to know whether another page follows.
+     */
+
+    public KeysetPage<FileDTO> getUserFiles(Long userId, String cursor, Integer limit) {
+        int pageSize = listingPageSize(limit);
+        PageCursor after = listingCursor(cursor);
+        return toListingPage(fileRepository.findUserFilesPage(userId, after.time(), after.id(), pageSize + 1), pageSize);
+    }
+
+    public KeysetPage<FileDTO> getFavoriteFiles(Long userId, String cursor, Integer limit) {
+        int pageSize = listingPageSize(limit);
+        PageCursor after = listingCursor(cursor);
+        return toListingPage(fileRepository.findFavoriteFilesPage(userId, after.time(), after.id(), pageSize + 1), pageSize);
+    }
+
+    public KeysetPage<FileDTO> getFilesByFolder(Long folderId, Long userId, String cursor, Integer limit) {
+        int pageSize = listingPageSize(limit);
+        PageCursor after = listingCursor(cursor);
+        return toListingPage(
+            fileRepository.findFolderFilesPage(userId, folderId, after.time(), after.id(), pageSize + 1), pageSize);
+    }
+
+    private KeysetPage<FileDTO> toListingPage(List<File> rows, int pageSize) {
+        return KeysetPage.of(rows, pageSize, file -> PageCursor.of(file.getCreatedAt(), file.getId()),
+            page -> page.stream().map(this::convertToDTO).toList());
+    }
+
+    private int listingPageSize(Integer limit) {
+        if (limit == null || limit <= 0) {
+            return listingDefaultPageSize;
+        }
+        return Math.min(limit, listingMaxPageSize);
     }
 
-    public Page<FileDTO> getUserFiles(Long userId, Pageable pageable) {
-        Page<File> files = fileRepository.findByUserIdOrderByCreatedAtDesc(userId, pageable);
-        return files.map(this::convertToDTO);
+    private static PageCursor listingCursor(String cursor) {
+        return cursor != null ? PageCursor.decode(cursor) : PageCursor.of(LISTING_START, Long.MAX_VALUE);
     }
 
     public FileDTO getFileDetails(Long fileId, Long userId) {
@@ -128,22 +267,17 @@ public class FileService {
         return convertToDTO(file);
     }
 
-    public Resource downloadFile(Long fileId, Long userId) {
+    public FileDownload downloadFile(Long fileId, Long userId) {
         File file = fileRepository.findByIdAndUserId(fileId, userId)
             .orElseThrow(() -> new FileNotFoundException("File not found"));
 
-        try {
-            Path filePath = Paths.get(file.getFilePath());
-            Resource resource = new UrlResource(filePath.toUri());
-
-            if (resource.exists() && resource.isReadable()) {
-                return resource;
-            } else {
-                throw new FileNotFoundException("File not found on disk");
-            }
-        } catch (MalformedURLException e) {
-            throw new FileNotFoundException("File not found");
+        Resource resource = file.getBlobHash() != null
+            ? blobStore.open(file.getBlobHash()).orElse(null)
+            : new FileSystemResource(Paths.get(file.getFilePath()));
+        if (resource == null || !resource.exists() || !resource.isReadable()) {
+            throw new FileNotFoundException("File not found on disk");
         }
+        return new FileDownload(convertToDTO(file), resource);
     }
 
     public FileDTO renameFile(Long fileId, Long userId, String newName) {
@@ -159,17 +293,21 @@ public class FileService {
             throw new RuntimeException("File with this name already exists");
         }
         
-        renameFileAndCopies(file, newName);
+        String oldName = file.getOriginalFileName();
+        List<File> renamed = new ArrayList<>();
+        renameFileAndCopies(file, newName, renamed);
         File savedFile = fileRepository.save(file);
+        fileStatsRollup.filesRenamed(renamed, oldName);
         return convertToDTO(savedFile);
     }
 
-    private void renameFileAndCopies(File file, String newName) {
+    private void renameFileAndCopies(File file, String newName, List<File> renamed) {
         file.setOriginalFileName(newName);
+        renamed.add(file);
 
         if (file.getFileCopies() != null) {
             for (File copy : file.getFileCopies()) {
-                renameFileAndCopies(copy, newName);
+                renameFileAndCopies(copy, newName, renamed);
             }
         }
     }
@@ -178,27 +316,153 @@ public class FileService {
         File file = fileRepository.findByIdAndUserId(fileId, userId)
             .orElseThrow(() -> new FileNotFoundException("File not found"));
 
-        try {
-            // Delete file from disk
-            Path filePath = Paths.get(file.getFilePath());
-            Files.deleteIfExists(filePath);
+        // Delete metadata (and cascaded share copies), then the content once nothing references it
+        removeFileRecords(List.of(file));
 
-            // Update user storage via User Service
-            userServiceClient.updateStorageUsed(userId, -file.getFileSize());
+        // Update user storage (reported to user-service in the background)
+        quotaLedger.record(userId, -file.getFileSize());
+    }
 
-            // Delete metadata from database
-            fileRepository.delete(file);
+    /**
+     * Deletes the given rows together with the share copies cascaded from them, and
+     * releases their content. Storage accounting is left to the caller.
+     */
+    public void removeFileRecords(Collection<File> files) {
+        if (files.isEmpty()) {
+            return;
+        }
+        Map<Long, File> removed = new LinkedHashMap<>();
+        List<File> level = new ArrayList<>(files);
+        while (!level.isEmpty()) {
+            List<Long> ids = new ArrayList<>();
+            for (File file : level) {
+                if (removed.putIfAbsent(file.getId(), file) == null) {
+                    ids.add(file.getId());
+                }
+            }
+            level = ids.isEmpty() ? List.of() : fileRepository.findByOriginalFileIdIn(ids);
+        }
 
-        } catch (IOException e) {
-            throw new RuntimeException("Failed to delete file", e);
+        fileRepository.deleteAll(files);
+        fileStatsRollup.filesRemoved(removed.values());
+        fileNameIndex.removeAfterCommit(removed.keySet());
+        fileContentIndex.removeAfterCommit(removed.keySet());
+        publishRemovals(removed.values());
+
+        Map<String, Long> blobReferences = new HashMap<>();
+        Set<String> legacyPaths = new HashSet<>();
+        for (File file : removed.values()) {
+            if (file.getBlobHash() != null) {
+                blobReferences.merge(file.getBlobHash(), 1L, Long::sum);
+            } else {
+                legacyPaths.add(file.getFilePath());
+            }
         }
+        releaseAfterCommit(blobReferences, legacyPaths);
     }
 
-    public List<FileDTO> getFavoriteFiles(Long userId) {
-        List<File> files = fileRepository.findByUserIdAndIsFavoriteTrueOrderByCreatedAtDesc(userId);
-        return files.stream()
-            .map(this::convertToDTO)
-            .collect(Collectors.toList());
+    /**
+     * Removes up to {@code limit} of the user's files in the given folders, in one transaction.
+     * Returns the removed files; fewer than {@code limit} means the folders are now empty.
+     * Storage accounting is left to the caller, which should do it in the same transaction.
+     */
+    @Transactional
+    public List<File> removeFolderFiles(Long userId, Collection<Long> folderIds, int limit) {
+        List<File> files = fileRepository.findByUserIdAndFolderIdIn(userId, folderIds, PageRequest.of(0, limit));
+        removeFileRecords(files);
+        return files;
+    }
+
+    private record FolderKey(Long userId, Long folderId) {
+    }
+
+    /**
+     * One file-removed event per folder, however many files left it.
+     */
+    private void publishRemovals(Collection<File> removed) {
+        Map<FolderKey, long[]> totals = new HashMap<>();
+        for (File file : removed) {
+            if (file.getFolderId() == null) {
+                continue;
+            }
+            long[] total = totals.computeIfAbsent(new FolderKey(file.getUserId(), file.getFolderId()), k -> new long[2]);
+            total[0]++;
+            total[1] += file.getFileSize();
+        }
+        totals.forEach((key, total) ->
+            fileEventPublisher.publishFilesRemoved(key.userId(), key.folderId(), total[0], total[1]));
+    }
+
+    /**
+     * Takes one more reference on a file's content for a new row that will share it
+     * (a copy or an accepted share). Legacy files are moved into the blob store first;
+     * the entity is updated to match. Returns the blob hash.
+     */
+    public String retainContent(File file) {
+        if (file.getBlobHash() == null) {
+            try {
+                String hash = blobStore.adopt(file);
+                file.setBlobHash(hash);
+                file.setChecksum(hash);
+                file.setFilePath(blobStore.location(hash));
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to read file content", e);
+            }
+        }
+        blobStore.retain(file.getBlobHash(), 1);
+        return file.getBlobHash();
+    }
+
+    /**
+     * Gives back a reference taken with retainContent when the row it was meant for was never saved.
+     */
+    public void releaseContent(String blobHash) {
+        blobStore.release(blobHash, 1);
+    }
+
+    /**
+     * Releases blob references and deletes unreferenced legacy files once the caller's
+     * transaction has committed (immediately if there is none), so a rolled-back row
+     * deletion never leaves rows pointing at deleted content.
+     */
+    private void releaseAfterCommit(Map<String, Long> blobReferences, Set<String> legacyPaths) {
+        if (blobReferences.isEmpty() && legacyPaths.isEmpty()) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    blobReferences.forEach(FileService.this::releaseQuietly);
+                    legacyPaths.forEach(FileService.this::deleteLegacyFileIfUnreferenced);
+                }
+            });
+        } else {
+            blobReferences.forEach(this::releaseQuietly);
+            legacyPaths.forEach(this::deleteLegacyFileIfUnreferenced);
+        }
+    }
+
+    /**
+     * Legacy files are shared by accepted-share copies; checked again after the commit, as
+     * rows pointing at the path may have been left or added meanwhile.
+     */
+    private void deleteLegacyFileIfUnreferenced(String legacyPath) {
+        try {
+            if (fileRepository.countByFilePathAndBlobHashIsNull(legacyPath) == 0) {
+                Files.deleteIfExists(Paths.get(legacyPath));
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not delete {}: {}", legacyPath, e.getMessage());
+        }
+    }
+
+    private void releaseQuietly(String blobHash, long count) {
+        try {
+            blobStore.release(blobHash, count);
+        } catch (RuntimeException e) {
+            log.error("Failed to release {} reference(s) on blob {}", count, blobHash, e);
+        }
     }
 
     public FileDTO toggleFavorite(Long fileId, Long userId) {
@@ -207,16 +471,89 @@ public class FileService {
 
         file.setIsFavorite(!file.getIsFavorite());
         File savedFile = fileRepository.save(file);
+        fileStatsRollup.favoriteToggled(savedFile);
         return convertToDTO(savedFile);
     }
 
-    public List<FileDTO> searchFiles(Long userId, String searchTerm) {
-        List<File> files = fileRepository.searchFilesByUserIdAndName(userId, searchTerm);
+    /**
+     * Files whose original name matches the term, best matches first. Served by the local
+     * name index (word, prefix and typo-tolerant matching) once it has caught up, otherwise
+     * by the trigram-indexed substring search in the database.
+     * {@code size} defaults to file.search.default-limit and is capped at file.search.max-limit.
+     */
+    public List<FileDTO> searchFiles(Long userId, String searchTerm, Integer page, Integer size) {
+        String term = SearchPatterns.normalize(searchTerm);
+        if (term.isEmpty()) {
+            return List.of();
+        }
+        int limit = size == null || size <= 0 ? searchDefaultLimit : Math.min(size, searchMaxLimit);
+        long offset = (long) Math.max(page != null ? page : 0, 0) * limit;
+        if (fileNameIndex.isReady()) {
+            try {
+                return loadInRankOrder(userId, fileNameIndex.search(userId, term, offset, limit));
+            } catch (RuntimeException e) {
+                log.warn("File name index search failed, using the database: {}", e.getMessage());
+            }
+        }
+        List<File> files = fileRepository.searchByName(userId, SearchPatterns.contains(term), term, limit, offset);
         return files.stream()
             .map(this::convertToDTO)
             .collect(Collectors.toList());
     }
 
+    /**
+     * Files whose content matches every word of the query, among those the user owns,
+     * best matches first. Accepted shares are included: accepting one creates the
+     * user's own copy. Files are found once the content index has processed them,
+     * usually within seconds of the upload.
+     */
+    public List<FileDTO> searchContent(Long userId, String query, Integer page, Integer size) {
+        if (!fileContentIndex.isEnabled()) {
+            throw new RuntimeException("Content search is not available");
+        }
+        String term = SearchPatterns.normalize(query);
+        if (term.isEmpty()) {
+            return List.of();
+        }
+        int limit = size == null || size <= 0 ? searchDefaultLimit : Math.min(size, searchMaxLimit);
+        long offset = (long) Math.max(page != null ? page : 0, 0) * limit;
+
+        List<Long> ids = fileContentIndex.search(userId, term, offset, limit);
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, File> byId = fileRepository.findAllById(ids).stream()
+            .collect(Collectors.toMap(File::getId, file -> file));
+        if (byId.size() < ids.size()) {
+            // Deleted since they were indexed
+            fileContentIndex.remove(ids.stream().filter(id -> !byId.containsKey(id)).toList());
+        }
+        return ids.stream()
+            .map(byId::get)
+            .filter(file -> file != null && userId.equals(file.getUserId()))
+            .map(this::convertToDTO)
+            .collect(Collectors.toList());
+    }
+
+    private List<FileDTO> loadInRankOrder(Long userId, List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, File> byId = fileRepository.findAllById(ids).stream()
+            .filter(file -> userId.equals(file.getUserId()))
+            .collect(Collectors.toMap(File::getId, file -> file));
+        if (byId.size() < ids.size()) {
+            // Deleted since they were indexed
+            fileNameIndex.remove(ids.stream().filter(id -> !byId.containsKey(id)).toList());
+        }
+        return ids.stream()
+            .map(byId::get)
+            .filter(Objects::nonNull)
+            .map(this::convertToDTO)
+            .collect(Collectors.toList());
+    }
+
     public FileDTO convertToDTO(File file) {
         FileDTO dto = new FileDTO();
         dto.setId(file.getId());
@@ -225,6 +562,7 @@ public class FileService {
         dto.setName(file.getOriginalFileName());
         dto.setContentType(file.getContentType());
         dto.setFileSize(file.getFileSize());
+        dto.setChecksum(file.getChecksum());
         dto.setFileUuid(file.getFileUuid());
         dto.setIsFavorite(file.getIsFavorite());
         dto.setCreatedAt(file.getCreatedAt());
@@ -234,50 +572,37 @@ public class FileService {
         return dto;
     }
 
+    /**
+     * Totals, favorites and the type and size distributions come from the user's rollup
+     * (see FileStatsRollup); the recent count and the largest files are index range reads.
+     * Nothing here grows with the number of files.
+     */
     public Map<String, Object> getFileStatistics(Long userId) {
-        List<File> userFiles = fileRepository.findByUserIdOrderByCreatedAtDesc(userId);
+        UserFileStats rollup = fileStatsRollup.get(userId);
 
         Map<String, Object> statistics = new HashMap<>();
 
         // General statistics
-        statistics.put("totalFiles", userFiles.size());
-        statistics.put("totalSize", userFiles.stream().mapToLong(File::getFileSize).sum());
-        statistics.put("favoriteFiles", userFiles.stream().mapToLong(f -> f.getIsFavorite() ? 1 : 0).sum());
+        statistics.put("totalFiles", rollup.getFileCount());
+        statistics.put("totalSize", rollup.getTotalSize());
+        statistics.put("favoriteFiles", rollup.getFavoriteCount());
 
         // File type statistics
-        Map<String, Long> fileTypeStats = userFiles.stream()
-            .collect(Collectors.groupingBy(
-                file -> file.getFileExtension() != null ? file.getFileExtension().toLowerCase() : "unknown",
-                Collectors.counting()
-            ));
-        statistics.put("fileTypeDistribution", fileTypeStats);
+        statistics.put("fileTypeDistribution", fileStatsRollup.getTypeDistribution(userId));
 
         // Size statistics
-        Map<String, Long> sizeStats = userFiles.stream()
-            .collect(Collectors.groupingBy(
-                file -> {
-                    long size = file.getFileSize();
-                    if (size < 1024 * 1024) return "< 1MB";
-                    else if (size < 10 * 1024 * 1024) return "1-10MB";
-                    else if (size < 100 * 1024 * 1024) return "10-100MB";
-                    else return "> 100MB";
-                },
-                Collectors.counting()
-            ));
+        Map<String, Long> sizeStats = new HashMap<>();
+        putIfPositive(sizeStats, "< 1MB", rollup.getSizeUnder1Mb());
+        putIfPositive(sizeStats, "1-10MB", rollup.getSize1To10Mb());
+        putIfPositive(sizeStats, "10-100MB", rollup.getSize10To100Mb());
+        putIfPositive(sizeStats, "> 100MB", rollup.getSizeOver100Mb());
         statistics.put("fileSizeDistribution", sizeStats);
 
         // Recent files (last 7 days)
-        long recentFiles = userFiles.stream()
-            .filter(file -> file.getCreatedAt().isAfter(
-                java.time.LocalDateTime.now().minusDays(7)
-            ))
-            .count();
-        statistics.put("recentFiles", recentFiles);
+        statistics.put("recentFiles", fileRepository.countByUserIdAndCreatedAtAfter(userId, LocalDateTime.now().minusDays(7)));
 
         // Top 5 largest files
-        List<Map<String, Object>> largestFiles = userFiles.stream()
-            .sorted((f1, f2) -> Long.compare(f2.getFileSize(), f1.getFileSize()))
-            .limit(5)
+        List<Map<String, Object>> largestFiles = fileRepository.findTop5ByUserIdOrderByFileSizeDescIdDesc(userId).stream()
             .map(file -> {
                 Map<String, Object> fileInfo = new HashMap<>();
                 fileInfo.put("name", file.getOriginalFileName());
@@ -291,84 +616,278 @@ public class FileService {
         return statistics;
     }
 
-    public List<FileDTO> getFilesByFolder(Long folderId, Long userId) {
-        List<File> files = fileRepository.findByFolderIdAndUserId(folderId, userId);
-        return files.stream()
-            .map(this::convertToDTO)
-            .collect(Collectors.toList());
+    // Empty buckets are left out, as when the distribution was grouped from the rows
+    private static void putIfPositive(Map<String, Long> map, String key, Long value) {
+        if (value != null && value > 0) {
+            map.put(key, value);
+        }
     }
 
+    /**
+     * Count and total size (and optionally the files) for a batch of folders, in one grouped
+     * query. Every requested folder is present in the result, empty folders with zeros.
+     */
+    public List<FolderStatsDTO> getFolderStats(Collection<Long> folderIds, Long userId, boolean includeFiles) {
+        Set<Long> ids = new LinkedHashSet<>(folderIds);
+        ids.remove(null);
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, FolderStatsDTO> stats = new LinkedHashMap<>();
+        for (Long id : ids) {
+            stats.put(id, new FolderStatsDTO(id, 0L, 0L));
+        }
+        for (FolderStatsDTO row : fileRepository.getFolderStats(userId, ids)) {
+            stats.put(row.getFolderId(), row);
+        }
+
+        if (includeFiles) {
+            stats.values().forEach(s -> s.setFiles(new ArrayList<>()));
+            for (File file : fileRepository.findByUserIdAndFolderIdInOrderByCreatedAtDesc(userId, ids)) {
+                stats.get(file.getFolderId()).getFiles().add(convertToDTO(file));
+            }
+        }
+        return new ArrayList<>(stats.values());
+    }
+
+    /**
+     * Moves are metadata-only: content is never relocated on disk (blobs are keyed by hash,
+     * legacy files may be shared with accepted-share copies). One grouped query checks
+     * ownership, one UPDATE moves them all and returns the totals per source folder of the
+     * files that actually moved; files already in the destination are left alone.
+     */
+    @Transactional
     public void bulkMoveFiles(List<Long> fileIds, Long destinationFolderId, Long userId) {
-        List<File> files = fileRepository.findAllById(fileIds);
-        for (File file : files) {
-            if (!file.getUserId().equals(userId)) {
-                throw new RuntimeException("File with id " + file.getId() + " does not belong to user");
+        Set<Long> ids = new HashSet<>(fileIds);
+        long owned = fileRepository.getFolderStatsForFiles(userId, ids).stream().mapToLong(FolderStatsDTO::getFileCount).sum();
+        if (owned != ids.size()) {
+            throw new RuntimeException((ids.size() - owned) + " of the files do not exist or do not belong to user");
+        }
+
+        for (Object[] source : fileRepository.moveToFolder(ids, userId, destinationFolderId)) {
+            Long sourceFolderId = source[0] != null ? ((Number) source[0]).longValue() : null;
+            fileEventPublisher.publishFilesMoved(userId, sourceFolderId, destinationFolderId,
+                ((Number) source[1]).longValue(), ((Number) source[2]).longValue());
+        }
+    }
+
+    /**
+     * Copies many files into one folder. Quota is checked once for the total; legacy files
+     * are moved into the blob store on the bounded content I/O pool; the new rows are
+     * written with one batched insert; storage and folder totals are updated once.
+     * Files that cannot be copied are reported in the result instead of failing the rest.
+     */
+    public BulkCopyResult bulkCopyFiles(List<Long> fileIds, Long destinationFolderId, Long userId) {
+        Set<Long> requested = new LinkedHashSet<>(fileIds);
+        Map<Long, String> failures = new HashMap<>();
+        Map<Long, File> found = fileRepository.findAllById(requested).stream()
+            .collect(Collectors.toMap(File::getId, f -> f));
+
+        List<File> files = new ArrayList<>();
+        for (Long id : requested) {
+            File file = found.get(id);
+            if (file == null || !file.getUserId().equals(userId)) {
+                failures.put(id, "File not found");
+            } else {
+                files.add(file);
             }
         }
+        long reserved = files.stream().mapToLong(File::getFileSize).sum();
+        quotaLedger.reserve(userId, reserved);
 
+        files = adoptLegacyContent(files, failures);
+
+        Map<String, Long> blobReferences = new HashMap<>();
+        List<File> copies = new ArrayList<>(files.size());
         for (File file : files) {
-            file.setFolderId(destinationFolderId);
-            fileRepository.save(file);
+            blobReferences.merge(file.getBlobHash(), 1L, Long::sum);
+            copies.add(newCopy(file, destinationFolderId, userId));
+        }
 
-            try {
-                movePhysicalFile(file, destinationFolderId);
-            } catch (IOException e) {
-                throw new RuntimeException("Failed to move physical file: " + e.getMessage());
+        Map<String, Long> retained = new HashMap<>();
+        try {
+            blobReferences.forEach((hash, count) -> {
+                blobStore.retain(hash, count);
+                retained.put(hash, count);
+            });
+            if (!copies.isEmpty()) {
+                fileBatchRepository.insertAll(copies);
+                fileStatsRollup.filesAdded(copies);
             }
+        } catch (RuntimeException e) {
+            log.error("Failed to save {} file copies for userId {}", copies.size(), userId, e);
+            retained.forEach(this::releaseQuietly);
+            files.forEach(file -> failures.put(file.getId(), "Failed to save copy: " + e.getMessage()));
+            files = List.of();
         }
+
+        long copiedBytes = files.stream().mapToLong(File::getFileSize).sum();
+        quotaLedger.commit(userId, reserved, copiedBytes);
+        if (!files.isEmpty()) {
+            fileEventPublisher.publishFilesAdded(userId, destinationFolderId, files.size(), copiedBytes);
+        }
+
+        List<BulkCopyResult.Item> results = requested.stream()
+            .map(id -> new BulkCopyResult.Item(id, !failures.containsKey(id), failures.get(id)))
+            .collect(Collectors.toList());
+        return new BulkCopyResult(files.size(), failures.size(), copiedBytes, results);
     }
 
-    public void bulkCopyFiles(List<Long> fileIds, Long destinationFolderId, Long userId) {
-        List<File> files = fileRepository.findAllById(fileIds);
-        for (File file : files) {
-            if (!file.getUserId().equals(userId)) {
-                throw new RuntimeException("File with id " + file.getId() + " does not belong to user");
-            }
+    /**
+     * Moves the legacy files among {@code files} into the blob store, one task per distinct
+     * legacy path on the content I/O pool. Returns the files that are now blob-backed;
+     * the others are recorded in {@code failures}.
+     */
+    private List<File> adoptLegacyContent(List<File> files, Map<Long, String> failures) {
+        Map<String, List<File>> byLegacyPath = files.stream()
+            .filter(file -> file.getBlobHash() == null)
+            .collect(Collectors.groupingBy(File::getFilePath));
+        if (byLegacyPath.isEmpty()) {
+            return files;
         }
 
-        for (File file : files) {
+        Map<String, CompletableFuture<String>> adoptions = new HashMap<>();
+        byLegacyPath.forEach((path, sharing) -> adoptions.put(path, CompletableFuture.supplyAsync(() -> {
             try {
-                copyFile(file, destinationFolderId, userId);
+                return blobStore.adopt(sharing.get(0));
             } catch (IOException e) {
-                throw new RuntimeException("Failed to copy file: " + e.getMessage());
+                throw new UncheckedIOException(e);
+            }
+        }, contentIoExecutor)));
+
+        List<File> ready = new ArrayList<>();
+        for (File file : files) {
+            if (file.getBlobHash() != null) {
+                ready.add(file);
+                continue;
+            }
+            try {
+                String hash = adoptions.get(file.getFilePath()).join();
+                file.setBlobHash(hash);
+                file.setChecksum(hash);
+                file.setFilePath(blobStore.location(hash));
+                ready.add(file);
+            } catch (CompletionException e) {
+                log.warn("Could not read content of file {}: {}", file.getId(), e.getCause().getMessage());
+                failures.put(file.getId(), "Failed to read file content");
             }
         }
+        return ready;
     }
 
-    private void movePhysicalFile(File file, Long destinationFolderId) throws IOException {
-        Path oldPath = Paths.get(fileStorageConfig.getUploadDir(), String.valueOf(file.getUserId()), file.getFileName());
-        
-        String newFolderPath = destinationFolderId != null ? 
-            String.valueOf(destinationFolderId) : String.valueOf(file.getUserId());
-        Path newPath = Paths.get(fileStorageConfig.getUploadDir(), newFolderPath, file.getFileName());
-        
-        Files.createDirectories(newPath.getParent());
-        Files.move(oldPath, newPath, StandardCopyOption.REPLACE_EXISTING);
+    public FileDTO copyFile(Long fileId, Long destinationFolderId, Long userId) {
+        File file = fileRepository.findByIdAndUserId(fileId, userId)
+            .orElseThrow(() -> new FileNotFoundException("File not found"));
+        return convertToDTO(copyFile(file, destinationFolderId, userId));
     }
 
-    private void copyFile(File originalFile, Long destinationFolderId, Long userId) throws IOException {
-        File copiedFile = new File();
-        copiedFile.setOriginalFileName(originalFile.getOriginalFileName());
-        copiedFile.setFileName(generateUniqueFileName(originalFile.getOriginalFileName()));
-        copiedFile.setFileSize(originalFile.getFileSize());
-        copiedFile.setContentType(originalFile.getContentType());
-        copiedFile.setFileUuid(UUID.randomUUID().toString());
-        copiedFile.setUserId(userId);
-        copiedFile.setFolderId(destinationFolderId);
+    /**
+     * Copies the files of a folder subtree: every file of each source folder gets a copy in
+     * the mapped destination folder. One transaction of a few set-based statements: one
+     * quota check and update for the whole copy, one reference update for all blobs (see
+     * {@link BlobStore#retainAll}) and one batched insert for all rows. Copies of legacy
+     * files share the legacy path; those files are moved into the blob store in the
+     * background after commit. No file-added events are sent: the destination folders are
+     * typically not committed yet on the folder-service side, so it applies the returned
+     * per-folder totals itself.
+     */
+    @Transactional(timeoutString = "${file.folder-copy.transaction-timeout-seconds:60}")
+    public FolderCopyResult copyFolderFiles(Map<Long, Long> folderMapping, Long userId) {
+        List<File> originals = fileRepository.findByUserIdAndFolderIdInOrderByCreatedAtDesc(userId, folderMapping.keySet());
+        if (originals.isEmpty()) {
+            return new FolderCopyResult(0L, 0L, List.of());
+        }
 
-        copiedFile = fileRepository.save(copiedFile);
+        long totalSize = originals.stream().mapToLong(File::getFileSize).sum();
+        // Joins this transaction, so a rollback also drops the reservation
+        quotaLedger.reserve(userId, totalSize);
+
+        Map<String, Long> blobReferences = new HashMap<>();
+        Map<String, Long> legacyFileIdByPath = new HashMap<>();
+        Map<Long, long[]> addedByFolder = new HashMap<>();
+        List<File> copies = new ArrayList<>(originals.size());
+        for (File original : originals) {
+            Long destinationFolderId = folderMapping.get(original.getFolderId());
+            if (original.getBlobHash() != null) {
+                blobReferences.merge(original.getBlobHash(), 1L, Long::sum);
+            } else {
+                legacyFileIdByPath.putIfAbsent(original.getFilePath(), original.getId());
+            }
 
-        Path sourcePath = Paths.get(fileStorageConfig.getUploadDir(), String.valueOf(originalFile.getUserId()), originalFile.getFileName());
-        
-        String destinationFolderPath = destinationFolderId != null ? 
-            String.valueOf(destinationFolderId) : String.valueOf(userId);
-        Path destinationPath = Paths.get(fileStorageConfig.getUploadDir(), destinationFolderPath, copiedFile.getFileName());
-        
-        Files.createDirectories(destinationPath.getParent());
-        Files.copy(sourcePath, destinationPath, StandardCopyOption.REPLACE_EXISTING);
-        
-        // Update storage
-        userServiceClient.updateStorageUsed(userId, originalFile.getFileSize());
+            copies.add(newCopy(original, destinationFolderId, userId));
+
+            long[] added = addedByFolder.computeIfAbsent(destinationFolderId, k -> new long[2]);
+            added[0]++;
+            added[1] += original.getFileSize();
+        }
+
+        if (!legacyFileIdByPath.isEmpty()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    legacyContentMigrator.adopt(new ArrayList<>(legacyFileIdByPath.values()));
+                }
+            });
+        }
+
+        blobStore.retainAll(blobReferences);
+        fileBatchRepository.insertAll(copies);
+        fileStatsRollup.filesAdded(copies);
+
+        quotaLedger.commit(userId, totalSize, totalSize);
+        log.info("Copied {} file(s) ({} bytes) into {} folder(s) for userId {}",
+            copies.size(), totalSize, addedByFolder.size(), userId);
+
+        List<FolderStatsDTO> folders = new ArrayList<>();
+        addedByFolder.forEach((folderId, added) -> folders.add(new FolderStatsDTO(folderId, added[0], added[1])));
+        return new FolderCopyResult((long) copies.size(), totalSize, folders);
+    }
+
+    /**
+     * Copies are metadata only: the new row references the same blob as the original.
+     */
+    private File copyFile(File originalFile, Long destinationFolderId, Long userId) {
+        quotaLedger.reserve(userId, originalFile.getFileSize());
+        File copiedFile;
+        try {
+            String blobHash = retainContent(originalFile);
+            copiedFile = newCopy(originalFile, destinationFolderId, userId);
+            try {
+                copiedFile = fileRepository.save(copiedFile);
+            } catch (RuntimeException e) {
+                blobStore.release(blobHash, 1);
+                throw e;
+            }
+        } catch (RuntimeException e) {
+            quotaLedger.release(userId, originalFile.getFileSize());
+            throw e;
+        }
+
+        // Update storage (reported to user-service in the background)
+        quotaLedger.commit(userId, originalFile.getFileSize(), originalFile.getFileSize());
+        fileStatsRollup.filesAdded(List.of(copiedFile));
+        fileEventPublisher.publishFilesAdded(userId, destinationFolderId, 1, originalFile.getFileSize());
+        return copiedFile;
+    }
+
+    /**
+     * An unsaved row for a copy of {@code original}, pointing at the same content.
+     */
+    private File newCopy(File original, Long destinationFolderId, Long userId) {
+        File copy = new File();
+        copy.setOriginalFileName(original.getOriginalFileName());
+        copy.setFileName(generateUniqueFileName(original.getOriginalFileName()));
+        copy.setFileSize(original.getFileSize());
+        copy.setContentType(original.getContentType());
+        copy.setFileUuid(UUID.randomUUID().toString());
+        copy.setUserId(userId);
+        copy.setFolderId(destinationFolderId);
+        copy.setFilePath(original.getFilePath());
+        copy.setChecksum(original.getChecksum());
+        copy.setBlobHash(original.getBlobHash());
+        copy.setIsFavorite(false);
+        return copy;
     }
 
     private String generateUniqueFileName(String originalFileName) {
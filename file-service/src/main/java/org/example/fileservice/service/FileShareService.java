@@ -1,22 +1,28 @@
 package org.example.fileservice.service;
 
+import org.example.commonlibrary.paging.KeysetPage;
+import org.example.commonlibrary.paging.PageCursor;
 import org.example.fileservice.dto.FileDTO;
 import org.example.fileservice.dto.ShareNotificationDTO;
+import org.example.fileservice.dto.ShareRequestRow;
+import org.example.fileservice.dto.SharedFileRow;
 import org.example.fileservice.dto.UserDTO;
 import org.example.fileservice.entity.File;
 import org.example.fileservice.entity.FileShare;
 import org.example.fileservice.exception.FileNotFoundException;
 import org.example.fileservice.exception.ShareFileException;
 import org.example.fileservice.exception.UserNotFoundException;
-import org.example.fileservice.feign.UserServiceClient;
 import org.example.fileservice.repository.FileRepository;
 import org.example.fileservice.repository.FileShareRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
@@ -24,13 +30,20 @@ import java.util.List;
 public class FileShareService {
     
     private final FileService fileService;
-    private final UserServiceClient userServiceClient;
+    private final FileStatsRollup fileStatsRollup;
+    private final UserLookupService userLookupService;
     private final FileRepository fileRepository;
     private final FileShareRepository fileShareRepository;
 
+    @Value("${file.listing.default-page-size:100}")
+    private int defaultPageSize;
+
+    @Value("${file.listing.max-page-size:500}")
+    private int maxPageSize;
+
     public ShareNotificationDTO shareFileWithUser(Long fileId, String userEmail) {
         // Get target user from User Service
-        UserDTO targetUser = userServiceClient.getUserByEmail(userEmail);
+        UserDTO targetUser = userLookupService.getUserByEmail(userEmail);
         if (targetUser == null) {
             throw new UserNotFoundException("User not found with email: " + userEmail);
         }
@@ -55,7 +68,7 @@ public class FileShareService {
     }
 
     public void unshareFile(Long fileId, String userEmail) {
-        UserDTO user = userServiceClient.getUserByEmail(userEmail);
+        UserDTO user = userLookupService.getUserByEmail(userEmail);
         if (user == null) {
             throw new UserNotFoundException("User not found with email: " + userEmail);
         }
@@ -69,7 +82,7 @@ public class FileShareService {
         fileShareRepository.delete(fileShare);
         
         if (file != null) {
-            fileRepository.delete(file);
+            fileService.removeFileRecords(List.of(file));
         }
     }
 
@@ -80,7 +93,10 @@ public class FileShareService {
         if (response) {
             fileShare.setResponse(true);
             File originalFile = fileShare.getFile();
-            
+
+            // The copy shares the original's content in the blob store
+            String blobHash = fileService.retainContent(originalFile);
+
             // Create a copy for the target user
             File file = originalFile.toBuilder()
                 .id(null)
@@ -93,8 +109,15 @@ public class FileShareService {
                 .userId(fileShare.getTargetUserId())
                 .build();
             
-            fileShareRepository.save(fileShare);
-            File savedFile = fileRepository.save(file);
+            File savedFile;
+            try {
+                fileShareRepository.save(fileShare);
+                savedFile = fileRepository.save(file);
+            } catch (RuntimeException e) {
+                fileService.releaseContent(blobHash);
+                throw e;
+            }
+            fileStatsRollup.filesAdded(List.of(savedFile));
             return fileService.convertToDTO(savedFile);
         } else {
             fileShareRepository.delete(fileShare);
@@ -102,35 +125,81 @@ public class FileShareService {
         return null;
     }
 
-    public List<ShareNotificationDTO> getShareRequests(Long userId) {
-        List<FileShare> fileShares = fileShareRepository.findFileSharesByTargetUserId(userId);
+    /*
+     * Share listings are keyset paged: each page is one indexed query for the rows below
+     * the cursor (newest first), and one row more than the page size is read to know
+     * whether another page follows.
+     */
+
+    public KeysetPage<ShareNotificationDTO> getShareRequests(Long userId, String cursor, Integer limit) {
+        int pageSize = pageSize(limit);
+        List<ShareRequestRow> rows = fileShareRepository.findShareRequestPage(
+            userId, before(cursor), PageRequest.of(0, pageSize + 1));
+        return KeysetPage.of(rows, pageSize, row -> PageCursor.of(row.shareId()), this::toShareNotifications);
+    }
+
+    private List<ShareNotificationDTO> toShareNotifications(List<ShareRequestRow> rows) {
+        // Get all owners from User Service in one call
+        Map<Long, UserDTO> owners = userLookupService.getUsersByIds(
+            rows.stream().map(ShareRequestRow::ownerId).toList());
         List<ShareNotificationDTO> shareNotifications = new ArrayList<>();
-        
-        for (FileShare fs : fileShares) {
-            // Get owner info from User Service
-            UserDTO owner = userServiceClient.getUserById(fs.getFile().getUserId());
-            shareNotifications.add(convertToNotificationDTO(fs, owner, true));
+        for (ShareRequestRow row : rows) {
+            UserDTO owner = owners.get(row.ownerId());
+            if (owner == null) {
+                // Owner was deleted; the share goes away with the user-deleted event
+                log.warn("Skipping share {}: owner {} not found", row.shareId(), row.ownerId());
+                continue;
+            }
+            shareNotifications.add(new ShareNotificationDTO(row.shareId(), row.fileName(), row.targetUserId(),
+                owner.getFirstName() + " " + owner.getLastName(), row.fileId()));
         }
-        
         return shareNotifications;
     }
 
-    public List<FileDTO> getSharedFilesWithMe(Long userId) {
-        List<File> files = fileShareRepository.findByTargetId(userId);
-        List<FileDTO> fileDtos = new ArrayList<>();
-        for (File file : files) {
-            fileDtos.add(fileService.convertToDTO(file));
-        }
-        return fileDtos;
+    public KeysetPage<FileDTO> getSharedFilesWithMe(Long userId, String cursor, Integer limit) {
+        int pageSize = pageSize(limit);
+        return toFilePage(fileShareRepository.findSharedWithPage(
+            userId, before(cursor), PageRequest.of(0, pageSize + 1)), pageSize);
+    }
+
+    public KeysetPage<FileDTO> getSharedFilesByMe(Long userId, String cursor, Integer limit) {
+        int pageSize = pageSize(limit);
+        return toFilePage(fileShareRepository.findSharedByMePage(
+            userId, before(cursor), PageRequest.of(0, pageSize + 1)), pageSize);
+    }
+
+    private KeysetPage<FileDTO> toFilePage(List<SharedFileRow> rows, int pageSize) {
+        return KeysetPage.of(rows, pageSize, row -> PageCursor.of(row.sortKey()),
+            page -> page.stream().map(this::toFileDTO).toList());
     }
 
-    public List<FileDTO> getSharedFilesByMe(Long userId) {
-        List<File> files = fileShareRepository.findSharedFilesByMe(userId);
-        List<FileDTO> fileDtos = new ArrayList<>();
-        for (File file : files) {
-            fileDtos.add(fileService.convertToDTO(file));
+    private FileDTO toFileDTO(SharedFileRow row) {
+        FileDTO dto = new FileDTO();
+        dto.setId(row.id());
+        dto.setFileName(row.fileName());
+        dto.setOriginalFileName(row.originalFileName());
+        dto.setName(row.originalFileName());
+        dto.setContentType(row.contentType());
+        dto.setFileSize(row.fileSize());
+        dto.setChecksum(row.checksum());
+        dto.setFileUuid(row.fileUuid());
+        dto.setIsFavorite(row.isFavorite());
+        dto.setCreatedAt(row.createdAt());
+        dto.setUpdatedAt(row.updatedAt());
+        dto.setFileExtension(File.extensionOf(row.originalFileName()));
+        dto.setFolderId(row.folderId());
+        return dto;
+    }
+
+    private int pageSize(Integer limit) {
+        if (limit == null || limit <= 0) {
+            return defaultPageSize;
         }
-        return fileDtos;
+        return Math.min(limit, maxPageSize);
+    }
+
+    private static Long before(String cursor) {
+        return cursor != null ? PageCursor.decode(cursor).id() : Long.MAX_VALUE;
     }
 
     public List<Long> getUserIdsWhoShareMyFile(Long fileId) {
@@ -139,7 +208,7 @@ public class FileShareService {
 
     private ShareNotificationDTO convertToNotificationDTO(FileShare fileShare, UserDTO targetUser) {
         File file = fileShare.getFile();
-        UserDTO owner = userServiceClient.getUserById(file.getUserId());
+        UserDTO owner = userLookupService.getUserById(file.getUserId());
         
         ShareNotificationDTO dto = new ShareNotificationDTO();
         dto.setId(fileShare.getId());
@@ -149,16 +218,5 @@ public class FileShareService {
         dto.setFileId(file.getId());
         return dto;
     }
-    
-    private ShareNotificationDTO convertToNotificationDTO(FileShare fileShare, UserDTO owner, boolean isOwner) {
-        File file = fileShare.getFile();
-        
-        ShareNotificationDTO dto = new ShareNotificationDTO();
-        dto.setId(fileShare.getId());
-        dto.setFileName(file.getOriginalFileName());
-        dto.setUserId(fileShare.getTargetUserId());
-        dto.setOwner(owner.getFirstName() + " " + owner.getLastName());
-        dto.setFileId(file.getId());
-        return dto;
-    }
+
 }
@@ -1,12 +1,17 @@
 package org.example.fileservice.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
 import org.example.fileservice.dto.FileShareDTO;
+import org.example.fileservice.dto.ShareLinkView;
 import org.example.fileservice.dto.UserDTO;
 import org.example.fileservice.entity.File;
 import org.example.fileservice.entity.FileShare;
 import org.example.fileservice.exception.FileNotFoundException;
 import org.example.fileservice.exception.UserNotFoundException;
-import org.example.fileservice.feign.UserServiceClient;
 import org.example.fileservice.repository.FileRepository;
 import org.example.fileservice.repository.FileShareRepository;
 import lombok.RequiredArgsConstructor;
@@ -14,8 +19,10 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -28,12 +35,35 @@ public class FileSharingService {
 
     private final FileShareRepository fileShareRepository;
     private final FileRepository fileRepository;
-    private final UserServiceClient userServiceClient;
+    private final UserLookupService userLookupService;
     private final PasswordEncoder passwordEncoder;
+    private final ShareAccessCounter shareAccessCounter;
+    private final ShareGrantSigner shareGrantSigner;
+    private final MeterRegistry meterRegistry;
 
     @Value("${app.base-url:http://localhost:8082}")
     private String baseUrl;
 
+    @Value("${file.share-link.cache-max-size:10000}")
+    private long linkCacheMaxSize;
+
+    @Value("${file.share-link.cache-ttl-seconds:30}")
+    private long linkCacheTtlSeconds;
+
+    // Resolved public links by token. Revoking evicts locally; on other instances the
+    // short TTL bounds how long a revoked or deleted link keeps resolving.
+    private Cache<String, ShareLinkView> shareLinks;
+
+    @PostConstruct
+    void initShareLinkCache() {
+        shareLinks = Caffeine.newBuilder()
+            .maximumSize(linkCacheMaxSize)
+            .expireAfterWrite(Duration.ofSeconds(linkCacheTtlSeconds))
+            .recordStats()
+            .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, shareLinks, "share.link.cache");
+    }
+
     public FileShareDTO createFileShare(Long fileId, Long userId, String shareType, 
                                        Integer expirationDays, String password, Boolean allowDownload) {
         
@@ -64,26 +94,46 @@ public class FileSharingService {
         return shares.stream().map(this::convertToDTO).collect(Collectors.toList());
     }
 
-    public Map<String, Object> getSharedFile(String shareToken, String password) {
-        FileShare share = fileShareRepository.findActiveShareByToken(shareToken, LocalDateTime.now())
-            .orElseThrow(() -> new RuntimeException("Share not found or expired"));
+    /**
+     * Resolves a public share link. Cached links need no database access, and the access
+     * count is collected by ShareAccessCounter. For password-protected links either the
+     * password or a grant from an earlier call is needed; a checked password returns a
+     * new grant under "grant".
+     */
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public Map<String, Object> getSharedFile(String shareToken, String password, String grant) {
+        ShareLinkView share = shareLinks.getIfPresent(shareToken);
+        if (share == null) {
+            share = fileShareRepository.findActiveShareLink(shareToken, LocalDateTime.now())
+                .orElseThrow(() -> new RuntimeException("Share not found or expired"));
+            shareLinks.put(shareToken, share);
+        } else if (share.expiresAt() != null && !share.expiresAt().isAfter(LocalDateTime.now())) {
+            shareLinks.invalidate(shareToken);
+            throw new RuntimeException("Share not found or expired");
+        }
 
-        if (share.getPasswordHash() != null) {
-            if (password == null || !passwordEncoder.matches(password, share.getPasswordHash())) {
+        String newGrant = null;
+        if (share.passwordHash() != null && !shareGrantSigner.verify(grant, shareToken, share.passwordHash())) {
+            if (password == null || !passwordEncoder.matches(password, share.passwordHash())) {
                 throw new RuntimeException("Invalid password");
             }
+            newGrant = shareGrantSigner.issue(shareToken, share.passwordHash());
         }
 
-        fileShareRepository.incrementAccessCount(share.getId());
+        shareAccessCounter.increment(share.shareId());
 
         Map<String, Object> result = new HashMap<>();
-        result.put("fileId", share.getFile().getId());
-        result.put("fileName", share.getFile().getOriginalFileName());
-        result.put("fileSize", share.getFile().getFileSize());
-        result.put("contentType", share.getFile().getContentType());
-        result.put("allowDownload", share.getAllowDownload());
-        result.put("shareType", share.getShareType());
-        result.put("accessCount", share.getAccessCount() + 1);
+        result.put("fileId", share.fileId());
+        result.put("fileName", share.fileName());
+        result.put("fileSize", share.fileSize());
+        result.put("contentType", share.contentType());
+        result.put("allowDownload", share.allowDownload());
+        result.put("shareType", share.shareType());
+        // Approximate: stored count when the link was cached plus the hits not yet written
+        result.put("accessCount", share.accessCount() + shareAccessCounter.pending(share.shareId()));
+        if (newGrant != null) {
+            result.put("grant", newGrant);
+        }
 
         return result;
     }
@@ -98,6 +148,9 @@ public class FileSharingService {
 
         share.setIsActive(false);
         fileShareRepository.save(share);
+        if (share.getShareToken() != null) {
+            shareLinks.invalidate(share.getShareToken());
+        }
     }
 
     public List<FileShareDTO> getUserShares(Long userId) {
@@ -109,7 +162,7 @@ public class FileSharingService {
         File file = fileRepository.findByIdAndUserId(fileId, userId)
             .orElseThrow(() -> new FileNotFoundException("File not found or access denied"));
             
-        UserDTO targetUser = userServiceClient.getUserByEmail(targetEmail);
+        UserDTO targetUser = userLookupService.getUserByEmail(targetEmail);
         if (targetUser == null) {
             throw new UserNotFoundException("Target user not found");
         }
@@ -146,7 +199,7 @@ public class FileSharingService {
     }
 
     public void unshareFileWithUser(Long fileId, String userEmail, Long ownerId) {
-        UserDTO targetUser = userServiceClient.getUserByEmail(userEmail);
+        UserDTO targetUser = userLookupService.getUserByEmail(userEmail);
         if (targetUser == null) {
             throw new UserNotFoundException("User not found");
         }
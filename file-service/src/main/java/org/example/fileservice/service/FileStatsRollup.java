@@ -0,0 +1,205 @@
+package org.example.fileservice.service;
+
+import org.example.fileservice.entity.File;
+import org.example.fileservice.entity.UserFileStats;
+import org.example.fileservice.entity.UserFileTypeStats;
+import org.example.fileservice.repository.UserFileStatsRepository;
+import org.example.fileservice.repository.UserFileTypeStatsRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Per-user file statistics rollup (user_file_stats and user_file_type_stats), so the
+ * statistics endpoint reads a handful of rows instead of every file of the user.
+ * A user's rollup is created from grouped queries on the file table the first time it is
+ * read; from then on every write that adds, removes, renames or (un)favorites files
+ * applies its delta. Deltas for users without a rollup are dropped.
+ *
+ * Deltas are applied right after the file rows are written, not always in the same
+ * transaction, so a write racing with the first read can be counted twice or not at all;
+ * rollups are recomputed from the file table periodically to fix such drift.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class FileStatsRollup {
+
+    private static final long MB = 1024 * 1024;
+
+    private final UserFileStatsRepository userFileStatsRepository;
+    private final UserFileTypeStatsRepository userFileTypeStatsRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${file.stats.reconcile-batch-size:500}")
+    private int reconcileBatchSize;
+
+    /**
+     * The user's rollup, created from the file table if it does not exist yet.
+     */
+    @Transactional
+    public UserFileStats get(Long userId) {
+        Optional<UserFileStats> stats = userFileStatsRepository.findById(userId);
+        if (stats.isPresent()) {
+            return stats.get();
+        }
+        if (userFileStatsRepository.insertFromFiles(userId) > 0) {
+            userFileTypeStatsRepository.insertFromFiles(userId);
+        }
+        return userFileStatsRepository.findById(userId)
+            .orElseThrow(() -> new IllegalStateException("No file statistics for userId " + userId));
+    }
+
+    /**
+     * Number of files per extension, for a user whose rollup exists (see {@link #get}).
+     */
+    public Map<String, Long> getTypeDistribution(Long userId) {
+        Map<String, Long> distribution = new HashMap<>();
+        for (UserFileTypeStats row : userFileTypeStatsRepository.findByUserIdAndFileCountGreaterThan(userId, 0L)) {
+            distribution.put(row.getExtension(), row.getFileCount());
+        }
+        return distribution;
+    }
+
+    @Transactional
+    public void filesAdded(Collection<File> files) {
+        apply(files, 1);
+    }
+
+    /**
+     * Removed rows, including share copies owned by other users.
+     */
+    @Transactional
+    public void filesRemoved(Collection<File> files) {
+        apply(files, -1);
+    }
+
+    /**
+     * Call after the files were renamed from {@code oldName}: moves them to their new extension.
+     */
+    @Transactional
+    public void filesRenamed(Collection<File> files, String oldName) {
+        String oldExtension = extension(oldName);
+        Map<Long, Map<String, Long>> byUser = new LinkedHashMap<>();
+        for (File file : files) {
+            String newExtension = extension(file.getOriginalFileName());
+            if (!newExtension.equals(oldExtension)) {
+                Map<String, Long> types = byUser.computeIfAbsent(file.getUserId(), k -> new HashMap<>());
+                types.merge(oldExtension, -1L, Long::sum);
+                types.merge(newExtension, 1L, Long::sum);
+            }
+        }
+        byUser.forEach(this::addTypes);
+    }
+
+    /**
+     * Call after the file's favorite flag was flipped.
+     */
+    @Transactional
+    public void favoriteToggled(File file) {
+        long delta = Boolean.TRUE.equals(file.getIsFavorite()) ? 1 : -1;
+        userFileStatsRepository.add(file.getUserId(), 0, 0, delta, 0, 0, 0, 0);
+    }
+
+    @Transactional
+    public void remove(Long userId) {
+        userFileTypeStatsRepository.deleteByUser(userId);
+        userFileStatsRepository.deleteById(userId);
+    }
+
+    @Scheduled(initialDelayString = "${file.stats.reconcile-initial-delay-ms:300000}",
+               fixedDelayString = "${file.stats.reconcile-interval-ms:21600000}")
+    public void reconcileAll() {
+        int corrected = 0;
+        long afterId = 0;
+        List<Long> userIds;
+        do {
+            userIds = userFileStatsRepository.findUserIdsAfter(afterId, reconcileBatchSize);
+            for (Long userId : userIds) {
+                try {
+                    corrected += transactionTemplate.execute(status -> reconcileUser(userId));
+                } catch (Exception e) {
+                    log.warn("Could not reconcile file statistics for userId {}: {}", userId, e.getMessage());
+                }
+                afterId = userId;
+            }
+        } while (userIds.size() == reconcileBatchSize);
+        log.info("File statistics reconciliation finished, {} user(s) corrected", corrected);
+    }
+
+    /**
+     * Recomputes the user's rollup from the file table. Returns 1 if the totals had drifted.
+     * Must run in one transaction, so readers never see the type counts deleted but not
+     * yet rebuilt; called through the proxy or a TransactionTemplate.
+     */
+    @Transactional
+    public int reconcileUser(Long userId) {
+        int corrected = userFileStatsRepository.recomputeFromFiles(userId);
+        userFileTypeStatsRepository.deleteByUser(userId);
+        userFileTypeStatsRepository.insertFromFiles(userId);
+        return corrected;
+    }
+
+    private void apply(Collection<File> files, int sign) {
+        Map<Long, Delta> byUser = new LinkedHashMap<>();
+        for (File file : files) {
+            byUser.computeIfAbsent(file.getUserId(), k -> new Delta()).add(file, sign);
+        }
+        byUser.forEach((userId, delta) -> {
+            if (userFileStatsRepository.add(userId, delta.count, delta.size, delta.favorites,
+                    delta.sizeBuckets[0], delta.sizeBuckets[1], delta.sizeBuckets[2], delta.sizeBuckets[3]) > 0) {
+                addTypes(userId, delta.types);
+            }
+        });
+    }
+
+    private void addTypes(Long userId, Map<String, Long> types) {
+        types.forEach((extension, count) -> {
+            if (count != 0) {
+                userFileTypeStatsRepository.add(userId, extension, count);
+            }
+        });
+    }
+
+    static String extension(String fileName) {
+        return File.extensionOf(fileName).toLowerCase(Locale.ROOT);
+    }
+
+    // Same buckets as UserFileStatsRepository.STATS_FROM_FILES
+    static int sizeBucket(long size) {
+        if (size < MB) return 0;
+        if (size < 10 * MB) return 1;
+        if (size < 100 * MB) return 2;
+        return 3;
+    }
+
+    private static class Delta {
+        long count;
+        long size;
+        long favorites;
+        final long[] sizeBuckets = new long[4];
+        final Map<String, Long> types = new HashMap<>();
+
+        void add(File file, int sign) {
+            count += sign;
+            size += sign * file.getFileSize();
+            if (Boolean.TRUE.equals(file.getIsFavorite())) {
+                favorites += sign;
+            }
+            sizeBuckets[sizeBucket(file.getFileSize())] += sign;
+            types.merge(extension(file.getOriginalFileName()), (long) sign, Long::sum);
+        }
+    }
+}
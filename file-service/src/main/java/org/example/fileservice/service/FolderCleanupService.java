@@ -0,0 +1,163 @@
+package org.example.fileservice.service;
+
+import org.example.fileservice.dto.FolderCleanupJobDTO;
+import org.example.fileservice.entity.File;
+import org.example.fileservice.entity.FolderCleanupJob;
+import org.example.fileservice.event.FoldersDeletedEvent;
+import org.example.fileservice.exception.FileNotFoundException;
+import org.example.fileservice.repository.FileRepository;
+import org.example.fileservice.repository.FolderCleanupJobRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Removes the files of deleted folders in the background. folder-service deletes the folder
+ * rows itself and only announces the ids, so the user's request does not wait for this.
+ * Each job deletes its files in batches of one transaction each; the batch's quota release
+ * and progress commit in that transaction too, so a batch is never deleted without being
+ * accounted for. A job interrupted by a restart is resumed from what is left. A failed
+ * job is retried from what is left too, with exponential backoff, up to max-attempts runs.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class FolderCleanupService {
+
+    private final FolderCleanupJobRepository folderCleanupJobRepository;
+    private final FileRepository fileRepository;
+    private final FileService fileService;
+    private final QuotaLedger quotaLedger;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${file.folder-cleanup.batch-size:500}")
+    private int batchSize;
+
+    @Value("${file.folder-cleanup.stale-after-ms:300000}")
+    private long staleAfterMs;
+
+    @Value("${file.folder-cleanup.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${file.folder-cleanup.retry-backoff-ms:60000}")
+    private long retryBackoffMs;
+
+    @Value("${file.folder-cleanup.max-retry-backoff-ms:3600000}")
+    private long maxRetryBackoffMs;
+
+    public FolderCleanupJob enqueue(FoldersDeletedEvent event) {
+        FolderCleanupJob job = FolderCleanupJob.builder()
+            .userId(event.getUserId())
+            .folderIds(new ArrayList<>(new LinkedHashSet<>(event.getFolderIds())))
+            .build();
+        return folderCleanupJobRepository.save(job);
+    }
+
+    @Scheduled(fixedDelayString = "${file.folder-cleanup.poll-interval-ms:2000}")
+    public void runPendingJobs() {
+        LocalDateTime staleBefore = LocalDateTime.now().minusNanos(staleAfterMs * 1_000_000);
+        for (Long jobId : folderCleanupJobRepository.findRunnableJobIds(LocalDateTime.now(), staleBefore)) {
+            if (folderCleanupJobRepository.claim(jobId, LocalDateTime.now(), staleBefore) == 0) {
+                continue;
+            }
+            folderCleanupJobRepository.findById(jobId).ifPresent(this::run);
+        }
+    }
+
+    private void run(FolderCleanupJob job) {
+        try {
+            if (job.getTotalFiles() == null) {
+                job.setTotalFiles(fileRepository.countByUserIdAndFolderIdIn(job.getUserId(), job.getFolderIds()));
+                job = folderCleanupJobRepository.save(job);
+            }
+
+            FolderCleanupJob current = job;
+            int removed;
+            do {
+                removed = transactionTemplate.execute(status -> removeBatch(current));
+            } while (removed == batchSize);
+
+            job = folderCleanupJobRepository.findById(job.getId()).orElse(job);
+            job.setStatus("completed");
+            job.setErrorMessage(null);
+            job.setNextAttemptAt(null);
+            job.setCompletedAt(LocalDateTime.now());
+            folderCleanupJobRepository.save(job);
+            log.info("Folder cleanup job {} finished: {} file(s), {} bytes removed for userId {}",
+                job.getId(), job.getDeletedFiles(), job.getDeletedBytes(), job.getUserId());
+        } catch (Exception e) {
+            job = folderCleanupJobRepository.findById(job.getId()).orElse(job);
+            int attempts = job.getAttempts() + 1;
+            job.setStatus("failed");
+            job.setAttempts(attempts);
+            job.setErrorMessage(e.getMessage());
+            if (attempts < maxAttempts) {
+                LocalDateTime retryAt = LocalDateTime.now().plusNanos(retryBackoff(attempts) * 1_000_000);
+                job.setNextAttemptAt(retryAt);
+                log.warn("Folder cleanup job {} failed (attempt {} of {}), retrying at {}",
+                    job.getId(), attempts, maxAttempts, retryAt, e);
+            } else {
+                job.setNextAttemptAt(null);
+                job.setCompletedAt(LocalDateTime.now());
+                log.error("Folder cleanup job {} failed {} times, giving up", job.getId(), attempts, e);
+            }
+            folderCleanupJobRepository.save(job);
+        }
+    }
+
+    private int removeBatch(FolderCleanupJob job) {
+        List<File> removed = fileService.removeFolderFiles(job.getUserId(), job.getFolderIds(), batchSize);
+        long bytes = removed.stream().mapToLong(File::getFileSize).sum();
+        quotaLedger.record(job.getUserId(), -bytes);
+        folderCleanupJobRepository.addProgress(job.getId(), removed.size(), bytes, LocalDateTime.now());
+        return removed.size();
+    }
+
+    // retry-backoff-ms, doubled after every further failure, at most max-retry-backoff-ms
+    private long retryBackoff(int attempts) {
+        int doublings = Math.min(attempts - 1, 30);
+        return Math.min(retryBackoffMs << doublings, maxRetryBackoffMs);
+    }
+
+    public List<FolderCleanupJobDTO> getJobs(Long userId) {
+        return folderCleanupJobRepository.findByUserIdOrderByCreatedAtDesc(userId).stream()
+            .map(this::convertToDTO)
+            .collect(Collectors.toList());
+    }
+
+    public FolderCleanupJobDTO getJob(Long jobId, Long userId) {
+        return folderCleanupJobRepository.findByIdAndUserId(jobId, userId)
+            .map(this::convertToDTO)
+            .orElseThrow(() -> new FileNotFoundException("Cleanup job not found"));
+    }
+
+    private FolderCleanupJobDTO convertToDTO(FolderCleanupJob job) {
+        FolderCleanupJobDTO dto = new FolderCleanupJobDTO();
+        dto.setId(job.getId());
+        dto.setFolderIds(job.getFolderIds());
+        dto.setStatus(job.getStatus());
+        dto.setTotalFiles(job.getTotalFiles());
+        dto.setDeletedFiles(job.getDeletedFiles());
+        dto.setDeletedBytes(job.getDeletedBytes());
+        dto.setErrorMessage(job.getErrorMessage());
+        dto.setAttempts(job.getAttempts());
+        dto.setNextAttemptAt(job.getNextAttemptAt());
+        dto.setCreatedAt(job.getCreatedAt());
+        dto.setCompletedAt(job.getCompletedAt());
+        if ("completed".equals(job.getStatus())) {
+            dto.setProgressPercent(100);
+        } else if (job.getTotalFiles() != null && job.getTotalFiles() > 0) {
+            dto.setProgressPercent((int) Math.min(99, job.getDeletedFiles() * 100 / job.getTotalFiles()));
+        }
+        return dto;
+    }
+}
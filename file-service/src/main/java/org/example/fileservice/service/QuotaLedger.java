@@ -0,0 +1,180 @@
+package org.example.fileservice.service;
+
+import org.example.fileservice.dto.UserDTO;
+import org.example.fileservice.entity.StorageDeltaOutbox;
+import org.example.fileservice.entity.UserQuota;
+import org.example.fileservice.event.FileEventPublisher;
+import org.example.fileservice.event.StorageDelta;
+import org.example.fileservice.event.StorageDeltaBatch;
+import org.example.fileservice.exception.StorageQuotaExceededException;
+import org.example.fileservice.feign.UserServiceClient;
+import org.example.fileservice.repository.FileRepository;
+import org.example.fileservice.repository.StorageDeltaOutboxRepository;
+import org.example.fileservice.repository.UserQuotaRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Local quota enforcement for uploads and copies, replacing the hasStorageSpace /
+ * updateStorageUsed round trips to user-service on every write:
+ * reserve before writing, settle once the rows are saved (or release on failure).
+ * Usage changes are collected per user and sent to user-service in the background,
+ * as batches on the storage-deltas queue, through an outbox table that keeps each
+ * change's idempotency key until it was sent.
+ *
+ * A user's row is created on first use from the limit received with user events (or
+ * fetched once from user-service) and the sum of the user's file sizes.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class QuotaLedger {
+
+    private final UserQuotaRepository userQuotaRepository;
+    private final StorageDeltaOutboxRepository storageDeltaOutboxRepository;
+    private final FileRepository fileRepository;
+    private final UserServiceClient userServiceClient;
+    private final FileEventPublisher fileEventPublisher;
+
+    @Value("${file.quota.reservation-timeout-ms:3600000}")
+    private long reservationTimeoutMs;
+
+    @Value("${file.quota.flush-batch-size:500}")
+    private int flushBatchSize;
+
+    /**
+     * Reserves {@code bytes} for a write about to happen.
+     * @throws StorageQuotaExceededException if the user's limit would be exceeded
+     */
+    public void reserve(Long userId, long bytes) {
+        if (bytes <= 0) {
+            return;
+        }
+        ensureSeeded(userId, null);
+        if (userQuotaRepository.reserve(userId, bytes) == 0) {
+            throw new StorageQuotaExceededException("Storage quota exceeded");
+        }
+    }
+
+    /**
+     * Turns a reservation into usage: {@code reserved} bytes are released and {@code used}
+     * bytes are counted (they may differ when the final size was only known afterwards).
+     */
+    public void commit(Long userId, long reserved, long used) {
+        userQuotaRepository.settle(userId, reserved, used);
+    }
+
+    public void release(Long userId, long reserved) {
+        if (reserved > 0) {
+            userQuotaRepository.settle(userId, reserved, 0);
+        }
+    }
+
+    /**
+     * Records a usage change that needed no reservation, e.g. {@code -size} for a deletion.
+     */
+    public void record(Long userId, long delta) {
+        if (delta == 0) {
+            return;
+        }
+        ensureSeeded(userId, null);
+        userQuotaRepository.settle(userId, 0, delta);
+    }
+
+    public boolean hasSpace(Long userId, long bytes) {
+        ensureSeeded(userId, null);
+        return userQuotaRepository.findById(userId)
+            .map(q -> q.getStorageLimit() == null
+                || q.getUsedBytes() + q.getReservedBytes() + bytes <= q.getStorageLimit())
+            .orElse(false);
+    }
+
+    public Long getStorageLimit(Long userId) {
+        return userQuotaRepository.findById(userId).map(UserQuota::getStorageLimit).orElse(null);
+    }
+
+    /**
+     * Limit received from a user-service event: creates the row if needed, otherwise updates the limit.
+     */
+    public void updateLimit(Long userId, Long storageLimit) {
+        if (!ensureSeeded(userId, storageLimit)) {
+            userQuotaRepository.updateLimit(userId, storageLimit);
+        }
+    }
+
+    public void remove(Long userId) {
+        userQuotaRepository.deleteById(userId);
+    }
+
+    /**
+     * Moves pending usage changes into the outbox, then sends the outbox in batches. A row
+     * leaves the outbox only once its batch was handed to the binder; until then every run
+     * resends it under the same idempotency key, so user-service applies it exactly once
+     * even if an earlier send was delivered after all.
+     */
+    @Scheduled(fixedDelayString = "${file.quota.flush-interval-ms:5000}")
+    public void flushPendingDeltas() {
+        int moved;
+        do {
+            moved = userQuotaRepository.movePendingDeltasToOutbox(flushBatchSize);
+        } while (moved == flushBatchSize);
+        sendOutbox();
+
+        LocalDateTime staleBefore = LocalDateTime.now().minusNanos(reservationTimeoutMs * 1_000_000);
+        int cleared = userQuotaRepository.clearStaleReservations(staleBefore);
+        if (cleared > 0) {
+            log.warn("Cleared leaked storage reservations for {} user(s)", cleared);
+        }
+    }
+
+    private void sendOutbox() {
+        List<StorageDeltaOutbox> rows;
+        do {
+            rows = storageDeltaOutboxRepository.findByOrderByCreatedAtAsc(PageRequest.of(0, flushBatchSize));
+            if (rows.isEmpty()) {
+                return;
+            }
+            List<StorageDelta> batch = rows.stream()
+                .map(row -> new StorageDelta(row.getUserId(), row.getDelta(), row.getIdempotencyKey()))
+                .toList();
+            if (!sendDeltas(batch)) {
+                // Left in the outbox for the next run
+                return;
+            }
+            storageDeltaOutboxRepository.deleteAllByIdInBatch(
+                rows.stream().map(StorageDeltaOutbox::getIdempotencyKey).toList());
+        } while (rows.size() == flushBatchSize);
+    }
+
+    private boolean sendDeltas(List<StorageDelta> batch) {
+        try {
+            return fileEventPublisher.publishStorageDeltas(new StorageDeltaBatch(batch));
+        } catch (Exception e) {
+            log.warn("Could not report storage changes: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Creates the user's row if it does not exist yet. Returns true if this call created it.
+     */
+    private boolean ensureSeeded(Long userId, Long knownLimit) {
+        if (userQuotaRepository.existsById(userId)) {
+            return false;
+        }
+        Long limit = knownLimit;
+        if (limit == null) {
+            UserDTO user = userServiceClient.getUserById(userId);
+            limit = user != null ? user.getMaxStorage() : null;
+        }
+        Long used = fileRepository.sumFileSizeByUserId(userId);
+        return userQuotaRepository.insertIfAbsent(userId, limit, used != null ? used : 0L) > 0;
+    }
+}
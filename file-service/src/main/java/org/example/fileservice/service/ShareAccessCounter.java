@@ -0,0 +1,77 @@
+package org.example.fileservice.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.fileservice.repository.FileShareRepository;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts public link accesses in memory and writes them with one UPDATE per share and
+ * flush interval, so a busy link does not turn its file_share row into a write hotspot.
+ * Counts of the current interval are lost if the instance dies before flushing.
+ *
+ * An adder that saw no accesses for a whole interval is dropped, so links opened once do
+ * not stay in the map. An increment that lands in an adder just dropped moves its count
+ * to the live one.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ShareAccessCounter {
+
+    private final FileShareRepository fileShareRepository;
+    private final Map<Long, LongAdder> pending = new ConcurrentHashMap<>();
+
+    public void increment(Long shareId) {
+        add(shareId, 1L);
+    }
+
+    private void add(Long shareId, long hits) {
+        while (hits > 0) {
+            LongAdder adder = pending.computeIfAbsent(shareId, id -> new LongAdder());
+            adder.add(hits);
+            if (pending.get(shareId) == adder) {
+                return;
+            }
+            // Dropped by flush meanwhile: take back whatever it still holds and retry.
+            // sumThenReset empties each cell atomically, so a count is moved only once.
+            hits = adder.sumThenReset();
+        }
+    }
+
+    public long pending(Long shareId) {
+        LongAdder adder = pending.get(shareId);
+        return adder != null ? adder.sum() : 0L;
+    }
+
+    @Scheduled(fixedDelayString = "${file.share-link.access-flush-interval-ms:5000}")
+    public void flush() {
+        pending.forEach((shareId, adder) -> {
+            long hits = adder.sumThenReset();
+            if (hits == 0) {
+                if (pending.remove(shareId, adder)) {
+                    // An increment may have landed between the sum and the removal
+                    add(shareId, adder.sumThenReset());
+                }
+                return;
+            }
+            try {
+                fileShareRepository.addAccessCount(shareId, (int) Math.min(hits, Integer.MAX_VALUE));
+            } catch (Exception e) {
+                adder.add(hits);
+                log.warn("Could not write {} accesses of share {}: {}", hits, shareId, e.getMessage());
+            }
+        });
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+}
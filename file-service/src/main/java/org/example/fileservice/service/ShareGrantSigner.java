@@ -0,0 +1,87 @@
+package org.example.fileservice.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * Signed grants for password-protected share links: once the password has been checked,
+ * the client gets {@code <expiry>.<hmac>} and sends it back instead of the password, so
+ * BCrypt runs once per visitor instead of once per request.
+ *
+ * The HMAC covers the share token, the expiry and the stored password hash, so a grant
+ * stops working when it expires or when the share's password changes. Without a
+ * configured secret a random one is used, and grants are only valid on this instance
+ * until it restarts.
+ */
+@Component
+@Slf4j
+public class ShareGrantSigner {
+
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private final SecretKeySpec key;
+    private final Duration ttl;
+
+    public ShareGrantSigner(@Value("${file.share-link.grant-secret:}") String secret,
+                            @Value("${file.share-link.grant-ttl-minutes:60}") long ttlMinutes) {
+        byte[] keyBytes;
+        if (secret == null || secret.isBlank()) {
+            keyBytes = new byte[32];
+            new SecureRandom().nextBytes(keyBytes);
+            log.warn("No file.share-link.grant-secret configured, share grants are local to this instance");
+        } else {
+            keyBytes = secret.getBytes(StandardCharsets.UTF_8);
+        }
+        this.key = new SecretKeySpec(keyBytes, ALGORITHM);
+        this.ttl = Duration.ofMinutes(ttlMinutes);
+    }
+
+    public String issue(String shareToken, String passwordHash) {
+        long expiresAt = Instant.now().plus(ttl).getEpochSecond();
+        return expiresAt + "." + sign(shareToken, passwordHash, expiresAt);
+    }
+
+    public boolean verify(String grant, String shareToken, String passwordHash) {
+        if (grant == null) {
+            return false;
+        }
+        int dot = grant.indexOf('.');
+        if (dot <= 0) {
+            return false;
+        }
+        long expiresAt;
+        try {
+            expiresAt = Long.parseLong(grant.substring(0, dot));
+        } catch (NumberFormatException e) {
+            return false;
+        }
+        if (expiresAt < Instant.now().getEpochSecond()) {
+            return false;
+        }
+        byte[] expected = sign(shareToken, passwordHash, expiresAt).getBytes(StandardCharsets.US_ASCII);
+        byte[] actual = grant.substring(dot + 1).getBytes(StandardCharsets.US_ASCII);
+        return MessageDigest.isEqual(expected, actual);
+    }
+
+    private String sign(String shareToken, String passwordHash, long expiresAt) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            byte[] digest = mac.doFinal((shareToken + ":" + expiresAt + ":" + passwordHash).getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC-SHA256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,320 @@
+package org.example.fileservice.service;
+
+import org.example.fileservice.config.FileStorageConfig;
+import org.example.fileservice.dto.FileDTO;
+import org.example.fileservice.dto.UploadSessionDTO;
+import org.example.fileservice.dto.UploadSessionRequest;
+import org.example.fileservice.entity.UploadChunk;
+import org.example.fileservice.entity.UploadSession;
+import org.example.fileservice.exception.FileNotFoundException;
+import org.example.fileservice.exception.StorageQuotaExceededException;
+import org.example.fileservice.repository.UploadChunkRepository;
+import org.example.fileservice.repository.UploadSessionRepository;
+import org.example.fileservice.utils.FileChannelWriter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Resumable, chunked uploads. Chunks are written to their own files under
+ * {upload-dir}/.upload-sessions/{sessionId}, so they can arrive in any order and in
+ * parallel; commit streams them in order through FileService into the final file.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class UploadSessionService {
+
+    private static final String SESSIONS_DIR = ".upload-sessions";
+
+    private final UploadSessionRepository uploadSessionRepository;
+    private final UploadChunkRepository uploadChunkRepository;
+    private final FileService fileService;
+    private final QuotaLedger quotaLedger;
+    private final FileStorageConfig fileStorageConfig;
+
+    @Value("${file.upload-session.max-size}")
+    private Long maxSessionSize;
+
+    @Value("${file.upload-session.default-chunk-size}")
+    private Long defaultChunkSize;
+
+    @Value("${file.upload-session.max-chunk-size}")
+    private Long maxChunkSize;
+
+    @Value("${file.upload-session.expiration-hours}")
+    private Long expirationHours;
+
+    // A commit started just before expiry may still be running; give it this long
+    @Value("${file.upload-session.commit-timeout-ms:3600000}")
+    private long commitTimeoutMs;
+
+    public UploadSessionDTO createSession(UploadSessionRequest request, Long userId) {
+        if (request.getFileName() == null || request.getFileName().isBlank()) {
+            throw new RuntimeException("File name is required");
+        }
+        if (request.getTotalSize() == null || request.getTotalSize() <= 0) {
+            throw new RuntimeException("Total size must be positive");
+        }
+        if (request.getTotalSize() > maxSessionSize) {
+            throw new RuntimeException("File size exceeds maximum allowed size");
+        }
+
+        long chunkSize = request.getChunkSize() != null ? request.getChunkSize() : defaultChunkSize;
+        if (chunkSize <= 0 || chunkSize > maxChunkSize) {
+            throw new RuntimeException("Chunk size must be between 1 and " + maxChunkSize + " bytes");
+        }
+
+        // Early check only; the space is reserved when the session is committed
+        if (!quotaLedger.hasSpace(userId, request.getTotalSize())) {
+            throw new StorageQuotaExceededException("Storage quota exceeded");
+        }
+
+        long chunkCount = (request.getTotalSize() + chunkSize - 1) / chunkSize;
+        if (chunkCount > Integer.MAX_VALUE) {
+            throw new RuntimeException("Chunk size is too small for this file");
+        }
+
+        UploadSession session = UploadSession.builder()
+            .id(UUID.randomUUID().toString())
+            .userId(userId)
+            .folderId(request.getFolderId())
+            .originalFileName(request.getFileName().trim())
+            .contentType(request.getContentType() != null ? request.getContentType() : "application/octet-stream")
+            .totalSize(request.getTotalSize())
+            .chunkSize(chunkSize)
+            .chunkCount((int) chunkCount)
+            .expiresAt(LocalDateTime.now().plusHours(expirationHours))
+            .build();
+
+        try {
+            Files.createDirectories(sessionDir(session.getId()));
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to create upload session", e);
+        }
+
+        session = uploadSessionRepository.save(session);
+        return convertToDTO(session, List.of());
+    }
+
+    public UploadSessionDTO uploadChunk(String sessionId, int index, InputStream data, Long userId) {
+        UploadSession session = getOpenSession(sessionId, userId);
+
+        if (index < 0 || index >= session.getChunkCount()) {
+            throw new RuntimeException("Chunk index out of range: " + index);
+        }
+
+        long expectedSize = session.expectedChunkSize(index);
+        Path chunkPath = chunkPath(sessionId, index);
+        Path tempPath = chunkPath.resolveSibling(chunkPath.getFileName() + "." + UUID.randomUUID() + ".tmp");
+
+        try {
+            long written = FileChannelWriter.write(Channels.newChannel(data), tempPath, expectedSize);
+            if (written != expectedSize) {
+                throw new RuntimeException("Chunk " + index + " must be " + expectedSize + " bytes, got " + written);
+            }
+            // Re-sent chunks simply replace the previous copy
+            Files.move(tempPath, chunkPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            deleteQuietly(tempPath);
+            throw new RuntimeException("Failed to store chunk " + index, e);
+        } catch (RuntimeException e) {
+            deleteQuietly(tempPath);
+            throw e;
+        }
+
+        if (!uploadChunkRepository.existsBySessionIdAndChunkIndex(sessionId, index)) {
+            try {
+                uploadChunkRepository.save(UploadChunk.builder()
+                    .sessionId(sessionId)
+                    .chunkIndex(index)
+                    .size(expectedSize)
+                    .build());
+            } catch (DataIntegrityViolationException e) {
+                // The same chunk was uploaded concurrently and the other request recorded it
+                log.debug("Chunk {} of session {} already recorded", index, sessionId);
+            }
+        }
+
+        return getSession(sessionId, userId);
+    }
+
+    public UploadSessionDTO getSession(String sessionId, Long userId) {
+        UploadSession session = uploadSessionRepository.findByIdAndUserId(sessionId, userId)
+            .orElseThrow(() -> new FileNotFoundException("Upload session not found"));
+        return convertToDTO(session, uploadChunkRepository.findBySessionIdOrderByChunkIndexAsc(sessionId));
+    }
+
+    public UploadSessionDTO commitSession(String sessionId, Long userId) {
+        UploadSession session = getOpenSession(sessionId, userId);
+
+        List<UploadChunk> chunks = uploadChunkRepository.findBySessionIdOrderByChunkIndexAsc(sessionId);
+        if (chunks.size() != session.getChunkCount()) {
+            throw new RuntimeException("Upload is incomplete: received " + chunks.size()
+                + " of " + session.getChunkCount() + " chunks");
+        }
+
+        if (uploadSessionRepository.markCommitting(sessionId) == 0) {
+            throw new RuntimeException("Upload session is already being committed");
+        }
+
+        FileDTO file;
+        try (InputStream assembled = openChunksInOrder(session)) {
+            file = fileService.storeAssembledFile(assembled, session.getTotalSize(),
+                session.getOriginalFileName(), session.getContentType(), userId, session.getFolderId());
+        } catch (IOException | RuntimeException e) {
+            // Leave the chunks in place so the client can retry the commit
+            session.setStatus("open");
+            uploadSessionRepository.save(session);
+            log.error("Failed to commit upload session {}", sessionId, e);
+            throw new RuntimeException("Failed to commit upload: " + e.getMessage(), e);
+        }
+
+        session.setStatus("committed");
+        session.setFileId(file.getId());
+        uploadSessionRepository.save(session);
+        discardChunks(sessionId);
+
+        UploadSessionDTO dto = convertToDTO(session, List.of());
+        dto.setFile(file);
+        return dto;
+    }
+
+    public void abortSession(String sessionId, Long userId) {
+        UploadSession session = getOpenSession(sessionId, userId);
+        session.setStatus("aborted");
+        uploadSessionRepository.save(session);
+        discardChunks(sessionId);
+    }
+
+    @Scheduled(fixedDelayString = "${file.upload-session.cleanup-interval-ms}")
+    public void cleanupExpiredSessions() {
+        LocalDateTime now = LocalDateTime.now();
+        List<UploadSession> expired = uploadSessionRepository.findExpiredSessions(
+            now, now.minusNanos(commitTimeoutMs * 1_000_000));
+        for (UploadSession session : expired) {
+            session.setStatus("aborted");
+            uploadSessionRepository.save(session);
+            discardChunks(session.getId());
+        }
+        if (!expired.isEmpty()) {
+            log.info("Cleaned up {} expired upload sessions", expired.size());
+        }
+    }
+
+    private UploadSession getOpenSession(String sessionId, Long userId) {
+        UploadSession session = uploadSessionRepository.findByIdAndUserId(sessionId, userId)
+            .orElseThrow(() -> new FileNotFoundException("Upload session not found"));
+        if (!"open".equals(session.getStatus())) {
+            throw new RuntimeException("Upload session is " + session.getStatus());
+        }
+        if (session.getExpiresAt().isBefore(LocalDateTime.now())) {
+            throw new RuntimeException("Upload session has expired");
+        }
+        return session;
+    }
+
+    /**
+     * Concatenates the chunk files, opening each one only when the previous one is exhausted.
+     */
+    private InputStream openChunksInOrder(UploadSession session) {
+        Enumeration<InputStream> parts = new Enumeration<>() {
+            private int next = 0;
+
+            @Override
+            public boolean hasMoreElements() {
+                return next < session.getChunkCount();
+            }
+
+            @Override
+            public InputStream nextElement() {
+                try {
+                    return Files.newInputStream(chunkPath(session.getId(), next++));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        };
+        return new SequenceInputStream(parts);
+    }
+
+    private void discardChunks(String sessionId) {
+        uploadChunkRepository.deleteBySessionId(sessionId);
+        Path dir = sessionDir(sessionId);
+        if (!Files.exists(dir)) {
+            return;
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            files.forEach(this::deleteQuietly);
+        } catch (IOException e) {
+            log.warn("Could not list chunks of upload session {}: {}", sessionId, e.getMessage());
+        }
+        deleteQuietly(dir);
+    }
+
+    private void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Could not delete {}: {}", path, e.getMessage());
+        }
+    }
+
+    private Path sessionDir(String sessionId) {
+        return Paths.get(fileStorageConfig.getUploadDir(), SESSIONS_DIR, sessionId);
+    }
+
+    private Path chunkPath(String sessionId, int index) {
+        return sessionDir(sessionId).resolve(index + ".part");
+    }
+
+    private UploadSessionDTO convertToDTO(UploadSession session, List<UploadChunk> chunks) {
+        UploadSessionDTO dto = new UploadSessionDTO();
+        dto.setSessionId(session.getId());
+        dto.setFileName(session.getOriginalFileName());
+        dto.setFolderId(session.getFolderId());
+        dto.setTotalSize(session.getTotalSize());
+        dto.setChunkSize(session.getChunkSize());
+        dto.setChunkCount(session.getChunkCount());
+        dto.setStatus(session.getStatus());
+        dto.setExpiresAt(session.getExpiresAt());
+
+        List<UploadSessionDTO.ReceivedChunk> received = chunks.stream()
+            .map(c -> new UploadSessionDTO.ReceivedChunk(
+                c.getChunkIndex(), c.getChunkIndex() * session.getChunkSize(), c.getSize()))
+            .collect(Collectors.toList());
+        dto.setReceivedChunks(received);
+        dto.setReceivedBytes(chunks.stream().mapToLong(UploadChunk::getSize).sum());
+
+        if ("open".equals(session.getStatus())) {
+            Set<Integer> receivedIndexes = chunks.stream()
+                .map(UploadChunk::getChunkIndex)
+                .collect(Collectors.toSet());
+            List<Integer> missing = new ArrayList<>();
+            for (int i = 0; i < session.getChunkCount(); i++) {
+                if (!receivedIndexes.contains(i)) {
+                    missing.add(i);
+                }
+            }
+            dto.setMissingChunks(missing);
+        }
+        return dto;
+    }
+}
@@ -0,0 +1,54 @@
+package org.example.fileservice.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.example.commonlibrary.user.CachedUserLookup;
+import org.example.fileservice.dto.UserBatchRequest;
+import org.example.fileservice.dto.UserDTO;
+import org.example.fileservice.feign.UserServiceClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Cached user lookups through {@link UserServiceClient}. Entries are dropped by the
+ * user events consumed in UserEventConsumer.
+ */
+@Service
+public class UserLookupService extends CachedUserLookup<UserDTO> {
+
+    private final UserServiceClient userServiceClient;
+
+    public UserLookupService(UserServiceClient userServiceClient,
+                             MeterRegistry meterRegistry,
+                             @Value("${file.user-cache.max-size:10000}") long maxSize,
+                             @Value("${file.user-cache.ttl-seconds:300}") long ttlSeconds) {
+        super(meterRegistry, maxSize, ttlSeconds);
+        this.userServiceClient = userServiceClient;
+    }
+
+    @Override
+    protected UserDTO fetchUser(Long userId) {
+        return userServiceClient.getUserById(userId);
+    }
+
+    @Override
+    protected UserDTO fetchUserByEmail(String email) {
+        return userServiceClient.getUserByEmail(email);
+    }
+
+    @Override
+    protected List<UserDTO> fetchUsers(List<Long> userIds) {
+        return userServiceClient.getUsers(new UserBatchRequest(userIds, List.of()));
+    }
+
+    @Override
+    protected Long idOf(UserDTO user) {
+        return user.getId();
+    }
+
+    @Override
+    protected String emailOf(UserDTO user) {
+        return user.getEmail();
+    }
+}
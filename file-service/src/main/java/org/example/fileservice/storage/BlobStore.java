@@ -0,0 +1,221 @@
+package org.example.fileservice.storage;
+
+import org.example.fileservice.config.FileStorageConfig;
+import org.example.fileservice.entity.File;
+import org.example.fileservice.repository.FileBlobBatchRepository;
+import org.example.fileservice.repository.FileBlobRepository;
+import org.example.fileservice.repository.FileRepository;
+import org.example.fileservice.utils.ChecksumReadableByteChannel;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Content-addressed storage for file bytes. Content is kept once in the configured
+ * StorageBackend under its SHA-256, no matter how many File rows reference it;
+ * file_blob.ref_count tracks the references.
+ *
+ * Every method except retainAll runs in its own transaction holding a per-hash advisory
+ * lock, so reference counting and the matching storage change happen atomically with
+ * respect to other requests for the same content. Callers take references before
+ * inserting File rows and release them only after the rows are gone, so a failure
+ * in between can leak a blob but never delete content that is still referenced.
+ * Releasing the last reference deletes the bytes only after that transaction commits.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class BlobStore {
+
+    private static final String STAGING_DIR = ".staging";
+    private static final String LOCATION_PREFIX = "blob:";
+
+    private final FileBlobRepository fileBlobRepository;
+    private final FileBlobBatchRepository fileBlobBatchRepository;
+    private final FileRepository fileRepository;
+    private final FileStorageConfig fileStorageConfig;
+    private final StorageBackend storageBackend;
+    private final PlatformTransactionManager transactionManager;
+
+    /**
+     * Returns a fresh path in the staging area, on the same filesystem as the filesystem
+     * backends so that storing a staged file is a rename rather than a copy.
+     */
+    public Path newStagingFile() throws IOException {
+        Path dir = Paths.get(fileStorageConfig.getUploadDir(), STAGING_DIR);
+        Files.createDirectories(dir);
+        return dir.resolve(UUID.randomUUID().toString());
+    }
+
+    /**
+     * Value stored in file.file_path for blob-backed rows.
+     */
+    public String location(String hash) {
+        return LOCATION_PREFIX + hash;
+    }
+
+    public Optional<Resource> open(String hash) {
+        return storageBackend.get(hash);
+    }
+
+    /**
+     * Moves a fully written staging file into the store and takes one reference on it.
+     * If the content is already stored, the staging file is simply discarded.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public String store(Path staged, String hash, long size) throws IOException {
+        fileBlobRepository.lockHash(hash);
+        fileBlobRepository.addReferences(hash, size, 1);
+
+        if (storageBackend.exists(hash)) {
+            Files.deleteIfExists(staged);
+        } else {
+            storageBackend.putFile(hash, staged);
+        }
+        return location(hash);
+    }
+
+    /**
+     * Takes additional references on content that is already stored (copies, accepted shares).
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void retain(String hash, long count) {
+        fileBlobRepository.lockHash(hash);
+        if (fileBlobRepository.incrementReferences(hash, count) == 0) {
+            throw new IllegalStateException("Unknown blob " + hash);
+        }
+    }
+
+    /**
+     * Takes references on many blobs (folder copies) in the caller's transaction, so they
+     * commit or roll back with the rows that hold them. No advisory locks: the row locks
+     * are enough, since a blob whose last reference is released concurrently is either
+     * still there and kept, or already gone and the whole call fails.
+     * @throws IllegalStateException if one of the blobs no longer exists
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void retainAll(Map<String, Long> countsByHash) {
+        if (countsByHash.isEmpty()) {
+            return;
+        }
+        int updated = fileBlobBatchRepository.incrementReferences(countsByHash);
+        if (updated != countsByHash.size()) {
+            throw new IllegalStateException((countsByHash.size() - updated) + " blob(s) no longer exist");
+        }
+    }
+
+    /**
+     * Drops references. When the last one goes, the bytes are deleted once the row
+     * removal has committed, so a rollback never leaves a file_blob row without content.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void release(String hash, long count) {
+        fileBlobRepository.lockHash(hash);
+        fileBlobRepository.removeReferences(hash, count);
+        if (fileBlobRepository.deleteIfUnreferenced(hash) > 0) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    deleteIfStillUnreferenced(hash);
+                }
+            });
+        }
+    }
+
+    /**
+     * The lock was released with the commit, so the same content may have been stored
+     * again since; it is only deleted if no row references it, under the lock again so
+     * a concurrent store waits and then writes the bytes back.
+     */
+    private void deleteIfStillUnreferenced(String hash) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        // afterCommit still sees the finished transaction's resources; start a new one
+        transaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        try {
+            transaction.executeWithoutResult(status -> {
+                fileBlobRepository.lockHash(hash);
+                if (fileBlobRepository.existsById(hash)) {
+                    return;
+                }
+                try {
+                    storageBackend.delete(hash);
+                } catch (IOException e) {
+                    log.warn("Could not delete blob {}: {}", hash, e.getMessage());
+                }
+            });
+        } catch (RuntimeException e) {
+            log.warn("Could not delete blob {}: {}", hash, e.getMessage());
+        }
+    }
+
+    /**
+     * Moves a file stored with the pre-blob layout (one physical file per File row, shared
+     * by accepted-share copies) into the store. Every row pointing at the legacy path is
+     * switched over and counted as a reference. Returns the content hash.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public String adopt(File file) throws IOException {
+        Path legacy = Paths.get(file.getFilePath());
+        long size = Files.size(legacy);
+        String hash = hash(legacy);
+
+        fileBlobRepository.lockHash(hash);
+        int attached = fileRepository.attachBlob(file.getFilePath(), hash, location(hash));
+        if (attached == 0) {
+            // Adopted concurrently by another request
+            return fileRepository.findById(file.getId())
+                .map(File::getBlobHash)
+                .orElseThrow(() -> new IllegalStateException("File " + file.getId() + " no longer exists"));
+        }
+        fileBlobRepository.addReferences(hash, size, attached);
+
+        if (!storageBackend.exists(hash)) {
+            // Hand the backend a link (or copy) so the legacy file itself survives a rollback
+            Path staged = newStagingFile();
+            try {
+                Files.createLink(staged, legacy);
+            } catch (UnsupportedOperationException | IOException e) {
+                Files.copy(legacy, staged);
+            }
+            storageBackend.putFile(hash, staged);
+        }
+        // The legacy path stays valid until the row updates are committed
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                try {
+                    Files.deleteIfExists(legacy);
+                } catch (IOException e) {
+                    log.warn("Could not delete adopted legacy file {}: {}", legacy, e.getMessage());
+                }
+            }
+        });
+        return hash;
+    }
+
+    private String hash(Path path) throws IOException {
+        try (ChecksumReadableByteChannel in = new ChecksumReadableByteChannel(FileChannel.open(path))) {
+            ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+            while (in.read(buffer) >= 0) {
+                buffer.clear();
+            }
+            return in.getChecksum();
+        }
+    }
+}
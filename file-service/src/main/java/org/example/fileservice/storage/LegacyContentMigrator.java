@@ -0,0 +1,41 @@
+package org.example.fileservice.storage;
+
+import org.example.fileservice.entity.File;
+import org.example.fileservice.repository.FileRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.Collection;
+
+/**
+ * Moves legacy files (one physical file per row) into the blob store off the request thread.
+ * Until then, copies simply share the legacy path, which deletion already accounts for.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class LegacyContentMigrator {
+
+    private final FileRepository fileRepository;
+    private final BlobStore blobStore;
+
+    @Async
+    public void adopt(Collection<Long> fileIds) {
+        int adopted = 0;
+        for (File file : fileRepository.findAllById(fileIds)) {
+            if (file.getBlobHash() != null) {
+                continue;
+            }
+            try {
+                blobStore.adopt(file);
+                adopted++;
+            } catch (IOException | RuntimeException e) {
+                log.warn("Could not move legacy file {} into the blob store: {}", file.getId(), e.getMessage());
+            }
+        }
+        log.debug("Moved {} legacy file(s) into the blob store", adopted);
+    }
+}
@@ -0,0 +1,46 @@
+package org.example.fileservice.storage;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Two-level fan-out (ab/cd/key) so that no directory holds more than a few thousand
+ * entries. Content hashes are sharded on their own leading characters; any other key
+ * is sharded on the SHA-256 of the key.
+ */
+public class ShardedFileSystemStorageBackend extends LocalFileSystemStorageBackend {
+
+    public ShardedFileSystemStorageBackend(Path root) {
+        super(root);
+    }
+
+    @Override
+    protected Path pathOf(String key) {
+        String shard = isHex(key) ? key.toLowerCase() : sha256(key);
+        return super.pathOf(shard.substring(0, 2) + "/" + shard.substring(2, 4) + "/" + key);
+    }
+
+    private static boolean isHex(String key) {
+        if (key.length() < 4) {
+            return false;
+        }
+        for (int i = 0; i < key.length(); i++) {
+            if (Character.digit(key.charAt(i), 16) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String sha256(String key) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(key.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
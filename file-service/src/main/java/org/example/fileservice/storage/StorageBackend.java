@@ -0,0 +1,44 @@
+package org.example.fileservice.storage;
+
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * Where file content physically lives. Keys are opaque strings (the blob store uses
+ * the content SHA-256); each implementation decides how keys map to its layout.
+ * Selected with file.storage.backend, see StorageBackendConfig.
+ */
+public interface StorageBackend {
+
+    /**
+     * Stores the stream under key, replacing any existing content. Returns the number of bytes written.
+     */
+    long put(String key, InputStream content) throws IOException;
+
+    /**
+     * Stores a file that is no longer needed by the caller under key. Filesystem backends
+     * move it into place (a rename when it is on the same filesystem); others read and delete it.
+     */
+    void putFile(String key, Path source) throws IOException;
+
+    /**
+     * Returns the content as a Resource, or empty if the key is unknown. File-backed resources
+     * let Spring MVC serve byte ranges without reading the whole file.
+     */
+    Optional<Resource> get(String key);
+
+    /**
+     * Returns true if something was deleted.
+     */
+    boolean delete(String key) throws IOException;
+
+    Optional<StorageStat> stat(String key) throws IOException;
+
+    default boolean exists(String key) throws IOException {
+        return stat(key).isPresent();
+    }
+}
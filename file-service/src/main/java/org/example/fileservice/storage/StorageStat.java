@@ -0,0 +1,6 @@
+package org.example.fileservice.storage;
+
+import java.time.Instant;
+
+public record StorageStat(String key, long size, Instant lastModified) {
+}
@@ -0,0 +1,63 @@
+package org.example.fileservice.utils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * ReadableByteChannel decorator that feeds every byte read into a SHA-256 digest
+ * and counts them, so size and checksum are computed in the same pass that
+ * writes the data to disk (e.g. via FileChannel.transferFrom).
+ */
+public class ChecksumReadableByteChannel implements ReadableByteChannel {
+
+    private final ReadableByteChannel delegate;
+    private final MessageDigest digest;
+    private long bytesRead;
+
+    public ChecksumReadableByteChannel(ReadableByteChannel delegate) {
+        this.delegate = delegate;
+        try {
+            this.digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    @Override
+    public int read(ByteBuffer dst) throws IOException {
+        int start = dst.position();
+        int read = delegate.read(dst);
+        if (read > 0) {
+            ByteBuffer view = dst.duplicate();
+            view.position(start).limit(start + read);
+            digest.update(view);
+            bytesRead += read;
+        }
+        return read;
+    }
+
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    /**
+     * Hex-encoded SHA-256 of everything read so far. Call once, after the stream is exhausted.
+     */
+    public String getChecksum() {
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    @Override
+    public boolean isOpen() {
+        return delegate.isOpen();
+    }
+
+    @Override
+    public void close() throws IOException {
+        delegate.close();
+    }
+}
@@ -0,0 +1,39 @@
+package org.example.fileservice.utils;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes a channel to a new file with FileChannel.transferFrom, enforcing a size limit.
+ */
+public final class FileChannelWriter {
+
+    private static final long TRANSFER_CHUNK_SIZE = 8L * 1024 * 1024;
+
+    private FileChannelWriter() {
+    }
+
+    /**
+     * Creates target and copies source into it until end of stream.
+     * Throws once more than maxBytes have been written; the caller is responsible
+     * for removing the partially written file.
+     *
+     * @return number of bytes written
+     */
+    public static long write(ReadableByteChannel source, Path target, long maxBytes) throws IOException {
+        try (FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            long position = 0;
+            long transferred;
+            while ((transferred = out.transferFrom(source, position, TRANSFER_CHUNK_SIZE)) > 0) {
+                position += transferred;
+                if (position > maxBytes) {
+                    throw new RuntimeException("File size exceeds maximum allowed size");
+                }
+            }
+            return position;
+        }
+    }
+}
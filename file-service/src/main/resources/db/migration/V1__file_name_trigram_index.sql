@@ -0,0 +1,7 @@
+-- Substring search on file names (FileRepository.searchByName).
+-- pg_trgm lets a GIN index answer LIKE '%term%'; btree_gin adds user_id to the same index.
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE EXTENSION IF NOT EXISTS btree_gin;
+
+CREATE INDEX IF NOT EXISTS idx_file_user_original_name_trgm
+    ON file USING gin (user_id, lower(original_file_name) gin_trgm_ops);
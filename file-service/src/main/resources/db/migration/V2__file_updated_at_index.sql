@@ -0,0 +1,5 @@
+-- Change feed of the name search index (FileRepository.findChangedSince).
+-- Rows written before updated_at was always set would otherwise never be picked up.
+UPDATE file SET updated_at = created_at WHERE updated_at IS NULL;
+
+CREATE INDEX IF NOT EXISTS idx_file_updated_at_id ON file (updated_at, id);
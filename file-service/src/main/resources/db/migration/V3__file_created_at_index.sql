@@ -0,0 +1,2 @@
+-- Change feed of the content index (FileRepository.findCreatedSince).
+CREATE INDEX IF NOT EXISTS idx_file_created_at_id ON file (created_at, id);
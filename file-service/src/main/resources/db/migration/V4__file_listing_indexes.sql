@@ -0,0 +1,9 @@
+-- Keyset-paged listings (FileRepository.find*Page), newest first by (created_at, id).
+CREATE INDEX IF NOT EXISTS idx_file_user_created_id
+    ON file (user_id, created_at, id);
+
+CREATE INDEX IF NOT EXISTS idx_file_user_folder_created_id
+    ON file (user_id, folder_id, created_at, id);
+
+CREATE INDEX IF NOT EXISTS idx_file_user_favorite_created_id
+    ON file (user_id, created_at, id) WHERE is_favorite;
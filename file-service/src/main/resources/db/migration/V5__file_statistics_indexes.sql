@@ -0,0 +1,4 @@
+-- Largest files of a user for the statistics endpoint (FileRepository.findTop5ByUserIdOrderByFileSizeDescIdDesc).
+-- The recent-files count uses (user_id, created_at, id) from V4; the other figures come from user_file_stats.
+CREATE INDEX IF NOT EXISTS idx_file_user_size_id
+    ON file (user_id, file_size DESC, id DESC);
@@ -0,0 +1,33 @@
+package org.example.fileservice;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * DataSource of a PostgreSQL server started once per test JVM, for tests of native
+ * queries. Use with {@code @AutoConfigureTestDatabase(replace = NONE)}; Hibernate
+ * creates the tables as in the application (ddl-auto: update).
+ */
+@TestConfiguration(proxyBeanMethods = false)
+public class EmbeddedPostgresConfig {
+
+    private static EmbeddedPostgres postgres;
+
+    @Bean
+    public DataSource dataSource() throws IOException {
+        // Same driver setting as the application's datasource URL
+        return server().getDatabase("postgres", "postgres", Map.of("reWriteBatchedInserts", "true"));
+    }
+
+    private static synchronized EmbeddedPostgres server() throws IOException {
+        if (postgres == null) {
+            postgres = EmbeddedPostgres.start();
+        }
+        return postgres;
+    }
+}
@@ -0,0 +1,24 @@
+package org.example.fileservice.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.cors.CorsConfiguration;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SecurityConfigTest {
+
+    @Test
+    void shareLinkPreflightAllowsTheGrantAndPasswordHeaders() {
+        MockHttpServletRequest preflight = new MockHttpServletRequest("OPTIONS", "/api/sharing/shared/abc");
+
+        CorsConfiguration cors = new SecurityConfig().corsConfigurationSource().getCorsConfiguration(preflight);
+
+        assertThat(cors).isNotNull();
+        assertThat(cors.checkHeaders(List.of("X-Share-Grant", "X-Share-Password")))
+            .containsExactlyInAnyOrder("X-Share-Grant", "X-Share-Password");
+        assertThat(cors.checkOrigin("http://localhost:3000")).isEqualTo("http://localhost:3000");
+    }
+}
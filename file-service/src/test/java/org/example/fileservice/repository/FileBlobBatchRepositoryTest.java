@@ -0,0 +1,83 @@
+package org.example.fileservice.repository;
+
+import org.example.fileservice.EmbeddedPostgresConfig;
+import org.example.fileservice.entity.FileBlob;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.boot.jdbc.test.autoconfigure.AutoConfigureTestDatabase;
+import org.springframework.context.annotation.Import;
+
+import jakarta.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = "spring.flyway.enabled=false")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({EmbeddedPostgresConfig.class, FileBlobBatchRepository.class})
+class FileBlobBatchRepositoryTest {
+
+    @Autowired
+    private FileBlobBatchRepository fileBlobBatchRepository;
+
+    @Autowired
+    private FileBlobRepository fileBlobRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    void addsEachBlobsCountInOneCall() {
+        blob("a", 1);
+        blob("b", 3);
+
+        int updated = fileBlobBatchRepository.incrementReferences(Map.of("a", 2L, "b", 5L));
+
+        assertThat(updated).isEqualTo(2);
+        assertThat(refCount("a")).isEqualTo(3);
+        assertThat(refCount("b")).isEqualTo(8);
+    }
+
+    @Test
+    void missingBlobsAreSkippedAndReported() {
+        blob("a", 1);
+
+        int updated = fileBlobBatchRepository.incrementReferences(Map.of("a", 1L, "gone", 1L));
+
+        assertThat(updated).isEqualTo(1);
+        assertThat(refCount("a")).isEqualTo(2);
+        assertThat(fileBlobRepository.existsById("gone")).isFalse();
+    }
+
+    @Test
+    void largeCopiesAreSentInChunks() {
+        Map<String, Long> counts = new HashMap<>();
+        List<FileBlob> blobs = new ArrayList<>();
+        for (int i = 0; i < 2500; i++) {
+            String hash = String.format("%064d", i);
+            blobs.add(FileBlob.builder().hash(hash).size(10L).refCount(1L).build());
+            counts.put(hash, 1L);
+        }
+        fileBlobRepository.saveAllAndFlush(blobs);
+
+        int updated = fileBlobBatchRepository.incrementReferences(counts);
+
+        assertThat(updated).isEqualTo(2500);
+        assertThat(refCount(String.format("%064d", 0))).isEqualTo(2);
+        assertThat(refCount(String.format("%064d", 2499))).isEqualTo(2);
+    }
+
+    private void blob(String hash, long refCount) {
+        fileBlobRepository.save(FileBlob.builder().hash(hash).size(10L).refCount(refCount).build());
+        fileBlobRepository.flush();
+    }
+
+    private long refCount(String hash) {
+        entityManager.clear();
+        return fileBlobRepository.findById(hash).orElseThrow().getRefCount();
+    }
+}
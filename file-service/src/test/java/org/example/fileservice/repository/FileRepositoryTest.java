@@ -0,0 +1,114 @@
+package org.example.fileservice.repository;
+
+import org.example.fileservice.EmbeddedPostgresConfig;
+import org.example.fileservice.entity.File;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.boot.jdbc.test.autoconfigure.AutoConfigureTestDatabase;
+import org.springframework.context.annotation.Import;
+
+import jakarta.persistence.EntityManager;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = "spring.flyway.enabled=false")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(EmbeddedPostgresConfig.class)
+class FileRepositoryTest {
+
+    private static final Long USER_ID = 7L;
+
+    @Autowired
+    private FileRepository fileRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    void movedFilesAreCountedPerSourceFolder() {
+        Long a = file(USER_ID, 10L, 100);
+        Long b = file(USER_ID, 10L, 200);
+        Long c = file(USER_ID, 11L, 50);
+
+        Map<Long, long[]> moved = moveToFolder(List.of(a, b, c), 20L);
+
+        assertThat(moved).containsOnlyKeys(10L, 11L);
+        assertThat(moved.get(10L)).containsExactly(2, 300);
+        assertThat(moved.get(11L)).containsExactly(1, 50);
+        assertThat(List.of(a, b, c)).allSatisfy(id -> assertThat(folderOf(id)).isEqualTo(20L));
+    }
+
+    @Test
+    void filesAlreadyInTheDestinationAreLeftAlone() {
+        Long stays = file(USER_ID, 20L, 100);
+        Long moves = file(USER_ID, 10L, 40);
+        entityManager.clear();
+        LocalDateTime updatedAt = fileRepository.findById(stays).orElseThrow().getUpdatedAt();
+
+        Map<Long, long[]> moved = moveToFolder(List.of(stays, moves), 20L);
+
+        assertThat(moved).containsOnlyKeys(10L);
+        assertThat(moved.get(10L)).containsExactly(1, 40);
+        entityManager.clear();
+        assertThat(fileRepository.findById(stays).orElseThrow().getUpdatedAt()).isEqualTo(updatedAt);
+    }
+
+    @Test
+    void rootCountsAsAFolderOnBothSides() {
+        Long atRoot = file(USER_ID, null, 100);
+        Long inFolder = file(USER_ID, 10L, 30);
+
+        Map<Long, long[]> toFolder = moveToFolder(List.of(atRoot), 10L);
+        Map<Long, long[]> toRoot = moveToFolder(List.of(atRoot, inFolder), null);
+        Map<Long, long[]> again = moveToFolder(List.of(atRoot, inFolder), null);
+
+        assertThat(toFolder).containsOnlyKeys((Long) null);
+        assertThat(toFolder.get(null)).containsExactly(1, 100);
+        assertThat(toRoot).containsOnlyKeys(10L);
+        assertThat(toRoot.get(10L)).containsExactly(2, 130);
+        assertThat(again).isEmpty();
+        assertThat(folderOf(atRoot)).isNull();
+    }
+
+    @Test
+    void otherUsersFilesAreNotMoved() {
+        Long other = file(8L, 10L, 100);
+
+        assertThat(moveToFolder(List.of(other), 20L)).isEmpty();
+        assertThat(folderOf(other)).isEqualTo(10L);
+    }
+
+    private Map<Long, long[]> moveToFolder(List<Long> ids, Long folderId) {
+        Map<Long, long[]> bySource = new HashMap<>();
+        for (Object[] row : fileRepository.moveToFolder(ids, USER_ID, folderId)) {
+            bySource.put((Long) row[0], new long[] {((Number) row[1]).longValue(), ((Number) row[2]).longValue()});
+        }
+        return bySource;
+    }
+
+    private Long file(Long userId, Long folderId, long size) {
+        String uuid = UUID.randomUUID().toString();
+        File file = File.builder()
+            .fileName(uuid)
+            .originalFileName("report.pdf")
+            .filePath("blob:" + uuid)
+            .contentType("application/pdf")
+            .fileSize(size)
+            .fileUuid(uuid)
+            .userId(userId)
+            .folderId(folderId)
+            .build();
+        return fileRepository.saveAndFlush(file).getId();
+    }
+
+    private Long folderOf(Long id) {
+        entityManager.clear();
+        return fileRepository.findById(id).orElseThrow().getFolderId();
+    }
+}
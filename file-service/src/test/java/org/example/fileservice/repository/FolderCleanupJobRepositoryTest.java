@@ -0,0 +1,101 @@
+package org.example.fileservice.repository;
+
+import org.example.fileservice.EmbeddedPostgresConfig;
+import org.example.fileservice.entity.FolderCleanupJob;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.boot.jdbc.test.autoconfigure.AutoConfigureTestDatabase;
+import org.springframework.context.annotation.Import;
+
+import jakarta.persistence.EntityManager;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = "spring.flyway.enabled=false")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(EmbeddedPostgresConfig.class)
+class FolderCleanupJobRepositoryTest {
+
+    private final LocalDateTime now = LocalDateTime.now();
+    private final LocalDateTime staleBefore = now.minusMinutes(5);
+
+    @Autowired
+    private FolderCleanupJobRepository folderCleanupJobRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    void runnableJobsArePendingStaleOrDueForRetry() {
+        Long pending = job("pending", null, null);
+        Long stale = job("running", now.minusMinutes(10), null);
+        job("running", now.minusSeconds(10), null);
+        Long due = job("failed", null, now.minusSeconds(1));
+        job("failed", null, now.plusMinutes(1));
+        // Gave up: failed without a next attempt
+        job("failed", null, null);
+        job("completed", null, null);
+
+        List<Long> runnable = folderCleanupJobRepository.findRunnableJobIds(now, staleBefore);
+
+        assertThat(runnable).containsExactlyInAnyOrder(pending, stale, due);
+    }
+
+    @Test
+    void onlyOneClaimWinsAJob() {
+        Long pending = job("pending", null, null);
+
+        assertThat(folderCleanupJobRepository.claim(pending, now, staleBefore)).isEqualTo(1);
+        assertThat(folderCleanupJobRepository.claim(pending, now, staleBefore)).isZero();
+        assertThat(status(pending)).isEqualTo("running");
+    }
+
+    @Test
+    void failedJobIsClaimedAgainOnlyOnceItsRetryIsDue() {
+        Long failed = job("failed", null, now.plusMinutes(1));
+
+        assertThat(folderCleanupJobRepository.claim(failed, now, staleBefore)).isZero();
+        assertThat(folderCleanupJobRepository.claim(failed, now.plusMinutes(2), staleBefore)).isEqualTo(1);
+    }
+
+    @Test
+    void runningJobIsTakenOverOnlyAfterItStopsHeartbeating() {
+        Long running = job("running", now.minusSeconds(10), null);
+
+        assertThat(folderCleanupJobRepository.claim(running, now, staleBefore)).isZero();
+        assertThat(folderCleanupJobRepository.claim(running, now.plusMinutes(10), now.plusMinutes(5))).isEqualTo(1);
+    }
+
+    @Test
+    void progressAccumulatesAndRefreshesTheHeartbeat() {
+        Long running = job("running", now.minusMinutes(1), null);
+
+        folderCleanupJobRepository.addProgress(running, 500, 1_000, now);
+        folderCleanupJobRepository.addProgress(running, 20, 30, now.plusSeconds(1));
+
+        entityManager.clear();
+        FolderCleanupJob job = folderCleanupJobRepository.findById(running).orElseThrow();
+        assertThat(job.getDeletedFiles()).isEqualTo(520L);
+        assertThat(job.getDeletedBytes()).isEqualTo(1_030L);
+        assertThat(folderCleanupJobRepository.claim(running, now.plusMinutes(1), now)).isZero();
+    }
+
+    private Long job(String status, LocalDateTime heartbeatAt, LocalDateTime nextAttemptAt) {
+        FolderCleanupJob job = FolderCleanupJob.builder()
+            .userId(7L)
+            .folderIds(List.of(1L, 2L))
+            .status(status)
+            .heartbeatAt(heartbeatAt)
+            .nextAttemptAt(nextAttemptAt)
+            .build();
+        return folderCleanupJobRepository.saveAndFlush(job).getId();
+    }
+
+    private String status(Long id) {
+        entityManager.clear();
+        return folderCleanupJobRepository.findById(id).orElseThrow().getStatus();
+    }
+}
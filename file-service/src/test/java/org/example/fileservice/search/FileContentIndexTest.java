@@ -0,0 +1,171 @@
+package org.example.fileservice.search;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.fileservice.dto.FileContentRow;
+import org.example.fileservice.repository.FileRepository;
+import org.example.fileservice.storage.BlobStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class FileContentIndexTest {
+
+    private static final Long USER_ID = 7L;
+
+    @TempDir
+    Path tempDir;
+
+    private final LocalDateTime t0 = LocalDateTime.now().minusMinutes(5);
+    private final List<FileContentRow> rows = new CopyOnWriteArrayList<>();
+    private final FileRepository fileRepository = mock(FileRepository.class);
+    private final ContentExtractor contentExtractor = mock(ContentExtractor.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CountDownLatch stuckParse = new CountDownLatch(1);
+
+    private FileContentIndex index;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        when(fileRepository.findCreatedSince(any(LocalDateTime.class), anyLong(), any(Pageable.class)))
+            .thenAnswer(invocation -> {
+                LocalDateTime since = invocation.getArgument(0);
+                long afterId = invocation.getArgument(1);
+                Pageable page = invocation.getArgument(2);
+                return rows.stream()
+                    .filter(row -> row.createdAt().isAfter(since)
+                        || (row.createdAt().equals(since) && row.id() > afterId))
+                    .sorted(Comparator.comparing(FileContentRow::createdAt).thenComparing(FileContentRow::id))
+                    .limit(page.getPageSize())
+                    .toList();
+            });
+        when(contentExtractor.supports(anyString(), any())).thenAnswer(invocation ->
+            !invocation.<String>getArgument(0).endsWith(".bin"));
+        when(contentExtractor.extract(any(InputStream.class), anyString(), any(), anyInt())).thenAnswer(invocation -> {
+            if (invocation.<String>getArgument(1).startsWith("stuck")) {
+                // Ignores interrupts, like a parser caught in a loop
+                while (!stuckParse.await(10, TimeUnit.MILLISECONDS)) {
+                    Thread.interrupted();
+                }
+            }
+            return new String(invocation.<InputStream>getArgument(0).readAllBytes(), StandardCharsets.UTF_8);
+        });
+
+        index = new FileContentIndex(fileRepository, mock(BlobStore.class), contentExtractor, meterRegistry);
+        ReflectionTestUtils.setField(index, "enabled", true);
+        ReflectionTestUtils.setField(index, "indexDir", tempDir.resolve("index").toString());
+        ReflectionTestUtils.setField(index, "workers", 2);
+        ReflectionTestUtils.setField(index, "queueCapacity", 10);
+        ReflectionTestUtils.setField(index, "maxFileSize", 1_000_000L);
+        ReflectionTestUtils.setField(index, "maxChars", 10_000);
+        ReflectionTestUtils.setField(index, "extractionTimeoutMs", 300L);
+        ReflectionTestUtils.setField(index, "batchSize", 2);
+        ReflectionTestUtils.setField(index, "overlapSeconds", 30L);
+        ReflectionTestUtils.setField(index, "maxResults", 100);
+        index.open();
+    }
+
+    @AfterEach
+    void tearDown() {
+        stuckParse.countDown();
+        index.close();
+    }
+
+    @Test
+    void scanIndexesNewFilesForTheirOwner() throws IOException {
+        addFile(1L, USER_ID, "minutes.txt", "quarterly budget review minutes", t0);
+        addFile(2L, USER_ID, "offer.txt", "budget for the new office", t0.plusSeconds(1));
+        addFile(3L, 8L, "other.txt", "someone else's budget", t0.plusSeconds(2));
+
+        index.requestScan();
+
+        awaitSearch("budget", 2);
+        assertThat(index.search(USER_ID, "budget", 0, 10)).containsExactlyInAnyOrder(1L, 2L);
+        assertThat(index.search(USER_ID, "quarterly budg", 0, 10)).containsExactly(1L);
+        assertThat(index.search(8L, "budget", 0, 10)).containsExactly(3L);
+    }
+
+    @Test
+    void removedFilesLeaveTheIndexOnCommit() throws IOException {
+        addFile(1L, USER_ID, "a.txt", "invoice march", t0);
+        addFile(2L, USER_ID, "b.txt", "invoice april", t0.plusSeconds(1));
+        index.requestScan();
+        awaitSearch("invoice", 2);
+
+        index.remove(List.of(1L));
+        index.commit();
+
+        assertThat(index.search(USER_ID, "invoice", 0, 10)).containsExactly(2L);
+    }
+
+    @Test
+    void stuckParseTimesOutAndTheCursorMovesPastIt() throws IOException {
+        addFile(1L, USER_ID, "stuck.txt", "never indexed", t0);
+        addFile(2L, USER_ID, "skipped.bin", "not extractable", t0.plusSeconds(1));
+        addFile(3L, USER_ID, "fine.txt", "indexed anyway", t0.plusSeconds(2));
+
+        index.requestScan();
+
+        await(() -> timedOut() == 1.0);
+        awaitSearch("indexed", 1);
+        assertThat(index.search(USER_ID, "never", 0, 10)).isEmpty();
+        await(() -> {
+            index.commit();
+            return t0.plusSeconds(2).equals(ReflectionTestUtils.getField(index, "cursorTime"));
+        });
+    }
+
+    private void addFile(Long id, Long userId, String name, String content, LocalDateTime createdAt) throws IOException {
+        Path file = Files.writeString(tempDir.resolve(id + "-" + name), content);
+        rows.add(new FileContentRow(id, userId, name, "text/plain", Files.size(file), null, file.toString(), createdAt));
+    }
+
+    private double timedOut() {
+        return meterRegistry.counter("content.index.files", "index", "content", "result", "timeout").count();
+    }
+
+    private void awaitSearch(String text, int hits) {
+        await(() -> {
+            index.commit();
+            return index.search(USER_ID, text, 0, 10).size() == hits;
+        });
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new AssertionError("Condition not met within 10 seconds");
+            }
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new AssertionError(e);
+            }
+        }
+    }
+}
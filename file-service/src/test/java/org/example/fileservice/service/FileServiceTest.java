@@ -0,0 +1,222 @@
+package org.example.fileservice.service;
+
+import org.example.fileservice.dto.FolderCopyResult;
+import org.example.fileservice.dto.FolderStatsDTO;
+import org.example.fileservice.entity.File;
+import org.example.fileservice.event.FileEventPublisher;
+import org.example.fileservice.repository.FileBatchRepository;
+import org.example.fileservice.repository.FileRepository;
+import org.example.fileservice.search.FileContentIndex;
+import org.example.fileservice.search.FileNameIndex;
+import org.example.fileservice.storage.BlobStore;
+import org.example.fileservice.storage.LegacyContentMigrator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class FileServiceTest {
+
+    private static final Long USER_ID = 7L;
+
+    @Mock
+    private FileRepository fileRepository;
+    @Mock
+    private QuotaLedger quotaLedger;
+    @Mock
+    private FileStatsRollup fileStatsRollup;
+    @Mock
+    private BlobStore blobStore;
+    @Mock
+    private FileBatchRepository fileBatchRepository;
+    @Mock
+    private LegacyContentMigrator legacyContentMigrator;
+    @Mock
+    private FileEventPublisher fileEventPublisher;
+    @Mock
+    private FileNameIndex fileNameIndex;
+    @Mock
+    private FileContentIndex fileContentIndex;
+
+    @TempDir
+    Path uploadDir;
+
+    @InjectMocks
+    private FileService fileService;
+
+    @BeforeEach
+    void setUp() {
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    @Test
+    void folderCopyTakesAllBlobReferencesInOneCallAndInsertsAllRowsInOneBatch() {
+        Map<Long, Long> mapping = Map.of(10L, 20L, 11L, 21L);
+        when(fileRepository.findByUserIdAndFolderIdInOrderByCreatedAtDesc(USER_ID, mapping.keySet())).thenReturn(List.of(
+            file(1L, 10L, "a.txt", 100L, "h1"),
+            file(2L, 10L, "b.txt", 200L, "h2"),
+            file(3L, 11L, "a-again.txt", 100L, "h1")));
+
+        FolderCopyResult result = fileService.copyFolderFiles(mapping, USER_ID);
+
+        verify(quotaLedger).reserve(USER_ID, 400L);
+        verify(blobStore).retainAll(Map.of("h1", 2L, "h2", 1L));
+        ArgumentCaptor<List<File>> inserted = fileListCaptor();
+        verify(fileBatchRepository).insertAll(inserted.capture());
+        assertThat(inserted.getValue())
+            .extracting(File::getFolderId, File::getOriginalFileName, File::getBlobHash, File::getUserId)
+            .containsExactly(
+                tuple(20L, "a.txt", "h1", USER_ID),
+                tuple(20L, "b.txt", "h2", USER_ID),
+                tuple(21L, "a-again.txt", "h1", USER_ID));
+        verify(quotaLedger).commit(USER_ID, 400L, 400L);
+
+        assertThat(result.getCopiedFiles()).isEqualTo(3L);
+        assertThat(result.getCopiedBytes()).isEqualTo(400L);
+        assertThat(result.getFolders())
+            .extracting(FolderStatsDTO::getFolderId, FolderStatsDTO::getFileCount, FolderStatsDTO::getTotalSize)
+            .containsExactlyInAnyOrder(tuple(20L, 2L, 300L), tuple(21L, 1L, 100L));
+    }
+
+    @Test
+    void legacyFilesAreAdoptedOnlyAfterCommit() {
+        File legacy = file(1L, 10L, "old.txt", 50L, null);
+        legacy.setFilePath("/uploads/old.txt");
+        File legacyShareCopy = file(2L, 10L, "old (copy).txt", 50L, null);
+        legacyShareCopy.setFilePath("/uploads/old.txt");
+        when(fileRepository.findByUserIdAndFolderIdInOrderByCreatedAtDesc(USER_ID, Set.of(10L)))
+            .thenReturn(List.of(legacy, legacyShareCopy));
+
+        fileService.copyFolderFiles(Map.of(10L, 20L), USER_ID);
+
+        verify(blobStore).retainAll(Map.of());
+        verifyNoInteractions(legacyContentMigrator);
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+        // One adoption per legacy path, which switches over every row sharing it
+        verify(legacyContentMigrator).adopt(List.of(1L));
+    }
+
+    @Test
+    void missingBlobFailsTheCopyBeforeAnyRowIsWritten() {
+        when(fileRepository.findByUserIdAndFolderIdInOrderByCreatedAtDesc(USER_ID, Set.of(10L)))
+            .thenReturn(List.of(file(1L, 10L, "a.txt", 100L, "h1")));
+        doThrow(new IllegalStateException("1 blob(s) no longer exist")).when(blobStore).retainAll(any());
+
+        assertThatThrownBy(() -> fileService.copyFolderFiles(Map.of(10L, 20L), USER_ID))
+            .isInstanceOf(IllegalStateException.class);
+
+        verify(fileBatchRepository, never()).insertAll(any());
+        verify(quotaLedger, never()).commit(any(), anyLong(), anyLong());
+        // The references were taken in the failing transaction and roll back with it
+        verify(blobStore, never()).release(any(), anyLong());
+    }
+
+    @Test
+    void emptyFoldersCopyNothing() {
+        when(fileRepository.findByUserIdAndFolderIdInOrderByCreatedAtDesc(USER_ID, Set.of(10L))).thenReturn(List.of());
+
+        FolderCopyResult result = fileService.copyFolderFiles(Map.of(10L, 20L), USER_ID);
+
+        assertThat(result.getCopiedFiles()).isZero();
+        verifyNoInteractions(quotaLedger, blobStore, fileBatchRepository);
+    }
+
+    @Test
+    void removedContentIsReleasedOnlyAfterCommit() throws IOException {
+        Path legacyPath = Files.writeString(uploadDir.resolve("legacy.txt"), "legacy content");
+        File legacy = file(1L, 10L, "legacy.txt", 14L, null);
+        legacy.setFilePath(legacyPath.toString());
+        File blobBacked = file(2L, 10L, "a.txt", 100L, "h1");
+
+        fileService.removeFileRecords(List.of(legacy, blobBacked));
+
+        verify(fileRepository).deleteAll(List.of(legacy, blobBacked));
+        verify(blobStore, never()).release(any(), anyLong());
+        assertThat(legacyPath).exists();
+
+        when(fileRepository.countByFilePathAndBlobHashIsNull(legacyPath.toString())).thenReturn(0L);
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+        verify(blobStore).release("h1", 1L);
+        assertThat(legacyPath).doesNotExist();
+    }
+
+    @Test
+    void rolledBackRemovalKeepsTheContent() throws IOException {
+        Path legacyPath = Files.writeString(uploadDir.resolve("legacy.txt"), "legacy content");
+        File legacy = file(1L, 10L, "legacy.txt", 14L, null);
+        legacy.setFilePath(legacyPath.toString());
+
+        fileService.removeFileRecords(List.of(legacy, file(2L, 10L, "a.txt", 100L, "h1")));
+        TransactionSynchronizationManager.getSynchronizations()
+            .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        verify(blobStore, never()).release(any(), anyLong());
+        assertThat(legacyPath).exists();
+    }
+
+    @Test
+    void legacyFileStillReferencedAfterCommitIsKept() throws IOException {
+        Path legacyPath = Files.writeString(uploadDir.resolve("legacy.txt"), "legacy content");
+        File legacy = file(1L, 10L, "legacy.txt", 14L, null);
+        legacy.setFilePath(legacyPath.toString());
+        // Another user's accepted-share copy still points at the same path
+        when(fileRepository.countByFilePathAndBlobHashIsNull(legacyPath.toString())).thenReturn(1L);
+
+        fileService.removeFileRecords(List.of(legacy));
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+        assertThat(legacyPath).exists();
+    }
+
+    private static File file(Long id, Long folderId, String name, long size, String blobHash) {
+        return File.builder()
+            .id(id)
+            .userId(USER_ID)
+            .folderId(folderId)
+            .originalFileName(name)
+            .fileSize(size)
+            .blobHash(blobHash)
+            .checksum(blobHash)
+            .filePath(blobHash != null ? "blob:" + blobHash : null)
+            .build();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ArgumentCaptor<List<File>> fileListCaptor() {
+        return ArgumentCaptor.forClass(List.class);
+    }
+}
@@ -0,0 +1,188 @@
+package org.example.fileservice.service;
+
+import org.example.fileservice.entity.File;
+import org.example.fileservice.repository.UserFileStatsRepository;
+import org.example.fileservice.repository.UserFileTypeStatsRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Applies writes to a rollup held in memory through the repository mocks and checks it
+ * against the figures the recompute queries would compute from the resulting files.
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class FileStatsRollupTest {
+
+    private static final Long USER_ID = 7L;
+    private static final Long USER_WITHOUT_ROLLUP = 8L;
+    // Thresholds of UserFileStatsRepository.STATS_FROM_FILES
+    private static final long[] BUCKET_LIMITS = {1048576L, 10485760L, 104857600L};
+    // Extension expression of UserFileTypeStatsRepository.insertFromFiles
+    private static final Pattern EXTENSION = Pattern.compile("\\.[^.]*$");
+
+    @Mock
+    private UserFileStatsRepository userFileStatsRepository;
+    @Mock
+    private UserFileTypeStatsRepository userFileTypeStatsRepository;
+
+    @InjectMocks
+    private FileStatsRollup fileStatsRollup;
+
+    private final long[] totals = new long[7];
+    private final Map<String, Long> types = new HashMap<>();
+    private final List<File> files = new ArrayList<>();
+    private long nextId = 1;
+
+    @BeforeEach
+    void setUp() {
+        when(userFileStatsRepository.add(eq(USER_ID), anyLong(), anyLong(), anyLong(),
+                anyLong(), anyLong(), anyLong(), anyLong()))
+            .thenAnswer(invocation -> {
+                for (int i = 0; i < totals.length; i++) {
+                    totals[i] += invocation.<Long>getArgument(i + 1);
+                }
+                return 1;
+            });
+        when(userFileStatsRepository.add(eq(USER_WITHOUT_ROLLUP), anyLong(), anyLong(), anyLong(),
+                anyLong(), anyLong(), anyLong(), anyLong()))
+            .thenReturn(0);
+        when(userFileTypeStatsRepository.add(eq(USER_ID), anyString(), anyLong()))
+            .thenAnswer(invocation -> {
+                types.merge(invocation.getArgument(1), invocation.<Long>getArgument(2), Long::sum);
+                return 1;
+            });
+    }
+
+    @Test
+    void sizeBucketBoundariesMatchTheRecomputeQuery() {
+        add(file("empty", 0L, false),
+            file("a.txt", 1048575L, false),
+            file("b.TXT", 1048576L, true),
+            file("c.bin", 10485759L, false),
+            file("d.bin", 10485760L, false),
+            file("e.iso", 104857599L, true),
+            file("f.iso", 104857600L, false));
+
+        assertMatchesRecompute();
+    }
+
+    @Test
+    void addsRemovesRenamesAndFavoritesMatchTheRecompute() {
+        File report = file("report.PDF", 2_000_000L, false);
+        File archive = file("backup.tar.gz", 300_000_000L, true);
+        File note = file("note", 10L, false);
+        File photo = file("photo.jpg", 5_000L, false);
+        add(report, archive, note, photo);
+
+        remove(photo);
+
+        String oldName = note.getOriginalFileName();
+        note.setOriginalFileName("note.md");
+        fileStatsRollup.filesRenamed(List.of(note), oldName);
+
+        // Same extension after the rename: nothing to move
+        oldName = report.getOriginalFileName();
+        report.setOriginalFileName("summary.pdf");
+        fileStatsRollup.filesRenamed(List.of(report), oldName);
+
+        report.setIsFavorite(true);
+        fileStatsRollup.favoriteToggled(report);
+        archive.setIsFavorite(false);
+        fileStatsRollup.favoriteToggled(archive);
+
+        add(file("dot.", 1L, false));
+
+        assertMatchesRecompute();
+    }
+
+    @Test
+    void removingEverythingLeavesZeroes() {
+        File a = file("a.txt", 1L, true);
+        File b = file("b.txt", 2L, false);
+        add(a, b);
+
+        remove(a, b);
+
+        assertThat(totals).containsOnly(0L);
+        assertThat(types.values()).containsOnly(0L);
+        assertMatchesRecompute();
+    }
+
+    @Test
+    void deltasForUsersWithoutARollupAreDropped() {
+        File other = file("other.txt", 1L, false).toBuilder().userId(USER_WITHOUT_ROLLUP).build();
+
+        fileStatsRollup.filesAdded(List.of(other));
+
+        verify(userFileTypeStatsRepository, never()).add(eq(USER_WITHOUT_ROLLUP), anyString(), anyLong());
+    }
+
+    private void add(File... added) {
+        files.addAll(List.of(added));
+        fileStatsRollup.filesAdded(List.of(added));
+    }
+
+    private void remove(File... removed) {
+        files.removeAll(List.of(removed));
+        fileStatsRollup.filesRemoved(List.of(removed));
+    }
+
+    private File file(String name, long size, boolean favorite) {
+        return File.builder()
+            .id(nextId++)
+            .userId(USER_ID)
+            .originalFileName(name)
+            .fileSize(size)
+            .isFavorite(favorite)
+            .build();
+    }
+
+    private void assertMatchesRecompute() {
+        long[] expected = new long[7];
+        Map<String, Long> expectedTypes = new HashMap<>();
+        for (File file : files) {
+            long size = file.getFileSize();
+            expected[0]++;
+            expected[1] += size;
+            if (file.getIsFavorite()) {
+                expected[2]++;
+            }
+            int bucket = 0;
+            while (bucket < BUCKET_LIMITS.length && size >= BUCKET_LIMITS[bucket]) {
+                bucket++;
+            }
+            expected[3 + bucket]++;
+            Matcher matcher = EXTENSION.matcher(file.getOriginalFileName());
+            String extension = matcher.find() ? matcher.group().toLowerCase(Locale.ROOT) : "";
+            expectedTypes.merge(extension, 1L, Long::sum);
+        }
+
+        assertThat(totals).containsExactly(expected);
+        Map<String, Long> nonZeroTypes = new HashMap<>(types);
+        nonZeroTypes.values().removeIf(count -> count == 0);
+        assertThat(nonZeroTypes).isEqualTo(expectedTypes);
+    }
+}
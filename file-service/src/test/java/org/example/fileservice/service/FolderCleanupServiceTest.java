@@ -0,0 +1,164 @@
+package org.example.fileservice.service;
+
+import org.example.fileservice.entity.File;
+import org.example.fileservice.entity.FolderCleanupJob;
+import org.example.fileservice.repository.FileRepository;
+import org.example.fileservice.repository.FolderCleanupJobRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class FolderCleanupServiceTest {
+
+    private static final Long JOB_ID = 3L;
+    private static final Long USER_ID = 7L;
+    private static final List<Long> FOLDER_IDS = List.of(10L, 11L);
+
+    @Mock
+    private FolderCleanupJobRepository folderCleanupJobRepository;
+    @Mock
+    private FileRepository fileRepository;
+    @Mock
+    private FileService fileService;
+    @Mock
+    private QuotaLedger quotaLedger;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private FolderCleanupService folderCleanupService;
+    private FolderCleanupJob job;
+
+    @BeforeEach
+    void setUp() {
+        folderCleanupService = new FolderCleanupService(folderCleanupJobRepository, fileRepository, fileService,
+            quotaLedger, new TransactionTemplate(transactionManager));
+        ReflectionTestUtils.setField(folderCleanupService, "batchSize", 2);
+        ReflectionTestUtils.setField(folderCleanupService, "staleAfterMs", 300_000L);
+        ReflectionTestUtils.setField(folderCleanupService, "maxAttempts", 3);
+        ReflectionTestUtils.setField(folderCleanupService, "retryBackoffMs", 60_000L);
+        ReflectionTestUtils.setField(folderCleanupService, "maxRetryBackoffMs", 90_000L);
+
+        job = FolderCleanupJob.builder().id(JOB_ID).userId(USER_ID).folderIds(FOLDER_IDS).status("running").build();
+        when(folderCleanupJobRepository.findRunnableJobIds(any(), any())).thenReturn(List.of(JOB_ID));
+        // Overridden, or not reached, when the claim is lost
+        lenient().when(folderCleanupJobRepository.claim(eq(JOB_ID), any(), any())).thenReturn(1);
+        lenient().when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+        lenient().when(folderCleanupJobRepository.findById(JOB_ID)).thenAnswer(invocation -> Optional.of(job));
+        lenient().when(folderCleanupJobRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @Test
+    void eachBatchReleasesQuotaAndRecordsProgressInItsOwnTransaction() {
+        when(fileRepository.countByUserIdAndFolderIdIn(USER_ID, FOLDER_IDS)).thenReturn(3L);
+        when(fileService.removeFolderFiles(USER_ID, FOLDER_IDS, 2))
+            .thenReturn(files(100, 200), files(50));
+
+        folderCleanupService.runPendingJobs();
+
+        InOrder inOrder = inOrder(transactionManager, fileService, quotaLedger, folderCleanupJobRepository);
+        inOrder.verify(transactionManager).getTransaction(any());
+        inOrder.verify(fileService).removeFolderFiles(USER_ID, FOLDER_IDS, 2);
+        inOrder.verify(quotaLedger).record(USER_ID, -300L);
+        inOrder.verify(folderCleanupJobRepository).addProgress(eq(JOB_ID), eq(2L), eq(300L), any());
+        inOrder.verify(transactionManager).commit(any());
+        inOrder.verify(transactionManager).getTransaction(any());
+        inOrder.verify(fileService).removeFolderFiles(USER_ID, FOLDER_IDS, 2);
+        inOrder.verify(quotaLedger).record(USER_ID, -50L);
+        inOrder.verify(folderCleanupJobRepository).addProgress(eq(JOB_ID), eq(1L), eq(50L), any());
+        inOrder.verify(transactionManager).commit(any());
+
+        assertThat(job.getStatus()).isEqualTo("completed");
+        assertThat(job.getTotalFiles()).isEqualTo(3L);
+        assertThat(job.getCompletedAt()).isNotNull();
+    }
+
+    @Test
+    void failedProgressUpdateRollsBackTheBatchWithItsQuotaRelease() {
+        when(fileService.removeFolderFiles(USER_ID, FOLDER_IDS, 2)).thenReturn(files(100));
+        when(folderCleanupJobRepository.addProgress(anyLong(), anyLong(), anyLong(), any()))
+            .thenThrow(new IllegalStateException("connection lost"));
+
+        folderCleanupService.runPendingJobs();
+
+        verify(transactionManager).rollback(any(TransactionStatus.class));
+        verify(transactionManager, never()).commit(any());
+        assertThat(job.getStatus()).isEqualTo("failed");
+        assertThat(job.getAttempts()).isEqualTo(1);
+    }
+
+    @Test
+    void failuresAreRetriedWithDoublingBackoffUntilMaxAttempts() {
+        when(fileService.removeFolderFiles(any(), any(), anyInt())).thenThrow(new IllegalStateException("boom"));
+
+        folderCleanupService.runPendingJobs();
+        assertThat(job.getStatus()).isEqualTo("failed");
+        assertThat(job.getErrorMessage()).isEqualTo("boom");
+        assertThat(job.getNextAttemptAt()).isCloseTo(LocalDateTime.now().plusSeconds(60), within(5, ChronoUnit.SECONDS));
+
+        folderCleanupService.runPendingJobs();
+        // 120s doubled backoff, capped at max-retry-backoff-ms
+        assertThat(job.getNextAttemptAt()).isCloseTo(LocalDateTime.now().plusSeconds(90), within(5, ChronoUnit.SECONDS));
+
+        folderCleanupService.runPendingJobs();
+        assertThat(job.getAttempts()).isEqualTo(3);
+        assertThat(job.getNextAttemptAt()).isNull();
+        assertThat(job.getCompletedAt()).isNotNull();
+    }
+
+    @Test
+    void successfulRetryClearsTheError() {
+        job.setStatus("failed");
+        job.setAttempts(1);
+        job.setErrorMessage("boom");
+        job.setNextAttemptAt(LocalDateTime.now().minusSeconds(1));
+        job.setTotalFiles(1L);
+        when(fileService.removeFolderFiles(USER_ID, FOLDER_IDS, 2)).thenReturn(files(10));
+
+        folderCleanupService.runPendingJobs();
+
+        assertThat(job.getStatus()).isEqualTo("completed");
+        assertThat(job.getErrorMessage()).isNull();
+        assertThat(job.getNextAttemptAt()).isNull();
+    }
+
+    @Test
+    void jobClaimedByAnotherInstanceIsSkipped() {
+        when(folderCleanupJobRepository.claim(eq(JOB_ID), any(), any())).thenReturn(0);
+
+        folderCleanupService.runPendingJobs();
+
+        verify(fileService, never()).removeFolderFiles(any(), any(), anyInt());
+        verify(folderCleanupJobRepository, never()).save(any());
+    }
+
+    private static List<File> files(long... sizes) {
+        return LongStream.of(sizes).mapToObj(size -> File.builder().fileSize(size).build()).toList();
+    }
+}
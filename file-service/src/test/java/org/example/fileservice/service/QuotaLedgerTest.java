@@ -0,0 +1,171 @@
+package org.example.fileservice.service;
+
+import org.example.fileservice.dto.UserDTO;
+import org.example.fileservice.entity.StorageDeltaOutbox;
+import org.example.fileservice.event.FileEventPublisher;
+import org.example.fileservice.event.StorageDelta;
+import org.example.fileservice.event.StorageDeltaBatch;
+import org.example.fileservice.exception.StorageQuotaExceededException;
+import org.example.fileservice.feign.UserServiceClient;
+import org.example.fileservice.repository.FileRepository;
+import org.example.fileservice.repository.StorageDeltaOutboxRepository;
+import org.example.fileservice.repository.UserQuotaRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class QuotaLedgerTest {
+
+    private static final Long USER_ID = 7L;
+
+    @Mock
+    private UserQuotaRepository userQuotaRepository;
+    @Mock
+    private StorageDeltaOutboxRepository storageDeltaOutboxRepository;
+    @Mock
+    private FileRepository fileRepository;
+    @Mock
+    private UserServiceClient userServiceClient;
+    @Mock
+    private FileEventPublisher fileEventPublisher;
+
+    @InjectMocks
+    private QuotaLedger quotaLedger;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(quotaLedger, "flushBatchSize", 2);
+        ReflectionTestUtils.setField(quotaLedger, "reservationTimeoutMs", 60_000L);
+    }
+
+    @Test
+    void firstReservationSeedsTheUserFromUserServiceAndTheirFiles() {
+        UserDTO user = new UserDTO();
+        user.setMaxStorage(1_000L);
+        when(userQuotaRepository.existsById(USER_ID)).thenReturn(false);
+        when(userServiceClient.getUserById(USER_ID)).thenReturn(user);
+        when(fileRepository.sumFileSizeByUserId(USER_ID)).thenReturn(400L);
+        when(userQuotaRepository.insertIfAbsent(USER_ID, 1_000L, 400L)).thenReturn(1);
+        when(userQuotaRepository.reserve(USER_ID, 100L)).thenReturn(1);
+
+        quotaLedger.reserve(USER_ID, 100L);
+
+        verify(userQuotaRepository).insertIfAbsent(USER_ID, 1_000L, 400L);
+        verify(userQuotaRepository).reserve(USER_ID, 100L);
+    }
+
+    @Test
+    void seededUserIsNotLookedUpAgain() {
+        when(userQuotaRepository.existsById(USER_ID)).thenReturn(true);
+        when(userQuotaRepository.reserve(USER_ID, 100L)).thenReturn(1);
+
+        quotaLedger.reserve(USER_ID, 100L);
+
+        verify(userServiceClient, never()).getUserById(any());
+        verify(userQuotaRepository, never()).insertIfAbsent(any(), any(), anyLong());
+    }
+
+    @Test
+    void reservationOverTheLimitIsRefused() {
+        when(userQuotaRepository.existsById(USER_ID)).thenReturn(true);
+        when(userQuotaRepository.reserve(USER_ID, 100L)).thenReturn(0);
+
+        assertThatThrownBy(() -> quotaLedger.reserve(USER_ID, 100L))
+            .isInstanceOf(StorageQuotaExceededException.class);
+    }
+
+    @Test
+    void commitReleasesTheReservationAndCountsTheFinalSize() {
+        quotaLedger.commit(USER_ID, 100L, 90L);
+
+        verify(userQuotaRepository).settle(USER_ID, 100L, 90L);
+    }
+
+    @Test
+    void flushMovesPendingChangesUntilAShortBatchAndSendsTheOutbox() {
+        when(userQuotaRepository.movePendingDeltasToOutbox(2)).thenReturn(2, 2, 1);
+        List<StorageDeltaOutbox> firstPage = List.of(outbox("k1", 5L), outbox("k2", -3L));
+        List<StorageDeltaOutbox> secondPage = List.of(outbox("k3", 8L));
+        when(storageDeltaOutboxRepository.findByOrderByCreatedAtAsc(any(Pageable.class)))
+            .thenReturn(firstPage, secondPage);
+        when(fileEventPublisher.publishStorageDeltas(any())).thenReturn(true);
+
+        quotaLedger.flushPendingDeltas();
+
+        verify(userQuotaRepository, times(3)).movePendingDeltasToOutbox(2);
+        ArgumentCaptor<StorageDeltaBatch> sent = ArgumentCaptor.forClass(StorageDeltaBatch.class);
+        verify(fileEventPublisher, times(2)).publishStorageDeltas(sent.capture());
+        assertThat(sent.getAllValues().get(0).getDeltas())
+            .extracting(StorageDelta::getIdempotencyKey, StorageDelta::getDelta)
+            .containsExactly(tuple("k1", 5L), tuple("k2", -3L));
+        verify(storageDeltaOutboxRepository).deleteAllByIdInBatch(List.of("k1", "k2"));
+        verify(storageDeltaOutboxRepository).deleteAllByIdInBatch(List.of("k3"));
+        verify(userQuotaRepository).clearStaleReservations(any(LocalDateTime.class));
+    }
+
+    @Test
+    void failedSendKeepsTheRowsAndTheNextFlushResendsTheSameKeys() {
+        when(userQuotaRepository.movePendingDeltasToOutbox(anyInt())).thenReturn(0);
+        List<StorageDeltaOutbox> rows = List.of(outbox("k1", 5L));
+        when(storageDeltaOutboxRepository.findByOrderByCreatedAtAsc(any(Pageable.class))).thenReturn(rows);
+        List<List<String>> sentKeys = new ArrayList<>();
+        when(fileEventPublisher.publishStorageDeltas(any())).thenAnswer(invocation -> {
+            StorageDeltaBatch batch = invocation.getArgument(0);
+            sentKeys.add(batch.getDeltas().stream().map(StorageDelta::getIdempotencyKey).toList());
+            return sentKeys.size() > 1;
+        });
+
+        quotaLedger.flushPendingDeltas();
+        verify(storageDeltaOutboxRepository, never()).deleteAllByIdInBatch(anyList());
+
+        quotaLedger.flushPendingDeltas();
+
+        assertThat(sentKeys).containsExactly(List.of("k1"), List.of("k1"));
+        verify(storageDeltaOutboxRepository).deleteAllByIdInBatch(List.of("k1"));
+    }
+
+    @Test
+    void publisherExceptionCountsAsAFailedSend() {
+        when(userQuotaRepository.movePendingDeltasToOutbox(anyInt())).thenReturn(0);
+        when(storageDeltaOutboxRepository.findByOrderByCreatedAtAsc(any(Pageable.class)))
+            .thenReturn(List.of(outbox("k1", 5L)));
+        when(fileEventPublisher.publishStorageDeltas(any())).thenThrow(new IllegalStateException("binder down"));
+
+        quotaLedger.flushPendingDeltas();
+
+        verify(storageDeltaOutboxRepository, never()).deleteAllByIdInBatch(anyList());
+        verify(userQuotaRepository).clearStaleReservations(any(LocalDateTime.class));
+    }
+
+    private static StorageDeltaOutbox outbox(String key, long delta) {
+        return StorageDeltaOutbox.builder()
+            .idempotencyKey(key)
+            .userId(USER_ID)
+            .delta(delta)
+            .createdAt(LocalDateTime.now())
+            .build();
+    }
+}
@@ -0,0 +1,67 @@
+package org.example.fileservice.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ShareGrantSignerTest {
+
+    private static final String TOKEN = "3f2a9c1e-share-token";
+    private static final String PASSWORD_HASH = "$2a$10$abcdefghijklmnopqrstuv";
+
+    private final ShareGrantSigner signer = new ShareGrantSigner("test-secret", 60);
+
+    @Test
+    void issuedGrantIsAcceptedForTheSameShare() {
+        String grant = signer.issue(TOKEN, PASSWORD_HASH);
+
+        assertThat(signer.verify(grant, TOKEN, PASSWORD_HASH)).isTrue();
+    }
+
+    @Test
+    void grantIsBoundToTheShareTokenAndPassword() {
+        String grant = signer.issue(TOKEN, PASSWORD_HASH);
+
+        assertThat(signer.verify(grant, "other-token", PASSWORD_HASH)).isFalse();
+        // A password change invalidates grants issued for the old one
+        assertThat(signer.verify(grant, TOKEN, "$2a$10$changedchangedchanged")).isFalse();
+    }
+
+    @Test
+    void expiredGrantIsRejected() {
+        ShareGrantSigner expired = new ShareGrantSigner("test-secret", -1);
+
+        assertThat(expired.verify(expired.issue(TOKEN, PASSWORD_HASH), TOKEN, PASSWORD_HASH)).isFalse();
+    }
+
+    @Test
+    void extendingTheExpiryBreaksTheSignature() {
+        String grant = signer.issue(TOKEN, PASSWORD_HASH);
+        long expiresAt = Long.parseLong(grant.substring(0, grant.indexOf('.')));
+        String extended = (expiresAt + 86_400) + grant.substring(grant.indexOf('.'));
+
+        assertThat(signer.verify(extended, TOKEN, PASSWORD_HASH)).isFalse();
+    }
+
+    @Test
+    void instancesShareGrantsOnlyWithTheSameSecret() {
+        String grant = signer.issue(TOKEN, PASSWORD_HASH);
+
+        assertThat(new ShareGrantSigner("test-secret", 60).verify(grant, TOKEN, PASSWORD_HASH)).isTrue();
+        assertThat(new ShareGrantSigner("other-secret", 60).verify(grant, TOKEN, PASSWORD_HASH)).isFalse();
+        // Without a configured secret each instance signs with its own random key
+        assertThat(new ShareGrantSigner("", 60).verify(grant, TOKEN, PASSWORD_HASH)).isFalse();
+    }
+
+    @Test
+    void malformedGrantsAreRejected() {
+        String signature = signer.issue(TOKEN, PASSWORD_HASH).split("\\.", 2)[1];
+
+        assertThat(signer.verify(null, TOKEN, PASSWORD_HASH)).isFalse();
+        assertThat(signer.verify("", TOKEN, PASSWORD_HASH)).isFalse();
+        assertThat(signer.verify("no-dot", TOKEN, PASSWORD_HASH)).isFalse();
+        assertThat(signer.verify("." + signature, TOKEN, PASSWORD_HASH)).isFalse();
+        assertThat(signer.verify("soon." + signature, TOKEN, PASSWORD_HASH)).isFalse();
+        assertThat(signer.verify("99999999999.", TOKEN, PASSWORD_HASH)).isFalse();
+    }
+}
@@ -0,0 +1,131 @@
+package org.example.fileservice.storage;
+
+import org.example.fileservice.config.FileStorageConfig;
+import org.example.fileservice.repository.FileBlobBatchRepository;
+import org.example.fileservice.repository.FileBlobRepository;
+import org.example.fileservice.repository.FileRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class BlobStoreTest {
+
+    private static final String HASH = "9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08";
+
+    @Mock
+    private FileBlobRepository fileBlobRepository;
+    @Mock
+    private FileBlobBatchRepository fileBlobBatchRepository;
+    @Mock
+    private FileRepository fileRepository;
+    @Mock
+    private FileStorageConfig fileStorageConfig;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @TempDir
+    Path uploadDir;
+
+    private final InMemoryStorageBackend storageBackend = new InMemoryStorageBackend();
+    private BlobStore blobStore;
+
+    @BeforeEach
+    void setUp() {
+        blobStore = new BlobStore(fileBlobRepository, fileBlobBatchRepository, fileRepository, fileStorageConfig,
+            storageBackend, transactionManager);
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    @Test
+    void newContentIsMovedIntoTheBackend() throws IOException {
+        Path staged = stage("test");
+
+        String location = blobStore.store(staged, HASH, 4);
+
+        assertThat(location).isEqualTo("blob:" + HASH);
+        assertThat(read(HASH)).isEqualTo("test");
+        assertThat(staged).doesNotExist();
+        verify(fileBlobRepository).addReferences(HASH, 4L, 1);
+    }
+
+    @Test
+    void storedContentIsKeptAndTheDuplicateDiscarded() throws IOException {
+        storageBackend.put(HASH, new ByteArrayInputStream("test".getBytes(StandardCharsets.UTF_8)));
+        Path staged = stage("test");
+
+        blobStore.store(staged, HASH, 4);
+
+        assertThat(staged).doesNotExist();
+        assertThat(read(HASH)).isEqualTo("test");
+    }
+
+    @Test
+    void lastReleaseDeletesTheContentOnlyAfterCommit() throws IOException {
+        blobStore.store(stage("test"), HASH, 4);
+        when(fileBlobRepository.deleteIfUnreferenced(HASH)).thenReturn(1);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+
+        blobStore.release(HASH, 1);
+        assertThat(storageBackend.exists(HASH)).isTrue();
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        assertThat(storageBackend.exists(HASH)).isFalse();
+    }
+
+    @Test
+    void contentStoredAgainBeforeTheDeleteRunsIsKept() throws IOException {
+        blobStore.store(stage("test"), HASH, 4);
+        when(fileBlobRepository.deleteIfUnreferenced(HASH)).thenReturn(1);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(fileBlobRepository.existsById(HASH)).thenReturn(true);
+
+        blobStore.release(HASH, 1);
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+        assertThat(read(HASH)).isEqualTo("test");
+    }
+
+    @Test
+    void releaseThatLeavesReferencesKeepsTheContent() throws IOException {
+        blobStore.store(stage("test"), HASH, 4);
+
+        blobStore.release(HASH, 1);
+
+        assertThat(TransactionSynchronizationManager.getSynchronizations()).isEmpty();
+        assertThat(storageBackend.exists(HASH)).isTrue();
+    }
+
+    private Path stage(String content) throws IOException {
+        when(fileStorageConfig.getUploadDir()).thenReturn(uploadDir.toString());
+        return Files.writeString(blobStore.newStagingFile(), content);
+    }
+
+    private String read(String hash) throws IOException {
+        return storageBackend.get(hash).orElseThrow().getContentAsString(StandardCharsets.UTF_8);
+    }
+}
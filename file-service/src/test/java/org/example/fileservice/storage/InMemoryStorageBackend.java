@@ -0,0 +1,55 @@
+package org.example.fileservice.storage;
+
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps content on the heap, for tests that need a working backend without a disk layout.
+ */
+public class InMemoryStorageBackend implements StorageBackend {
+
+    private record Entry(byte[] content, Instant lastModified) {
+    }
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    @Override
+    public long put(String key, InputStream content) throws IOException {
+        byte[] bytes = content.readAllBytes();
+        entries.put(key, new Entry(bytes, Instant.now()));
+        return bytes.length;
+    }
+
+    @Override
+    public void putFile(String key, Path source) throws IOException {
+        entries.put(key, new Entry(Files.readAllBytes(source), Instant.now()));
+        Files.deleteIfExists(source);
+    }
+
+    @Override
+    public Optional<Resource> get(String key) {
+        Entry entry = entries.get(key);
+        return entry == null ? Optional.empty() : Optional.of(new ByteArrayResource(entry.content()));
+    }
+
+    @Override
+    public boolean delete(String key) {
+        return entries.remove(key) != null;
+    }
+
+    @Override
+    public Optional<StorageStat> stat(String key) {
+        Entry entry = entries.get(key);
+        return entry == null ? Optional.empty()
+            : Optional.of(new StorageStat(key, entry.content().length, entry.lastModified()));
+    }
+}
@@ -0,0 +1,29 @@
+package org.example.folderservice.config;
+
+import org.example.folderservice.repository.FolderClosureRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+/**
+ * Fills the folder_closure table for folders created before it existed,
+ * deriving the ancestor rows from parent_id. Does nothing once every folder has its rows.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class FolderHierarchyInitializer implements ApplicationRunner {
+
+    private final FolderClosureRepository folderClosureRepository;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        long missing = folderClosureRepository.countFoldersWithoutClosure();
+        if (missing > 0) {
+            int inserted = folderClosureRepository.backfill();
+            log.info("Built folder hierarchy for {} folder(s): {} closure row(s) inserted", missing, inserted);
+        }
+    }
+}
@@ -1,16 +1,19 @@
 package org.example.folderservice.controller;
 
+import org.example.commonlibrary.paging.KeysetPage;
 import org.example.folderservice.dto.BulkDeleteResponse;
 import org.example.folderservice.dto.BulkOperationRequest;
 import org.example.folderservice.dto.FolderShareRequest;
 import org.example.folderservice.dto.FolderShareDTO;
 import org.example.folderservice.utils.ApiResponse;
 import org.example.folderservice.dto.FolderDTO;
+import org.example.folderservice.search.FolderNameIndex;
 import org.example.folderservice.service.FolderService;
 import org.example.folderservice.service.FolderShareService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -27,6 +30,7 @@ public class FolderController {
 
     private final FolderService folderService;
     private final FolderShareService folderShareService;
+    private final FolderNameIndex folderNameIndex;
 
     @PostMapping
     @Operation(summary = "Create a new folder")
@@ -53,13 +57,15 @@ public class FolderController {
         }
     }
 
+    // Folder and share listings are paged: pass the X-Next-Cursor response header back as cursor for the next page
     @GetMapping
     @Operation(summary = "Get root folders")
     public ResponseEntity<ApiResponse<List<FolderDTO>>> getRootFolders(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
             @RequestHeader("X-User-Id") Long userId) {
         try {
-            List<FolderDTO> folders = folderService.getRootFolders(userId);
-            return ResponseEntity.ok(ApiResponse.success("Root folders retrieved successfully", folders));
+            return pageResponse("Root folders retrieved successfully", folderService.getRootFolders(userId, cursor, size));
         } catch (Exception e) {
             return ResponseEntity.badRequest()
                 .body(ApiResponse.error(e.getMessage()));
@@ -84,10 +90,11 @@ public class FolderController {
     @Operation(summary = "Get subfolders")
     public ResponseEntity<ApiResponse<List<FolderDTO>>> getSubfolders(
             @PathVariable Long id,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
             @RequestHeader("X-User-Id") Long userId) {
         try {
-            List<FolderDTO> subfolders = folderService.getSubfolders(id, userId);
-            return ResponseEntity.ok(ApiResponse.success("Subfolders retrieved successfully", subfolders));
+            return pageResponse("Subfolders retrieved successfully", folderService.getSubfolders(id, userId, cursor, size));
         } catch (Exception e) {
             return ResponseEntity.badRequest()
                 .body(ApiResponse.error(e.getMessage()));
@@ -145,10 +152,12 @@ public class FolderController {
     @GetMapping("/favorites")
     @Operation(summary = "Get favorite folders")
     public ResponseEntity<ApiResponse<List<FolderDTO>>> getFavoriteFolders(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
             @RequestHeader("X-User-Id") Long userId) {
         try {
-            List<FolderDTO> folders = folderService.getFavoriteFolders(userId);
-            return ResponseEntity.ok(ApiResponse.success("Favorite folders retrieved successfully", folders));
+            return pageResponse("Favorite folders retrieved successfully",
+                folderService.getFavoriteFolders(userId, cursor, size));
         } catch (Exception e) {
             return ResponseEntity.badRequest()
                 .body(ApiResponse.error(e.getMessage()));
@@ -159,9 +168,11 @@ public class FolderController {
     @Operation(summary = "Search folders")
     public ResponseEntity<ApiResponse<List<FolderDTO>>> searchFolders(
             @RequestParam String query,
+            @RequestParam(required = false) Integer page,
+            @RequestParam(required = false) Integer size,
             @RequestHeader("X-User-Id") Long userId) {
         try {
-            List<FolderDTO> folders = folderService.searchFolders(query, userId);
+            List<FolderDTO> folders = folderService.searchFolders(query, userId, page, size);
             return ResponseEntity.ok(ApiResponse.success("Folder search completed", folders));
         } catch (Exception e) {
             return ResponseEntity.badRequest()
@@ -169,6 +180,24 @@ public class FolderController {
         }
     }
 
+    // Operations: each instance keeps its own name index, so these act on the instance reached
+    @GetMapping("/internal/search-index")
+    @Operation(summary = "Get the state of the folder name search index")
+    public ResponseEntity<Map<String, Object>> getSearchIndexStatus() {
+        return ResponseEntity.ok(folderNameIndex.status());
+    }
+
+    @PostMapping("/internal/search-index/reindex")
+    @Operation(summary = "Rebuild the folder name search index from the database")
+    public ResponseEntity<Map<String, Object>> reindexSearch() {
+        try {
+            folderNameIndex.requestRebuild();
+            return ResponseEntity.accepted().body(folderNameIndex.status());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+    }
+
     @PutMapping("/{id}/move")
     @Operation(summary = "Move folder to a new parent")
     public ResponseEntity<ApiResponse<FolderDTO>> moveFolder(
@@ -335,10 +364,12 @@ public class FolderController {
     @GetMapping("/shared/with-me")
     @Operation(summary = "Get folders shared with the current user")
     public ResponseEntity<ApiResponse<List<FolderShareDTO>>> getSharedWithMe(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
             @RequestHeader("X-User-Id") Long userId) {
         try {
-            List<FolderShareDTO> sharedFolders = folderShareService.getSharedFoldersForUser(userId);
-            return ResponseEntity.ok(ApiResponse.success("Shared folders retrieved successfully", sharedFolders));
+            return pageResponse("Shared folders retrieved successfully",
+                folderShareService.getSharedFoldersForUser(userId, cursor, size));
         } catch (Exception e) {
             return ResponseEntity.badRequest()
                 .body(ApiResponse.error(e.getMessage()));
@@ -348,10 +379,12 @@ public class FolderController {
     @GetMapping("/shared/by-me")
     @Operation(summary = "Get folders shared by the current user")
     public ResponseEntity<ApiResponse<List<FolderShareDTO>>> getSharedByMe(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
             @RequestHeader("X-User-Id") Long userId) {
         try {
-            List<FolderShareDTO> sharedFolders = folderShareService.getSharesCreatedByUser(userId);
-            return ResponseEntity.ok(ApiResponse.success("Shared folders retrieved successfully", sharedFolders));
+            return pageResponse("Shared folders retrieved successfully",
+                folderShareService.getSharesCreatedByUser(userId, cursor, size));
         } catch (Exception e) {
             return ResponseEntity.badRequest()
                 .body(ApiResponse.error(e.getMessage()));
@@ -361,10 +394,12 @@ public class FolderController {
     @GetMapping("/share-requests")
     @Operation(summary = "Get pending folder share requests")
     public ResponseEntity<ApiResponse<List<FolderShareDTO>>> getPendingShares(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
             @RequestHeader("X-User-Id") Long userId) {
         try {
-            List<FolderShareDTO> pendingShares = folderShareService.getPendingSharesForUser(userId);
-            return ResponseEntity.ok(ApiResponse.success("Pending shares retrieved successfully", pendingShares));
+            return pageResponse("Pending shares retrieved successfully",
+                folderShareService.getPendingSharesForUser(userId, cursor, size));
         } catch (Exception e) {
             return ResponseEntity.badRequest()
                 .body(ApiResponse.error(e.getMessage()));
@@ -389,12 +424,14 @@ public class FolderController {
     @GetMapping("/share-notifications")
     @Operation(summary = "Get pending folder share requests formatted for notifications")
     public ResponseEntity<ApiResponse<List<Map<String, Object>>>> getShareNotifications(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
             @RequestHeader("X-User-Id") Long userId) {
         try {
-            List<FolderShareDTO> pendingShares = folderShareService.getPendingSharesForUser(userId);
+            KeysetPage<FolderShareDTO> pendingShares = folderShareService.getPendingSharesForUser(userId, cursor, size);
             
             // Format notifications for frontend
-            List<Map<String, Object>> notifications = pendingShares.stream()
+            List<Map<String, Object>> notifications = pendingShares.getItems().stream()
                 .map(share -> {
                     Map<String, Object> notification = new HashMap<>();
                     notification.put("id", share.getId());
@@ -408,10 +445,19 @@ public class FolderController {
                 })
                 .collect(Collectors.toList());
             
-            return ResponseEntity.ok(ApiResponse.success("Share notifications retrieved successfully", notifications));
+            return pageResponse("Share notifications retrieved successfully",
+                new KeysetPage<>(notifications, pendingShares.getNextCursor()));
         } catch (Exception e) {
             return ResponseEntity.badRequest()
                 .body(ApiResponse.error(e.getMessage()));
         }
     }
+
+    private static <T> ResponseEntity<ApiResponse<List<T>>> pageResponse(String message, KeysetPage<T> page) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header(KeysetPage.NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(ApiResponse.success(message, page.getItems()));
+    }
 }
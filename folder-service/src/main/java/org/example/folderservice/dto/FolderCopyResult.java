@@ -0,0 +1,17 @@
+package org.example.folderservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FolderCopyResult {
+    private Long copiedFiles;
+    private Long copiedBytes;
+    // Files added per destination folder (no file-added events are sent for a subtree copy)
+    private List<FolderStatsDTO> folders;
+}
@@ -33,6 +33,10 @@ public class FolderDTO {
     private Integer subfolderCount = 0;
     private Long totalSize = 0L;
     private String formattedSize = "0 B";
+    // Including all subfolders
+    private Long subtreeFileCount = 0L;
+    private Long subtreeSize = 0L;
+    private String formattedSubtreeSize = "0 B";
     
     // Navigation - Limited to one level to avoid recursion
     @JsonManagedReference
@@ -0,0 +1,10 @@
+package org.example.folderservice.dto;
+
+import org.example.commonlibrary.search.IndexRow;
+
+import java.time.LocalDateTime;
+
+/**
+ * The columns of a folder row that the name search index is built from.
+ */
+public record FolderIndexRow(Long id, Long userId, String name, String path, LocalDateTime updatedAt) implements IndexRow {}
@@ -0,0 +1,20 @@
+package org.example.folderservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * File count, total size and optionally the files of one folder, received from file-service.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FolderStatsDTO {
+    private Long folderId;
+    private Long fileCount;
+    private Long totalSize;
+    private List<FileDTO> files;
+}
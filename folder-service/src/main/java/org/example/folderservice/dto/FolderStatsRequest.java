@@ -0,0 +1,18 @@
+package org.example.folderservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Request body for file-service's batch folder statistics endpoint.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FolderStatsRequest {
+    private List<Long> folderIds;
+    private boolean includeFiles;
+}
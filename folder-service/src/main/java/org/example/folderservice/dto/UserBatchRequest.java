@@ -0,0 +1,18 @@
+package org.example.folderservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Body of user-service's batch lookup: users by id, by email, or both.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserBatchRequest {
+    private List<Long> ids;
+    private List<String> emails;
+}
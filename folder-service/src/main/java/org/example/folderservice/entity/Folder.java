@@ -59,12 +59,23 @@ public class Folder {
     private List<Folder> subfolders = new ArrayList<>();
 
     /**
-     * File count - managed via file-service calls
-     * Files are now in a separate microservice
+     * File aggregates, maintained from file-service's file-added/removed/moved events
+     * (see FileEventConsumer) and periodically reconciled (FolderStatsReconciler).
+     * Direct values cover files in this folder only, subtree values include all descendants.
      */
-    @Column(name = "file_count")
+    // Only ever changed with update queries, so saving a stale entity never overwrites them
+    @Column(name = "file_count", updatable = false)
     private Integer fileCount = 0;
 
+    @Column(name = "total_size", updatable = false)
+    private Long totalSize = 0L;
+
+    @Column(name = "subtree_file_count", updatable = false)
+    private Long subtreeFileCount = 0L;
+
+    @Column(name = "subtree_size", updatable = false)
+    private Long subtreeSize = 0L;
+
     @Column(name = "is_favorite", nullable = false)
     private Boolean isFavorite = false;
 
@@ -81,24 +92,13 @@ public class Folder {
     private LocalDateTime updatedAt;
 
     // Helper methods
+
+    // path is rewritten for the whole subtree on rename and move, so it is the full path
     public String getFullPath() {
-        if (parent == null) {
-            return "/" + name;
-        }
-        return parent.getFullPath() + "/" + name;
+        return path;
     }
 
     public int getSubfolderCount() {
         return subfolders != null ? subfolders.size() : 0;
     }
-
-    /**
-     * Get total size - requires file-service call in actual implementation
-     * This is a placeholder that returns 0. Actual size calculation
-     * should be done in the service layer via Feign client.
-     */
-    public long getTotalSize() {
-        // In microservices, this would be calculated via file-service
-        return 0L;
-    }
 }
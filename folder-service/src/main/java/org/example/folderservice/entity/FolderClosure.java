@@ -0,0 +1,46 @@
+package org.example.folderservice.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.io.Serializable;
+
+/**
+ * Closure table of the folder hierarchy: one row for every (ancestor, descendant) pair,
+ * including each folder with itself at depth 0. Lets descendant checks, subtree
+ * fetches, subtree deletes and path rewrites run as single queries.
+ * Maintained by FolderClosureRepository; rows are written with native SQL only.
+ */
+@Entity
+@Table(name = "folder_closure",
+        indexes = @Index(name = "idx_folder_closure_descendant", columnList = "descendant_id, depth"))
+@IdClass(FolderClosure.Key.class)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class FolderClosure {
+
+    @Id
+    @Column(name = "ancestor_id", nullable = false)
+    private Long ancestorId;
+
+    @Id
+    @Column(name = "descendant_id", nullable = false)
+    private Long descendantId;
+
+    @Column(name = "depth", nullable = false)
+    private Integer depth;
+
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    public static class Key implements Serializable {
+        private Long ancestorId;
+        private Long descendantId;
+    }
+}
@@ -0,0 +1,57 @@
+package org.example.folderservice.event;
+
+import org.example.folderservice.service.FolderStatsService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.function.Consumer;
+
+/**
+ * Event consumers for file events from file-service.
+ * Keeps the per-folder file count and size aggregates current.
+ */
+@Configuration
+@RequiredArgsConstructor
+@Slf4j
+public class FileEventConsumer {
+
+    private final FolderStatsService folderStatsService;
+
+    @Bean
+    public Consumer<FolderContentEvent> fileAddedConsumer() {
+        return event -> {
+            log.debug("Received file-added event: {}", event);
+            try {
+                folderStatsService.applyFilesAdded(event);
+            } catch (Exception e) {
+                log.error("Error processing file-added event: {}", event, e);
+            }
+        };
+    }
+
+    @Bean
+    public Consumer<FolderContentEvent> fileRemovedConsumer() {
+        return event -> {
+            log.debug("Received file-removed event: {}", event);
+            try {
+                folderStatsService.applyFilesRemoved(event);
+            } catch (Exception e) {
+                log.error("Error processing file-removed event: {}", event, e);
+            }
+        };
+    }
+
+    @Bean
+    public Consumer<FolderContentEvent> fileMovedConsumer() {
+        return event -> {
+            log.debug("Received file-moved event: {}", event);
+            try {
+                folderStatsService.applyFilesMoved(event);
+            } catch (Exception e) {
+                log.error("Error processing file-moved event: {}", event, e);
+            }
+        };
+    }
+}
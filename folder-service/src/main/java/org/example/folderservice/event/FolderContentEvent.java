@@ -0,0 +1,20 @@
+package org.example.folderservice.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Change in the files directly inside a folder, published by file-service.
+ * For file-moved events sourceFolderId is where the files came from; null means the root.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FolderContentEvent {
+    private Long userId;
+    private Long folderId;
+    private Long sourceFolderId;
+    private Long fileCount;
+    private Long totalSize;
+}
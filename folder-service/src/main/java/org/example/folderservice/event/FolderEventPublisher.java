@@ -0,0 +1,72 @@
+package org.example.folderservice.event;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.stream.function.StreamBridge;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+
+/**
+ * Publishes folder changes that other services act on.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class FolderEventPublisher {
+
+    private final StreamBridge streamBridge;
+
+    /**
+     * Sent once the deleting transaction has committed, so file-service never removes
+     * the files of folders whose deletion was rolled back.
+     */
+    public void publishFoldersDeleted(Long userId, List<Long> folderIds) {
+        if (folderIds.isEmpty()) {
+            return;
+        }
+        FoldersDeletedEvent event = new FoldersDeletedEvent(userId, List.copyOf(folderIds));
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    send(event);
+                }
+            });
+        } else {
+            send(event);
+        }
+    }
+
+    /**
+     * Sent if the current transaction does not commit. Used when a folder copy rolls back
+     * after file-service may already have committed the copied files: they point at the
+     * copies' ids, so announcing those as deleted makes file-service remove the files and
+     * give back their storage.
+     */
+    public void publishFoldersDeletedOnRollback(Long userId, List<Long> folderIds) {
+        if (folderIds.isEmpty()) {
+            return;
+        }
+        FoldersDeletedEvent event = new FoldersDeletedEvent(userId, List.copyOf(folderIds));
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    send(event);
+                }
+            }
+        });
+    }
+
+    private void send(FoldersDeletedEvent event) {
+        boolean sent = streamBridge.send("folders-deleted-out-0", event);
+        if (sent) {
+            log.debug("Sent folders-deleted event for userId {}: {} folder(s)", event.getUserId(), event.getFolderIds().size());
+        } else {
+            log.error("Failed to send folders-deleted event: {}", event);
+        }
+    }
+}
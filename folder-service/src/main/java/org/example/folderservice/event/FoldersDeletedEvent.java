@@ -0,0 +1,19 @@
+package org.example.folderservice.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Published after a folder subtree has been deleted; file-service removes the files
+ * of the listed folders in the background.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FoldersDeletedEvent {
+    private Long userId;
+    private List<Long> folderIds;
+}
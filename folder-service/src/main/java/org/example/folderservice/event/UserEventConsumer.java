@@ -1,7 +1,11 @@
 package org.example.folderservice.event;
 
+import org.example.folderservice.entity.Folder;
+import org.example.folderservice.repository.FolderClosureRepository;
 import org.example.folderservice.repository.FolderRepository;
 import org.example.folderservice.repository.FolderShareRepository;
+import org.example.folderservice.search.FolderNameIndex;
+import org.example.folderservice.service.UserLookupService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Bean;
@@ -20,7 +24,10 @@ import java.util.function.Consumer;
 public class UserEventConsumer {
 
     private final FolderRepository folderRepository;
+    private final FolderClosureRepository folderClosureRepository;
     private final FolderShareRepository folderShareRepository;
+    private final UserLookupService userLookupService;
+    private final FolderNameIndex folderNameIndex;
 
     /**
      * Consumer for user-created events.
@@ -31,6 +38,9 @@ public class UserEventConsumer {
         return user -> {
             log.info("Received user-created event for userId: {}, email: {}", user.getId(), user.getEmail());
             try {
+                userLookupService.evict(user.getId());
+                userLookupService.evictEmail(user.getEmail());
+
                 // Optional: Create default folders for new user
                 // e.g., "My Documents", "Shared", "Trash" etc.
                 // This can be customized based on business requirements
@@ -52,6 +62,8 @@ public class UserEventConsumer {
         return userId -> {
             log.info("Received user-deleted event for userId: {}", userId);
             try {
+                userLookupService.evict(userId);
+
                 // Delete all folder shares where user is target
                 var targetShares = folderShareRepository.findByTargetUserId(userId);
                 if (!targetShares.isEmpty()) {
@@ -71,9 +83,13 @@ public class UserEventConsumer {
                 if (!userFolders.isEmpty()) {
                     log.info("Found {} folders to delete for userId: {}", userFolders.size(), userId);
                     
+                    // Drop the hierarchy rows first, they reference the folders
+                    folderClosureRepository.deleteByUserId(userId);
+                    
                     // Delete folders (JPA cascade should handle subfolders)
                     // Start with folders that have no subfolders to avoid constraint violations
                     folderRepository.deleteAll(userFolders);
+                    folderNameIndex.removeAfterCommit(userFolders.stream().map(Folder::getId).toList());
                     log.info("Deleted {} folders for userId: {}", userFolders.size(), userId);
                 }
                 
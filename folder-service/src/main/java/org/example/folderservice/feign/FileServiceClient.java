@@ -1,6 +1,9 @@
 package org.example.folderservice.feign;
 
-import org.example.folderservice.dto.FileDTO;
+import org.example.folderservice.dto.FolderCopyRequest;
+import org.example.folderservice.dto.FolderCopyResult;
+import org.example.folderservice.dto.FolderStatsDTO;
+import org.example.folderservice.dto.FolderStatsRequest;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.*;
 
@@ -13,24 +16,17 @@ import java.util.List;
 @FeignClient(name = "file-service", url = "${services.file-service.url:http://localhost:8082}")
 public interface FileServiceClient {
     
-    @GetMapping("/api/files/folder/{folderId}")
-    List<FileDTO> getFilesByFolderId(@PathVariable("folderId") Long folderId,
-                                      @RequestHeader("X-User-Id") Long userId);
+    /**
+     * Count, total size and optionally files for many folders in one call.
+     */
+    @PostMapping("/api/files/internal/folder-stats")
+    List<FolderStatsDTO> getFolderStats(@RequestBody FolderStatsRequest request,
+                                        @RequestHeader("X-User-Id") Long userId);
     
-    @GetMapping("/api/files/folder/{folderId}/count")
-    Integer getFileCountByFolderId(@PathVariable("folderId") Long folderId,
-                                    @RequestHeader("X-User-Id") Long userId);
-    
-    @GetMapping("/api/files/folder/{folderId}/size")
-    Long getTotalSizeByFolderId(@PathVariable("folderId") Long folderId,
-                                 @RequestHeader("X-User-Id") Long userId);
-    
-    @DeleteMapping("/api/files/folder/{folderId}")
-    void deleteFilesByFolderId(@PathVariable("folderId") Long folderId,
-                                @RequestHeader("X-User-Id") Long userId);
-    
-    @PostMapping("/api/files/{fileId}/copy")
-    FileDTO copyFile(@PathVariable("fileId") Long fileId,
-                     @RequestParam("destinationFolderId") Long destinationFolderId,
-                     @RequestHeader("X-User-Id") Long userId);
+    /**
+     * Copies the files of every source folder into its mapped destination folder, server-side.
+     */
+    @PostMapping("/api/files/internal/copy-folders")
+    FolderCopyResult copyFolderFiles(@RequestBody FolderCopyRequest request,
+                                     @RequestHeader("X-User-Id") Long userId);
 }
@@ -1,11 +1,16 @@
 package org.example.folderservice.feign;
 
+import org.example.folderservice.dto.UserBatchRequest;
 import org.example.folderservice.dto.UserDTO;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestParam;
 
+import java.util.List;
+
 /**
  * Feign client for communicating with user-service.
  * Used to fetch user information for folder operations.
@@ -19,6 +24,9 @@ public interface UserServiceClient {
     @GetMapping("/api/users/email/{email}")
     UserDTO getUserByEmail(@PathVariable("email") String email);
     
+    @PostMapping("/api/users/internal/batch")
+    List<UserDTO> getUsers(@RequestBody UserBatchRequest request);
+    
     @GetMapping("/api/users/exists")
     boolean userExists(@RequestParam("email") String email);
 }
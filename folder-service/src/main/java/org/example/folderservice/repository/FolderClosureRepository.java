@@ -0,0 +1,78 @@
+package org.example.folderservice.repository;
+
+import org.example.folderservice.entity.FolderClosure;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Repository
+public interface FolderClosureRepository extends JpaRepository<FolderClosure, FolderClosure.Key> {
+
+    // A new folder is its own descendant and inherits all of its parent's ancestors
+    @Modifying
+    @Query(value = "INSERT INTO folder_closure (ancestor_id, descendant_id, depth) " +
+                   "SELECT :folderId, :folderId, 0 " +
+                   "UNION ALL " +
+                   "SELECT ancestor_id, :folderId, depth + 1 FROM folder_closure WHERE descendant_id = :parentId",
+           nativeQuery = true)
+    int insertFolder(@Param("folderId") Long folderId, @Param("parentId") Long parentId);
+
+    // Cuts every path that enters the subtree from outside (the subtree's internal rows stay)
+    @Modifying(flushAutomatically = true)
+    @Query(value = "DELETE FROM folder_closure " +
+                   "WHERE descendant_id IN (SELECT descendant_id FROM folder_closure WHERE ancestor_id = :folderId) " +
+                   "AND ancestor_id NOT IN (SELECT descendant_id FROM folder_closure WHERE ancestor_id = :folderId)",
+           nativeQuery = true)
+    int detachSubtree(@Param("folderId") Long folderId);
+
+    // Connects every ancestor of the new parent with every node of the subtree
+    @Modifying(flushAutomatically = true)
+    @Query(value = "INSERT INTO folder_closure (ancestor_id, descendant_id, depth) " +
+                   "SELECT a.ancestor_id, d.descendant_id, a.depth + d.depth + 1 " +
+                   "FROM folder_closure a CROSS JOIN folder_closure d " +
+                   "WHERE a.descendant_id = :parentId AND d.ancestor_id = :folderId",
+           nativeQuery = true)
+    int attachSubtree(@Param("folderId") Long folderId, @Param("parentId") Long parentId);
+
+    @Query(value = "SELECT EXISTS (SELECT 1 FROM folder_closure WHERE ancestor_id = :ancestorId AND descendant_id = :descendantId)",
+           nativeQuery = true)
+    boolean isAncestorOrSelf(@Param("ancestorId") Long ancestorId, @Param("descendantId") Long descendantId);
+
+    @Query("SELECT c.descendantId FROM FolderClosure c WHERE c.ancestorId = :folderId ORDER BY c.depth")
+    List<Long> findSubtreeIds(@Param("folderId") Long folderId);
+
+    @Modifying(flushAutomatically = true)
+    @Query(value = "DELETE FROM folder_closure " +
+                   "WHERE descendant_id IN (SELECT descendant_id FROM folder_closure WHERE ancestor_id = :folderId)",
+           nativeQuery = true)
+    int deleteSubtree(@Param("folderId") Long folderId);
+
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM folder_closure WHERE descendant_id IN (SELECT id FROM folders WHERE user_id = :userId)",
+           nativeQuery = true)
+    int deleteByUserId(@Param("userId") Long userId);
+
+    @Query(value = "SELECT COUNT(*) FROM folders f " +
+                   "WHERE NOT EXISTS (SELECT 1 FROM folder_closure c WHERE c.ancestor_id = f.id AND c.descendant_id = f.id)",
+           nativeQuery = true)
+    long countFoldersWithoutClosure();
+
+    // Rebuilds the rows of every folder from parent_id; existing rows are kept
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO folder_closure (ancestor_id, descendant_id, depth) " +
+                   "WITH RECURSIVE tree(ancestor_id, descendant_id, depth) AS (" +
+                   "  SELECT id, id, 0 FROM folders" +
+                   "  UNION ALL" +
+                   "  SELECT t.ancestor_id, f.id, t.depth + 1 FROM folders f JOIN tree t ON f.parent_id = t.descendant_id) " +
+                   "SELECT ancestor_id, descendant_id, depth FROM tree " +
+                   "ON CONFLICT (ancestor_id, descendant_id) DO NOTHING",
+           nativeQuery = true)
+    int backfill();
+}
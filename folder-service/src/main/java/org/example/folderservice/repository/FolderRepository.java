@@ -1,21 +1,22 @@
 package org.example.folderservice.repository;
 
+import org.example.folderservice.dto.FolderIndexRow;
 import org.example.folderservice.entity.Folder;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface FolderRepository extends JpaRepository<Folder, Long> {
     
-    List<Folder> findByUserIdAndParentIsNullOrderByNameAsc(Long userId);
-    
-    List<Folder> findByUserIdAndParentIdOrderByNameAsc(Long userId, Long parentId);
-    
     List<Folder> findByUserIdOrderByCreatedAtDesc(Long userId);
     
     Optional<Folder> findByIdAndUserId(Long id, Long userId);
@@ -28,12 +29,136 @@ public interface FolderRepository extends JpaRepository<Folder, Long> {
     @Query("SELECT f FROM Folder f WHERE f.userId = :userId AND f.name = :name AND f.parent IS NULL")
     Optional<Folder> findByUserIdAndNameAndParentIsNull(@Param("userId") Long userId, @Param("name") String name);
     
-    @Query("SELECT f FROM Folder f WHERE f.userId = :userId AND f.isFavorite = true ORDER BY f.name ASC")
-    List<Folder> findFavoriteFoldersByUserId(@Param("userId") Long userId);
-    
     @Query("SELECT COUNT(f) FROM Folder f WHERE f.userId = :userId")
     long countByUserId(@Param("userId") Long userId);
+
+    // --- Keyset-paged listings, by name: rows after the (name, id) cursor ---
+    // Served by (user_id, parent_id, name, id) and the favorites index from V3__folder_listing_indexes.sql.
+
+    @Query(value = "SELECT * FROM folders f WHERE f.user_id = :userId AND f.parent_id IS NULL " +
+                   "AND (f.name, f.id) > (:name, :id) ORDER BY f.name, f.id LIMIT :limit",
+           nativeQuery = true)
+    List<Folder> findRootFoldersPage(@Param("userId") Long userId, @Param("name") String name,
+                                     @Param("id") Long id, @Param("limit") int limit);
+
+    @Query(value = "SELECT * FROM folders f WHERE f.user_id = :userId AND f.parent_id = :parentId " +
+                   "AND (f.name, f.id) > (:name, :id) ORDER BY f.name, f.id LIMIT :limit",
+           nativeQuery = true)
+    List<Folder> findSubfoldersPage(@Param("userId") Long userId, @Param("parentId") Long parentId,
+                                    @Param("name") String name, @Param("id") Long id, @Param("limit") int limit);
+
+    @Query(value = "SELECT * FROM folders f WHERE f.user_id = :userId AND f.is_favorite = true " +
+                   "AND (f.name, f.id) > (:name, :id) ORDER BY f.name, f.id LIMIT :limit",
+           nativeQuery = true)
+    List<Folder> findFavoriteFoldersPage(@Param("userId") Long userId, @Param("name") String name,
+                                         @Param("id") Long id, @Param("limit") int limit);
     
-    @Query("SELECT f FROM Folder f WHERE f.userId = :userId AND LOWER(f.name) LIKE LOWER(CONCAT('%', :search, '%'))")
-    List<Folder> searchFoldersByName(@Param("userId") Long userId, @Param("search") String search);
+    // Served by the (user_id, lower(name)) trigram index from V1__folder_name_trigram_index.sql.
+    // :pattern is the lower-cased, LIKE-escaped term wrapped in %; best matches first.
+    @Query(value = "SELECT * FROM folders f WHERE f.user_id = :userId " +
+                   "AND lower(f.name) LIKE :pattern ESCAPE '\\' " +
+                   "ORDER BY similarity(lower(f.name), :term) DESC, f.id DESC " +
+                   "LIMIT :limit OFFSET :offset",
+           nativeQuery = true)
+    List<Folder> searchByName(@Param("userId") Long userId, @Param("pattern") String pattern,
+                              @Param("term") String term, @Param("limit") int limit, @Param("offset") long offset);
+
+    // Rows changed after the (updatedAt, id) cursor, oldest first; feeds the name search index.
+    // Served by (updated_at, id) from V2__folder_updated_at_index.sql.
+    @Query("SELECT new org.example.folderservice.dto.FolderIndexRow(f.id, f.userId, f.name, f.path, f.updatedAt) " +
+           "FROM Folder f WHERE f.updatedAt > :since OR (f.updatedAt = :since AND f.id > :afterId) " +
+           "ORDER BY f.updatedAt, f.id")
+    List<FolderIndexRow> findChangedSince(@Param("since") LocalDateTime since, @Param("afterId") Long afterId, Pageable pageable);
+
+    // Start of the oldest transaction open on this database, the calling one included;
+    // the name index cursor never moves past it. xact_start is only visible for sessions
+    // of the same role, which is how every instance connects.
+    @Query(value = "SELECT min(xact_start)::timestamp FROM pg_stat_activity WHERE datname = current_database()",
+           nativeQuery = true)
+    LocalDateTime findOldestOpenTransactionStart();
+
+    // --- File aggregates (see FolderStatsService) ---
+
+    // Native: the aggregate columns are not updatable through the entity mapping
+    @Modifying
+    @Query(value = "UPDATE folders SET file_count = COALESCE(file_count, 0) + :count, " +
+                   "total_size = COALESCE(total_size, 0) + :size WHERE id = :folderId AND user_id = :userId",
+           nativeQuery = true)
+    int addToDirectStats(@Param("folderId") Long folderId, @Param("userId") Long userId,
+                         @Param("count") int count, @Param("size") long size);
+
+    // Applies to the folder itself and every ancestor
+    @Modifying
+    @Query(value = "UPDATE folders SET subtree_file_count = COALESCE(subtree_file_count, 0) + :count, " +
+                   "subtree_size = COALESCE(subtree_size, 0) + :size " +
+                   "WHERE id IN (SELECT ancestor_id FROM folder_closure WHERE descendant_id = :folderId)",
+           nativeQuery = true)
+    int addToSubtreeStats(@Param("folderId") Long folderId, @Param("count") long count, @Param("size") long size);
+
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE folders SET file_count = :count, total_size = :size WHERE id = :folderId",
+           nativeQuery = true)
+    int setDirectStats(@Param("folderId") Long folderId, @Param("count") int count, @Param("size") long size);
+
+    // Recomputes subtree aggregates of all of a user's folders from the direct ones
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE folders fo SET subtree_file_count = s.file_count, subtree_size = s.total_size " +
+                   "FROM (SELECT c.ancestor_id, SUM(COALESCE(f.file_count, 0)) AS file_count, " +
+                   "             SUM(COALESCE(f.total_size, 0)) AS total_size " +
+                   "      FROM folder_closure c JOIN folders f ON f.id = c.descendant_id " +
+                   "      WHERE f.user_id = :userId GROUP BY c.ancestor_id) s " +
+                   "WHERE fo.id = s.ancestor_id " +
+                   "AND (fo.subtree_file_count IS DISTINCT FROM s.file_count OR fo.subtree_size IS DISTINCT FROM s.total_size)",
+           nativeQuery = true)
+    int recomputeSubtreeStats(@Param("userId") Long userId);
+
+    // Same, limited to the folders of one subtree
+    @Modifying
+    @Query(value = "UPDATE folders fo SET subtree_file_count = s.file_count, subtree_size = s.total_size " +
+                   "FROM (SELECT c.ancestor_id, SUM(COALESCE(f.file_count, 0)) AS file_count, " +
+                   "             SUM(COALESCE(f.total_size, 0)) AS total_size " +
+                   "      FROM folder_closure c JOIN folders f ON f.id = c.descendant_id " +
+                   "      WHERE c.ancestor_id IN (SELECT descendant_id FROM folder_closure WHERE ancestor_id = :folderId) " +
+                   "      GROUP BY c.ancestor_id) s " +
+                   "WHERE fo.id = s.ancestor_id " +
+                   "AND (fo.subtree_file_count IS DISTINCT FROM s.file_count OR fo.subtree_size IS DISTINCT FROM s.total_size)",
+           nativeQuery = true)
+    int recomputeSubtreeStatsWithin(@Param("folderId") Long folderId);
+
+    // --- Hierarchy queries backed by folder_closure (see FolderClosureRepository) ---
+
+    // Root first, the folder itself last
+    @Query(value = "SELECT f.* FROM folders f JOIN folder_closure c ON c.ancestor_id = f.id " +
+                   "WHERE c.descendant_id = :folderId ORDER BY c.depth DESC",
+           nativeQuery = true)
+    List<Folder> findAncestorsAndSelf(@Param("folderId") Long folderId);
+
+    // The folder first, then its descendants level by level
+    @Query(value = "SELECT f.* FROM folders f JOIN folder_closure c ON c.descendant_id = f.id " +
+                   "WHERE c.ancestor_id = :folderId ORDER BY c.depth, f.id",
+           nativeQuery = true)
+    List<Folder> findSubtree(@Param("folderId") Long folderId);
+
+    // Rewrites the path prefix of every descendant (the folder itself is updated through the entity);
+    // updated_at is bumped so the name search index picks up the new paths
+    @Modifying(flushAutomatically = true)
+    @Query(value = "UPDATE folders f SET path = :newPath || substr(f.path, length(:oldPath) + 1), updated_at = now() " +
+                   "FROM folder_closure c " +
+                   "WHERE c.ancestor_id = :folderId AND c.descendant_id = f.id AND c.depth > 0",
+           nativeQuery = true)
+    int rewriteDescendantPaths(@Param("folderId") Long folderId,
+                               @Param("oldPath") String oldPath,
+                               @Param("newPath") String newPath);
+
+    @Modifying(flushAutomatically = true)
+    @Query(value = "DELETE FROM folders WHERE id IN (SELECT descendant_id FROM folder_closure WHERE ancestor_id = :folderId)",
+           nativeQuery = true)
+    int deleteSubtree(@Param("folderId") Long folderId);
+
+    @Query("SELECT DISTINCT f.userId FROM Folder f")
+    List<Long> findAllUserIds();
+
+    List<Folder> findByUserId(Long userId);
 }
@@ -1,7 +1,9 @@
 package org.example.folderservice.repository;
 
 import org.example.folderservice.entity.FolderShare;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -18,11 +20,18 @@ public interface FolderShareRepository extends JpaRepository<FolderShare, Long>
     
     List<FolderShare> findByTargetUserId(Long targetUserId);
     
-    @Query("SELECT fs FROM FolderShare fs WHERE fs.targetUserId = :userId AND fs.status = 'pending'")
-    List<FolderShare> findPendingSharesForUser(@Param("userId") Long userId);
-    
-    @Query("SELECT fs FROM FolderShare fs WHERE fs.ownerId = :userId")
-    List<FolderShare> findSharesCreatedByUser(@Param("userId") Long userId);
+    // --- Keyset-paged listings, newest share first: rows with an id below :before ---
+    // Served by the folder_shares indexes from V3__folder_listing_indexes.sql.
+
+    @Query("SELECT fs FROM FolderShare fs JOIN FETCH fs.folder " +
+           "WHERE fs.targetUserId = :userId AND fs.status = :status AND fs.id < :before ORDER BY fs.id DESC")
+    List<FolderShare> findReceivedSharesPage(@Param("userId") Long userId, @Param("status") String status,
+                                             @Param("before") Long before, Pageable pageable);
+
+    @Query("SELECT fs FROM FolderShare fs JOIN FETCH fs.folder " +
+           "WHERE fs.ownerId = :userId AND fs.id < :before ORDER BY fs.id DESC")
+    List<FolderShare> findCreatedSharesPage(@Param("userId") Long userId, @Param("before") Long before,
+                                            Pageable pageable);
     
     @Query("SELECT fs FROM FolderShare fs WHERE fs.folder.id = :folderId AND fs.targetUserId = :userId")
     Optional<FolderShare> findByFolderIdAndTargetUserId(@Param("folderId") Long folderId, @Param("userId") Long userId);
@@ -31,4 +40,10 @@ public interface FolderShareRepository extends JpaRepository<FolderShare, Long>
     List<FolderShare> findAcceptedSharesForFolder(@Param("folderId") Long folderId);
     
     void deleteByFolderIdAndTargetUserId(Long folderId, Long targetUserId);
+
+    @Modifying(flushAutomatically = true)
+    @Query(value = "DELETE FROM folder_shares WHERE folder_id IN " +
+                   "(SELECT descendant_id FROM folder_closure WHERE ancestor_id = :folderId)",
+           nativeQuery = true)
+    int deleteBySubtree(@Param("folderId") Long folderId);
 }
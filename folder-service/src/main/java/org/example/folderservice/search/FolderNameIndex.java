@@ -0,0 +1,79 @@
+package org.example.folderservice.search;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.PrefixQuery;
+import org.apache.lucene.search.TermQuery;
+import org.example.commonlibrary.search.PollingNameIndex;
+import org.example.commonlibrary.search.SearchIndexSettings;
+import org.example.folderservice.dto.FolderIndexRow;
+import org.example.folderservice.repository.FolderRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Name index over the folders table. A search word also matches a word of the folder's
+ * path exactly or as a prefix, ranked below name matches. Renames and moves bump
+ * updated_at on the whole subtree (see FolderRepository.rewriteDescendantPaths), so
+ * descendants get their new paths.
+ */
+@Component
+public class FolderNameIndex extends PollingNameIndex<FolderIndexRow> {
+
+    private static final String PATH = "path";
+
+    private final FolderRepository folderRepository;
+
+    public FolderNameIndex(FolderRepository folderRepository, MeterRegistry meterRegistry,
+                           @Value("${folder.search.index.enabled:true}") boolean enabled,
+                           @Value("${folder.search.index.dir:./search-index/folders}") String indexDir,
+                           @Value("${folder.search.index.sync-batch-size:1000}") int batchSize,
+                           @Value("${folder.search.index.overlap-seconds:30}") long overlapSeconds,
+                           @Value("${folder.search.index.max-holdback-seconds:300}") long maxHoldbackSeconds,
+                           @Value("${folder.search.index.max-results:1000}") int maxResults) {
+        super("folder name index", "folders",
+            new SearchIndexSettings(enabled, indexDir, batchSize, overlapSeconds, maxHoldbackSeconds, maxResults),
+            meterRegistry);
+        this.folderRepository = folderRepository;
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${folder.search.index.sync-interval-ms:2000}")
+    public void sync() {
+        super.sync();
+    }
+
+    @Override
+    protected List<FolderIndexRow> findChangedSince(LocalDateTime since, long afterId, int limit) {
+        return folderRepository.findChangedSince(since, afterId, PageRequest.of(0, limit));
+    }
+
+    @Override
+    protected LocalDateTime findOldestOpenTransactionStart() {
+        return folderRepository.findOldestOpenTransactionStart();
+    }
+
+    @Override
+    protected void addFields(Document doc, FolderIndexRow row) {
+        doc.add(new TextField(NAME, row.name(), Field.Store.NO));
+        doc.add(new TextField(PATH, row.path(), Field.Store.NO));
+    }
+
+    @Override
+    protected void addTokenAlternatives(BooleanQuery.Builder alternatives, String token) {
+        alternatives
+            .add(new TermQuery(new Term(PATH, token)), BooleanClause.Occur.SHOULD)
+            .add(new BoostQuery(new PrefixQuery(new Term(PATH, token)), 0.5f), BooleanClause.Occur.SHOULD);
+    }
+}
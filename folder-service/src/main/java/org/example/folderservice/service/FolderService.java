@@ -1,18 +1,27 @@
 package org.example.folderservice.service;
 
+import org.example.commonlibrary.paging.KeysetPage;
+import org.example.commonlibrary.paging.PageCursor;
+import org.example.commonlibrary.search.SearchPatterns;
 import org.example.folderservice.dto.BreadcrumbItem;
 import org.example.folderservice.dto.FileDTO;
+import org.example.folderservice.dto.FolderCopyRequest;
+import org.example.folderservice.dto.FolderCopyResult;
 import org.example.folderservice.dto.FolderDTO;
+import org.example.folderservice.dto.FolderStatsDTO;
+import org.example.folderservice.dto.FolderStatsRequest;
 import org.example.folderservice.dto.UserDTO;
 import org.example.folderservice.entity.Folder;
-import org.example.folderservice.entity.FolderShare;
+import org.example.folderservice.event.FolderEventPublisher;
 import org.example.folderservice.exception.FolderNotFoundException;
 import org.example.folderservice.exception.UserNotFoundException;
 import org.example.folderservice.feign.FileServiceClient;
-import org.example.folderservice.feign.UserServiceClient;
+import org.example.folderservice.repository.FolderClosureRepository;
 import org.example.folderservice.repository.FolderRepository;
 import org.example.folderservice.repository.FolderShareRepository;
+import org.example.folderservice.search.FolderNameIndex;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -25,24 +34,48 @@ import java.util.stream.Collectors;
 public class FolderService {
 
     private final FolderRepository folderRepository;
+    private final FolderClosureRepository folderClosureRepository;
     private final FolderShareRepository folderShareRepository;
-    private final UserServiceClient userServiceClient;
+    private final UserLookupService userLookupService;
     private final FileServiceClient fileServiceClient;
+    private final FolderStatsService folderStatsService;
+    private final FolderEventPublisher folderEventPublisher;
+    private final FolderNameIndex folderNameIndex;
+
+    @Value("${folder.listing.default-page-size:100}")
+    private int listingDefaultPageSize;
+
+    @Value("${folder.listing.max-page-size:500}")
+    private int listingMaxPageSize;
+
+    @Value("${folder.search.default-limit:50}")
+    private int searchDefaultLimit;
+
+    @Value("${folder.search.max-limit:200}")
+    private int searchMaxLimit;
 
     public FolderService(FolderRepository folderRepository,
+                         FolderClosureRepository folderClosureRepository,
                          FolderShareRepository folderShareRepository,
-                         UserServiceClient userServiceClient,
-                         FileServiceClient fileServiceClient) {
+                         UserLookupService userLookupService,
+                         FileServiceClient fileServiceClient,
+                         FolderStatsService folderStatsService,
+                         FolderEventPublisher folderEventPublisher,
+                         FolderNameIndex folderNameIndex) {
         this.folderRepository = folderRepository;
+        this.folderClosureRepository = folderClosureRepository;
         this.folderShareRepository = folderShareRepository;
-        this.userServiceClient = userServiceClient;
+        this.userLookupService = userLookupService;
         this.fileServiceClient = fileServiceClient;
+        this.folderStatsService = folderStatsService;
+        this.folderEventPublisher = folderEventPublisher;
+        this.folderNameIndex = folderNameIndex;
     }
 
     public FolderDTO createFolder(String name, Long parentId, Long userId, String description, String color) {
         // Verify user exists via user-service
         try {
-            userServiceClient.getUserById(userId);
+            userLookupService.getUserById(userId);
         } catch (Exception e) {
             throw new UserNotFoundException(userId);
         }
@@ -80,44 +113,57 @@ public class FolderService {
         }
 
         folder = folderRepository.save(folder);
+        folderClosureRepository.insertFolder(folder.getId(), parentId);
         return convertToDTO(folder, false);
     }
 
-    public List<FolderDTO> getRootFolders(Long userId) {
-        try {
-            List<Folder> folders = folderRepository.findByUserIdAndParentIsNullOrderByNameAsc(userId);
-            if (folders == null || folders.isEmpty()) {
-                return new ArrayList<>();
-            }
-            
-            return folders.stream()
-                .map(folder -> {
-                    try {
-                        return convertToDTO(folder, true);
-                    } catch (Exception e) {
-                        log.error("Error converting folder to DTO: {}", folder.getId(), e);
-                        return null;
-                    }
-                })
-                .filter(Objects::nonNull)
-                .collect(Collectors.toList());
-        } catch (Exception e) {
-            log.error("Error getting root folders for user: {}", userId, e);
-            throw new RuntimeException("Could not retrieve folders. Please try again later.", e);
+    /**
+     * Folder listings are keyset paged by name: each page is one index seek past the
+     * (name, id) of the previous page's last row, however deep the page. One row more
+     * than the page size is read to know whether another page follows.
+     * {@code size} defaults to folder.listing.default-page-size and is capped at folder.listing.max-page-size.
+     */
+    public KeysetPage<FolderDTO> getRootFolders(Long userId, String cursor, Integer size) {
+        int pageSize = listingPageSize(size);
+        PageCursor after = listingCursor(cursor);
+        return toListingPage(folderRepository.findRootFoldersPage(userId, after.key(), after.id(), pageSize + 1), pageSize);
+    }
+
+    public KeysetPage<FolderDTO> getSubfolders(Long parentId, Long userId, String cursor, Integer size) {
+        int pageSize = listingPageSize(size);
+        PageCursor after = listingCursor(cursor);
+        return toListingPage(
+            folderRepository.findSubfoldersPage(userId, parentId, after.key(), after.id(), pageSize + 1), pageSize);
+    }
+
+    public KeysetPage<FolderDTO> getFavoriteFolders(Long userId, String cursor, Integer size) {
+        int pageSize = listingPageSize(size);
+        PageCursor after = listingCursor(cursor);
+        return toListingPage(folderRepository.findFavoriteFoldersPage(userId, after.key(), after.id(), pageSize + 1), pageSize);
+    }
+
+    private KeysetPage<FolderDTO> toListingPage(List<Folder> rows, int pageSize) {
+        return KeysetPage.of(rows, pageSize, folder -> PageCursor.of(folder.getName(), folder.getId()),
+            page -> convertToDTOs(page, true));
+    }
+
+    private int listingPageSize(Integer size) {
+        if (size == null || size <= 0) {
+            return listingDefaultPageSize;
         }
+        return Math.min(size, listingMaxPageSize);
     }
 
-    public List<FolderDTO> getSubfolders(Long parentId, Long userId) {
-        List<Folder> folders = folderRepository.findByUserIdAndParentIdOrderByNameAsc(userId, parentId);
-        return folders.stream()
-            .map(folder -> convertToDTO(folder, true))
-            .collect(Collectors.toList());
+    private static PageCursor listingCursor(String cursor) {
+        return cursor != null ? PageCursor.decode(cursor) : PageCursor.of("", 0L);
     }
 
     public FolderDTO getFolderDetails(Long folderId, Long userId) {
         Folder folder = folderRepository.findByIdAndUserId(folderId, userId)
             .orElseThrow(() -> new FolderNotFoundException(folderId));
-        return convertToDTO(folder, true);
+        FolderDTO dto = convertToDTO(folder, true);
+        dto.setFiles(fetchFiles(folder));
+        return dto;
     }
 
     public FolderDTO updateFolder(Long folderId, String name, String color, String description, Long userId) {
@@ -165,60 +211,69 @@ public class FolderService {
         Folder folder = folderRepository.findByIdAndUserId(folderId, userId)
             .orElseThrow(() -> new FolderNotFoundException(folderId));
 
-        // Delete all folder shares first
-        cleanupFolderShares(folder);
-        
-        // Delete all files in the folder via file-service
-        deleteFolderContentsRecursively(folder, userId);
-        
-        // Now delete the folder itself
-        folderRepository.delete(folder);
+        List<Long> deletedIds = deleteSubtree(folder);
+
+        // file-service removes the files in the background
+        folderEventPublisher.publishFoldersDeleted(userId, deletedIds);
     }
-    
-    private void cleanupFolderShares(Folder folder) {
-        // Delete all shares for this folder
-        List<FolderShare> folderShares = folderShareRepository.findByFolderId(folder.getId());
-        if (!folderShares.isEmpty()) {
-            folderShareRepository.deleteAll(folderShares);
-            log.info("Deleted {} folder shares for folder {}", folderShares.size(), folder.getId());
-        }
-        
-        // Recursively clean up shares for subfolders
-        for (Folder subfolder : folder.getSubfolders()) {
-            cleanupFolderShares(subfolder);
-        }
+
+    /**
+     * Deletes a folder with all its descendants: shares, folders and hierarchy rows
+     * are each removed with one statement over the subtree. Files are not touched;
+     * returns the ids of the deleted folders for the folders-deleted event.
+     */
+    private List<Long> deleteSubtree(Folder folder) {
+        List<Long> subtreeIds = folderClosureRepository.findSubtreeIds(folder.getId());
+
+        folderStatsService.detachFromAncestors(folder);
+        int deletedShares = folderShareRepository.deleteBySubtree(folder.getId());
+        folderRepository.deleteSubtree(folder.getId());
+        folderClosureRepository.deleteSubtree(folder.getId());
+        folderNameIndex.removeAfterCommit(subtreeIds);
+        log.info("Deleted folder {} with {} folder(s) and {} share(s)", folder.getId(), subtreeIds.size(), deletedShares);
+        return subtreeIds;
     }
-    
-    private void deleteFolderContentsRecursively(Folder folder, Long userId) {
-        // Delete all files in this folder via file-service
-        try {
-            fileServiceClient.deleteFilesByFolderId(folder.getId(), userId);
-        } catch (Exception e) {
-            log.warn("Could not delete files for folder {}: {}", folder.getId(), e.getMessage());
-        }
-        
-        // Recursively delete all subfolders
-        if (!folder.getSubfolders().isEmpty()) {
-            for (Folder subfolder : new ArrayList<>(folder.getSubfolders())) {
-                cleanupFolderShares(subfolder);
-                deleteFolderContentsRecursively(subfolder, userId);
-                folderRepository.delete(subfolder);
+
+    /**
+     * Folders whose name (or path) matches the query, best matches first. Served by the
+     * local name index (word, prefix and typo-tolerant matching) once it has caught up,
+     * otherwise by the trigram-indexed substring search on names in the database.
+     * {@code size} defaults to folder.search.default-limit and is capped at folder.search.max-limit.
+     */
+    public List<FolderDTO> searchFolders(String query, Long userId, Integer page, Integer size) {
+        String term = SearchPatterns.normalize(query);
+        if (term.isEmpty()) {
+            return List.of();
+        }
+        int limit = size == null || size <= 0 ? searchDefaultLimit : Math.min(size, searchMaxLimit);
+        long offset = (long) Math.max(page != null ? page : 0, 0) * limit;
+        if (folderNameIndex.isReady()) {
+            try {
+                return loadInRankOrder(userId, folderNameIndex.search(userId, term, offset, limit));
+            } catch (RuntimeException e) {
+                log.warn("Folder name index search failed, using the database: {}", e.getMessage());
             }
         }
+        List<Folder> folders = folderRepository.searchByName(userId, SearchPatterns.contains(term), term, limit, offset);
+        return convertToDTOs(folders, true);
     }
 
-    public List<FolderDTO> getFavoriteFolders(Long userId) {
-        List<Folder> folders = folderRepository.findFavoriteFoldersByUserId(userId);
-        return folders.stream()
-            .map(folder -> convertToDTO(folder, true))
-            .collect(Collectors.toList());
-    }
-
-    public List<FolderDTO> searchFolders(String query, Long userId) {
-        List<Folder> folders = folderRepository.searchFoldersByName(userId, query);
-        return folders.stream()
-            .map(folder -> convertToDTO(folder, true))
+    private List<FolderDTO> loadInRankOrder(Long userId, List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Folder> byId = folderRepository.findAllById(ids).stream()
+            .filter(folder -> userId.equals(folder.getUserId()))
+            .collect(Collectors.toMap(Folder::getId, folder -> folder));
+        if (byId.size() < ids.size()) {
+            // Deleted since they were indexed
+            folderNameIndex.remove(ids.stream().filter(id -> !byId.containsKey(id)).toList());
+        }
+        List<Folder> folders = ids.stream()
+            .map(byId::get)
+            .filter(Objects::nonNull)
             .collect(Collectors.toList());
+        return convertToDTOs(folders, true);
     }
 
     /**
@@ -233,6 +288,10 @@ public class FolderService {
             throw new RuntimeException("Cannot move folder into itself or its descendants");
         }
 
+        // Take the folder's subtree out of its current ancestors
+        folderStatsService.detachFromAncestors(folder);
+        folderClosureRepository.detachSubtree(folder.getId());
+
         // Check if a folder with the same name already exists in the new location
         if (newParentId != null) {
             if (folderRepository.findByUserIdAndNameAndParentId(userId, folder.getName(), newParentId).isPresent()) {
@@ -254,6 +313,7 @@ public class FolderService {
         updateFolderPath(folder);
         
         folder = folderRepository.save(folder);
+        attachSubtree(folder);
         log.info("Moved folder '{}' (ID: {}) to new parent (ID: {})", folder.getName(), folderId, newParentId);
         
         return convertToDTO(folder, true);
@@ -283,10 +343,11 @@ public class FolderService {
 
         try {
             // Create the copy (database operations only)
-            Folder copiedFolder = copyFolderStructureRecursively(originalFolder, newParentId, finalName, userId);
+            Map<Long, Folder> copies = copyFolderStructure(originalFolder, newParentId, finalName, userId);
+            Folder copiedFolder = copies.get(originalFolder.getId());
             
             // Copy files via file-service
-            copyAllFilesInFolderHierarchy(originalFolder, copiedFolder, userId);
+            copyAllFilesInFolderHierarchy(originalFolder, copies, userId);
             
             log.info("Successfully copied folder '{}' (ID: {}) to '{}' (ID: {})", 
                     originalFolder.getName(), folderId, copiedFolder.getName(), copiedFolder.getId());
@@ -299,95 +360,100 @@ public class FolderService {
     }
 
     /**
-     * Check if a folder is a descendant of another folder
+     * Check if a folder is a descendant of another folder (or the folder itself)
      */
     private boolean isDescendant(Folder folder, Long potentialAncestorId) {
-        if (folder.getId().equals(potentialAncestorId)) {
-            return true;
-        }
-        
-        for (Folder child : folder.getSubfolders()) {
-            if (isDescendant(child, potentialAncestorId)) {
-                return true;
-            }
+        return folderClosureRepository.isAncestorOrSelf(folder.getId(), potentialAncestorId);
+    }
+
+    /**
+     * Re-links a moved folder's subtree under its new parent, in the hierarchy and in the aggregates.
+     */
+    private void attachSubtree(Folder folder) {
+        if (folder.getParent() != null) {
+            folderClosureRepository.attachSubtree(folder.getId(), folder.getParent().getId());
         }
-        
-        return false;
+        folderStatsService.attachToAncestors(folder);
     }
 
     /**
-     * Copy folder structure (database operations only) - no file copying
+     * Copy folder structure (database operations only) - no file copying.
+     * The subtree is read in one query, parents before children, so every copy's parent
+     * already exists when it is saved. Returns the copies keyed by original folder id.
      */
-    private Folder copyFolderStructureRecursively(Folder original, Long newParentId, String newName, Long userId) {
-        Folder copy = new Folder();
-        copy.setName(newName);
-        copy.setUserId(userId);
-        copy.setColor(original.getColor());
-        copy.setDescription(original.getDescription() != null ? 
-            original.getDescription() + " (Copy)" : "Copy of " + original.getName());
-        copy.setIsFavorite(false); // Copies are not favorites by default
-
-        // Set parent relationship
+    private Map<Long, Folder> copyFolderStructure(Folder original, Long newParentId, String newName, Long userId) {
+        Folder newParent = null;
         if (newParentId != null) {
-            Folder newParent = folderRepository.findByIdAndUserId(newParentId, userId)
+            newParent = folderRepository.findByIdAndUserId(newParentId, userId)
                 .orElseThrow(() -> new FolderNotFoundException("Destination folder not found"));
-            copy.setParent(newParent);
-            copy.setPath(newParent.getPath() + "/" + newName);
-        } else {
-            copy.setPath("/" + newName);
         }
 
-        // Save the folder first to get an ID
-        copy = folderRepository.save(copy);
+        Map<Long, Folder> copies = new LinkedHashMap<>();
+        for (Folder source : folderRepository.findSubtree(original.getId())) {
+            boolean isRoot = source.getId().equals(original.getId());
+            Folder parent = isRoot ? newParent : copies.get(source.getParent().getId());
+            String name = isRoot ? newName : source.getName();
+
+            Folder copy = new Folder();
+            copy.setName(name);
+            copy.setUserId(userId);
+            copy.setColor(source.getColor());
+            copy.setDescription(source.getDescription() != null ? 
+                source.getDescription() + " (Copy)" : "Copy of " + source.getName());
+            copy.setIsFavorite(false); // Copies are not favorites by default
+            copy.setParent(parent);
+            copy.setPath(parent != null ? parent.getPath() + "/" + name : "/" + name);
 
-        // Copy subfolders recursively (database operations only)
-        for (Folder subfolder : original.getSubfolders()) {
-            copyFolderStructureRecursively(subfolder, copy.getId(), subfolder.getName(), userId);
+            copy = folderRepository.save(copy);
+            folderClosureRepository.insertFolder(copy.getId(), parent != null ? parent.getId() : null);
+            copies.put(source.getId(), copy);
         }
-        
-        return copy;
+        return copies;
     }
 
     /**
-     * Copy all files in folder hierarchy via file-service
+     * Copy all files in folder hierarchy via file-service, in a single call: file-service
+     * copies the files of every original folder into its copy server-side. Fails the folder
+     * copy (and so rolls it back) if the files cannot be copied, e.g. for lack of quota.
+     * file-service commits the copied files on its own, so if this transaction does not
+     * commit (the call timed out, applying the totals failed, the commit failed) the copies
+     * are announced as deleted and file-service removes their files again.
      */
-    private void copyAllFilesInFolderHierarchy(Folder originalFolder, Folder copiedFolder, Long userId) {
-        // Copy files in the current folder via file-service
+    private void copyAllFilesInFolderHierarchy(Folder originalFolder, Map<Long, Folder> copies, Long userId) {
+        Map<Long, Long> copyIdByOriginalId = new LinkedHashMap<>();
+        copies.forEach((originalId, copy) -> copyIdByOriginalId.put(originalId, copy.getId()));
+        folderEventPublisher.publishFoldersDeletedOnRollback(userId, new ArrayList<>(copyIdByOriginalId.values()));
+
         try {
-            List<FileDTO> files = fileServiceClient.getFilesByFolderId(originalFolder.getId(), userId);
-            for (FileDTO file : files) {
-                try {
-                    fileServiceClient.copyFile(file.getId(), copiedFolder.getId(), userId);
-                } catch (Exception e) {
-                    log.warn("Failed to copy file {} to folder {}: {}", file.getId(), copiedFolder.getId(), e.getMessage());
-                }
-            }
+            FolderCopyResult result = fileServiceClient.copyFolderFiles(new FolderCopyRequest(copyIdByOriginalId), userId);
+            folderStatsService.applyCopiedSubtree(copies.get(originalFolder.getId()),
+                result.getFolders() != null ? result.getFolders() : List.of());
+            log.debug("Copied {} file(s) of folder {} into {} folder(s)",
+                result.getCopiedFiles(), originalFolder.getId(), copyIdByOriginalId.size());
         } catch (Exception e) {
-            log.warn("Could not get files for folder {}: {}", originalFolder.getId(), e.getMessage());
-        }
-        
-        // Copy files in subfolders recursively
-        List<Folder> originalSubfolders = new ArrayList<>(originalFolder.getSubfolders());
-        List<Folder> copiedSubfolders = new ArrayList<>(copiedFolder.getSubfolders());
-        
-        // Match original subfolders with copied subfolders by name
-        for (int i = 0; i < originalSubfolders.size() && i < copiedSubfolders.size(); i++) {
-            copyAllFilesInFolderHierarchy(originalSubfolders.get(i), copiedSubfolders.get(i), userId);
+            throw new RuntimeException("Could not copy the files of folder " + originalFolder.getId() + ": " + e.getMessage(), e);
         }
     }
 
+    /**
+     * Sets the folder's path and rewrites the path prefix of all its descendants in one update.
+     */
     private void updateFolderPath(Folder folder) {
+        String oldPath = folder.getPath();
         String newPath = folder.getParent() != null 
             ? folder.getParent().getPath() + "/" + folder.getName()
             : "/" + folder.getName();
         folder.setPath(newPath);
 
-        // Recursively update paths of subfolders
-        for (Folder subfolder : folder.getSubfolders()) {
-            updateFolderPath(subfolder);
+        if (oldPath != null && !oldPath.equals(newPath)) {
+            folderRepository.rewriteDescendantPaths(folder.getId(), oldPath, newPath);
         }
     }
 
+    /**
+     * Converts a folder from its own columns only; file statistics are the aggregates
+     * maintained by FolderStatsService, so no call to file-service is made.
+     */
     private FolderDTO convertToDTO(Folder folder, boolean includeChildren) {
         if (folder == null) {
             return null;
@@ -411,20 +477,13 @@ public class FolderService {
             dto.setParentName(folder.getParent().getName());
         }
 
-        // Statistics - get file count and size from file-service
-        try {
-            Integer fileCount = fileServiceClient.getFileCountByFolderId(folder.getId(), folder.getUserId());
-            dto.setFileCount(fileCount != null ? fileCount : 0);
-            
-            Long totalSize = fileServiceClient.getTotalSizeByFolderId(folder.getId(), folder.getUserId());
-            dto.setTotalSize(totalSize != null ? totalSize : 0L);
-            dto.setFormattedSize(formatFileSize(dto.getTotalSize()));
-        } catch (Exception e) {
-            log.debug("Could not fetch file statistics for folder {}: {}", folder.getId(), e.getMessage());
-            dto.setFileCount(0);
-            dto.setTotalSize(0L);
-            dto.setFormattedSize("0 B");
-        }
+        // Statistics - maintained from file-service events
+        dto.setFileCount(folder.getFileCount() != null ? folder.getFileCount() : 0);
+        dto.setTotalSize(folder.getTotalSize() != null ? folder.getTotalSize() : 0L);
+        dto.setFormattedSize(formatFileSize(dto.getTotalSize()));
+        dto.setSubtreeFileCount(folder.getSubtreeFileCount() != null ? folder.getSubtreeFileCount() : 0L);
+        dto.setSubtreeSize(folder.getSubtreeSize() != null ? folder.getSubtreeSize() : 0L);
+        dto.setFormattedSubtreeSize(formatFileSize(dto.getSubtreeSize()));
         
         dto.setSubfolderCount(folder.getSubfolderCount());
 
@@ -445,15 +504,6 @@ public class FolderService {
                     })
                     .collect(Collectors.toList()));
             }
-
-            // Files (from file-service)
-            try {
-                List<FileDTO> files = fileServiceClient.getFilesByFolderId(folder.getId(), folder.getUserId());
-                dto.setFiles(files != null ? files : new ArrayList<>());
-            } catch (Exception e) {
-                log.debug("Could not fetch files for folder {}: {}", folder.getId(), e.getMessage());
-                dto.setFiles(new ArrayList<>());
-            }
         }
 
         // Breadcrumb
@@ -464,14 +514,33 @@ public class FolderService {
         return dto;
     }
 
-    private List<BreadcrumbItem> buildBreadcrumb(Folder folder) {
-        List<BreadcrumbItem> breadcrumb = new ArrayList<>();
-        Folder current = folder;
-        while (current != null) {
-            breadcrumb.add(0, new BreadcrumbItem(current.getId(), current.getName()));
-            current = current.getParent();
+    private List<FolderDTO> convertToDTOs(List<Folder> folders, boolean includeChildren) {
+        return folders.stream()
+            .map(folder -> convertToDTO(folder, includeChildren))
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * The files of one folder, for the folder details view.
+     */
+    private List<FileDTO> fetchFiles(Folder folder) {
+        try {
+            List<FolderStatsDTO> stats = fileServiceClient.getFolderStats(
+                new FolderStatsRequest(List.of(folder.getId()), true), folder.getUserId());
+            if (stats != null && !stats.isEmpty() && stats.get(0).getFiles() != null) {
+                return stats.get(0).getFiles();
+            }
+        } catch (Exception e) {
+            log.debug("Could not fetch files for folder {}: {}", folder.getId(), e.getMessage());
         }
-        return breadcrumb;
+        return new ArrayList<>();
+    }
+
+    private List<BreadcrumbItem> buildBreadcrumb(Folder folder) {
+        // All ancestors in one query instead of walking the lazy parent chain
+        return folderRepository.findAncestorsAndSelf(folder.getId()).stream()
+            .map(ancestor -> new BreadcrumbItem(ancestor.getId(), ancestor.getName()))
+            .collect(Collectors.toList());
     }
 
     private String formatFileSize(long size) {
@@ -515,15 +584,18 @@ public class FolderService {
         }
 
         // Perform bulk move
-        List<FolderDTO> movedFolders = new ArrayList<>();
+        List<Folder> movedFolders = new ArrayList<>();
         for (Folder folder : foldersToMove) {
+            folderStatsService.detachFromAncestors(folder);
+            folderClosureRepository.detachSubtree(folder.getId());
             folder.setParent(newParent);
             updateFolderPath(folder);
             Folder savedFolder = folderRepository.save(folder);
-            movedFolders.add(convertToDTO(savedFolder, false));
+            attachSubtree(savedFolder);
+            movedFolders.add(savedFolder);
         }
 
-        return movedFolders;
+        return convertToDTOs(movedFolders, false);
     }
 
     /**
@@ -551,7 +623,7 @@ public class FolderService {
         }
 
         // Perform bulk copy
-        List<FolderDTO> copiedFolders = new ArrayList<>();
+        List<Folder> copiedFolders = new ArrayList<>();
             
         for (Folder folder : foldersToCopy) {
             // Generate unique name for copy
@@ -559,15 +631,15 @@ public class FolderService {
             
             // Create copy using existing method
             Long newParentIdForCopy = newParent != null ? newParent.getId() : null;
-            Folder copiedFolder = copyFolderStructureRecursively(folder, newParentIdForCopy, copyName, userId);
+            Map<Long, Folder> copies = copyFolderStructure(folder, newParentIdForCopy, copyName, userId);
             
             // Copy files via file-service
-            copyAllFilesInFolderHierarchy(folder, copiedFolder, userId);
+            copyAllFilesInFolderHierarchy(folder, copies, userId);
             
-            copiedFolders.add(convertToDTO(copiedFolder, false));
+            copiedFolders.add(copies.get(folder.getId()));
         }
 
-        return copiedFolders;
+        return convertToDTOs(copiedFolders, false);
     }
 
     /**
@@ -589,22 +661,18 @@ public class FolderService {
 
         // Perform bulk delete
         int deletedCount = 0;
+        List<Long> deletedIds = new ArrayList<>();
         for (Folder folder : foldersToDelete) {
             try {
-                // Clean up folder shares first
-                cleanupFolderShares(folder);
-                
-                // Delete folder contents recursively
-                deleteFolderContentsRecursively(folder, userId);
-                
-                // Delete the folder itself
-                folderRepository.delete(folder);
+                deletedIds.addAll(deleteSubtree(folder));
                 deletedCount++;
             } catch (Exception e) {
                 log.error("Failed to delete folder {}: {}", folder.getId(), e.getMessage());
             }
         }
 
+        // One event for all deleted subtrees; file-service removes the files in the background
+        folderEventPublisher.publishFoldersDeleted(userId, deletedIds);
         return deletedCount;
     }
 
@@ -1,5 +1,7 @@
 package org.example.folderservice.service;
 
+import org.example.commonlibrary.paging.KeysetPage;
+import org.example.commonlibrary.paging.PageCursor;
 import org.example.folderservice.dto.FolderShareRequest;
 import org.example.folderservice.dto.FolderShareDTO;
 import org.example.folderservice.dto.UserDTO;
@@ -8,19 +10,22 @@ import org.example.folderservice.entity.FolderShare;
 import org.example.folderservice.exception.FolderNotFoundException;
 import org.example.folderservice.exception.ForbiddenException;
 import org.example.folderservice.exception.UserNotFoundException;
-import org.example.folderservice.feign.UserServiceClient;
 import org.example.folderservice.repository.FolderRepository;
 import org.example.folderservice.repository.FolderShareRepository;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.Set;
 
 @Service
 @Transactional
@@ -29,18 +34,24 @@ public class FolderShareService {
 
     private final FolderShareRepository folderShareRepository;
     private final FolderRepository folderRepository;
-    private final UserServiceClient userServiceClient;
+    private final UserLookupService userLookupService;
     private final PasswordEncoder passwordEncoder;
+
+    @Value("${folder.listing.default-page-size:100}")
+    private int defaultPageSize;
+
+    @Value("${folder.listing.max-page-size:500}")
+    private int maxPageSize;
     // Note: In microservices, WebSocket notifications should use a message broker
     // private final SimpMessagingTemplate messagingTemplate;
 
     public FolderShareService(FolderShareRepository folderShareRepository, 
                              FolderRepository folderRepository,
-                             UserServiceClient userServiceClient,
+                             UserLookupService userLookupService,
                              PasswordEncoder passwordEncoder) {
         this.folderShareRepository = folderShareRepository;
         this.folderRepository = folderRepository;
-        this.userServiceClient = userServiceClient;
+        this.userLookupService = userLookupService;
         this.passwordEncoder = passwordEncoder;
     }
 
@@ -55,7 +66,7 @@ public class FolderShareService {
         // Find target user by email via user-service
         UserDTO targetUser;
         try {
-            targetUser = userServiceClient.getUserByEmail(request.getTargetUserEmail());
+            targetUser = userLookupService.getUserByEmail(request.getTargetUserEmail());
         } catch (Exception e) {
             throw new UserNotFoundException("User with email " + request.getTargetUserEmail() + " not found");
         }
@@ -63,7 +74,7 @@ public class FolderShareService {
         // Get owner info
         UserDTO owner;
         try {
-            owner = userServiceClient.getUserById(ownerId);
+            owner = userLookupService.getUserById(ownerId);
         } catch (Exception e) {
             throw new UserNotFoundException("Owner not found");
         }
@@ -117,23 +128,21 @@ public class FolderShareService {
     }
 
     /**
-     * Get all pending folder share requests for a user
+     * Get pending folder share requests for a user, newest first, one keyset page at a time
      */
-    public List<FolderShareDTO> getPendingSharesForUser(Long userId) {
-        List<FolderShare> pendingShares = folderShareRepository.findPendingSharesForUser(userId);
-        return pendingShares.stream()
-            .map(share -> convertToDTOWithUserLookup(share))
-            .collect(Collectors.toList());
+    public KeysetPage<FolderShareDTO> getPendingSharesForUser(Long userId, String cursor, Integer size) {
+        int pageSize = pageSize(size);
+        return toSharePage(folderShareRepository.findReceivedSharesPage(
+            userId, "pending", before(cursor), PageRequest.of(0, pageSize + 1)), pageSize);
     }
 
     /**
-     * Get all folder shares created by a user
+     * Get folder shares created by a user, newest first, one keyset page at a time
      */
-    public List<FolderShareDTO> getSharesCreatedByUser(Long userId) {
-        List<FolderShare> shares = folderShareRepository.findSharesCreatedByUser(userId);
-        return shares.stream()
-            .map(share -> convertToDTOWithUserLookup(share))
-            .collect(Collectors.toList());
+    public KeysetPage<FolderShareDTO> getSharesCreatedByUser(Long userId, String cursor, Integer size) {
+        int pageSize = pageSize(size);
+        return toSharePage(folderShareRepository.findCreatedSharesPage(
+            userId, before(cursor), PageRequest.of(0, pageSize + 1)), pageSize);
     }
 
     /**
@@ -145,9 +154,7 @@ public class FolderShareService {
             .orElseThrow(() -> new FolderNotFoundException("Folder not found or access denied"));
 
         List<FolderShare> shares = folderShareRepository.findByFolderId(folderId);
-        return shares.stream()
-            .map(share -> convertToDTOWithUserLookup(share))
-            .collect(Collectors.toList());
+        return convertToDTOsWithUserLookup(shares);
     }
 
     /**
@@ -193,17 +200,12 @@ public class FolderShareService {
     }
 
     /**
-     * Get shared folders that a user has access to
+     * Get shared folders that a user has access to, newest share first, one keyset page at a time
      */
-    public List<FolderShareDTO> getSharedFoldersForUser(Long userId) {
-        List<FolderShare> acceptedShares = folderShareRepository.findByTargetUserId(userId)
-            .stream()
-            .filter(share -> "accepted".equals(share.getStatus()))
-            .collect(Collectors.toList());
-
-        return acceptedShares.stream()
-            .map(share -> convertToDTOWithUserLookup(share))
-            .collect(Collectors.toList());
+    public KeysetPage<FolderShareDTO> getSharedFoldersForUser(Long userId, String cursor, Integer size) {
+        int pageSize = pageSize(size);
+        return toSharePage(folderShareRepository.findReceivedSharesPage(
+            userId, "accepted", before(cursor), PageRequest.of(0, pageSize + 1)), pageSize);
     }
 
     /**
@@ -216,7 +218,7 @@ public class FolderShareService {
 
         UserDTO targetUser;
         try {
-            targetUser = userServiceClient.getUserByEmail(targetUserEmail);
+            targetUser = userLookupService.getUserByEmail(targetUserEmail);
         } catch (Exception e) {
             throw new UserNotFoundException("User not found");
         }
@@ -265,14 +267,14 @@ public class FolderShareService {
         String targetUserEmail = "unknown";
         
         try {
-            UserDTO owner = userServiceClient.getUserById(folderShare.getOwnerId());
+            UserDTO owner = userLookupService.getUserById(folderShare.getOwnerId());
             ownerEmail = owner.getEmail();
         } catch (Exception e) {
             log.warn("Could not fetch owner email for share {}", folderShare.getId());
         }
         
         try {
-            UserDTO targetUser = userServiceClient.getUserById(folderShare.getTargetUserId());
+            UserDTO targetUser = userLookupService.getUserById(folderShare.getTargetUserId());
             targetUserEmail = targetUser.getEmail();
         } catch (Exception e) {
             log.warn("Could not fetch target user email for share {}", folderShare.getId());
@@ -281,6 +283,48 @@ public class FolderShareService {
         return convertToDTO(folderShare, ownerEmail, targetUserEmail);
     }
 
+    private KeysetPage<FolderShareDTO> toSharePage(List<FolderShare> rows, int pageSize) {
+        return KeysetPage.of(rows, pageSize, share -> PageCursor.of(share.getId()), this::convertToDTOsWithUserLookup);
+    }
+
+    private int pageSize(Integer size) {
+        if (size == null || size <= 0) {
+            return defaultPageSize;
+        }
+        return Math.min(size, maxPageSize);
+    }
+
+    private static Long before(String cursor) {
+        return cursor != null ? PageCursor.decode(cursor).id() : Long.MAX_VALUE;
+    }
+
+    /**
+     * Convert FolderShare entities to DTOs, looking up all owners and targets in one call
+     */
+    private List<FolderShareDTO> convertToDTOsWithUserLookup(List<FolderShare> shares) {
+        Map<Long, UserDTO> users = Map.of();
+        try {
+            Set<Long> userIds = new HashSet<>();
+            shares.forEach(share -> {
+                userIds.add(share.getOwnerId());
+                userIds.add(share.getTargetUserId());
+            });
+            users = userLookupService.getUsersByIds(userIds);
+        } catch (Exception e) {
+            log.warn("Could not fetch user emails for {} shares", shares.size());
+        }
+
+        List<FolderShareDTO> dtos = new ArrayList<>(shares.size());
+        for (FolderShare share : shares) {
+            UserDTO owner = users.get(share.getOwnerId());
+            UserDTO targetUser = users.get(share.getTargetUserId());
+            dtos.add(convertToDTO(share,
+                owner != null ? owner.getEmail() : "unknown",
+                targetUser != null ? targetUser.getEmail() : "unknown"));
+        }
+        return dtos;
+    }
+
     /**
      * Convert FolderShare entity to DTO
      */
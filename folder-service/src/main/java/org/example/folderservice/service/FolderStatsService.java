@@ -0,0 +1,152 @@
+package org.example.folderservice.service;
+
+import org.example.folderservice.dto.FolderStatsDTO;
+import org.example.folderservice.dto.FolderStatsRequest;
+import org.example.folderservice.entity.Folder;
+import org.example.folderservice.event.FolderContentEvent;
+import org.example.folderservice.feign.FileServiceClient;
+import org.example.folderservice.repository.FolderRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps the file count and size aggregates on folders: direct values (files in the folder)
+ * and subtree values (the folder and all its descendants). They are updated incrementally
+ * from file-service events and folder moves/deletes, and reconciled against file-service
+ * periodically to fix drift from lost or duplicated events.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class FolderStatsService {
+
+    private final FolderRepository folderRepository;
+    private final FileServiceClient fileServiceClient;
+
+    @Value("${folder.stats.reconcile-batch-size:500}")
+    private int reconcileBatchSize;
+
+    @Transactional
+    public void applyFilesAdded(FolderContentEvent event) {
+        addFiles(event.getFolderId(), event.getUserId(), event.getFileCount(), event.getTotalSize());
+    }
+
+    @Transactional
+    public void applyFilesRemoved(FolderContentEvent event) {
+        addFiles(event.getFolderId(), event.getUserId(), -event.getFileCount(), -event.getTotalSize());
+    }
+
+    @Transactional
+    public void applyFilesMoved(FolderContentEvent event) {
+        addFiles(event.getSourceFolderId(), event.getUserId(), -event.getFileCount(), -event.getTotalSize());
+        addFiles(event.getFolderId(), event.getUserId(), event.getFileCount(), event.getTotalSize());
+    }
+
+    /**
+     * Call before a folder leaves its parent (move or delete): removes its subtree totals from its ancestors.
+     */
+    @Transactional
+    public void detachFromAncestors(Folder folder) {
+        if (folder.getParent() != null) {
+            folderRepository.addToSubtreeStats(folder.getParent().getId(),
+                -valueOf(folder.getSubtreeFileCount()), -valueOf(folder.getSubtreeSize()));
+        }
+    }
+
+    /**
+     * Call after a folder got its new parent: adds its subtree totals to its new ancestors.
+     */
+    @Transactional
+    public void attachToAncestors(Folder folder) {
+        if (folder.getParent() != null) {
+            folderRepository.addToSubtreeStats(folder.getParent().getId(),
+                valueOf(folder.getSubtreeFileCount()), valueOf(folder.getSubtreeSize()));
+        }
+    }
+
+    /**
+     * Call after copying files into a freshly copied subtree: sets the copies' aggregates from the
+     * per-folder totals file-service reported for the copy, and adds the total to the ancestors.
+     */
+    @Transactional
+    public void applyCopiedSubtree(Folder copy, List<FolderStatsDTO> copiedFiles) {
+        long count = 0;
+        long size = 0;
+        for (FolderStatsDTO stats : copiedFiles) {
+            folderRepository.setDirectStats(stats.getFolderId(), (int) valueOf(stats.getFileCount()), valueOf(stats.getTotalSize()));
+            count += valueOf(stats.getFileCount());
+            size += valueOf(stats.getTotalSize());
+        }
+        folderRepository.recomputeSubtreeStatsWithin(copy.getId());
+        if (copy.getParent() != null) {
+            folderRepository.addToSubtreeStats(copy.getParent().getId(), count, size);
+        }
+    }
+
+    @Scheduled(initialDelayString = "${folder.stats.reconcile-initial-delay-ms:300000}",
+               fixedDelayString = "${folder.stats.reconcile-interval-ms:21600000}")
+    public void reconcileAll() {
+        int corrected = 0;
+        for (Long userId : folderRepository.findAllUserIds()) {
+            try {
+                corrected += reconcileUser(userId);
+            } catch (Exception e) {
+                log.warn("Could not reconcile folder statistics for userId {}: {}", userId, e.getMessage());
+            }
+        }
+        log.info("Folder statistics reconciliation finished, {} folder(s) corrected", corrected);
+    }
+
+    /**
+     * Compares the direct aggregates of all of a user's folders with file-service (in batches,
+     * using the batch statistics endpoint) and then recomputes the subtree aggregates.
+     * Not one transaction: no connection is held while waiting for file-service.
+     */
+    public int reconcileUser(Long userId) {
+        List<Folder> folders = folderRepository.findByUserId(userId);
+        int corrected = 0;
+        for (int from = 0; from < folders.size(); from += reconcileBatchSize) {
+            List<Folder> batch = folders.subList(from, Math.min(from + reconcileBatchSize, folders.size()));
+            Map<Long, Folder> byId = batch.stream().collect(Collectors.toMap(Folder::getId, Function.identity()));
+
+            List<FolderStatsDTO> actual = fileServiceClient.getFolderStats(
+                new FolderStatsRequest(new ArrayList<>(byId.keySet()), false), userId);
+            for (FolderStatsDTO stats : actual) {
+                Folder folder = byId.get(stats.getFolderId());
+                if (folder == null) {
+                    continue;
+                }
+                int count = stats.getFileCount() != null ? stats.getFileCount().intValue() : 0;
+                long size = valueOf(stats.getTotalSize());
+                if (!Objects.equals(folder.getFileCount(), count) || !Objects.equals(folder.getTotalSize(), size)) {
+                    folderRepository.setDirectStats(folder.getId(), count, size);
+                    corrected++;
+                }
+            }
+        }
+        corrected += folderRepository.recomputeSubtreeStats(userId);
+        return corrected;
+    }
+
+    private void addFiles(Long folderId, Long userId, long count, long size) {
+        if (folderId == null) {
+            return;
+        }
+        // Unknown folders (already deleted, or not this user's) are ignored
+        if (folderRepository.addToDirectStats(folderId, userId, (int) count, size) > 0) {
+            folderRepository.addToSubtreeStats(folderId, count, size);
+        }
+    }
+
+    private static long valueOf(Long value) {
+        return value != null ? value : 0L;
+    }
+}
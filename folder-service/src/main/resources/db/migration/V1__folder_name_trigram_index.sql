@@ -0,0 +1,7 @@
+-- Substring search on folder names (FolderRepository.searchByName).
+-- pg_trgm lets a GIN index answer LIKE '%term%'; btree_gin adds user_id to the same index.
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE EXTENSION IF NOT EXISTS btree_gin;
+
+CREATE INDEX IF NOT EXISTS idx_folders_user_name_trgm
+    ON folders USING gin (user_id, lower(name) gin_trgm_ops);
@@ -0,0 +1,13 @@
+-- Keyset-paged folder listings (FolderRepository.find*Page), by (name, id).
+CREATE INDEX IF NOT EXISTS idx_folders_user_parent_name_id
+    ON folders (user_id, parent_id, name, id);
+
+CREATE INDEX IF NOT EXISTS idx_folders_user_favorite_name_id
+    ON folders (user_id, name, id) WHERE is_favorite;
+
+-- Keyset-paged share listings (FolderShareRepository.find*SharesPage), newest first by id.
+CREATE INDEX IF NOT EXISTS idx_folder_shares_target_status_id
+    ON folder_shares (target_user_id, status, id);
+
+CREATE INDEX IF NOT EXISTS idx_folder_shares_owner_id
+    ON folder_shares (owner_id, id);
@@ -0,0 +1,98 @@
+package org.example.folderservice.repository;
+
+import org.example.folderservice.EmbeddedPostgresConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.boot.jdbc.test.autoconfigure.AutoConfigureTestDatabase;
+import org.springframework.context.annotation.Import;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Moves on the tree 1 / 2 / 3 / 4 with 5 as a second child of 1.
+ */
+@DataJpaTest(properties = "spring.flyway.enabled=false")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(EmbeddedPostgresConfig.class)
+class FolderClosureRepositoryTest {
+
+    @Autowired
+    private FolderClosureRepository folderClosureRepository;
+
+    @BeforeEach
+    void setUp() {
+        folderClosureRepository.insertFolder(1L, null);
+        folderClosureRepository.insertFolder(2L, 1L);
+        folderClosureRepository.insertFolder(3L, 2L);
+        folderClosureRepository.insertFolder(4L, 3L);
+        folderClosureRepository.insertFolder(5L, 1L);
+    }
+
+    @Test
+    void newFolderInheritsItsParentsAncestors() {
+        assertThat(rows()).containsExactlyInAnyOrder(
+            "1>1@0", "1>2@1", "1>3@2", "1>4@3", "1>5@1",
+            "2>2@0", "2>3@1", "2>4@2",
+            "3>3@0", "3>4@1",
+            "4>4@0",
+            "5>5@0");
+    }
+
+    @Test
+    void detachKeepsOnlyTheSubtreesInternalPaths() {
+        int removed = folderClosureRepository.detachSubtree(3L);
+
+        assertThat(removed).isEqualTo(4);
+        assertThat(rows()).containsExactlyInAnyOrder(
+            "1>1@0", "1>2@1", "1>5@1",
+            "2>2@0",
+            "3>3@0", "3>4@1",
+            "4>4@0",
+            "5>5@0");
+        assertThat(folderClosureRepository.isAncestorOrSelf(1L, 4L)).isFalse();
+        assertThat(folderClosureRepository.isAncestorOrSelf(3L, 4L)).isTrue();
+    }
+
+    @Test
+    void attachConnectsTheNewParentsAncestorsWithTheWholeSubtree() {
+        folderClosureRepository.detachSubtree(3L);
+
+        int added = folderClosureRepository.attachSubtree(3L, 5L);
+
+        assertThat(added).isEqualTo(4);
+        assertThat(rows()).containsExactlyInAnyOrder(
+            "1>1@0", "1>2@1", "1>3@2", "1>4@3", "1>5@1",
+            "2>2@0",
+            "3>3@0", "3>4@1",
+            "4>4@0",
+            "5>5@0", "5>3@1", "5>4@2");
+        assertThat(folderClosureRepository.isAncestorOrSelf(2L, 4L)).isFalse();
+        assertThat(folderClosureRepository.findSubtreeIds(5L)).containsExactly(5L, 3L, 4L);
+    }
+
+    @Test
+    void subtreeMovedToTheRootKeepsOnlyItsOwnPaths() {
+        folderClosureRepository.detachSubtree(2L);
+
+        assertThat(folderClosureRepository.findSubtreeIds(1L)).containsExactlyInAnyOrder(1L, 5L);
+        assertThat(folderClosureRepository.findSubtreeIds(2L)).containsExactly(2L, 3L, 4L);
+    }
+
+    @Test
+    void deleteSubtreeRemovesEveryPathIntoIt() {
+        int removed = folderClosureRepository.deleteSubtree(3L);
+
+        assertThat(removed).isEqualTo(7);
+        assertThat(folderClosureRepository.findSubtreeIds(1L)).containsExactlyInAnyOrder(1L, 2L, 5L);
+    }
+
+    private List<String> rows() {
+        return folderClosureRepository.findAll().stream()
+            .map(row -> row.getAncestorId() + ">" + row.getDescendantId() + "@" + row.getDepth())
+            .toList();
+    }
+}
@@ -1,16 +1,22 @@
 package org.example.userservice.controller;
 
 import jakarta.validation.Valid;
+import org.example.userservice.dto.StorageDeltaBatch;
+import org.example.userservice.dto.StorageDeltaBatchResult;
+import org.example.userservice.dto.UserBatchRequest;
 import org.example.userservice.dto.UserResponseDTO;
 import org.example.userservice.dto.UserStorageInfo;
 import org.example.userservice.dto.UserUpdateRequest;
 import org.example.userservice.service.ProfileService;
+import org.example.userservice.service.StorageDeltaService;
 import org.example.userservice.utils.ApiResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 @RestController
 @RequestMapping("/api/users")
 public class UserController {
@@ -18,6 +24,9 @@ public class UserController {
     @Autowired
     private ProfileService profileService;
 
+    @Autowired
+    private StorageDeltaService storageDeltaService;
+
     @GetMapping("/profile")
     public ResponseEntity<ApiResponse<UserResponseDTO>> getProfile(Authentication authentication) {
         UserResponseDTO profile = profileService.getProfile(authentication.getName());
@@ -61,6 +70,20 @@ public class UserController {
         return ResponseEntity.ok(ApiResponse.success("Storage updated"));
     }
 
+    // Returns the list directly (no ApiResponse) so Feign clients can decode it as is
+    @PostMapping("/internal/batch")
+    public ResponseEntity<List<UserResponseDTO>> getUsers(@RequestBody UserBatchRequest request) {
+        return ResponseEntity.ok(profileService.getUsers(request));
+    }
+
+    @PostMapping("/internal/storage/batch")
+    public ResponseEntity<ApiResponse<StorageDeltaBatchResult>> applyStorageDeltas(
+            @RequestBody StorageDeltaBatch batch) {
+        
+        StorageDeltaBatchResult result = storageDeltaService.applyBatch(batch.getDeltas());
+        return ResponseEntity.ok(ApiResponse.success("Storage updated", result));
+    }
+
     @GetMapping("/internal/{userId}/storage/check")
     public ResponseEntity<ApiResponse<Boolean>> hasStorageSpace(
             @PathVariable Long userId,
@@ -0,0 +1,18 @@
+package org.example.userservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One storage usage change. The idempotency key is chosen by the sender and stays the
+ * same when the change is re-sent, so it is only ever counted once.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StorageDelta {
+    private Long userId;
+    private Long delta;
+    private String idempotencyKey;
+}
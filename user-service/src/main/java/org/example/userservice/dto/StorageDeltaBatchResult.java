@@ -0,0 +1,16 @@
+package org.example.userservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StorageDeltaBatchResult {
+    private int applied;
+    private int duplicates;
+    private int usersUpdated;
+}
@@ -0,0 +1,32 @@
+package org.example.userservice.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Idempotency keys of applied storage deltas, kept for user.storage.idempotency-retention-hours.
+ * Rows are written by StorageDeltaReceiptRepository only.
+ */
+@Entity
+@Table(name = "storage_delta_receipt", indexes = @Index(name = "idx_storage_delta_receipt_applied_at", columnList = "applied_at"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StorageDeltaReceipt {
+    @Id
+    @Column(name = "idempotency_key", length = 128)
+    private String idempotencyKey;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(nullable = false)
+    private Long delta;
+
+    @Column(name = "applied_at", nullable = false)
+    private LocalDateTime appliedAt;
+}
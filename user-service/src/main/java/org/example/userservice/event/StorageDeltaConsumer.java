@@ -0,0 +1,32 @@
+package org.example.userservice.event;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.userservice.dto.StorageDeltaBatch;
+import org.example.userservice.dto.StorageDeltaBatchResult;
+import org.example.userservice.service.StorageDeltaService;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.function.Consumer;
+
+/**
+ * Consumes storage usage batches from file-service. Failures are rethrown so the binder
+ * retries the message; idempotency keys make redelivered batches harmless.
+ */
+@Configuration
+@RequiredArgsConstructor
+@Slf4j
+public class StorageDeltaConsumer {
+
+    private final StorageDeltaService storageDeltaService;
+
+    @Bean
+    public Consumer<StorageDeltaBatch> storageDeltasConsumer() {
+        return batch -> {
+            StorageDeltaBatchResult result = storageDeltaService.applyBatch(batch.getDeltas());
+            log.debug("Applied storage delta batch: {} new, {} duplicates, {} users",
+                result.getApplied(), result.getDuplicates(), result.getUsersUpdated());
+        };
+    }
+}
@@ -0,0 +1,50 @@
+package org.example.userservice.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.example.userservice.dto.StorageDelta;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+@Repository
+@RequiredArgsConstructor
+public class StorageDeltaReceiptRepository {
+
+    private static final String INSERT_SQL =
+        "INSERT INTO storage_delta_receipt (idempotency_key, user_id, delta, applied_at) " +
+        "VALUES (?, ?, ?, ?) ON CONFLICT (idempotency_key) DO NOTHING";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Records the keys of the given deltas in one batched statement and returns the
+     * deltas whose key was not recorded before. Must run in the transaction that applies
+     * them, so a rollback forgets the keys too. Relies on per-row update counts, which
+     * the driver does not report when reWriteBatchedInserts is enabled.
+     */
+    public List<StorageDelta> recordNew(List<StorageDelta> deltas) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = deltas.stream()
+            .map(d -> new Object[] { d.getIdempotencyKey(), d.getUserId(), d.getDelta(), now })
+            .toList();
+        int[] counts = jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+
+        List<StorageDelta> fresh = new ArrayList<>();
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > 0) {
+                fresh.add(deltas.get(i));
+            }
+        }
+        return fresh;
+    }
+
+    @Transactional
+    public int deleteAppliedBefore(LocalDateTime cutoff) {
+        return jdbcTemplate.update("DELETE FROM storage_delta_receipt WHERE applied_at < ?", Timestamp.valueOf(cutoff));
+    }
+}
@@ -2,10 +2,14 @@ package org.example.userservice.repository;
 
 import org.example.userservice.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -14,4 +18,14 @@ public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByEmail(String email);
     
     boolean existsByEmail(String email);
+
+    @Query("SELECT u FROM User u WHERE u.id IN :ids OR u.email IN :emails")
+    List<User> findByIdInOrEmailIn(@Param("ids") Collection<Long> ids, @Param("emails") Collection<String> emails);
+
+    // Atomic read-modify-write on the row: concurrent changes cannot overwrite each other
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE users SET storage_used = GREATEST(0, storage_used + :delta), updated_at = now() WHERE id = :userId",
+           nativeQuery = true)
+    int addStorageUsed(@Param("userId") Long userId, @Param("delta") long delta);
 }
@@ -1,5 +1,6 @@
 package org.example.userservice.service;
 
+import org.example.userservice.dto.UserBatchRequest;
 import org.example.userservice.dto.UserResponseDTO;
 import org.example.userservice.dto.UserStorageInfo;
 import org.example.userservice.dto.UserUpdateRequest;
@@ -9,11 +10,13 @@ import org.example.userservice.exception.UserNotFoundException;
 import org.example.userservice.mapper.UserMapper;
 import org.example.userservice.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 @Service
 public class ProfileService {
@@ -27,6 +30,12 @@ public class ProfileService {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private StorageUsageAccumulator storageUsageAccumulator;
+
+    @Value("${user.lookup.max-batch-size:1000}")
+    private int maxBatchLookupSize;
+
     public UserResponseDTO getProfile(String email) {
         User user = userRepository.findByEmail(email)
                 .orElseThrow(() -> new UserNotFoundException("Utilisateur non trouvé"));
@@ -39,6 +48,27 @@ public class ProfileService {
         return userMapper.toResponseDTO(user);
     }
 
+    /**
+     * Users matching any of the given ids or emails, in one query. Unknown ids and
+     * emails are left out; the order of the result is unspecified.
+     */
+    public List<UserResponseDTO> getUsers(UserBatchRequest request) {
+        List<Long> ids = request.getIds() != null ? request.getIds() : List.of();
+        List<String> emails = request.getEmails() != null ? request.getEmails() : List.of();
+        if (ids.isEmpty() && emails.isEmpty()) {
+            return List.of();
+        }
+        if (ids.size() + emails.size() > maxBatchLookupSize) {
+            throw new IllegalArgumentException("At most " + maxBatchLookupSize + " users can be looked up at once");
+        }
+        // Empty IN lists are not valid SQL, so an empty side gets a value that never matches
+        return userRepository.findByIdInOrEmailIn(
+                        ids.isEmpty() ? List.of(-1L) : ids,
+                        emails.isEmpty() ? List.of("") : emails).stream()
+                .map(userMapper::toResponseDTO)
+                .toList();
+    }
+
     @Transactional
     public UserResponseDTO updateProfile(String email, UserUpdateRequest request) {
         User user = userRepository.findByEmail(email)
@@ -80,24 +110,22 @@ public class ProfileService {
         userRepository.delete(user);
     }
 
-    @Transactional
     public void updateStorageUsed(Long userId, Long sizeChange) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new UserNotFoundException("Utilisateur non trouvé"));
-        
-        long newStorageUsed = user.getStorageUsed() + sizeChange;
-        if (newStorageUsed < 0) {
-            newStorageUsed = 0;
+        if (storageUsageAccumulator.isEnabled()) {
+            // Coalesced and written by the accumulator's flush
+            storageUsageAccumulator.add(userId, sizeChange);
+            return;
+        }
+        if (userRepository.addStorageUsed(userId, sizeChange) == 0) {
+            throw new UserNotFoundException("Utilisateur non trouvé");
         }
-        user.setStorageUsed(newStorageUsed);
-        user.setUpdatedAt(LocalDateTime.now());
-        userRepository.save(user);
     }
 
     public boolean hasStorageSpace(Long userId, Long fileSize) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new UserNotFoundException("Utilisateur non trouvé"));
-        return (user.getStorageUsed() + fileSize) <= user.getMaxStorage();
+        long storageUsed = user.getStorageUsed() + storageUsageAccumulator.pendingDelta(userId);
+        return (storageUsed + fileSize) <= user.getMaxStorage();
     }
 
     public UserStorageInfo getStorageInfo(String email) {
@@ -0,0 +1,110 @@
+package org.example.userservice.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.userservice.dto.StorageDelta;
+import org.example.userservice.dto.StorageDeltaBatchResult;
+import org.example.userservice.entity.User;
+import org.example.userservice.event.UserEventPublisher;
+import org.example.userservice.repository.StorageDeltaReceiptRepository;
+import org.example.userservice.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Applies batches of storage usage changes sent by other services, over HTTP or the
+ * storage-deltas queue. Each batch is one transaction: already seen idempotency keys
+ * are skipped, the rest is summed per user and written with one UPDATE per user.
+ */
+@Service
+@Slf4j
+public class StorageDeltaService {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private StorageDeltaReceiptRepository receiptRepository;
+
+    @Autowired
+    private UserEventPublisher userEventPublisher;
+
+    @Value("${user.storage.idempotency-retention-hours:72}")
+    private long retentionHours;
+
+    @Transactional
+    public StorageDeltaBatchResult applyBatch(List<StorageDelta> deltas) {
+        if (deltas == null || deltas.isEmpty()) {
+            return StorageDeltaBatchResult.builder().build();
+        }
+        for (StorageDelta d : deltas) {
+            if (d.getUserId() == null || d.getDelta() == null
+                    || d.getIdempotencyKey() == null || d.getIdempotencyKey().isBlank()) {
+                throw new IllegalArgumentException("Each delta needs a userId, a delta and an idempotencyKey");
+            }
+        }
+
+        // A key repeated inside the batch counts once, like a key seen in an earlier batch
+        Map<String, StorageDelta> byKey = new LinkedHashMap<>();
+        deltas.forEach(d -> byKey.putIfAbsent(d.getIdempotencyKey(), d));
+        List<StorageDelta> fresh = receiptRepository.recordNew(new ArrayList<>(byKey.values()));
+
+        Map<Long, Long> perUser = fresh.stream()
+            .filter(d -> d.getDelta() != 0)
+            .collect(Collectors.groupingBy(StorageDelta::getUserId, TreeMap::new,
+                Collectors.summingLong(StorageDelta::getDelta)));
+
+        // Ascending user ids, so concurrent batches lock the rows in the same order
+        List<Long> updated = new ArrayList<>();
+        perUser.forEach((userId, delta) -> {
+            if (delta == 0) {
+                return;
+            }
+            if (userRepository.addStorageUsed(userId, delta) > 0) {
+                updated.add(userId);
+            } else {
+                log.warn("Dropped storage change of {} bytes for unknown userId {}", delta, userId);
+            }
+        });
+
+        publishAfterCommit(userRepository.findAllById(updated));
+
+        return StorageDeltaBatchResult.builder()
+            .applied(fresh.size())
+            .duplicates(deltas.size() - fresh.size())
+            .usersUpdated(updated.size())
+            .build();
+    }
+
+    @Scheduled(fixedDelayString = "${user.storage.idempotency-cleanup-interval-ms:3600000}")
+    public void purgeOldReceipts() {
+        int deleted = receiptRepository.deleteAppliedBefore(LocalDateTime.now().minusHours(retentionHours));
+        if (deleted > 0) {
+            log.info("Purged {} storage delta receipts", deleted);
+        }
+    }
+
+    /**
+     * One storage-updated event per user and batch, sent only once the new totals are committed.
+     */
+    private void publishAfterCommit(List<User> users) {
+        if (users.isEmpty()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                users.forEach(u -> userEventPublisher.publishStorageUpdated(
+                    u.getId(), u.getStorageUsed(), u.getMaxStorage()));
+            }
+        });
+    }
+}
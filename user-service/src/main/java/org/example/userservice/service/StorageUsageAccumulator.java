@@ -0,0 +1,72 @@
+package org.example.userservice.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.userservice.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Optional coalescing of storage usage deltas (user.storage.accumulator.enabled).
+ * Deltas are added to a per-user LongAdder, which spreads concurrent updates over
+ * striped cells instead of one contended value, and are written to the users table
+ * with one atomic UPDATE per user every flush interval. storage_used therefore lags by
+ * up to one interval; pendingDelta() lets readers include what is not written yet.
+ *
+ * Entries are kept once created (one small object per active user) so that a
+ * concurrent add can never land in an adder that has just been removed.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class StorageUsageAccumulator {
+
+    private final UserRepository userRepository;
+    private final Map<Long, LongAdder> pending = new ConcurrentHashMap<>();
+
+    @Value("${user.storage.accumulator.enabled:false}")
+    private boolean enabled;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void add(Long userId, long delta) {
+        pending.computeIfAbsent(userId, id -> new LongAdder()).add(delta);
+    }
+
+    public long pendingDelta(Long userId) {
+        LongAdder adder = pending.get(userId);
+        return adder != null ? adder.sum() : 0L;
+    }
+
+    @Scheduled(fixedDelayString = "${user.storage.accumulator.flush-interval-ms:1000}")
+    public void flush() {
+        pending.forEach((userId, adder) -> {
+            long delta = adder.sumThenReset();
+            if (delta == 0) {
+                return;
+            }
+            try {
+                if (userRepository.addStorageUsed(userId, delta) == 0) {
+                    log.warn("Dropped storage change of {} bytes for unknown userId {}", delta, userId);
+                }
+            } catch (Exception e) {
+                // Keep it for the next flush
+                adder.add(delta);
+                log.warn("Could not write storage change for userId {}: {}", userId, e.getMessage());
+            }
+        });
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+}
@@ -0,0 +1,149 @@
+package org.example.userservice.service;
+
+import org.example.userservice.dto.StorageDelta;
+import org.example.userservice.dto.StorageDeltaBatchResult;
+import org.example.userservice.entity.User;
+import org.example.userservice.event.UserEventPublisher;
+import org.example.userservice.repository.StorageDeltaReceiptRepository;
+import org.example.userservice.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs batches through the real receipt repository over a JdbcTemplate mock that behaves
+ * like the receipt table's ON CONFLICT DO NOTHING insert.
+ */
+class StorageDeltaServiceTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final UserEventPublisher userEventPublisher = mock(UserEventPublisher.class);
+    private final Set<String> recordedKeys = new HashSet<>();
+    private final Map<Long, Long> storageUsed = new HashMap<>(Map.of(1L, 0L, 2L, 0L));
+
+    private StorageDeltaService storageDeltaService;
+
+    @BeforeEach
+    void setUp() {
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenAnswer(invocation -> {
+            List<Object[]> rows = invocation.getArgument(1);
+            return rows.stream().mapToInt(row -> recordedKeys.add((String) row[0]) ? 1 : 0).toArray();
+        });
+        when(userRepository.addStorageUsed(any(), anyLong())).thenAnswer(invocation -> {
+            Long userId = invocation.getArgument(0);
+            long delta = invocation.getArgument(1);
+            return storageUsed.computeIfPresent(userId, (id, used) -> used + delta) != null ? 1 : 0;
+        });
+        when(userRepository.findAllById(anyList())).thenAnswer(invocation -> invocation.<List<Long>>getArgument(0)
+            .stream()
+            .map(id -> {
+                User user = new User();
+                user.setId(id);
+                user.setStorageUsed(storageUsed.get(id));
+                return user;
+            })
+            .toList());
+
+        storageDeltaService = new StorageDeltaService();
+        ReflectionTestUtils.setField(storageDeltaService, "userRepository", userRepository);
+        ReflectionTestUtils.setField(storageDeltaService, "receiptRepository", new StorageDeltaReceiptRepository(jdbcTemplate));
+        ReflectionTestUtils.setField(storageDeltaService, "userEventPublisher", userEventPublisher);
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    @Test
+    void redeliveredBatchIsAppliedOnce() {
+        List<StorageDelta> batch = List.of(delta(1L, 100L, "a"), delta(1L, -30L, "b"), delta(2L, 5L, "c"));
+
+        StorageDeltaBatchResult first = storageDeltaService.applyBatch(batch);
+        StorageDeltaBatchResult second = storageDeltaService.applyBatch(batch);
+
+        assertThat(first.getApplied()).isEqualTo(3);
+        assertThat(first.getUsersUpdated()).isEqualTo(2);
+        assertThat(second.getApplied()).isZero();
+        assertThat(second.getDuplicates()).isEqualTo(3);
+        assertThat(storageUsed).containsEntry(1L, 70L).containsEntry(2L, 5L);
+    }
+
+    @Test
+    void partlyResentBatchAppliesOnlyTheNewChanges() {
+        storageDeltaService.applyBatch(List.of(delta(1L, 100L, "a")));
+
+        StorageDeltaBatchResult result = storageDeltaService.applyBatch(List.of(delta(1L, 100L, "a"), delta(1L, 1L, "b")));
+
+        assertThat(result.getApplied()).isEqualTo(1);
+        assertThat(result.getDuplicates()).isEqualTo(1);
+        assertThat(storageUsed).containsEntry(1L, 101L);
+    }
+
+    @Test
+    void keyRepeatedWithinABatchCountsOnce() {
+        StorageDeltaBatchResult result = storageDeltaService.applyBatch(
+            List.of(delta(1L, 100L, "a"), delta(1L, 100L, "a")));
+
+        assertThat(result.getApplied()).isEqualTo(1);
+        assertThat(result.getDuplicates()).isEqualTo(1);
+        assertThat(storageUsed).containsEntry(1L, 100L);
+    }
+
+    @Test
+    void changesForUnknownUsersAreDroppedButRecorded() {
+        StorageDeltaBatchResult result = storageDeltaService.applyBatch(
+            List.of(delta(1L, 10L, "a"), delta(99L, 10L, "b")));
+
+        assertThat(result.getUsersUpdated()).isEqualTo(1);
+        assertThat(recordedKeys).containsExactlyInAnyOrder("a", "b");
+        assertThat(storageUsed).containsOnlyKeys(1L, 2L).containsEntry(1L, 10L);
+    }
+
+    @Test
+    void storageUpdatedEventsAreSentOnlyAfterCommit() {
+        storageDeltaService.applyBatch(List.of(delta(1L, 10L, "a")));
+        verify(userEventPublisher, never()).publishStorageUpdated(any(),
+            any(), any());
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+        verify(userEventPublisher).publishStorageUpdated(1L, 10L, 0L);
+    }
+
+    @Test
+    void incompleteDeltaIsRejected() {
+        assertThatThrownBy(() -> storageDeltaService.applyBatch(List.of(delta(1L, 10L, " "))))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> storageDeltaService.applyBatch(List.of(delta(null, 10L, "a"))))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThat(recordedKeys).isEmpty();
+    }
+
+    private static StorageDelta delta(Long userId, Long delta, String key) {
+        return new StorageDelta(userId, delta, key);
+    }
+}